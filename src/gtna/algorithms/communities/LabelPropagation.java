@@ -0,0 +1,414 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * LabelPropagation.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.communities;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+import gtna.util.GraphUtils;
+import gtna.util.Parallel;
+import gtna.util.Util;
+
+import java.util.Random;
+
+/**
+ * Label propagation on the outgoing edges of a graph. Initially, every node
+ * has its own index as label. In every round, each node adopts the label
+ * with the highest weight among its neighbors where every neighbor w
+ * contributes
+ *
+ * edgeWeight(e) * nodeWeight(w) * score(w)
+ *
+ * to its label (all of them are 1 by default). The score of a node is
+ * decreased by the attenuation every time its label changes. A node's label
+ * is considered to change if it is not among the labels with the highest
+ * weight. The computation stops as soon as no label changes during a round
+ * or when the given number of rounds is exceeded. For the concurrent modes,
+ * it also stops if the number of changed labels has not reached a new
+ * minimum during the last STALL_ROUNDS rounds (i.e., the labels oscillate).
+ *
+ * Three update modes are supported:
+ *
+ * ASYNCHRONOUS: the nodes are updated one after the other in a random order
+ * (new in every round); ties are broken at random (sequential).
+ *
+ * SYNCHRONOUS: all nodes are updated concurrently based on the labels of the
+ * previous round. A node keeps its label if it is among the ones with the
+ * highest weight. Note that synchronous updates can oscillate, e.g., on
+ * bipartite components.
+ *
+ * SEMI_SYNCHRONOUS: the nodes are colored greedily such that adjacent nodes
+ * have different colors. The colors are processed one after the other and
+ * all nodes of a color are updated concurrently. Ties are handled as for
+ * SYNCHRONOUS.
+ *
+ * Labels are counted in a dense array that is reset using the list of
+ * touched labels. For the concurrent modes, ties are broken by a hash of the
+ * seed, the round, and the node so that the result does not depend on the
+ * number of threads (PARALLEL_TRANSFORMATIONS).
+ */
+public class LabelPropagation {
+	public static enum Mode {
+		ASYNCHRONOUS, SYNCHRONOUS, SEMI_SYNCHRONOUS
+	}
+
+	public static final int STALL_ROUNDS = 10;
+
+	private Adjacency adjacency;
+
+	private double[] edgeWeights;
+
+	private double[] nodeWeights;
+
+	private double attenuation;
+
+	private int[] labels;
+
+	private double[] scores;
+
+	private int rounds;
+
+	public LabelPropagation(Graph graph) {
+		this(graph.getAdjacency(), null, null, 0);
+	}
+
+	/**
+	 * @param adjacency
+	 * @param edgeWeights
+	 *            weight of every outgoing edge (by its position in the
+	 *            adjacency), null for weight 1
+	 * @param nodeWeights
+	 *            weight of every node, null for weight 1
+	 * @param attenuation
+	 *            decrease of a node's score (initially 1) whenever its label
+	 *            changes
+	 */
+	public LabelPropagation(Adjacency adjacency, double[] edgeWeights,
+			double[] nodeWeights, double attenuation) {
+		this.adjacency = adjacency;
+		this.edgeWeights = edgeWeights;
+		this.nodeWeights = nodeWeights;
+		this.attenuation = attenuation;
+	}
+
+	/**
+	 * @param mode
+	 * @param maxRounds
+	 *            maximum number of rounds
+	 * @param seed
+	 *            seed for the order of the nodes and the breaking of ties
+	 * @return label of every node (index of a node in [0, n))
+	 */
+	public int[] compute(Mode mode, long maxRounds, long seed) {
+		int n = this.adjacency.getNodeCount();
+		this.labels = new int[n];
+		for (int v = 0; v < n; v++) {
+			this.labels[v] = v;
+		}
+		this.scores = null;
+		if (this.attenuation != 0) {
+			this.scores = new double[n];
+			for (int v = 0; v < n; v++) {
+				this.scores[v] = 1.0;
+			}
+		}
+		this.rounds = 0;
+
+		switch (mode) {
+		case ASYNCHRONOUS:
+			this.asynchronous(maxRounds, seed);
+			break;
+		case SYNCHRONOUS:
+			this.synchronous(maxRounds, seed);
+			break;
+		case SEMI_SYNCHRONOUS:
+			this.semiSynchronous(maxRounds, seed);
+			break;
+		}
+		return this.labels;
+	}
+
+	/**
+	 * @return number of rounds performed by the last computation
+	 */
+	public int getRounds() {
+		return this.rounds;
+	}
+
+	private void asynchronous(long maxRounds, long seed) {
+		int n = this.labels.length;
+		Random rand = new Random(seed);
+		Counter counter = new Counter(n);
+		int[] order = new int[n];
+		for (int v = 0; v < n; v++) {
+			order[v] = v;
+		}
+		int changed = 1;
+		while (changed > 0 && this.rounds < maxRounds) {
+			for (int i = n - 1; i > 0; i--) {
+				int j = rand.nextInt(i + 1);
+				int temp = order[i];
+				order[i] = order[j];
+				order[j] = temp;
+			}
+			changed = 0;
+			for (int v : order) {
+				counter.count(v);
+				if (counter.ties == 0) {
+					continue;
+				}
+				if (!counter.containsOwn) {
+					changed++;
+					if (this.scores != null) {
+						this.scores[v] -= this.attenuation;
+					}
+				}
+				this.labels[v] = counter.best[rand.nextInt(counter.ties)];
+			}
+			this.rounds++;
+		}
+	}
+
+	private void synchronous(long maxRounds, final long seed) {
+		final int n = this.labels.length;
+		final int threads = Parallel.getThreads("PARALLEL_TRANSFORMATIONS");
+		final int tasks = Math.max(1, Math.min(threads, n));
+		final Counter[] counters = new Counter[tasks];
+		final int[][] next = new int[][] { new int[n] };
+		int changed = 1;
+		int minChanged = Integer.MAX_VALUE;
+		int stalled = 0;
+		while (changed > 0 && this.rounds < maxRounds && stalled < STALL_ROUNDS) {
+			final int round = this.rounds;
+			Parallel.run(tasks, threads, new Parallel.Task() {
+				@Override
+				public void run(int task) {
+					if (counters[task] == null) {
+						counters[task] = new Counter(n);
+					}
+					int end = Parallel.getEnd(n, tasks, task);
+					for (int v = Parallel.getStart(n, tasks, task); v < end; v++) {
+						next[0][v] = counters[task].select(v, seed, round);
+					}
+				}
+			});
+			changed = 0;
+			for (int v = 0; v < n; v++) {
+				if (next[0][v] != this.labels[v]) {
+					changed++;
+					if (this.scores != null) {
+						this.scores[v] -= this.attenuation;
+					}
+				}
+			}
+			int[] temp = this.labels;
+			this.labels = next[0];
+			next[0] = temp;
+			this.rounds++;
+			if (changed < minChanged) {
+				minChanged = changed;
+				stalled = 0;
+			} else {
+				stalled++;
+			}
+		}
+	}
+
+	private void semiSynchronous(long maxRounds, final long seed) {
+		final int n = this.labels.length;
+		int[] color = GraphUtils.color(this.adjacency, null);
+		int colors = 0;
+		for (int v = 0; v < n; v++) {
+			colors = Math.max(colors, color[v] + 1);
+		}
+		// nodes of color c are colored[colorStart[c], colorStart[c + 1])
+		int[] colorStart = new int[colors + 1];
+		for (int v = 0; v < n; v++) {
+			colorStart[color[v] + 1]++;
+		}
+		for (int c = 0; c < colors; c++) {
+			colorStart[c + 1] += colorStart[c];
+		}
+		final int[] colored = new int[n];
+		int[] next = new int[colors];
+		System.arraycopy(colorStart, 0, next, 0, colors);
+		for (int v = 0; v < n; v++) {
+			colored[next[color[v]]++] = v;
+		}
+
+		final int threads = Parallel.getThreads("PARALLEL_TRANSFORMATIONS");
+		final Counter[] counters = new Counter[threads];
+		final int[] changes = new int[threads];
+		int changed = 1;
+		int minChanged = Integer.MAX_VALUE;
+		int stalled = 0;
+		while (changed > 0 && this.rounds < maxRounds && stalled < STALL_ROUNDS) {
+			final int round = this.rounds;
+			changed = 0;
+			for (int c = 0; c < colors; c++) {
+				final int from = colorStart[c];
+				final int nodes = colorStart[c + 1] - from;
+				final int tasks = Math.max(1, Math.min(threads, nodes));
+				Parallel.run(tasks, threads, new Parallel.Task() {
+					@Override
+					public void run(int task) {
+						if (counters[task] == null) {
+							counters[task] = new Counter(n);
+						}
+						// nodes of the same color are not adjacent, i.e., their
+						// labels and scores can be updated in place
+						int end = from + Parallel.getEnd(nodes, tasks, task);
+						for (int i = from + Parallel.getStart(nodes, tasks, task); i < end; i++) {
+							int v = colored[i];
+							int label = counters[task].select(v, seed, round);
+							if (label != labels[v]) {
+								labels[v] = label;
+								changes[task]++;
+								if (scores != null) {
+									scores[v] -= attenuation;
+								}
+							}
+						}
+					}
+				});
+				for (int task = 0; task < tasks; task++) {
+					changed += changes[task];
+					changes[task] = 0;
+				}
+			}
+			this.rounds++;
+			if (changed < minChanged) {
+				minChanged = changed;
+				stalled = 0;
+			} else {
+				stalled++;
+			}
+		}
+	}
+
+	/**
+	 * @return pseudo-random number in [0, bound) determined by the seed, the
+	 *         round, and the node
+	 */
+	private static int random(long seed, int round, int node, int bound) {
+		long h = Util.mix(Util.mix(seed, round), node);
+		return (int) ((h >>> 1) % bound);
+	}
+
+	/**
+	 * Dense counter of the weights of the labels in a node's neighborhood
+	 * (one per thread).
+	 */
+	private class Counter {
+		private double[] weight;
+
+		private boolean[] counted;
+
+		private int[] touched;
+
+		// labels with the highest weight, ties of them are valid
+		private int[] best;
+
+		private int ties;
+
+		private boolean containsOwn;
+
+		private Counter(int n) {
+			this.weight = new double[n];
+			this.counted = new boolean[n];
+			this.touched = new int[n];
+			this.best = new int[n];
+		}
+
+		/**
+		 * Determines the labels with the highest (non-negative) weight among
+		 * the neighbors of the given node.
+		 *
+		 * @param v
+		 */
+		private void count(int v) {
+			int size = 0;
+			double max = 0;
+			for (int e = adjacency.getOutStart(v); e < adjacency.getOutEnd(v); e++) {
+				int w = adjacency.getOutTarget(e);
+				int label = labels[w];
+				double weight = 1.0;
+				if (edgeWeights != null) {
+					weight *= edgeWeights[e];
+				}
+				if (nodeWeights != null) {
+					weight *= nodeWeights[w];
+				}
+				if (scores != null) {
+					weight *= scores[w];
+				}
+				if (!this.counted[label]) {
+					this.counted[label] = true;
+					this.touched[size++] = label;
+				}
+				this.weight[label] += weight;
+				max = Math.max(max, this.weight[label]);
+			}
+			this.ties = 0;
+			this.containsOwn = false;
+			for (int i = 0; i < size; i++) {
+				int label = this.touched[i];
+				if (this.weight[label] == max) {
+					this.best[this.ties++] = label;
+					if (label == labels[v]) {
+						this.containsOwn = true;
+					}
+				}
+				this.weight[label] = 0;
+				this.counted[label] = false;
+			}
+		}
+
+		/**
+		 * @param v
+		 * @param seed
+		 * @param round
+		 * @return new label of the given node: its current one if it is among
+		 *         the best ones, a pseudo-random one of them otherwise
+		 */
+		private int select(int v, long seed, int round) {
+			this.count(v);
+			if (this.ties == 0 || this.containsOwn) {
+				return labels[v];
+			}
+			return this.best[random(seed, round, v, this.ties)];
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * StronglyConnectedComponents.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.components;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+
+/**
+ * Computes the strongly connected components of a graph using an iterative
+ * version of Tarjan's algorithm in O(n + m). Nodes can be excluded from the
+ * computation, i.e., they are treated as if they and their edges were
+ * removed from the graph.
+ *
+ * All buffers are allocated once so that the components can be re-computed
+ * many times for different sets of excluded nodes without creating garbage.
+ */
+public class StronglyConnectedComponents {
+	private Adjacency adjacency;
+
+	// order in which nodes were discovered (-1 if not discovered yet)
+	private int[] index;
+
+	private int[] lowlink;
+
+	private boolean[] onStack;
+
+	// nodes of the components that have not been completed yet
+	private int[] stack;
+
+	// nodes of the current DFS path and the next edge to traverse for each
+	private int[] path;
+
+	private int[] nextEdge;
+
+	// component of every node (-1 for excluded ones)
+	private int[] component;
+
+	private int[] sizes;
+
+	private int components;
+
+	public StronglyConnectedComponents(Graph graph) {
+		this(graph.getAdjacency());
+	}
+
+	public StronglyConnectedComponents(Adjacency adjacency) {
+		this.adjacency = adjacency;
+		int n = adjacency.getNodeCount();
+		this.index = new int[n];
+		this.lowlink = new int[n];
+		this.onStack = new boolean[n];
+		this.stack = new int[n];
+		this.path = new int[n];
+		this.nextEdge = new int[n];
+		this.component = new int[n];
+		this.sizes = new int[n];
+	}
+
+	/**
+	 * Computes the strongly connected components of the graph without the
+	 * excluded nodes.
+	 *
+	 * @param exclude
+	 *            nodes to exclude (null to consider all nodes)
+	 * @return number of components
+	 */
+	public int compute(boolean[] exclude) {
+		int n = this.index.length;
+		for (int v = 0; v < n; v++) {
+			this.index[v] = -1;
+			this.component[v] = -1;
+		}
+		this.components = 0;
+		int counter = 0;
+		int top = 0;
+		for (int root = 0; root < n; root++) {
+			if (this.index[root] != -1 || exclude != null && exclude[root]) {
+				continue;
+			}
+			int depth = 0;
+			this.path[depth] = root;
+			this.nextEdge[depth] = this.adjacency.getOutStart(root);
+			this.index[root] = this.lowlink[root] = counter++;
+			this.stack[top++] = root;
+			this.onStack[root] = true;
+			while (depth >= 0) {
+				int v = this.path[depth];
+				if (this.nextEdge[depth] < this.adjacency.getOutEnd(v)) {
+					int w = this.adjacency.getOutTarget(this.nextEdge[depth]++);
+					if (exclude != null && exclude[w]) {
+						continue;
+					}
+					if (this.index[w] == -1) {
+						this.index[w] = this.lowlink[w] = counter++;
+						this.stack[top++] = w;
+						this.onStack[w] = true;
+						depth++;
+						this.path[depth] = w;
+						this.nextEdge[depth] = this.adjacency.getOutStart(w);
+					} else if (this.onStack[w]) {
+						this.lowlink[v] = Math.min(this.lowlink[v],
+								this.index[w]);
+					}
+					continue;
+				}
+				if (this.lowlink[v] == this.index[v]) {
+					int size = 0;
+					int w;
+					do {
+						w = this.stack[--top];
+						this.onStack[w] = false;
+						this.component[w] = this.components;
+						size++;
+					} while (w != v);
+					this.sizes[this.components++] = size;
+				}
+				depth--;
+				if (depth >= 0) {
+					int parent = this.path[depth];
+					this.lowlink[parent] = Math.min(this.lowlink[parent],
+							this.lowlink[v]);
+				}
+			}
+		}
+		return this.components;
+	}
+
+	/**
+	 * @return number of components found by the last computation
+	 */
+	public int getComponentCount() {
+		return this.components;
+	}
+
+	/**
+	 * @param node
+	 * @return index of the node's component (-1 if it was excluded)
+	 */
+	public int getComponent(int node) {
+		return this.component[node];
+	}
+
+	/**
+	 * @param component
+	 * @return number of nodes in the given component
+	 */
+	public int getSize(int component) {
+		return this.sizes[component];
+	}
+
+	/**
+	 * @return sizes of all components of the last computation in the first
+	 *         getComponentCount() entries (shared, must not be modified)
+	 */
+	public int[] getSizes() {
+		return this.sizes;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * UnionFind.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.components;
+
+/**
+ * Union-find (disjoint-set forest) over the elements 0, ..., n - 1 using
+ * union by size and path halving. Elements are added one after the other
+ * (each one forming a component of its own) and components are merged by
+ * union(a, b).
+ *
+ * Besides the size of every component, the number of components of each
+ * size is kept in a binary indexed tree so that the size of the k-th largest
+ * component can be determined in O(log n) at any time.
+ */
+public class UnionFind {
+	// parent of every element, -1 for elements that have not been added
+	private int[] parent;
+
+	// size of the component of every root
+	private int[] size;
+
+	// binary indexed tree of the number of components of each size
+	private int[] sizes;
+
+	private int components;
+
+	private int elements;
+
+	private int largest;
+
+	public UnionFind(int n) {
+		this.parent = new int[n];
+		this.size = new int[n];
+		this.sizes = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			this.parent[i] = -1;
+		}
+	}
+
+	/**
+	 * Adds the given element as a component of its own.
+	 *
+	 * @param element
+	 */
+	public void add(int element) {
+		if (this.parent[element] != -1) {
+			return;
+		}
+		this.parent[element] = element;
+		this.size[element] = 1;
+		this.components++;
+		this.elements++;
+		this.largest = Math.max(this.largest, 1);
+		this.updateSizes(1, 1);
+	}
+
+	/**
+	 * @param element
+	 * @return true if the given element has been added
+	 */
+	public boolean contains(int element) {
+		return this.parent[element] != -1;
+	}
+
+	/**
+	 * @param element
+	 *            element that has been added
+	 * @return representative (root) of the element's component
+	 */
+	public int find(int element) {
+		while (this.parent[element] != element) {
+			this.parent[element] = this.parent[this.parent[element]];
+			element = this.parent[element];
+		}
+		return element;
+	}
+
+	/**
+	 * Merges the components of the two given elements (both must have been
+	 * added).
+	 *
+	 * @param a
+	 * @param b
+	 * @return true if the two elements were in different components before
+	 */
+	public boolean union(int a, int b) {
+		a = this.find(a);
+		b = this.find(b);
+		if (a == b) {
+			return false;
+		}
+		if (this.size[a] < this.size[b]) {
+			int temp = a;
+			a = b;
+			b = temp;
+		}
+		this.updateSizes(this.size[a], -1);
+		this.updateSizes(this.size[b], -1);
+		this.parent[b] = a;
+		this.size[a] += this.size[b];
+		this.updateSizes(this.size[a], 1);
+		this.components--;
+		this.largest = Math.max(this.largest, this.size[a]);
+		return true;
+	}
+
+	private void updateSizes(int size, int delta) {
+		for (int i = size; i < this.sizes.length; i += i & -i) {
+			this.sizes[i] += delta;
+		}
+	}
+
+	/**
+	 * @param element
+	 *            element that has been added
+	 * @return size of the element's component
+	 */
+	public int getSize(int element) {
+		return this.size[this.find(element)];
+	}
+
+	/**
+	 * @param rank
+	 *            rank of the component in descending order of size, starting
+	 *            at 0 for the largest one
+	 * @return size of the component with the given rank
+	 */
+	public int getSizeByRank(int rank) {
+		// the (components - rank)-th smallest size
+		int remaining = this.components - rank;
+		int position = 0;
+		int step = Integer.highestOneBit(this.sizes.length);
+		for (; step > 0; step >>= 1) {
+			int next = position + step;
+			if (next < this.sizes.length && this.sizes[next] < remaining) {
+				position = next;
+				remaining -= this.sizes[next];
+			}
+		}
+		return position + 1;
+	}
+
+	/**
+	 * @return number of components
+	 */
+	public int getComponentCount() {
+		return this.components;
+	}
+
+	/**
+	 * @return number of elements that have been added
+	 */
+	public int getElementCount() {
+		return this.elements;
+	}
+
+	/**
+	 * @return size of the largest component (0 if there are no elements)
+	 */
+	public int getLargestSize() {
+		return this.largest;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * EndpointArray.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.generation;
+
+import gtna.graph.Edges;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Repeated-endpoint array of an undirected graph (Batagelj and Brandes,
+ * "Efficient generation of large random networks", 2005): edge i is stored
+ * as the two entries 2i and 2i + 1, hence every node occurs as often as its
+ * degree. Picking a uniformly random entry selects a node with probability
+ * proportional to its degree in O(1), without maintaining any sums.
+ *
+ * Since the edges are appended in the order they are created, sampling from
+ * the entries of the first e edges selects a node proportional to its degree
+ * at the time the graph had e edges. The array also serves as the edge list
+ * of the generated graph (multi-edges are removed when filling the edges
+ * into the nodes).
+ */
+public class EndpointArray {
+	private int[] endpoints;
+
+	private int size;
+
+	/**
+	 * @param expectedEdges
+	 *            expected number of (undirected) edges
+	 */
+	public EndpointArray(int expectedEdges) {
+		this.endpoints = new int[Math.max(16, 2 * expectedEdges)];
+		this.size = 0;
+	}
+
+	/**
+	 * Appends the undirected edge (src, dst).
+	 *
+	 * @param src
+	 * @param dst
+	 */
+	public void add(int src, int dst) {
+		if (this.size + 2 > this.endpoints.length) {
+			long capacity = Math.min(Integer.MAX_VALUE - 8,
+					2L * this.endpoints.length);
+			if (capacity < this.size + 2) {
+				throw new IllegalStateException("too many edges");
+			}
+			this.endpoints = Arrays.copyOf(this.endpoints, (int) capacity);
+		}
+		this.endpoints[this.size++] = src;
+		this.endpoints[this.size++] = dst;
+	}
+
+	/**
+	 * @return number of edges added so far
+	 */
+	public int getEdgeCount() {
+		return this.size / 2;
+	}
+
+	public int getSrc(int edge) {
+		return this.endpoints[2 * edge];
+	}
+
+	public int getDst(int edge) {
+		return this.endpoints[2 * edge + 1];
+	}
+
+	/**
+	 * @param rand
+	 * @return node selected with probability proportional to its degree (-1
+	 *         in case there are no edges)
+	 */
+	public int sample(Random rand) {
+		return this.sample(rand, this.size / 2);
+	}
+
+	/**
+	 * @param rand
+	 * @param edges
+	 *            number of edges to consider (the first ones added)
+	 * @return node selected with probability proportional to its degree in
+	 *         the graph consisting of the first edges (-1 in case there are
+	 *         no edges)
+	 */
+	public int sample(Random rand, int edges) {
+		if (edges <= 0) {
+			return -1;
+		}
+		return this.endpoints[rand.nextInt(2 * edges)];
+	}
+
+	/**
+	 * Adds all edges (in both directions) to the given edges. These should be
+	 * created using sortAndDeduplicate to avoid hashing every edge.
+	 *
+	 * @param edges
+	 */
+	public void addTo(Edges edges) {
+		for (int i = 0; i < this.size; i += 2) {
+			edges.add(this.endpoints[i], this.endpoints[i + 1]);
+			edges.add(this.endpoints[i + 1], this.endpoints[i]);
+		}
+	}
+}
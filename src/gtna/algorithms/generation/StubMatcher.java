@@ -0,0 +1,174 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * StubMatcher.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.generation;
+
+import java.util.Random;
+
+/**
+ * Configuration model: every node receives as many stubs (half-edges) as its
+ * degree and the stubs are matched uniformly at random. The stubs are kept
+ * in a single int array that is shuffled once (Fisher-Yates), hence the
+ * matching takes O(m) time and no objects are allocated per stub.
+ *
+ * For undirected graphs, loops are removed by exchanging one of their stubs
+ * with a stub of another randomly chosen pair. Multi-edges are kept in the
+ * matching, they are removed when the edges are filled into the nodes.
+ */
+public class StubMatcher {
+	// attempts to re-match the stubs of a single loop
+	private static final int LOOP_ATTEMPTS = 1000;
+
+	/**
+	 * @param degrees
+	 *            degree of every node
+	 * @return array containing node i degrees[i] times (in order)
+	 */
+	public static int[] getStubs(int[] degrees) {
+		long sum = 0;
+		for (int d : degrees) {
+			if (d < 0) {
+				throw new IllegalArgumentException("negative degree " + d);
+			}
+			sum += d;
+		}
+		if (sum > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("too many stubs: " + sum);
+		}
+		int[] stubs = new int[(int) sum];
+		int index = 0;
+		for (int i = 0; i < degrees.length; i++) {
+			for (int j = 0; j < degrees[i]; j++) {
+				stubs[index++] = i;
+			}
+		}
+		return stubs;
+	}
+
+	/**
+	 * Shuffles the given array in place (Fisher-Yates).
+	 *
+	 * @param array
+	 * @param rand
+	 */
+	public static void shuffle(int[] array, Random rand) {
+		for (int i = array.length - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			int temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
+	/**
+	 * Matches the stubs of an undirected graph without loops: the edges of
+	 * the result are (stubs[2i], stubs[2i + 1]).
+	 *
+	 * @param degrees
+	 *            degree of every node (the sum must be even)
+	 * @param rand
+	 * @param restarts
+	 *            number of times the matching is started again in case a
+	 *            loop cannot be removed
+	 * @return matched stubs
+	 * @throws IllegalArgumentException
+	 *             in case no matching without loops has been found
+	 */
+	public static int[] match(int[] degrees, Random rand, int restarts) {
+		int[] stubs = StubMatcher.getStubs(degrees);
+		if (stubs.length % 2 != 0) {
+			throw new IllegalArgumentException(
+					"Graph construction not possible");
+		}
+		for (int run = 0; run <= restarts; run++) {
+			StubMatcher.shuffle(stubs, rand);
+			if (StubMatcher.removeLoops(stubs, rand)) {
+				return stubs;
+			}
+		}
+		throw new IllegalArgumentException("Graph construction not possible");
+	}
+
+	/**
+	 * Matches the out-stubs of a directed graph to its in-stubs: the edges of
+	 * the result are (src[i], dst[i]). Loops are not removed.
+	 *
+	 * @param out
+	 *            out-degree of every node
+	 * @param in
+	 *            in-degree of every node (same sum as out)
+	 * @param rand
+	 * @return {src, dst}
+	 */
+	public static int[][] matchDirected(int[] out, int[] in, Random rand) {
+		int[] src = StubMatcher.getStubs(out);
+		int[] dst = StubMatcher.getStubs(in);
+		if (src.length != dst.length) {
+			throw new IllegalArgumentException(
+					"Graph construction not possible");
+		}
+		StubMatcher.shuffle(dst, rand);
+		return new int[][] { src, dst };
+	}
+
+	/**
+	 * @return false in case a loop could not be removed
+	 */
+	private static boolean removeLoops(int[] stubs, Random rand) {
+		int pairs = stubs.length / 2;
+		for (int p = 0; p < pairs; p++) {
+			int a = stubs[2 * p];
+			if (a != stubs[2 * p + 1]) {
+				continue;
+			}
+			boolean removed = false;
+			for (int attempt = 0; attempt < LOOP_ATTEMPTS && !removed; attempt++) {
+				int q = rand.nextInt(pairs);
+				int c = stubs[2 * q];
+				int d = stubs[2 * q + 1];
+				// (a, a) and (c, d) become (a, c) and (a, d)
+				if (c != a && d != a) {
+					stubs[2 * p + 1] = c;
+					stubs[2 * q] = a;
+					removed = true;
+				}
+			}
+			if (!removed) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * WeightedSampler.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.generation;
+
+import java.util.Random;
+
+/**
+ * Selects indices with probability proportional to non-negative weights that
+ * can be changed at any time. The weights are kept in a Fenwick tree (binary
+ * indexed tree), so updating a weight and drawing an index both take
+ * O(log n) instead of summing up all weights for every draw.
+ *
+ * This is used by growth models whose preference is not linear in the degree
+ * of a node (e.g., positive-feedback preference) and can therefore not be
+ * sampled from an EndpointArray.
+ */
+public class WeightedSampler {
+	// failed draws after which the sums are re-computed
+	private static final int MAX_ATTEMPTS = 16;
+
+	private double[] weights;
+
+	// tree[i] (1-based) holds the sum of the weights in (i - lowbit(i), i]
+	private double[] tree;
+
+	private int highestBit;
+
+	private double total;
+
+	/**
+	 * @param size
+	 *            number of indices (all weights are initially 0)
+	 */
+	public WeightedSampler(int size) {
+		this.weights = new double[size];
+		this.tree = new double[size + 1];
+		this.highestBit = Integer.highestOneBit(Math.max(1, size));
+		this.total = 0;
+	}
+
+	public int size() {
+		return this.weights.length;
+	}
+
+	public double get(int index) {
+		return this.weights[index];
+	}
+
+	/**
+	 * @return sum of all weights
+	 */
+	public double getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * @param index
+	 * @param weight
+	 *            new (non-negative and finite) weight of the index
+	 */
+	public void set(int index, double weight) {
+		double delta = weight - this.weights[index];
+		if (delta == 0) {
+			return;
+		}
+		this.weights[index] = weight;
+		this.total += delta;
+		for (int i = index + 1; i < this.tree.length; i += i & -i) {
+			this.tree[i] += delta;
+		}
+	}
+
+	/**
+	 * @param rand
+	 * @return index selected with probability proportional to its weight (-1
+	 *         in case all weights are 0)
+	 */
+	public int sample(Random rand) {
+		for (int attempt = 0;; attempt++) {
+			if (attempt == MAX_ATTEMPTS) {
+				this.rebuild();
+			}
+			if (this.total <= 0) {
+				return -1;
+			}
+			double r = rand.nextDouble() * this.total;
+			int pos = 0;
+			for (int bit = this.highestBit; bit > 0; bit >>= 1) {
+				int next = pos + bit;
+				if (next < this.tree.length && this.tree[next] <= r) {
+					pos = next;
+					r -= this.tree[next];
+				}
+			}
+			// rounding errors of the accumulated sums can lead beyond the
+			// last index or to an index with weight 0, both are re-drawn
+			if (pos < this.weights.length && this.weights[pos] > 0) {
+				return pos;
+			}
+		}
+	}
+
+	/**
+	 * Re-computes all sums from the weights to get rid of accumulated
+	 * rounding errors.
+	 */
+	private void rebuild() {
+		this.total = 0;
+		for (int i = 1; i < this.tree.length; i++) {
+			this.tree[i] = this.weights[i - 1];
+			this.total += this.weights[i - 1];
+		}
+		for (int i = 1; i < this.tree.length; i++) {
+			int parent = i + (i & -i);
+			if (parent < this.tree.length) {
+				this.tree[parent] += this.tree[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * AllPairsBreadthFirstSearch.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.shortestPaths;
+
+import gtna.graph.Adjacency;
+import gtna.util.Parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Engine for executing a breadth-first search from many sources of an
+ * unweighted graph. The sources are split among several tasks (executed
+ * using gtna.util.Parallel), each of them owning a single Search object
+ * whose buffers are re-used for all of its sources. Instead of re-allocating
+ * or clearing the visited array for every source, nodes are marked with the
+ * number of the current search (epoch stamp).
+ *
+ * After each search, a Visitor (one instance per task) is handed the result
+ * so that it can accumulate whatever statistics it requires. The visitors
+ * are returned so that their results can be merged by the caller.
+ *
+ * Optionally, the direction-optimizing BFS of Beamer et al. ("Direction-
+ * Optimizing Breadth-First Search", SC 2012) can be used, which switches to
+ * bottom-up steps (unvisited nodes look for a parent in the frontier) while
+ * the frontier is large. This pays off for low-diameter graphs.
+ */
+public class AllPairsBreadthFirstSearch {
+	/**
+	 * Receives the result of every search executed by a single task.
+	 */
+	public static interface Visitor {
+		/**
+		 * @param source
+		 *            source of the search
+		 * @param search
+		 *            result of the search (only valid during this call)
+		 */
+		public void visit(int source, Search search);
+	}
+
+	public static interface VisitorFactory<V extends Visitor> {
+		/**
+		 * @return a new visitor for a single task
+		 */
+		public V create();
+	}
+
+	// Beamer et al.: switch to bottom-up if m_f > m_u / ALPHA, back to
+	// top-down if n_f < n / BETA
+	private static final int ALPHA = 14;
+
+	private static final int BETA = 24;
+
+	private Adjacency adjacency;
+
+	private boolean directionOptimizing;
+
+	private int threads;
+
+	/**
+	 * @param adjacency
+	 *            adjacency of the graph
+	 * @param directionOptimizing
+	 *            use bottom-up steps for large frontiers
+	 * @param threads
+	 *            number of threads to use
+	 */
+	public AllPairsBreadthFirstSearch(Adjacency adjacency,
+			boolean directionOptimizing, int threads) {
+		this.adjacency = adjacency;
+		this.directionOptimizing = directionOptimizing;
+		this.threads = threads;
+	}
+
+	/**
+	 * Executes a BFS from all nodes of the graph.
+	 *
+	 * @param factory
+	 *            creates one visitor per task
+	 * @return the visitors of all tasks
+	 */
+	public <V extends Visitor> ArrayList<V> run(VisitorFactory<V> factory) {
+		int[] sources = new int[this.adjacency.getNodeCount()];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = i;
+		}
+		return this.run(sources, factory);
+	}
+
+	/**
+	 * Executes a BFS from each of the given sources.
+	 *
+	 * @param sources
+	 *            sources to start a BFS from
+	 * @param factory
+	 *            creates one visitor per task
+	 * @return the visitors of all tasks
+	 */
+	public <V extends Visitor> ArrayList<V> run(final int[] sources,
+			VisitorFactory<V> factory) {
+		final int tasks = Math.max(1, Math.min(this.threads, sources.length));
+		final ArrayList<V> visitors = new ArrayList<V>(tasks);
+		for (int i = 0; i < tasks; i++) {
+			visitors.add(factory.create());
+		}
+		Parallel.run(tasks, this.threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				Search search = new Search(adjacency, directionOptimizing);
+				Visitor visitor = visitors.get(task);
+				// interleaved assignment to balance sources of different cost
+				for (int i = task; i < sources.length; i += tasks) {
+					search.search(sources[i]);
+					visitor.visit(sources[i], search);
+				}
+			}
+		});
+		return visitors;
+	}
+
+	/**
+	 * Re-usable buffers of a single BFS. The reached nodes are stored in
+	 * order of their distance, nodes with distance d are found at positions
+	 * [getLevelStart(d), getLevelEnd(d)).
+	 */
+	public static class Search {
+		private Adjacency adjacency;
+
+		private boolean directionOptimizing;
+
+		private int[] stamp;
+
+		private int epoch;
+
+		private int[] distance;
+
+		// int ring buffer which is never wrapped since every node is
+		// enqueued at most once, hence it is the BFS order as well
+		private int[] queue;
+
+		private int reached;
+
+		// levelStart[d] is the position of the first node with distance d
+		private int[] levelStart;
+
+		private int levels;
+
+		public Search(Adjacency adjacency, boolean directionOptimizing) {
+			int n = adjacency.getNodeCount();
+			this.adjacency = adjacency;
+			this.directionOptimizing = directionOptimizing;
+			this.stamp = new int[n];
+			this.epoch = 0;
+			this.distance = new int[n];
+			this.queue = new int[n];
+			this.levelStart = new int[16];
+		}
+
+		/**
+		 * Executes a BFS from the given source, overwriting the result of the
+		 * previous search.
+		 *
+		 * @param source
+		 */
+		public void search(int source) {
+			if (++this.epoch == Integer.MAX_VALUE) {
+				Arrays.fill(this.stamp, 0);
+				this.epoch = 1;
+			}
+			this.stamp[source] = this.epoch;
+			this.distance[source] = 0;
+			this.queue[0] = source;
+			this.reached = 1;
+			this.levels = 0;
+			this.setLevelStart(0, 0);
+
+			int n = this.adjacency.getNodeCount();
+			long unexploredEdges = this.adjacency.getEdgeCount()
+					- this.adjacency.getOutDegree(source);
+			long frontierEdges = this.adjacency.getOutDegree(source);
+			boolean bottomUp = false;
+
+			int frontierStart = 0;
+			while (frontierStart < this.reached) {
+				int frontierEnd = this.reached;
+				int d = this.distance[this.queue[frontierStart]];
+				this.setLevelStart(d + 1, frontierEnd);
+				if (this.directionOptimizing) {
+					int frontierNodes = frontierEnd - frontierStart;
+					if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+						bottomUp = true;
+					} else if (bottomUp && frontierNodes < n / BETA) {
+						bottomUp = false;
+					}
+				}
+				if (bottomUp) {
+					this.bottomUpStep(d);
+				} else {
+					this.topDownStep(frontierStart, frontierEnd, d);
+				}
+				if (this.directionOptimizing) {
+					frontierEdges = 0;
+					for (int i = frontierEnd; i < this.reached; i++) {
+						frontierEdges += this.adjacency
+								.getOutDegree(this.queue[i]);
+					}
+					unexploredEdges -= frontierEdges;
+				}
+				frontierStart = frontierEnd;
+			}
+			this.levels = this.reached > 0 ? this.distance[this.queue[this.reached - 1]] + 1
+					: 0;
+		}
+
+		private void topDownStep(int frontierStart, int frontierEnd, int d) {
+			for (int j = frontierStart; j < frontierEnd; j++) {
+				int v = this.queue[j];
+				for (int i = this.adjacency.getOutStart(v); i < this.adjacency
+						.getOutEnd(v); i++) {
+					int w = this.adjacency.getOutTarget(i);
+					if (this.stamp[w] != this.epoch) {
+						this.stamp[w] = this.epoch;
+						this.distance[w] = d + 1;
+						this.queue[this.reached++] = w;
+					}
+				}
+			}
+		}
+
+		private void bottomUpStep(int d) {
+			int n = this.adjacency.getNodeCount();
+			for (int w = 0; w < n; w++) {
+				if (this.stamp[w] == this.epoch) {
+					continue;
+				}
+				for (int i = this.adjacency.getInStart(w); i < this.adjacency
+						.getInEnd(w); i++) {
+					int v = this.adjacency.getInSource(i);
+					if (this.stamp[v] == this.epoch && this.distance[v] == d) {
+						this.stamp[w] = this.epoch;
+						this.distance[w] = d + 1;
+						this.queue[this.reached++] = w;
+						break;
+					}
+				}
+			}
+		}
+
+		private void setLevelStart(int level, int position) {
+			if (level >= this.levelStart.length) {
+				this.levelStart = Arrays.copyOf(this.levelStart,
+						this.levelStart.length * 2);
+			}
+			this.levelStart[level] = position;
+		}
+
+		/**
+		 * @return number of nodes reached (including the source)
+		 */
+		public int getReached() {
+			return this.reached;
+		}
+
+		/**
+		 * @param position
+		 *            position in [0, getReached())
+		 * @return node reached at the given position
+		 */
+		public int getNode(int position) {
+			return this.queue[position];
+		}
+
+		/**
+		 * @param node
+		 * @return distance of the node from the source or -1 in case it has
+		 *         not been reached
+		 */
+		public int getDistance(int node) {
+			if (this.stamp[node] != this.epoch) {
+				return -1;
+			}
+			return this.distance[node];
+		}
+
+		/**
+		 * @return number of distinct distances, i.e., eccentricity of the
+		 *         source + 1
+		 */
+		public int getLevels() {
+			return this.levels;
+		}
+
+		/**
+		 * @param d
+		 *            distance in [0, getLevels())
+		 * @return position of the first node with distance d
+		 */
+		public int getLevelStart(int d) {
+			return this.levelStart[d];
+		}
+
+		/**
+		 * @param d
+		 *            distance in [0, getLevels())
+		 * @return position after the last node with distance d
+		 */
+		public int getLevelEnd(int d) {
+			return d + 1 < this.levels ? this.levelStart[d + 1] : this.reached;
+		}
+	}
+}
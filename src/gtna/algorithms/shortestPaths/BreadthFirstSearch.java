@@ -35,11 +35,11 @@
  */
 package gtna.algorithms.shortestPaths;
 
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
 import gtna.routing.table.RoutingTables;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
 
 /**
  * @author benni
@@ -49,22 +49,27 @@ public class BreadthFirstSearch extends ShortestPathsAlgorithm {
 
 	@Override
 	public int[][] getShortestPaths(Graph graph, int start) {
+		Adjacency adjacency = graph.getAdjacency();
 		int[] dist = new int[graph.getNodeCount()];
 		int[] previous = new int[graph.getNodeCount()];
 		int[] nextHop = new int[graph.getNodeCount()];
-		boolean[] seen = new boolean[graph.getNodeCount()];
-		Queue<Integer> queue = new LinkedList<Integer>();
+		// nodes that are not reachable have neither previous nor next hop
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		Arrays.fill(previous, RoutingTables.noRoute);
+		Arrays.fill(nextHop, RoutingTables.noRoute);
+		int[] queue = new int[graph.getNodeCount()];
+		int head = 0;
+		int tail = 0;
 
 		dist[start] = 0;
-		previous[start] = RoutingTables.noRoute;
-		nextHop[start] = RoutingTables.noRoute;
-		seen[start] = true;
-		queue.add(start);
+		queue[tail++] = start;
 
-		while (!queue.isEmpty()) {
-			int current = queue.poll();
-			for (int out : graph.getNode(current).getOutgoingEdges()) {
-				if (seen[out]) {
+		while (head < tail) {
+			int current = queue[head++];
+			for (int i = adjacency.getOutStart(current); i < adjacency
+					.getOutEnd(current); i++) {
+				int out = adjacency.getOutTarget(i);
+				if (dist[out] != Integer.MAX_VALUE) {
 					continue;
 				}
 				dist[out] = dist[current] + 1;
@@ -74,8 +79,7 @@ public class BreadthFirstSearch extends ShortestPathsAlgorithm {
 				} else {
 					nextHop[out] = nextHop[current];
 				}
-				seen[out] = true;
-				queue.add(out);
+				queue[tail++] = out;
 			}
 		}
 
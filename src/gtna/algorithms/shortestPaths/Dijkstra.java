@@ -35,72 +35,251 @@
  */
 package gtna.algorithms.shortestPaths;
 
+import gtna.graph.Adjacency;
+import gtna.graph.Edge;
 import gtna.graph.Graph;
+import gtna.graph.weights.EdgeWeights;
 import gtna.routing.table.RoutingTables;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * @author benni
  * 
  * http://en.wikipedia.org/wiki/Dijkstra's_algorithm#Pseudocode
+ * 
+ * The unvisited nodes are kept in an indexed binary heap (supporting
+ * decrease-key) so that each source requires O((n + m) log n) operations.
+ * Without edge weights, all edges have length 1 and the priority queue
+ * degenerates to a FIFO queue (a bucket queue with a single bucket per
+ * distance) which is used instead.
+ * 
+ * In case edge weights are given, dist contains the number of hops of the
+ * selected (lightest) path and the weighted distances can be obtained using
+ * getDistances(...).
  */
 public class Dijkstra extends ShortestPathsAlgorithm {
+	private EdgeWeights weights;
+
+	// weights aligned with the out-edges of the adjacency they were
+	// created for
+	private Adjacency weightsAdjacency;
+
+	private double[] edgeWeights;
+
+	public Dijkstra() {
+		this(null);
+	}
+
+	/**
+	 * @param weights
+	 *            non-negative edge weights (null for unit weights)
+	 */
+	public Dijkstra(EdgeWeights weights) {
+		this.weights = weights;
+	}
 
 	@Override
 	public int[][] getShortestPaths(Graph graph, int start) {
-		int[] dist = new int[graph.getNodeCount()];
-		int[] previous = new int[graph.getNodeCount()];
-		int[] nextHop = new int[graph.getNodeCount()];
-		Set<Integer> Q = new HashSet<Integer>();
-
-		for (int i = 0; i < graph.getNodeCount(); i++) {
-			dist[i] = Integer.MAX_VALUE;
-			previous[i] = RoutingTables.noRoute;
-			nextHop[i] = RoutingTables.noRoute;
-			Q.add(i);
-		}
+		int n = graph.getNodeCount();
+		int[] dist = new int[n];
+		int[] previous = new int[n];
+		int[] nextHop = new int[n];
+		this.search(graph, start, new double[n], dist, previous, nextHop);
+		return new int[][] { dist, previous, nextHop };
+	}
+
+	/**
+	 * @param graph
+	 * @param start
+	 * @return weighted distance from $start to all nodes
+	 *         (Double.POSITIVE_INFINITY if not reachable)
+	 */
+	public double[] getDistances(Graph graph, int start) {
+		int n = graph.getNodeCount();
+		double[] distance = new double[n];
+		this.search(graph, start, distance, new int[n], new int[n], new int[n]);
+		return distance;
+	}
 
+	@Override
+	protected void prepare(Graph graph) {
+		this.getEdgeWeights(graph.getAdjacency());
+	}
+
+	private void search(Graph graph, int start, double[] distance,
+			int[] dist, int[] previous, int[] nextHop) {
+		Adjacency adjacency = graph.getAdjacency();
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		Arrays.fill(previous, RoutingTables.noRoute);
+		Arrays.fill(nextHop, RoutingTables.noRoute);
+
+		distance[start] = 0;
 		dist[start] = 0;
 		nextHop[start] = start;
 
-		Set<Integer> neighbors = new HashSet<Integer>();
-		for (int out : graph.getNode(start).getOutgoingEdges()) {
-			neighbors.add(out);
+		if (this.weights == null) {
+			int[] queue = new int[adjacency.getNodeCount()];
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = start;
+			while (head < tail) {
+				int u = queue[head++];
+				for (int i = adjacency.getOutStart(u); i < adjacency
+						.getOutEnd(u); i++) {
+					int v = adjacency.getOutTarget(i);
+					if (dist[v] != Integer.MAX_VALUE) {
+						continue;
+					}
+					dist[v] = dist[u] + 1;
+					distance[v] = dist[v];
+					this.setPrevious(start, u, v, previous, nextHop);
+					queue[tail++] = v;
+				}
+			}
+			return;
 		}
 
+		double[] edgeWeights = this.getEdgeWeights(adjacency);
+		IndexedHeap Q = new IndexedHeap(distance);
+		Q.insert(start);
 		while (!Q.isEmpty()) {
-			int u = Dijkstra.getMinElement(Q, dist);
-			Q.remove(u);
-
-			if (dist[u] == Integer.MAX_VALUE)
-				break;
-
-			for (int v : graph.getNode(u).getOutgoingEdges()) {
-				int alt = dist[u] + 1;
-				if (alt < dist[v]) {
-					dist[v] = alt;
-					previous[v] = u;
-					if (u == start) {
-						nextHop[v] = v;
+			int u = Q.poll();
+			for (int i = adjacency.getOutStart(u); i < adjacency.getOutEnd(u); i++) {
+				int v = adjacency.getOutTarget(i);
+				double alt = distance[u] + edgeWeights[i];
+				if (alt < distance[v]) {
+					boolean queued = distance[v] != Double.POSITIVE_INFINITY;
+					distance[v] = alt;
+					dist[v] = dist[u] + 1;
+					this.setPrevious(start, u, v, previous, nextHop);
+					if (queued) {
+						Q.decreaseKey(v);
 					} else {
-						nextHop[v] = nextHop[u];
+						Q.insert(v);
 					}
 				}
 			}
 		}
+	}
 
-		return new int[][] { dist, previous, nextHop };
+	private void setPrevious(int start, int u, int v, int[] previous,
+			int[] nextHop) {
+		previous[v] = u;
+		if (u == start) {
+			nextHop[v] = v;
+		} else {
+			nextHop[v] = nextHop[u];
+		}
+	}
+
+	private synchronized double[] getEdgeWeights(Adjacency adjacency) {
+		if (this.weights == null) {
+			return null;
+		}
+		if (this.weightsAdjacency != adjacency) {
+			double[] edgeWeights = this.weights.getWeights(adjacency);
+			for (int u = 0; u < adjacency.getNodeCount(); u++) {
+				for (int i = adjacency.getOutStart(u); i < adjacency
+						.getOutEnd(u); i++) {
+					if (edgeWeights[i] < 0) {
+						throw new IllegalArgumentException(
+								"negative weight for edge "
+										+ Edge.toString(u,
+												adjacency.getOutTarget(i)));
+					}
+				}
+			}
+			this.edgeWeights = edgeWeights;
+			this.weightsAdjacency = adjacency;
+		}
+		return this.edgeWeights;
 	}
 
-	private static int getMinElement(Set<Integer> Q, int[] dist) {
-		int min = Q.iterator().next();
-		for (int element : Q) {
-			if (dist[element] < dist[min]) {
-				min = element;
+	/**
+	 * Binary min-heap of node indices ordered by their key, the position of
+	 * each node in the heap is stored to support decreaseKey in O(log n).
+	 */
+	private static class IndexedHeap {
+		private double[] key;
+
+		private int[] heap;
+
+		private int[] position;
+
+		private int size;
+
+		private IndexedHeap(double[] key) {
+			this.key = key;
+			this.heap = new int[key.length];
+			this.position = new int[key.length];
+			this.size = 0;
+		}
+
+		private boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		private void insert(int node) {
+			this.heap[this.size] = node;
+			this.position[node] = this.size;
+			this.size++;
+			this.up(this.size - 1);
+		}
+
+		private void decreaseKey(int node) {
+			this.up(this.position[node]);
+		}
+
+		private int poll() {
+			int min = this.heap[0];
+			this.size--;
+			if (this.size > 0) {
+				this.heap[0] = this.heap[this.size];
+				this.position[this.heap[0]] = 0;
+				this.down(0);
+			}
+			return min;
+		}
+
+		private void up(int i) {
+			int node = this.heap[i];
+			double k = this.key[node];
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (this.key[this.heap[parent]] <= k) {
+					break;
+				}
+				this.heap[i] = this.heap[parent];
+				this.position[this.heap[i]] = i;
+				i = parent;
+			}
+			this.heap[i] = node;
+			this.position[node] = i;
+		}
+
+		private void down(int i) {
+			int node = this.heap[i];
+			double k = this.key[node];
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= this.size) {
+					break;
+				}
+				if (child + 1 < this.size
+						&& this.key[this.heap[child + 1]] < this.key[this.heap[child]]) {
+					child++;
+				}
+				if (this.key[this.heap[child]] >= k) {
+					break;
+				}
+				this.heap[i] = this.heap[child];
+				this.position[this.heap[i]] = i;
+				i = child;
 			}
+			this.heap[i] = node;
+			this.position[node] = i;
 		}
-		return min;
 	}
 }
@@ -0,0 +1,271 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * HyperANF.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.shortestPaths;
+
+import gtna.graph.Adjacency;
+import gtna.util.Parallel;
+
+import java.util.Arrays;
+
+/**
+ * Approximates the neighbourhood function N(t), i.e., the number of pairs
+ * (u, v) with dist(u, v) <= t, of a graph as described by Boldi, Rosa and
+ * Vigna in "HyperANF: Approximating the Neighbourhood Function of Very Large
+ * Graphs on a Budget" (WWW 2011).
+ *
+ * Every node keeps a HyperLogLog counter of the nodes it can reach within t
+ * hops. In iteration t + 1, each counter is united with the counters of the
+ * node's out-neighbors. The algorithm stops as soon as no counter changes,
+ * hence it requires (diameter + 1) linear passes over the edges. The
+ * register updates of each pass are split among several threads.
+ */
+public class HyperANF {
+	// log2 of the maximum size of a single array of registers
+	private static final int CHUNK_BITS = 30;
+
+	private Adjacency adjacency;
+
+	private int log2m;
+
+	private int m;
+
+	private double alphaMM;
+
+	private int threads;
+
+	private long seed;
+
+	// neighbourhood function N(0), N(1), ...
+	private double[] neighbourhoodFunction;
+
+	// estimated sum of distances to all reachable nodes
+	private double[] distanceSum;
+
+	// estimated number of reachable nodes (excluding the node itself)
+	private double[] reachable;
+
+	/**
+	 * @param adjacency
+	 *            adjacency of the graph
+	 * @param log2m
+	 *            log2 of the number of registers per counter (4 - 16), the
+	 *            relative standard deviation is about 1.04 / sqrt(2^log2m)
+	 * @param threads
+	 *            number of threads to use
+	 * @param seed
+	 *            seed of the hash function
+	 */
+	public HyperANF(Adjacency adjacency, int log2m, int threads, long seed) {
+		if (log2m < 4 || log2m > 16) {
+			throw new IllegalArgumentException(
+					"log2m must be in [4, 16] but is " + log2m);
+		}
+		this.adjacency = adjacency;
+		this.log2m = log2m;
+		this.m = 1 << log2m;
+		this.threads = threads;
+		this.seed = seed;
+		double alpha;
+		if (this.m == 16) {
+			alpha = 0.673;
+		} else if (this.m == 32) {
+			alpha = 0.697;
+		} else if (this.m == 64) {
+			alpha = 0.709;
+		} else {
+			alpha = 0.7213 / (1.0 + 1.079 / this.m);
+		}
+		this.alphaMM = alpha * this.m * this.m;
+	}
+
+	/**
+	 * Executes the iterations until no counter changes anymore.
+	 */
+	public void run() {
+		final int n = this.adjacency.getNodeCount();
+		final int m = this.m;
+		final int log2m = this.log2m;
+		// the registers of all nodes are split into chunks of at most
+		// 2^CHUNK_BITS bytes since n * m can exceed the size of an array
+		final int shift = CHUNK_BITS - log2m;
+		final int mask = (1 << shift) - 1;
+		final byte[][][] registers = new byte[][][] {
+				HyperANF.allocate(n, log2m), HyperANF.allocate(n, log2m) };
+		final double[] estimate = new double[n];
+		this.distanceSum = new double[n];
+		this.reachable = new double[n];
+
+		for (int v = 0; v < n; v++) {
+			long hash = HyperANF.hash(v, this.seed);
+			int register = (int) (hash >>> (64 - log2m));
+			long rest = hash << log2m;
+			int rank = rest == 0 ? 64 - log2m + 1 : Long
+					.numberOfLeadingZeros(rest) + 1;
+			byte[] chunk = registers[0][v >>> shift];
+			int offset = (v & mask) << log2m;
+			chunk[offset + register] = (byte) rank;
+			estimate[v] = this.estimate(chunk, offset);
+		}
+
+		double[] nf = new double[16];
+		nf[0] = 0;
+		for (int v = 0; v < n; v++) {
+			nf[0] += estimate[v];
+		}
+
+		final int tasks = Math.max(1, Math.min(this.threads, n));
+		final double[] partialSum = new double[tasks];
+		final boolean[] partialChanged = new boolean[tasks];
+		int current = 0;
+		int t = 0;
+		while (true) {
+			final byte[][] from = registers[current];
+			final byte[][] to = registers[1 - current];
+			final int distance = t + 1;
+			Parallel.run(tasks, this.threads, new Parallel.Task() {
+				@Override
+				public void run(int task) {
+					double sum = 0;
+					boolean changed = false;
+					int end = Parallel.getEnd(n, tasks, task);
+					for (int v = Parallel.getStart(n, tasks, task); v < end; v++) {
+						byte[] fromV = from[v >>> shift];
+						byte[] toV = to[v >>> shift];
+						int offset = (v & mask) << log2m;
+						System.arraycopy(fromV, offset, toV, offset, m);
+						for (int i = adjacency.getOutStart(v); i < adjacency
+								.getOutEnd(v); i++) {
+							int w = adjacency.getOutTarget(i);
+							byte[] fromW = from[w >>> shift];
+							int wOffset = (w & mask) << log2m;
+							for (int j = 0; j < m; j++) {
+								if (fromW[wOffset + j] > toV[offset + j]) {
+									toV[offset + j] = fromW[wOffset + j];
+								}
+							}
+						}
+						double e = estimate(toV, offset);
+						if (e != estimate[v]) {
+							changed = true;
+							// newly reached nodes are at the current distance
+							distanceSum[v] += distance * (e - estimate[v]);
+							reachable[v] += e - estimate[v];
+							estimate[v] = e;
+						}
+						sum += e;
+					}
+					partialSum[task] = sum;
+					partialChanged[task] = changed;
+				}
+			});
+			boolean changed = false;
+			double sum = 0;
+			for (int task = 0; task < tasks; task++) {
+				changed |= partialChanged[task];
+				sum += partialSum[task];
+			}
+			current = 1 - current;
+			if (!changed) {
+				break;
+			}
+			t++;
+			if (t >= nf.length) {
+				nf = Arrays.copyOf(nf, nf.length * 2);
+			}
+			nf[t] = sum;
+		}
+		this.neighbourhoodFunction = Arrays.copyOf(nf, t + 1);
+	}
+
+	/**
+	 * @return registers of n nodes with 2^log2m registers each, split into
+	 *         chunks of 2^(CHUNK_BITS - log2m) nodes
+	 */
+	private static byte[][] allocate(int n, int log2m) {
+		long nodesPerChunk = 1L << (CHUNK_BITS - log2m);
+		int chunks = (int) ((n + nodesPerChunk - 1) / nodesPerChunk);
+		byte[][] registers = new byte[chunks][];
+		for (int c = 0; c < chunks; c++) {
+			long nodes = Math.min(nodesPerChunk, n - c * nodesPerChunk);
+			registers[c] = new byte[(int) (nodes << log2m)];
+		}
+		return registers;
+	}
+
+	/**
+	 * @return estimated neighbourhood function N(0), N(1), ..., N(t) where t
+	 *         is the (estimated) diameter
+	 */
+	public double[] getNeighbourhoodFunction() {
+		return this.neighbourhoodFunction;
+	}
+
+	/**
+	 * @param v
+	 * @return estimated average distance from v to all nodes it can reach
+	 */
+	public double getAverageDistance(int v) {
+		return this.distanceSum[v] / this.reachable[v];
+	}
+
+	private double estimate(byte[] registers, int offset) {
+		double sum = 0;
+		int zeros = 0;
+		for (int j = 0; j < this.m; j++) {
+			sum += 1.0 / (1L << registers[offset + j]);
+			if (registers[offset + j] == 0) {
+				zeros++;
+			}
+		}
+		double e = this.alphaMM / sum;
+		if (e <= 2.5 * this.m && zeros != 0) {
+			// small range correction (linear counting)
+			e = this.m * Math.log((double) this.m / zeros);
+		}
+		return e;
+	}
+
+	private static long hash(long v, long seed) {
+		// finalizer of MurmurHash3
+		long h = v * 0x9E3779B97F4A7C15L + seed;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
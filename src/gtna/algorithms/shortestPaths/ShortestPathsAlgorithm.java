@@ -36,12 +36,31 @@
 package gtna.algorithms.shortestPaths;
 
 import gtna.graph.Graph;
+import gtna.util.Parallel;
 
 /**
  * @author benni
  * 
  */
 public abstract class ShortestPathsAlgorithm {
+	/**
+	 * Receives the shortest paths from a single source. The arrays are not
+	 * re-used by the algorithm, i.e., they can be kept by the consumer.
+	 */
+	public static interface Consumer {
+		/**
+		 * Is called concurrently for different sources in case more than one
+		 * thread is used.
+		 * 
+		 * @param start
+		 * @param dist
+		 * @param previous
+		 * @param nextHop
+		 */
+		public void consume(int start, int[] dist, int[] previous,
+				int[] nextHop);
+	}
+
 	/**
 	 * 
 	 * @param graph
@@ -49,16 +68,54 @@ public abstract class ShortestPathsAlgorithm {
 	 *         in $graph
 	 */
 	public int[][][] getShortestPaths(Graph graph) {
-		int[][][] sp = new int[3][graph.getNodeCount()][];
-		for (int i = 0; i < sp.length; i++) {
-			int[][] temp = this.getShortestPaths(graph, i);
-			sp[0][i] = temp[0];
-			sp[1][i] = temp[1];
-			sp[2][i] = temp[2];
-		}
+		final int[][][] sp = new int[3][graph.getNodeCount()][];
+		this.getShortestPaths(graph, 1, new Consumer() {
+			@Override
+			public void consume(int start, int[] dist, int[] previous,
+					int[] nextHop) {
+				sp[0][start] = dist;
+				sp[1][start] = previous;
+				sp[2][start] = nextHop;
+			}
+		});
 		return sp;
 	}
 
+	/**
+	 * Computes the shortest paths from all nodes in $graph and hands the
+	 * result for each of them to the consumer, the sources are split among
+	 * the given number of threads.
+	 * 
+	 * @param graph
+	 * @param threads
+	 * @param consumer
+	 */
+	public void getShortestPaths(final Graph graph, int threads,
+			final Consumer consumer) {
+		this.prepare(graph);
+		final int n = graph.getNodeCount();
+		final int tasks = Math.max(1, Math.min(threads, n));
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				for (int start = task; start < n; start += tasks) {
+					int[][] temp = getShortestPaths(graph, start);
+					consumer.consume(start, temp[0], temp[1], temp[2]);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Is called before computing the shortest paths from all nodes
+	 * concurrently, e.g., to initialize data that is shared by all sources.
+	 * 
+	 * @param graph
+	 */
+	protected void prepare(Graph graph) {
+		graph.getAdjacency();
+	}
+
 	/**
 	 * 
 	 * @param graph
@@ -0,0 +1,311 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * BarnesHutTree.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Barnes-Hut tree (quadtree in 2, octree in 3, 2^d-ary tree in d dimensions)
+ * for approximating the sum of pairwise forces between n points in
+ * O(n log n). Every cell stores the number of points it contains and their
+ * center of mass. A cell whose edge length s seen from the point at distance
+ * d satisfies s / d < theta is treated as a single point with the cell's
+ * mass, otherwise its children are inspected. theta = 0 computes the exact
+ * sum of all pairs.
+ *
+ * The points are given as a flat array of coordinates (d consecutive values
+ * per point). Distances are plain Euclidean distances, i.e., without
+ * wrap-around. The tree is not modified by queries, hence forces can be
+ * accumulated by several threads concurrently.
+ */
+public class BarnesHutTree {
+	/**
+	 * Magnitude of the force between two points or a point and a cell (per
+	 * unit of mass).
+	 */
+	public static interface Force {
+		/**
+		 * @param distance
+		 *            distance between the two (> 0)
+		 * @return magnitude of the force, positive values push the point away
+		 */
+		public double force(double distance);
+	}
+
+	private static final int LEAF_SIZE = 4;
+
+	// cells with the same coordinates cannot be split
+	private static final int MAX_DEPTH = 64;
+
+	private double[] coordinates;
+
+	private int dimensions;
+
+	// points ordered by cell, each cell covers a range [from, to) of order
+	private int[] order;
+
+	// rank[point] is the position of point in order
+	private int[] rank;
+
+	private int cells;
+
+	private int[] from;
+
+	private int[] to;
+
+	private double[] size;
+
+	private double[] centerOfMass;
+
+	// children of cell c are children[childStart[c], childEnd[c]) (none for
+	// a leaf)
+	private int[] childStart;
+
+	private int[] childEnd;
+
+	private int[] children;
+
+	private int childCount;
+
+	public BarnesHutTree(double[] coordinates, int dimensions) {
+		this.coordinates = coordinates;
+		this.dimensions = dimensions;
+		int points = coordinates.length / dimensions;
+		this.order = new int[points];
+		for (int i = 0; i < points; i++) {
+			this.order[i] = i;
+		}
+		int capacity = Math.max(16, 2 * points / LEAF_SIZE + 1);
+		this.from = new int[capacity];
+		this.to = new int[capacity];
+		this.size = new double[capacity];
+		this.centerOfMass = new double[capacity * dimensions];
+		this.childStart = new int[capacity];
+		this.childEnd = new int[capacity];
+		this.children = new int[capacity];
+
+		double[] center = new double[dimensions];
+		double extent = 0;
+		for (int k = 0; k < dimensions; k++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < points; i++) {
+				min = Math.min(min, coordinates[i * dimensions + k]);
+				max = Math.max(max, coordinates[i * dimensions + k]);
+			}
+			center[k] = points == 0 ? 0 : (min + max) / 2;
+			extent = Math.max(extent, points == 0 ? 0 : max - min);
+		}
+		this.build(0, points, center, extent, 0, new int[points]);
+		this.rank = new int[points];
+		for (int i = 0; i < points; i++) {
+			this.rank[this.order[i]] = i;
+		}
+	}
+
+	/**
+	 * Creates the cell of the cube with the given center and edge length
+	 * containing the points order[from, to).
+	 *
+	 * @return index of the cell
+	 */
+	private int build(int from, int to, double[] center, double size,
+			int depth, int[] temp) {
+		int cell = this.addCell(from, to, size);
+		for (int i = from; i < to; i++) {
+			for (int k = 0; k < this.dimensions; k++) {
+				this.centerOfMass[cell * this.dimensions + k] += this.coordinates[this.order[i]
+						* this.dimensions + k];
+			}
+		}
+		for (int k = 0; k < this.dimensions; k++) {
+			this.centerOfMass[cell * this.dimensions + k] /= Math.max(1, to
+					- from);
+		}
+		if (to - from <= LEAF_SIZE || depth >= MAX_DEPTH) {
+			return cell;
+		}
+
+		// counting sort of the points by orthant
+		int orthants = 1 << this.dimensions;
+		int[] start = new int[orthants + 1];
+		for (int i = from; i < to; i++) {
+			start[this.getOrthant(this.order[i], center) + 1]++;
+		}
+		for (int o = 0; o < orthants; o++) {
+			start[o + 1] += start[o];
+		}
+		int[] position = start.clone();
+		for (int i = from; i < to; i++) {
+			int o = this.getOrthant(this.order[i], center);
+			temp[from + position[o]++] = this.order[i];
+		}
+		System.arraycopy(temp, from, this.order, from, to - from);
+
+		int[] created = new int[orthants];
+		int count = 0;
+		double[] childCenter = new double[this.dimensions];
+		for (int o = 0; o < orthants; o++) {
+			if (start[o] == start[o + 1]) {
+				continue;
+			}
+			for (int k = 0; k < this.dimensions; k++) {
+				childCenter[k] = center[k]
+						+ ((o >> k & 1) == 1 ? size / 4 : -size / 4);
+			}
+			created[count++] = this.build(from + start[o], from + start[o + 1],
+					childCenter, size / 2, depth + 1, temp);
+		}
+		this.childStart[cell] = this.childCount;
+		for (int i = 0; i < count; i++) {
+			this.addChild(created[i]);
+		}
+		this.childEnd[cell] = this.childCount;
+		return cell;
+	}
+
+	private int getOrthant(int point, double[] center) {
+		int orthant = 0;
+		for (int k = 0; k < this.dimensions; k++) {
+			if (this.coordinates[point * this.dimensions + k] >= center[k]) {
+				orthant |= 1 << k;
+			}
+		}
+		return orthant;
+	}
+
+	private int addCell(int from, int to, double size) {
+		if (this.cells == this.from.length) {
+			int capacity = this.cells * 2;
+			this.from = Arrays.copyOf(this.from, capacity);
+			this.to = Arrays.copyOf(this.to, capacity);
+			this.size = Arrays.copyOf(this.size, capacity);
+			this.centerOfMass = Arrays.copyOf(this.centerOfMass,
+					capacity * this.dimensions);
+			this.childStart = Arrays.copyOf(this.childStart, capacity);
+			this.childEnd = Arrays.copyOf(this.childEnd, capacity);
+		}
+		this.from[this.cells] = from;
+		this.to[this.cells] = to;
+		this.size[this.cells] = size;
+		return this.cells++;
+	}
+
+	private void addChild(int cell) {
+		if (this.childCount == this.children.length) {
+			this.children = Arrays.copyOf(this.children, this.childCount * 2);
+		}
+		this.children[this.childCount++] = cell;
+	}
+
+	/**
+	 * Adds the force exerted on the given point by all other points to
+	 * displacement[point * d, (point + 1) * d). For each other point (or cell
+	 * approximating several points), the vector from it to the point is
+	 * normalized and multiplied by force(distance) (and the cell's mass).
+	 * Points with the same coordinates as the given one are ignored.
+	 *
+	 * @param point
+	 *            index of the point
+	 * @param theta
+	 *            accuracy parameter (0 for the exact sum)
+	 * @param force
+	 *            force between two points
+	 * @param displacement
+	 *            flat array of displacements (d values per point)
+	 */
+	public void accumulate(int point, double theta, Force force,
+			double[] displacement) {
+		if (this.cells == 0) {
+			return;
+		}
+		int offset = point * this.dimensions;
+		int rank = this.rank[point];
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int cell = stack[--top];
+			if (this.childStart[cell] == this.childEnd[cell]) {
+				for (int i = this.from[cell]; i < this.to[cell]; i++) {
+					int other = this.order[i];
+					if (other != point) {
+						this.add(offset, this.coordinates, other
+								* this.dimensions, 1, force, displacement);
+					}
+				}
+			} else if ((rank < this.from[cell] || rank >= this.to[cell])
+					&& this.size[cell] < theta
+							* this.distance(offset, this.centerOfMass, cell
+									* this.dimensions)) {
+				// cells containing the point itself are never approximated
+				// (their center of mass may be arbitrarily close to it)
+				this.add(offset, this.centerOfMass, cell * this.dimensions,
+						this.to[cell] - this.from[cell], force, displacement);
+			} else {
+				for (int c = this.childStart[cell]; c < this.childEnd[cell]; c++) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, top * 2);
+					}
+					stack[top++] = this.children[c];
+				}
+			}
+		}
+	}
+
+	private double distance(int offset, double[] other, int otherOffset) {
+		double sum = 0;
+		for (int k = 0; k < this.dimensions; k++) {
+			double delta = this.coordinates[offset + k] - other[otherOffset + k];
+			sum += delta * delta;
+		}
+		return Math.sqrt(sum);
+	}
+
+	private void add(int offset, double[] other, int otherOffset, int mass,
+			Force force, double[] displacement) {
+		double distance = this.distance(offset, other, otherOffset);
+		if (distance == 0) {
+			return;
+		}
+		double f = force.force(distance) * mass;
+		for (int k = 0; k < this.dimensions; k++) {
+			displacement[offset + k] += (this.coordinates[offset + k] - other[otherOffset
+					+ k])
+					/ distance * f;
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * GridIndex.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.spatial;
+
+/**
+ * Uniform grid whose cells are (at least) as large as the radius it is
+ * created for, i.e., a query with this radius only needs to inspect the
+ * cell of the query point and its direct neighbors (3^d cells). The number
+ * of cells is limited to about twice the number of points, cells are
+ * enlarged accordingly for small radii.
+ *
+ * The points of all cells are stored in a single array sorted by cell
+ * (counting sort), which is also the order returned by getOrder().
+ */
+public class GridIndex extends SpatialIndex {
+	// the number of cells is at most max(1, CELLS_PER_POINT * points)
+	private static final int CELLS_PER_POINT = 2;
+
+	private double[] origin;
+
+	private double[] cellSize;
+
+	private int[] cells;
+
+	// cellStart[c] is the position of the first point of cell c in
+	// cellPoints
+	private int[] cellStart;
+
+	private int[] cellPoints;
+
+	public GridIndex(double[] coordinates, int dimensions, double[] modulus,
+			boolean wrapAround, double radius) {
+		super(coordinates, dimensions, modulus, wrapAround);
+		this.origin = new double[dimensions];
+		double[] extent = new double[dimensions];
+		for (int k = 0; k < dimensions; k++) {
+			if (wrapAround) {
+				this.origin[k] = 0;
+				extent[k] = modulus[k];
+			} else {
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < this.points; i++) {
+					min = Math.min(min, this.getCoordinate(i, k));
+					max = Math.max(max, this.getCoordinate(i, k));
+				}
+				this.origin[k] = this.points == 0 ? 0 : min;
+				extent[k] = this.points == 0 ? 0 : max - min;
+			}
+		}
+
+		long limit = Math.max(1, (long) CELLS_PER_POINT * this.points);
+		this.cells = new int[dimensions];
+		for (int k = 0; k < dimensions; k++) {
+			// cells are slightly larger than the radius so that rounding
+			// errors cannot move a neighbor beyond the adjacent cell
+			double c = radius > 0 ? Math.floor(extent[k]
+					/ (radius * (1 + 1e-9))) : 1;
+			this.cells[k] = (int) Math.max(1, Math.min(c, limit));
+		}
+		while (this.getCellCount() > limit) {
+			for (int k = 0; k < dimensions; k++) {
+				this.cells[k] = Math.max(1, this.cells[k] / 2);
+			}
+		}
+		this.cellSize = new double[dimensions];
+		for (int k = 0; k < dimensions; k++) {
+			this.cellSize[k] = extent[k] / this.cells[k];
+		}
+
+		int cellCount = (int) this.getCellCount();
+		int[] cellOf = new int[this.points];
+		this.cellStart = new int[cellCount + 1];
+		for (int i = 0; i < this.points; i++) {
+			cellOf[i] = this.getCell(i);
+			this.cellStart[cellOf[i] + 1]++;
+		}
+		for (int c = 0; c < cellCount; c++) {
+			this.cellStart[c + 1] += this.cellStart[c];
+		}
+		int[] position = new int[cellCount];
+		this.cellPoints = new int[this.points];
+		for (int i = 0; i < this.points; i++) {
+			this.cellPoints[this.cellStart[cellOf[i]] + position[cellOf[i]]++] = i;
+		}
+	}
+
+	private double getCellCount() {
+		double count = 1;
+		for (int c : this.cells) {
+			count *= c;
+		}
+		return count;
+	}
+
+	private int getCellCoordinate(double value, int k) {
+		if (this.cellSize[k] <= 0) {
+			return 0;
+		}
+		int c = (int) Math.floor((value - this.origin[k]) / this.cellSize[k]);
+		return Math.max(0, Math.min(this.cells[k] - 1, c));
+	}
+
+	private int getCell(int point) {
+		int cell = 0;
+		for (int k = this.dimensions - 1; k >= 0; k--) {
+			cell = cell * this.cells[k]
+					+ this.getCellCoordinate(this.getCoordinate(point, k), k);
+		}
+		return cell;
+	}
+
+	@Override
+	public void query(int point, double radius, Visitor visitor) {
+		// range of cells to inspect in each dimension
+		int[] from = new int[this.dimensions];
+		int[] length = new int[this.dimensions];
+		for (int k = 0; k < this.dimensions; k++) {
+			int center = this.getCellCoordinate(this.getCoordinate(point, k), k);
+			int range = this.cellSize[k] <= 0 ? 0 : (int) Math.min(
+					this.cells[k], Math.ceil(radius / this.cellSize[k]));
+			if (2 * range + 1 >= this.cells[k]) {
+				from[k] = 0;
+				length[k] = this.cells[k];
+			} else if (this.wrapAround) {
+				from[k] = center - range;
+				length[k] = 2 * range + 1;
+			} else {
+				from[k] = Math.max(0, center - range);
+				length[k] = Math.min(this.cells[k] - 1, center + range)
+						- from[k] + 1;
+			}
+		}
+
+		// odometer over all cells of the range
+		int[] offset = new int[this.dimensions];
+		while (true) {
+			int cell = 0;
+			for (int k = this.dimensions - 1; k >= 0; k--) {
+				int c = (from[k] + offset[k]) % this.cells[k];
+				if (c < 0) {
+					c += this.cells[k];
+				}
+				cell = cell * this.cells[k] + c;
+			}
+			for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+				int other = this.cellPoints[i];
+				if (other == point) {
+					continue;
+				}
+				double distance = this.distance(point, other);
+				if (distance <= radius) {
+					visitor.visit(other, distance);
+				}
+			}
+			int k = 0;
+			while (k < this.dimensions && ++offset[k] == length[k]) {
+				offset[k] = 0;
+				k++;
+			}
+			if (k == this.dimensions) {
+				break;
+			}
+		}
+	}
+
+	@Override
+	public int[] getOrder() {
+		return this.cellPoints.clone();
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * KDTree.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.spatial;
+
+/**
+ * Static k-d tree over the points, stored implicitly as a permutation of the
+ * points: the node of the range [from, to) splits at the median position
+ * (from + to) / 2 along the dimension with the largest spread, ranges of at
+ * most LEAF_SIZE points are leaves. In contrast to the grid, a single tree
+ * serves queries of arbitrary radius in any number of dimensions.
+ *
+ * On a torus, a query is executed for every image of the query point that
+ * is shifted by the modulus in the dimensions where the query ball crosses
+ * the border. In case the radius is at least half the modulus (i.e., the
+ * ball would overlap with its own images), all points are compared.
+ */
+public class KDTree extends SpatialIndex {
+	private static final int LEAF_SIZE = 8;
+
+	private int[] order;
+
+	// split dimension of the node whose range has the given median position
+	private int[] splitDimension;
+
+	public KDTree(double[] coordinates, int dimensions, double[] modulus,
+			boolean wrapAround) {
+		super(coordinates, dimensions, modulus, wrapAround);
+		this.order = new int[this.points];
+		for (int i = 0; i < this.points; i++) {
+			this.order[i] = i;
+		}
+		this.splitDimension = new int[this.points];
+		this.build(0, this.points);
+	}
+
+	private void build(int from, int to) {
+		if (to - from <= LEAF_SIZE) {
+			return;
+		}
+		int dimension = 0;
+		double spread = -1;
+		for (int k = 0; k < this.dimensions; k++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double c = this.getCoordinate(this.order[i], k);
+				min = Math.min(min, c);
+				max = Math.max(max, c);
+			}
+			if (max - min > spread) {
+				spread = max - min;
+				dimension = k;
+			}
+		}
+		int median = (from + to) >>> 1;
+		this.select(from, to - 1, median, dimension);
+		this.splitDimension[median] = dimension;
+		this.build(from, median);
+		this.build(median + 1, to);
+	}
+
+	/**
+	 * Partially sorts order[left..right] so that the element at position k
+	 * is the one that would be there if the range was sorted by the given
+	 * dimension (quickselect).
+	 */
+	private void select(int left, int right, int k, int dimension) {
+		while (right > left) {
+			double pivot = this.getCoordinate(this.order[(left + right) >>> 1],
+					dimension);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (this.getCoordinate(this.order[i], dimension) < pivot) {
+					i++;
+				}
+				while (this.getCoordinate(this.order[j], dimension) > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int temp = this.order[i];
+					this.order[i] = this.order[j];
+					this.order[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void query(int point, double radius, Visitor visitor) {
+		// slack for the pruning so that rounding errors (e.g., of the
+		// shifted coordinates) cannot exclude a point
+		double bound = radius * (1 + 1e-9) + 1e-12;
+		double[] center = new double[this.dimensions];
+		if (!this.wrapAround) {
+			for (int k = 0; k < this.dimensions; k++) {
+				center[k] = this.getCoordinate(point, k);
+			}
+			this.query(0, this.points, point, center, bound, radius, visitor);
+			return;
+		}
+		for (int k = 0; k < this.dimensions; k++) {
+			if (2 * bound >= this.modulus[k]) {
+				this.queryAll(point, radius, visitor);
+				return;
+			}
+		}
+		// shift[k] in {-1, 0, 1}: image of the query point shifted by
+		// shift[k] * modulus[k]
+		int[] shift = new int[this.dimensions];
+		for (int k = 0; k < this.dimensions; k++) {
+			shift[k] = -1;
+		}
+		while (true) {
+			boolean required = true;
+			for (int k = 0; k < this.dimensions; k++) {
+				double c = this.getCoordinate(point, k);
+				if (shift[k] == -1 && c - bound >= 0 || shift[k] == 1
+						&& c + bound < this.modulus[k]) {
+					required = false;
+					break;
+				}
+				center[k] = c - shift[k] * this.modulus[k];
+			}
+			if (required) {
+				this.query(0, this.points, point, center, bound, radius,
+						visitor);
+			}
+			int k = 0;
+			while (k < this.dimensions && shift[k] == 1) {
+				shift[k] = -1;
+				k++;
+			}
+			if (k == this.dimensions) {
+				break;
+			}
+			shift[k]++;
+		}
+	}
+
+	/**
+	 * Visits all points in [from, to) whose distance from the point is at
+	 * most radius, using the given center and bound for pruning.
+	 */
+	private void query(int from, int to, int point, double[] center,
+			double bound, double radius, Visitor visitor) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				this.visit(this.order[i], point, center, bound, radius, visitor);
+			}
+			return;
+		}
+		int median = (from + to) >>> 1;
+		int dimension = this.splitDimension[median];
+		double diff = center[dimension]
+				- this.getCoordinate(this.order[median], dimension);
+		this.visit(this.order[median], point, center, bound, radius, visitor);
+		if (diff <= 0) {
+			this.query(from, median, point, center, bound, radius, visitor);
+			if (-diff <= bound) {
+				this.query(median + 1, to, point, center, bound, radius,
+						visitor);
+			}
+		} else {
+			this.query(median + 1, to, point, center, bound, radius, visitor);
+			if (diff <= bound) {
+				this.query(from, median, point, center, bound, radius, visitor);
+			}
+		}
+	}
+
+	private void visit(int other, int point, double[] center, double bound,
+			double radius, Visitor visitor) {
+		if (other == point) {
+			return;
+		}
+		double sum = 0.0;
+		for (int k = 0; k < this.dimensions; k++) {
+			double d = center[k] - this.getCoordinate(other, k);
+			sum += d * d;
+		}
+		if (sum > bound * bound) {
+			return;
+		}
+		double distance = this.distance(point, other);
+		if (distance <= radius) {
+			visitor.visit(other, distance);
+		}
+	}
+
+	private void queryAll(int point, double radius, Visitor visitor) {
+		for (int other = 0; other < this.points; other++) {
+			if (other == point) {
+				continue;
+			}
+			double distance = this.distance(point, other);
+			if (distance <= radius) {
+				visitor.visit(other, distance);
+			}
+		}
+	}
+
+	@Override
+	public int[] getOrder() {
+		return this.order.clone();
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * SpatialEdges.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.spatial;
+
+import gtna.graph.Edges;
+import gtna.graph.Node;
+import gtna.util.Parallel;
+import gtna.util.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Creates the edges of a geometric graph where only pairs of nodes within a
+ * given radius can be connected. Instead of comparing all pairs, the
+ * candidates of every node are obtained from a SpatialIndex. The nodes are
+ * processed in the order of the index (i.e., cell by cell for a grid) and
+ * split among several tasks executed using gtna.util.Parallel.
+ *
+ * Every source node is handed its own random number generator whose seed is
+ * derived from the given seed and the node's index, so the result does not
+ * depend on the number of threads. The edges are sorted by source and
+ * destination, i.e., they are added in the same order as by a loop over all
+ * pairs (i, j).
+ */
+public class SpatialEdges {
+	/**
+	 * Decides which of the pairs within the radius are connected.
+	 */
+	public static interface Rule {
+		/**
+		 * @param src
+		 * @param dst
+		 * @param distance
+		 *            distance between src and dst (at most the radius)
+		 * @param rand
+		 *            random number generator of src
+		 * @return true if the edge (src, dst) should be added
+		 */
+		public boolean connect(int src, int dst, double distance, Random rand);
+	}
+
+	/**
+	 * Rule connecting all pairs within the radius.
+	 */
+	public static final Rule ALL = new Rule() {
+		@Override
+		public boolean connect(int src, int dst, double distance, Random rand) {
+			return true;
+		}
+	};
+
+	// tasks per thread, cells differ in the number of points they contain
+	private static final int TASKS_PER_THREAD = 4;
+
+	/**
+	 * @param nodes
+	 *            nodes of the graph
+	 * @param index
+	 *            index of the nodes' positions
+	 * @param radius
+	 *            maximum distance of connected nodes
+	 * @param rule
+	 *            decides which pairs within the radius are connected
+	 * @param threads
+	 *            number of threads to use
+	 * @param seed
+	 *            seed of the random number generators passed to the rule
+	 * @return edges of the graph (not yet filled into the nodes)
+	 */
+	public static Edges create(Node[] nodes, final SpatialIndex index,
+			final double radius, final Rule rule, int threads, final long seed) {
+		final int[] order = index.getOrder();
+		final int tasks = Math.max(1,
+				Math.min(threads * TASKS_PER_THREAD, order.length));
+		final ArrayList<Candidates> results = new ArrayList<Candidates>(tasks);
+		for (int i = 0; i < tasks; i++) {
+			results.add(new Candidates());
+		}
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				final Candidates candidates = results.get(task);
+				int end = Parallel.getEnd(order.length, tasks, task);
+				for (int i = Parallel.getStart(order.length, tasks, task); i < end; i++) {
+					final int src = order[i];
+					final Random rand = new Random(Util.mix(seed, src));
+					index.query(src, radius, new SpatialIndex.Visitor() {
+						@Override
+						public void visit(int dst, double distance) {
+							if (rule.connect(src, dst, distance, rand)) {
+								candidates.add(src, dst);
+							}
+						}
+					});
+				}
+			}
+		});
+
+		int total = 0;
+		for (Candidates candidates : results) {
+			total += candidates.size;
+		}
+		Edges edges = new Edges(nodes, total, true);
+		for (Candidates candidates : results) {
+			edges.addAll(candidates.src, candidates.dst, candidates.size);
+		}
+		return edges;
+	}
+
+	private static class Candidates {
+		private int[] src = new int[64];
+
+		private int[] dst = new int[64];
+
+		private int size = 0;
+
+		private void add(int src, int dst) {
+			if (this.size == this.src.length) {
+				this.src = Arrays.copyOf(this.src, this.size * 2);
+				this.dst = Arrays.copyOf(this.dst, this.size * 2);
+			}
+			this.src[this.size] = src;
+			this.dst[this.size] = dst;
+			this.size++;
+		}
+	}
+}
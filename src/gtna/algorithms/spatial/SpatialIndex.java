@@ -0,0 +1,232 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * SpatialIndex.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.algorithms.spatial;
+
+import gtna.id.IdentifierSpace;
+import gtna.id.Partition;
+import gtna.id.md.MDIdentifier;
+import gtna.id.md.MDIdentifierSpaceSimple;
+import gtna.id.md.MDPartitionSimple;
+import gtna.id.plane.PlaneIdentifier;
+import gtna.id.plane.PlaneIdentifierSpaceSimple;
+import gtna.id.plane.PlanePartitionSimple;
+
+/**
+ * Index over the positions of the nodes of a geometric identifier space that
+ * answers radius queries without comparing the query point to all other
+ * points. Distances are Euclidean, optionally on a torus (wrap-around) with
+ * the given modulus in every dimension. They are computed exactly as by
+ * PlaneIdentifier and MDIdentifier so that the results of a query are the
+ * same as when comparing all pairs of identifiers.
+ *
+ * The index is immutable after its creation, hence it can be queried by
+ * several threads concurrently.
+ */
+public abstract class SpatialIndex {
+	/**
+	 * Receives the points found by a query.
+	 */
+	public static interface Visitor {
+		/**
+		 * @param point
+		 *            index of the point found
+		 * @param distance
+		 *            its distance from the query point
+		 */
+		public void visit(int point, double distance);
+	}
+
+	// coordinates of point i are stored at [i * dimensions, (i + 1) *
+	// dimensions)
+	protected double[] coordinates;
+
+	protected int dimensions;
+
+	protected int points;
+
+	protected double[] modulus;
+
+	protected boolean wrapAround;
+
+	protected SpatialIndex(double[] coordinates, int dimensions,
+			double[] modulus, boolean wrapAround) {
+		this.coordinates = coordinates;
+		this.dimensions = dimensions;
+		this.points = coordinates.length / dimensions;
+		this.modulus = modulus;
+		this.wrapAround = wrapAround;
+	}
+
+	/**
+	 * Creates an index for the positions of all nodes of the given identifier
+	 * space (PlaneIdentifierSpaceSimple or MDIdentifierSpaceSimple): a
+	 * uniform grid for up to three dimensions, a k-d tree otherwise.
+	 *
+	 * @param idSpace
+	 *            identifier space of the graph
+	 * @param radius
+	 *            radius of most queries (determines the size of grid cells)
+	 * @return index of the positions of all nodes
+	 */
+	public static SpatialIndex create(IdentifierSpace idSpace, double radius) {
+		double[] coordinates = SpatialIndex.getCoordinates(idSpace);
+		double[] modulus = SpatialIndex.getModulus(idSpace);
+		boolean wrapAround = SpatialIndex.isWrapAround(idSpace);
+		if (modulus.length <= 3) {
+			return new GridIndex(coordinates, modulus.length, modulus,
+					wrapAround, radius);
+		} else {
+			return new KDTree(coordinates, modulus.length, modulus, wrapAround);
+		}
+	}
+
+	/**
+	 * @param idSpace
+	 * @return true if positions of the given identifier space can be indexed
+	 */
+	public static boolean applicable(IdentifierSpace idSpace) {
+		return idSpace instanceof PlaneIdentifierSpaceSimple
+				|| idSpace instanceof MDIdentifierSpaceSimple;
+	}
+
+	/**
+	 * @param idSpace
+	 * @return coordinates of all nodes, d consecutive values per node
+	 */
+	public static double[] getCoordinates(IdentifierSpace idSpace) {
+		Partition[] partitions = idSpace.getPartitions();
+		if (idSpace instanceof PlaneIdentifierSpaceSimple) {
+			double[] coordinates = new double[partitions.length * 2];
+			for (int i = 0; i < partitions.length; i++) {
+				PlaneIdentifier id = ((PlanePartitionSimple) partitions[i])
+						.getId();
+				coordinates[2 * i] = id.getX();
+				coordinates[2 * i + 1] = id.getY();
+			}
+			return coordinates;
+		} else if (idSpace instanceof MDIdentifierSpaceSimple) {
+			int d = ((MDIdentifierSpaceSimple) idSpace).getModulus().length;
+			double[] coordinates = new double[partitions.length * d];
+			for (int i = 0; i < partitions.length; i++) {
+				MDIdentifier id = ((MDPartitionSimple) partitions[i])
+						.getIdentifier();
+				System.arraycopy(id.getCoordinates(), 0, coordinates, i * d, d);
+			}
+			return coordinates;
+		}
+		throw new IllegalArgumentException("cannot index identifier space "
+				+ idSpace.getClass().getName());
+	}
+
+	private static double[] getModulus(IdentifierSpace idSpace) {
+		if (idSpace instanceof PlaneIdentifierSpaceSimple) {
+			PlaneIdentifierSpaceSimple plane = (PlaneIdentifierSpaceSimple) idSpace;
+			return new double[] { plane.getxModulus(), plane.getyModulus() };
+		}
+		return ((MDIdentifierSpaceSimple) idSpace).getModulus();
+	}
+
+	private static boolean isWrapAround(IdentifierSpace idSpace) {
+		if (idSpace instanceof PlaneIdentifierSpaceSimple) {
+			return ((PlaneIdentifierSpaceSimple) idSpace).isWrapAround();
+		}
+		return ((MDIdentifierSpaceSimple) idSpace).isWrapAround();
+	}
+
+	/**
+	 * Visits all points (except the given one) whose distance from the given
+	 * point is at most radius.
+	 *
+	 * @param point
+	 *            index of the query point
+	 * @param radius
+	 * @param visitor
+	 */
+	public abstract void query(int point, double radius, Visitor visitor);
+
+	/**
+	 * @return all points in an order in which points that are close to each
+	 *         other are mostly close in the order as well
+	 */
+	public abstract int[] getOrder();
+
+	/**
+	 * @return number of points
+	 */
+	public int size() {
+		return this.points;
+	}
+
+	/**
+	 * @return number of dimensions
+	 */
+	public int getDimensions() {
+		return this.dimensions;
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return distance between the points a and b
+	 */
+	public double distance(int a, int b) {
+		int aOffset = a * this.dimensions;
+		int bOffset = b * this.dimensions;
+		double sum = 0.0;
+		for (int k = 0; k < this.dimensions; k++) {
+			double x = this.coordinates[aOffset + k];
+			double y = this.coordinates[bOffset + k];
+			double d;
+			if (this.wrapAround) {
+				d = Math.min(Math.abs(x - y), Math.min(this.modulus[k] + x - y,
+						this.modulus[k] - x + y));
+			} else {
+				d = x - y;
+			}
+			sum += d * d;
+		}
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * @param point
+	 * @param dimension
+	 * @return coordinate of the point in the given dimension
+	 */
+	public double getCoordinate(int point, int dimension) {
+		return this.coordinates[point * this.dimensions + dimension];
+	}
+}
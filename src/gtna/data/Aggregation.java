@@ -35,109 +35,236 @@
  */
 package gtna.data;
 
-import gtna.io.DataReader;
-import gtna.io.DataWriter;
+import gtna.io.DataFileReader;
 import gtna.io.Filewriter;
 import gtna.metrics.Metric;
 import gtna.util.Config;
+import gtna.util.Parallel;
+import gtna.util.Statistics;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
+ * Aggregates the data of multiple runs of a series (avg, med, min, max, var,
+ * varLow, varUp, confLow, confUp for every x value and single value).
+ * 
+ * The runs of a data key are read in a streaming fashion: for a block of at
+ * most AGGREGATION_BUFFER_SIZE / runs x values, the next lines of all run
+ * files are read, aggregated, and written before the next block is read.
+ * Hence, the memory required is bounded by AGGREGATION_BUFFER_SIZE values
+ * instead of growing with runs * x values. The different data keys, metrics,
+ * runtimes, and etc. values are aggregated concurrently by
+ * PARALLEL_AGGREGATION threads.
+ * 
  * @author benni
  * 
  */
 public class Aggregation {
-	public static boolean aggregate(Series s, int times) {
-		double interval = Config.getDouble("CONFIDENCE_INTERVAL");
-		double z = 1.96;
-		if (interval == 0.95) {
-			z = 1.96;
-		} else if (interval == 0.99) {
-			z = 2.576;
-		}
+	// up to this number of runs, all run files are kept open while a data
+	// key is aggregated block-wise, otherwise they are re-opened per block
+	// (continuing at the position where the previous block ended)
+	private static final int MAX_OPEN_RUNS = 64;
+
+	public static boolean aggregate(final Series s, int times) {
+		double z = Statistics.zValue(Config.getDouble("CONFIDENCE_INTERVAL"));
 		int runs = times;
 		if (Config.getBoolean("AGGREGATE_ALL_AVAILABLE_RUNS")) {
 			runs = s.getRunFolders().length;
 		}
+
+		final ArrayList<String[]> from = new ArrayList<String[]>();
+		final ArrayList<String> to = new ArrayList<String>();
+		// data key for multi-scalar values, null for single values
+		final ArrayList<String> keys = new ArrayList<String>();
 		for (Metric m : s.getMetrics()) {
-			if (!Aggregation.aggregate(s, m, z, runs)) {
-				return false;
+			for (String key : m.getDataKeys()) {
+				String[] f = new String[runs];
+				for (int run = 0; run < runs; run++) {
+					f[run] = s.getFilenameRun(run, m, key);
+				}
+				from.add(f);
+				to.add(s.getMultiFilename(m, key));
+				keys.add(key);
 			}
+			String[] f = new String[runs];
+			for (int run = 0; run < runs; run++) {
+				f[run] = s.getSinglesFilenameRun(run, m);
+			}
+			from.add(f);
+			to.add(s.getSinglesFilename(m));
+			keys.add(null);
 		}
-		return Aggregation.aggregateRuntimes(s, z, runs)
-				&& Aggregation.aggregateEtc(s, z, runs);
-	}
+		String[] runtimes = new String[runs];
+		String[] etc = new String[runs];
+		for (int run = 0; run < runs; run++) {
+			runtimes[run] = s.getRuntimesFilenameRun(run);
+			etc[run] = s.getEtcFilename(run);
+		}
+		from.add(runtimes);
+		to.add(s.getRuntimesFilename());
+		keys.add(null);
+		from.add(etc);
+		to.add(s.getEtcFilename());
+		keys.add(null);
 
-	private static boolean aggregate(Series s, Metric m, double z, int runs) {
-		for (String key : m.getDataKeys()) {
-			if (!Aggregation.aggregateMulti(s, m, z, runs, key)) {
+		final double zValue = z;
+		final boolean[] success = new boolean[from.size()];
+		Parallel.run(from.size(), Parallel.getThreads("PARALLEL_AGGREGATION"),
+				new Parallel.Task() {
+					@Override
+					public void run(int task) {
+						String key = keys.get(task);
+						if (key == null) {
+							success[task] = Aggregation.aggregateSingle(
+									from.get(task), to.get(task), zValue);
+						} else {
+							success[task] = Aggregation.aggregateMulti(
+									from.get(task), to.get(task), zValue,
+									Config.getBoolean(key + "_DATA_IS_CDF"));
+						}
+					}
+				});
+		for (boolean b : success) {
+			if (!b) {
 				return false;
 			}
 		}
-		return Aggregation.aggregateSingle(s, m, z, runs);
-	}
-
-	private static boolean aggregateMulti(Series s, Metric m, double z,
-			int runs, String key) {
-		double[][][] data = new double[runs][][];
-		for (int run = 0; run < runs; run++) {
-			data[run] = DataReader.readDouble2D(s.getFilenameRun(run, m, key));
-		}
-		boolean cdf = Config.getBoolean(key + "_DATA_IS_CDF");
-		double[] x = Aggregation.extractX(data);
-		double[][] values = Aggregation.extractValues(data, x, cdf);
-		String filename = s.getMultiFilename(m, key);
-		Aggregation.writeAggregation(x, values, z, filename);
 		return true;
 	}
 
-	private static boolean aggregateFrom(String[] from, String to, double z,
-			int runs) {
-		SingleList first = SingleList.read(null, from[0]);
-		String[] keys = first.getKeys();
-		return Aggregation.aggregateSingle(from, to, keys, z);
-	}
-
-	private static boolean aggregateSingle(Series s, Metric m, double z,
-			int runs) {
-		String[] from = new String[runs];
-		for (int run = 0; run < runs; run++) {
-			from[run] = s.getSinglesFilenameRun(run, m);
-		}
-		return Aggregation
-				.aggregateFrom(from, s.getSinglesFilename(m), z, runs);
-	}
+	/**
+	 * Aggregates the multi-scalar values of all runs of a data key. The x
+	 * values are taken from the (first) run with the most lines. Runs with
+	 * less lines are extended by 0 (or their last value in case of a CDF).
+	 * 
+	 * @param from
+	 *            data file of every run
+	 * @param to
+	 *            file to write the aggregation to
+	 * @param z
+	 * @param cdf
+	 *            true if the data is a CDF
+	 * @return true if the operation was successful, false otherwise
+	 */
+	private static boolean aggregateMulti(String[] from, String to, double z,
+			boolean cdf) {
+		int runs = from.length;
+		DataFileReader[] readers = new DataFileReader[runs];
+		Filewriter fw = null;
+		try {
+			int[] lengths = new int[runs];
+			int longest = 0;
+			for (int run = 0; run < runs; run++) {
+				lengths[run] = DataFileReader.countRows(from[run]);
+				if (lengths[run] > lengths[longest]) {
+					longest = run;
+				}
+			}
+			int xs = runs == 0 ? 0 : lengths[longest];
+			int block = Math.max(1, Math.min(xs, Config
+					.getInt("AGGREGATION_BUFFER_SIZE") / Math.max(runs, 1)));
+			boolean keepOpen = block >= xs || runs <= MAX_OPEN_RUNS;
 
-	private static boolean aggregateRuntimes(Series s, double z, int runs) {
-		String[] from = new String[runs];
-		for (int run = 0; run < runs; run++) {
-			from[run] = s.getRuntimesFilenameRun(run);
+			String delimiter = Config.get("DATA_WRITER_DELIMITER");
+			double[] last = new double[runs];
+			long[] positions = new long[runs];
+			double[] x = new double[block];
+			double[][] values = new double[block][runs];
+			fw = new Filewriter(to);
+			for (int start = 0; start < xs; start += block) {
+				int size = Math.min(block, xs - start);
+				for (int run = 0; run < runs; run++) {
+					int read = Math.min(lengths[run] - start, size);
+					if (read > 0 && readers[run] == null) {
+						readers[run] = new DataFileReader(from[run],
+								positions[run]);
+					}
+					for (int i = 0; i < size; i++) {
+						if (i < read) {
+							readers[run].nextRow();
+							if (run == longest) {
+								x[i] = readers[run].get(0);
+							}
+							values[i][run] = readers[run].get(1);
+						} else if (cdf && start + i > 0) {
+							values[i][run] = last[run];
+						} else {
+							values[i][run] = 0;
+						}
+						last[run] = values[i][run];
+					}
+					if (readers[run] != null
+							&& (!keepOpen || start + size >= lengths[run])) {
+						positions[run] = readers[run].getPosition();
+						readers[run].close();
+						readers[run] = null;
+					}
+				}
+				for (int i = 0; i < size; i++) {
+					Aggregation.writeRow(fw, Aggregation.aggregate(x[i],
+							values[i], z), delimiter);
+				}
+			}
+			return fw.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+			if (fw != null) {
+				fw.close();
+			}
+			return false;
+		} finally {
+			for (DataFileReader reader : readers) {
+				if (reader != null) {
+					reader.close();
+				}
+			}
 		}
-		return Aggregation
-				.aggregateFrom(from, s.getRuntimesFilename(), z, runs);
 	}
 
-	private static boolean aggregateEtc(Series s, double z, int runs) {
-		String[] from = new String[runs];
-		for (int run = 0; run < runs; run++) {
-			from[run] = s.getEtcFilename(run);
+	private static void writeRow(Filewriter fw, double[] row, String delimiter) {
+		StringBuilder buff = new StringBuilder();
+		for (int j = 0; j < row.length; j++) {
+			if (j > 0) {
+				buff.append(delimiter);
+			}
+			buff.append(row[j]);
 		}
-		return Aggregation.aggregateFrom(from, s.getEtcFilename(), z, runs);
+		fw.writeln(buff.toString());
 	}
 
-	private static boolean aggregateSingle(String[] from, String to,
-			String[] keys, double z) {
-		Filewriter fw = new Filewriter(to);
-		String delimiter = Config.get("DATA_WRITER_DELIMITER");
+	/**
+	 * Aggregates the single values of all runs (keys are taken from the first
+	 * run).
+	 * 
+	 * @param from
+	 *            singles file of every run
+	 * @param to
+	 *            file to write the aggregation to
+	 * @param z
+	 * @return true if the operation was successful, false otherwise
+	 */
+	private static boolean aggregateSingle(String[] from, String to, double z) {
 		SingleList[] lists = new SingleList[from.length];
 		for (int i = 0; i < from.length; i++) {
 			lists[i] = SingleList.read(null, from[i]);
 		}
+		String[] keys = lists[0].getKeys();
+		Filewriter fw = new Filewriter(to);
+		String delimiter = Config.get("DATA_WRITER_DELIMITER");
 		for (String key : keys) {
 			double[] values = new double[lists.length];
-			for (int i = 0; i < lists.length; i++) {
-				values[i] = lists[i].get(key).getValue();
+			boolean complete = true;
+			for (int i = 0; i < lists.length && complete; i++) {
+				// missing in runs generated by an older version (e.g., NODES)
+				complete = lists[i].get(key) != null;
+				if (complete) {
+					values[i] = lists[i].get(key).getValue();
+				}
+			}
+			if (!complete) {
+				continue;
 			}
 			double[] aggr = Aggregation.aggregate(values, z);
 			StringBuffer buff = new StringBuffer();
@@ -153,46 +280,6 @@ public class Aggregation {
 		return fw.close();
 	}
 
-	private static boolean writeAggregation(double[] x, double[][] values,
-			double z, String filename) {
-		double[][] data = new double[x.length][];
-		for (int i = 0; i < x.length; i++) {
-			data[i] = Aggregation.aggregate(x[i], values[i], z);
-		}
-		return DataWriter.write(data, filename, false);
-	}
-
-	private static double[][] extractValues(double[][][] data, double[] x,
-			boolean cdf) {
-		double[][] values = new double[x.length][data.length];
-		for (int i = 0; i < x.length; i++) {
-			for (int run = 0; run < data.length; run++) {
-				if (data[run].length > i) {
-					values[i][run] = data[run][i][1];
-				} else if (cdf && i > 0) {
-					values[i][run] = values[i - 1][run];
-				} else {
-					values[i][run] = 0;
-				}
-			}
-		}
-		return values;
-	}
-
-	private static double[] extractX(double[][][] data) {
-		double[][] max = new double[0][0];
-		for (double[][] d : data) {
-			if (d.length > max.length) {
-				max = d;
-			}
-		}
-		double[] x = new double[max.length];
-		for (int i = 0; i < max.length; i++) {
-			x[i] = max[i][0];
-		}
-		return x;
-	}
-
 	private static double[] aggregate(double[] values, double z) {
 		double[] avgMinMax = Aggregation.computeAvgMinMax(values);
 		double avg = avgMinMax[0];
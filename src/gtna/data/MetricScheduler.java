@@ -0,0 +1,313 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * MetricScheduler.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.data;
+
+import gtna.graph.Graph;
+import gtna.io.Output;
+import gtna.metrics.Metric;
+import gtna.util.Config;
+import gtna.util.Parallel;
+import gtna.util.Timer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes the metrics of a single run of a series. The dependencies each
+ * metric declares (Metric.getDependencies()) form a DAG and a metric is only
+ * started once all metrics it depends on are finished. Independent metrics
+ * are executed concurrently on the same (read-only) graph in case more than
+ * one thread is used, otherwise they are executed sequentially in their
+ * original order.
+ *
+ * The data of each metric is written as soon as it is finished. For each
+ * metric, the wall-clock time as well as the CPU time are reported. The
+ * latter includes the tasks the metric executes on the Parallel pool threads
+ * but no threads the metric starts otherwise.
+ */
+public class MetricScheduler {
+	private Series s;
+
+	private int run;
+
+	private Graph g;
+
+	private Metric[] metrics;
+
+	// dependents[i]: metrics that depend on metric i
+	private int[][] dependents;
+
+	// number of unfinished metrics that metric i depends on
+	private int[] missing;
+
+	private HashMap<String, Metric> finished;
+
+	private double[] wallRuntime;
+
+	private double[] cpuRuntime;
+
+	private boolean[] computed;
+
+	private int running;
+
+	private Throwable error;
+
+	public MetricScheduler(Series s, int run, Graph g) {
+		this.s = s;
+		this.run = run;
+		this.g = g;
+		this.metrics = s.getMetrics();
+		this.finished = new HashMap<String, Metric>();
+		this.wallRuntime = new double[this.metrics.length];
+		this.cpuRuntime = new double[this.metrics.length];
+		this.computed = new boolean[this.metrics.length];
+		this.buildDependencies();
+	}
+
+	private void buildDependencies() {
+		ArrayList<ArrayList<Integer>> dependents = new ArrayList<ArrayList<Integer>>();
+		for (int i = 0; i < this.metrics.length; i++) {
+			dependents.add(new ArrayList<Integer>());
+		}
+		this.missing = new int[this.metrics.length];
+		for (int i = 0; i < this.metrics.length; i++) {
+			for (String key : this.metrics[i].getDependencies()) {
+				for (int j = 0; j < this.metrics.length; j++) {
+					if (i != j
+							&& (key.equals(this.metrics[j].getKey()) || key
+									.equals(this.metrics[j].getFolder()))
+							&& !dependents.get(j).contains(i)) {
+						dependents.get(j).add(i);
+						this.missing[i]++;
+					}
+				}
+			}
+		}
+		this.dependents = new int[this.metrics.length][];
+		for (int i = 0; i < this.metrics.length; i++) {
+			this.dependents[i] = new int[dependents.get(i).size()];
+			for (int j = 0; j < this.dependents[i].length; j++) {
+				this.dependents[i][j] = dependents.get(i).get(j);
+			}
+		}
+	}
+
+	/**
+	 * Executes all metrics and adds their runtimes (in the order of the
+	 * metrics) to the given list.
+	 *
+	 * @param threads
+	 *            number of metrics to execute concurrently
+	 * @param runtimes
+	 * @return true if all metrics have been executed successfully
+	 */
+	public boolean execute(int threads, ArrayList<Single> runtimes) {
+		int[] order = this.getTopologicalOrder();
+		if (order == null) {
+			System.err.println("cyclic dependencies between metrics");
+			return false;
+		}
+		if (threads <= 1) {
+			for (int i : order) {
+				this.compute(i, false);
+			}
+		} else {
+			this.executeConcurrently(threads);
+			if (this.error != null) {
+				throw new RuntimeException(this.error);
+			}
+		}
+		for (int i = 0; i < this.metrics.length; i++) {
+			if (this.computed[i]) {
+				runtimes.add(new Single(this.metrics[i]
+						.getRuntimeSingleName(), this.wallRuntime[i]));
+				runtimes.add(new Single(this.metrics[i].getFolderName()
+						+ "_CPU_RUNTIME", this.cpuRuntime[i]));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return metrics ordered such that each one comes after all of its
+	 *         dependencies and otherwise in their original order, null in
+	 *         case of cyclic dependencies
+	 */
+	private int[] getTopologicalOrder() {
+		int[] missing = this.missing.clone();
+		boolean[] done = new boolean[this.metrics.length];
+		int[] order = new int[this.metrics.length];
+		for (int index = 0; index < order.length; index++) {
+			int next = -1;
+			for (int i = 0; i < this.metrics.length; i++) {
+				if (!done[i] && missing[i] == 0) {
+					next = i;
+					break;
+				}
+			}
+			if (next == -1) {
+				return null;
+			}
+			done[next] = true;
+			order[index] = next;
+			for (int dependent : this.dependents[next]) {
+				missing[dependent]--;
+			}
+		}
+		return order;
+	}
+
+	private void executeConcurrently(int threads) {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		synchronized (this) {
+			for (int i = 0; i < this.metrics.length; i++) {
+				if (this.missing[i] == 0) {
+					this.submit(executor, i);
+				}
+			}
+			while (this.running > 0) {
+				try {
+					this.wait();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		executor.shutdown();
+	}
+
+	private void submit(final ExecutorService executor, final int i) {
+		this.running++;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Throwable error = null;
+				try {
+					// metrics like ErrorComparison read data of the current
+					// run, which is stored per thread
+					Series.setCurrentRun(run);
+					compute(i, true);
+				} catch (Throwable t) {
+					error = t;
+				}
+				synchronized (MetricScheduler.this) {
+					if (error != null && MetricScheduler.this.error == null) {
+						MetricScheduler.this.error = error;
+					}
+					// no new metrics are started after an error
+					if (MetricScheduler.this.error == null) {
+						for (int dependent : dependents[i]) {
+							if (--missing[dependent] == 0) {
+								submit(executor, dependent);
+							}
+						}
+					}
+					running--;
+					MetricScheduler.this.notifyAll();
+				}
+			}
+		});
+	}
+
+	private void compute(int i, boolean concurrent) {
+		Metric m = this.metrics[i];
+		// every metric gets its own view of the finished metrics
+		HashMap<String, Metric> available;
+		synchronized (this) {
+			available = new HashMap<String, Metric>(this.finished);
+		}
+		if (!m.applicable(this.g, this.s.getNetwork(), available)) {
+			System.out.println("M: " + m.getDescriptionShort()
+					+ " not applicable");
+			return;
+		}
+		File folder = new File(this.s.getMetricFolder(this.run, m));
+		if (!folder.exists()) {
+			folder.mkdirs();
+		}
+
+		Parallel.CpuTime cpuTime = new Parallel.CpuTime();
+		long cpuNanos;
+		cpuTime.start();
+		Timer timer = concurrent ? new Timer() : new Timer("M: "
+				+ m.getDescriptionShort());
+		try {
+			m.computeData(this.g, this.s.getNetwork(), available);
+		} finally {
+			cpuNanos = cpuTime.stop();
+		}
+		timer.end();
+		if (concurrent) {
+			// the output of concurrent metrics must not be interleaved
+			Output.writeln("M: "
+					+ m.getDescriptionShort()
+					+ Config.get("TIMER_END").replace("%MSG", "")
+							.replace("%MSEC", timer.getMsec() + "")
+							.replace("%SEC", timer.getSec() + ""));
+		}
+
+		m.writeData(this.s.getMetricFolder(this.run, m));
+		SingleList singleList = new SingleList(m, m.getSingles());
+		singleList.write(this.s.getSinglesFilenameRun(this.run, m));
+
+		synchronized (this) {
+			this.wallRuntime[i] = timer.getRuntime();
+			this.cpuRuntime[i] = MetricScheduler.toRuntime(cpuNanos);
+			this.computed[i] = true;
+			this.finished.put(m.getKey(), m);
+			this.finished.put(m.getFolder(), m);
+		}
+	}
+
+	/**
+	 * @param nanos
+	 * @return nanos converted to the unit given by TIMER_TYPE
+	 */
+	private static double toRuntime(long nanos) {
+		if (nanos < 0) {
+			return -1;
+		} else if (Config.get("TIMER_TYPE").equals("sec")) {
+			return (double) nanos / 1000000000.0;
+		} else if (Config.get("TIMER_TYPE").equals("msec")) {
+			return (double) nanos / 1000000.0;
+		} else {
+			return -1;
+		}
+	}
+}
@@ -42,16 +42,32 @@ import gtna.networks.Network;
 import gtna.networks.util.ReadableFolder;
 import gtna.transformation.Transformation;
 import gtna.util.Config;
+import gtna.util.Parallel;
 import gtna.util.Timer;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Series {
+	/**
+	 * Creates the network (including its transformations) and the metrics
+	 * for a single run. Every call must return new instances with the same
+	 * configuration so that runs can be executed concurrently.
+	 */
+	public static interface RunFactory {
+		public Network createNetwork();
+
+		public Metric[] createMetrics();
+	}
+
 	private static int currentRun;
 
+	// run executed by the current thread in case of parallel runs
+	private static ThreadLocal<Integer> currentRunOfThread = new ThreadLocal<Integer>();
+
 	private Network network;
 
 	private Metric[] metrics;
@@ -143,6 +159,37 @@ public class Series {
 		return this.getSeriesFolderRun(run) + Config.get("SERIES_ETC_FILENAME");
 	}
 
+	/**
+	 * @param run
+	 * @return number of nodes of the graph of the given run (after all
+	 *         transformations) as stored in its etc file, -1 if unknown
+	 */
+	public int getNodes(int run) {
+		return Series.getNodes(this.getEtcFilename(run), false);
+	}
+
+	/**
+	 * @return maximum number of nodes of the graphs of all runs as stored in
+	 *         the aggregated etc file, -1 if unknown
+	 */
+	public int getNodes() {
+		return Series.getNodes(this.getEtcFilename(), true);
+	}
+
+	private static int getNodes(String etcFilename, boolean aggregated) {
+		SingleList etc = SingleList.read(null, etcFilename);
+		Single nodes = etc == null ? null : etc.get("NODES");
+		if (nodes == null) {
+			return -1;
+		}
+		// aggregated values: avg, med, min, max, ...
+		if (aggregated && nodes.getData() != null
+				&& nodes.getData().length > 3) {
+			return (int) Math.round(nodes.getData()[3]);
+		}
+		return (int) Math.round(nodes.getValue());
+	}
+
 	public String[] getRunFolders() {
 		int run = 0;
 		while (run < 10000000) {
@@ -206,21 +253,7 @@ public class Series {
 	 */
 	public static Series generate(Network nw, Metric[] metrics, int startRun,
 			int endRun) {
-		for (int i = 0; i < Config.getInt("TIMES_TO_CALL_GC_BEFORE_EACH_SERIES"); i++)
-			System.gc();
-		System.out.println("series (" + startRun + " - " + endRun + ") for "
-				+ nw.getDescriptionShort());
-		Series s = new Series(nw, metrics);
-		File folder = new File(s.getFolder());
-		if (!folder.exists()) {
-			folder.mkdirs();
-		}
-		for (Metric m : metrics) {
-			folder = new File(s.getFolder(m));
-			if (!folder.exists()) {
-				folder.mkdirs();
-			}
-		}
+		Series s = Series.prepare(nw, metrics, startRun, endRun);
 
 		if (s.getNetwork() instanceof ReadableFolder) {
 			for (int run = 0; run < startRun; run++) {
@@ -238,6 +271,108 @@ public class Series {
 			}
 		}
 
+		return Series.finish(s, startRun, endRun);
+	}
+
+	/**
+	 * Generates $times runs (0 to ($times-1)) using instances created by the
+	 * given factory.
+	 * 
+	 * @param factory
+	 * @param times
+	 * @return
+	 */
+	public static Series generate(RunFactory factory, int times) {
+		return Series.generate(factory, 0, times - 1);
+	}
+
+	/**
+	 * Generates ($endRun - $startRun + 1) runs ($startRun to $endRun) where up
+	 * to PARALLEL_SERIES runs are executed concurrently, each of them using
+	 * its own network and metric instances obtained from the factory. The
+	 * number of concurrent runs is further limited to the number of runs that
+	 * fit into the maximum heap size in case PARALLEL_SERIES_MEMORY_PER_RUN
+	 * (MB) is given. The folders of the runs and the aggregation are the same
+	 * as for a sequential execution. In case $startRun > 0, the generated
+	 * data is not aggregated!
+	 * 
+	 * @param factory
+	 * @param startRun
+	 * @param endRun
+	 * @return
+	 */
+	public static Series generate(final RunFactory factory,
+			final int startRun, final int endRun) {
+		int workers = Series.getWorkers(endRun - startRun + 1);
+		if (workers <= 1) {
+			return Series.generate(factory.createNetwork(),
+					factory.createMetrics(), startRun, endRun);
+		}
+		Series s = Series.prepare(factory.createNetwork(),
+				factory.createMetrics(), startRun, endRun);
+
+		final AtomicInteger next = new AtomicInteger(startRun);
+		final AtomicBoolean failed = new AtomicBoolean(false);
+		Parallel.run(workers, workers, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				while (!failed.get()) {
+					int run = next.getAndIncrement();
+					if (run > endRun) {
+						break;
+					}
+					Network nw = factory.createNetwork();
+					if (nw instanceof ReadableFolder) {
+						for (int i = 0; i < run; i++) {
+							((ReadableFolder) nw).incIndex();
+						}
+					}
+					Series runSeries = new Series(nw, factory.createMetrics());
+					if (!Series.generateRun(runSeries, run)) {
+						System.err.println("error in run " + run);
+						failed.set(true);
+					}
+				}
+			}
+		});
+		if (failed.get()) {
+			return null;
+		}
+
+		return Series.finish(s, startRun, endRun);
+	}
+
+	private static int getWorkers(int runs) {
+		int workers = Math.min(Parallel.getThreads("PARALLEL_SERIES"), runs);
+		int memoryPerRun = Config.getInt("PARALLEL_SERIES_MEMORY_PER_RUN");
+		if (memoryPerRun > 0) {
+			long max = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+			workers = (int) Math.min(workers, max / memoryPerRun);
+		}
+		return Math.max(1, workers);
+	}
+
+	private static Series prepare(Network nw, Metric[] metrics, int startRun,
+			int endRun) {
+		for (int i = 0; i < Config.getInt("TIMES_TO_CALL_GC_BEFORE_EACH_SERIES"); i++)
+			System.gc();
+		System.out.println("series (" + startRun + " - " + endRun + ") for "
+				+ nw.getDescriptionShort());
+		Series s = new Series(nw, metrics);
+		File folder = new File(s.getFolder());
+		if (!folder.exists()) {
+			folder.mkdirs();
+		}
+		for (Metric m : metrics) {
+			folder = new File(s.getFolder(m));
+			if (!folder.exists()) {
+				folder.mkdirs();
+			}
+		}
+		return s;
+	}
+
+	private static Series finish(Series s, int startRun, int endRun) {
 		if (startRun != 0) {
 			System.out.println("\n");
 			return s;
@@ -306,27 +441,10 @@ public class Series {
 			}
 		}
 		System.out.println("P: " + p.toString());
-		HashMap<String, Metric> metrics = new HashMap<String, Metric>();
-		for (Metric m : s.getMetrics()) {
-			folder = new File(s.getMetricFolder(run, m));
-			if (!m.applicable(g, s.getNetwork(), metrics)) {
-				System.out.println("M: " + m.getDescriptionShort()
-						+ " not applicable");
-				continue;
-			}
-			if (!folder.exists()) {
-				folder.mkdirs();
-			}
-			timer = new Timer("M: " + m.getDescriptionShort());
-			m.computeData(g, s.getNetwork(), metrics);
-			timer.end();
-			runtimes.add(new Single(m.getRuntimeSingleName(), timer
-					.getRuntime()));
-			m.writeData(s.getMetricFolder(run, m));
-			SingleList singleList = new SingleList(m, m.getSingles());
-			singleList.write(s.getSinglesFilenameRun(run, m));
-			metrics.put(m.getKey(), m);
-			metrics.put(m.getFolder(), m);
+		MetricScheduler scheduler = new MetricScheduler(s, run, g);
+		if (!scheduler.execute(
+				Parallel.getThreads("PARALLEL_SERIES_METRICS"), runtimes)) {
+			return false;
 		}
 
 		SingleList rt = new SingleList(null, runtimes);
@@ -336,6 +454,8 @@ public class Series {
 		Runtime runtime = Runtime.getRuntime();
 		double used = (runtime.totalMemory() - runtime.freeMemory()) / mb;
 		etc.add(new Single("MEMORY_USED", used));
+		etc.add(new Single("NODES", g.getNodeCount()));
+		etc.add(new Single("EDGES", g.computeNumberOfEdges()));
 		SingleList etcSl = new SingleList(null, etc);
 		etcSl.write(s.getEtcFilename(run));
 
@@ -379,6 +499,10 @@ public class Series {
 	 * @return the currentRun
 	 */
 	public static int getCurrentRun() {
+		Integer run = currentRunOfThread.get();
+		if (run != null) {
+			return run;
+		}
 		return currentRun;
 	}
 
@@ -387,5 +511,6 @@ public class Series {
 	 */
 	public static void setCurrentRun(int currentRun) {
 		Series.currentRun = currentRun;
+		Series.currentRunOfThread.set(currentRun);
 	}
 }
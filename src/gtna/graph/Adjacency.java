@@ -0,0 +1,378 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * Adjacency.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable compressed sparse row (CSR) representation of the adjacency of a
+ * graph. The outgoing edges of node v are stored in
+ * outTargets[outOffsets[v] .. outOffsets[v + 1]), the incoming edges in
+ * inTargets[inOffsets[v] .. inOffsets[v + 1]). Both ranges are sorted by node
+ * index so that membership tests can be performed using binary search.
+ *
+ * Neighbors are meant to be scanned without allocating anything:
+ *
+ * <pre>
+ * for (int i = adj.getOutStart(v); i &lt; adj.getOutEnd(v); i++) {
+ * 	int w = adj.getOutTarget(i);
+ * }
+ * </pre>
+ *
+ * The target arrays can optionally be stored off-heap in direct buffers
+ * (GRAPH_ADJACENCY_OFF_HEAP), the offsets are always kept on the heap.
+ */
+public class Adjacency {
+	private int nodes;
+
+	private int[] outOffsets;
+
+	private int[] inOffsets;
+
+	private int[] outTargets;
+
+	private int[] inTargets;
+
+	private IntBuffer outTargetsBuffer;
+
+	private IntBuffer inTargetsBuffer;
+
+	private boolean offHeap;
+
+	/**
+	 * Creates the CSR representation from the given adjacency lists which
+	 * are expected to be sorted by index (e.g., the result of a previous
+	 * CSR). The incoming edges are obtained by transposing the outgoing ones.
+	 *
+	 * @param outOffsets
+	 *            offsets of the outgoing edges (length n + 1)
+	 * @param outTargets
+	 *            targets of the outgoing edges (length outOffsets[n])
+	 * @param offHeap
+	 *            store the target arrays in direct buffers
+	 */
+	public Adjacency(int[] outOffsets, int[] outTargets, boolean offHeap) {
+		this.nodes = outOffsets.length - 1;
+		this.outOffsets = outOffsets;
+		this.inOffsets = new int[this.nodes + 1];
+		for (int i = 0; i < outOffsets[this.nodes]; i++) {
+			this.inOffsets[outTargets[i] + 1]++;
+		}
+		for (int v = 0; v < this.nodes; v++) {
+			this.inOffsets[v + 1] += this.inOffsets[v];
+		}
+		int[] inTargets = new int[outOffsets[this.nodes]];
+		int[] pos = Arrays.copyOf(this.inOffsets, this.nodes);
+		// iterating over the sources in ascending order yields sorted ranges
+		for (int v = 0; v < this.nodes; v++) {
+			for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+				inTargets[pos[outTargets[i]]++] = v;
+			}
+		}
+		this.store(outTargets, inTargets, offHeap);
+	}
+
+	/**
+	 * Creates a CSR snapshot of the adjacency lists of the given nodes.
+	 *
+	 * @param nodes
+	 *            nodes of the graph
+	 * @param offHeap
+	 *            store the target arrays in direct buffers
+	 */
+	public Adjacency(Node[] nodes, boolean offHeap) {
+		this.nodes = nodes.length;
+		this.outOffsets = new int[this.nodes + 1];
+		this.inOffsets = new int[this.nodes + 1];
+		for (int v = 0; v < this.nodes; v++) {
+			this.outOffsets[v + 1] = this.outOffsets[v]
+					+ nodes[v].getOutDegree();
+			this.inOffsets[v + 1] = this.inOffsets[v] + nodes[v].getInDegree();
+		}
+		int[] outTargets = new int[this.outOffsets[this.nodes]];
+		int[] inTargets = new int[this.inOffsets[this.nodes]];
+		for (int v = 0; v < this.nodes; v++) {
+			int[] out = nodes[v].getOutgoingEdges();
+			System.arraycopy(out, 0, outTargets, this.outOffsets[v], out.length);
+			Arrays.sort(outTargets, this.outOffsets[v], this.outOffsets[v + 1]);
+			int[] in = nodes[v].getIncomingEdges();
+			System.arraycopy(in, 0, inTargets, this.inOffsets[v], in.length);
+			Arrays.sort(inTargets, this.inOffsets[v], this.inOffsets[v + 1]);
+		}
+		this.store(outTargets, inTargets, offHeap);
+	}
+
+	private void store(int[] outTargets, int[] inTargets, boolean offHeap) {
+		this.offHeap = offHeap;
+		if (offHeap) {
+			this.outTargetsBuffer = Adjacency.toDirectBuffer(outTargets);
+			this.inTargetsBuffer = Adjacency.toDirectBuffer(inTargets);
+		} else {
+			this.outTargets = outTargets;
+			this.inTargets = inTargets;
+		}
+	}
+
+	private static IntBuffer toDirectBuffer(int[] array) {
+		IntBuffer buffer = ByteBuffer.allocateDirect(array.length * 4)
+				.order(ByteOrder.nativeOrder()).asIntBuffer();
+		buffer.put(array);
+		buffer.rewind();
+		return buffer;
+	}
+
+	public String toString() {
+		return "Adjacency (" + this.nodes + " / " + this.getEdgeCount()
+				+ (this.offHeap ? ", off-heap)" : ")");
+	}
+
+	/*
+	 * SIZES
+	 */
+
+	public int getNodeCount() {
+		return this.nodes;
+	}
+
+	public int getEdgeCount() {
+		return this.outOffsets[this.nodes];
+	}
+
+	public boolean isOffHeap() {
+		return this.offHeap;
+	}
+
+	public int getOutDegree(int v) {
+		return this.outOffsets[v + 1] - this.outOffsets[v];
+	}
+
+	public int getInDegree(int v) {
+		return this.inOffsets[v + 1] - this.inOffsets[v];
+	}
+
+	public int getDegree(int v) {
+		return this.getOutDegree(v) + this.getInDegree(v);
+	}
+
+	/*
+	 * OUTGOING EDGES
+	 */
+
+	/**
+	 * @param v
+	 *            node index
+	 * @return position of the first outgoing edge of v
+	 */
+	public int getOutStart(int v) {
+		return this.outOffsets[v];
+	}
+
+	/**
+	 * @param v
+	 *            node index
+	 * @return position after the last outgoing edge of v
+	 */
+	public int getOutEnd(int v) {
+		return this.outOffsets[v + 1];
+	}
+
+	/**
+	 * @param position
+	 *            position in [getOutStart(v), getOutEnd(v))
+	 * @return target of the outgoing edge at the given position
+	 */
+	public int getOutTarget(int position) {
+		if (this.offHeap) {
+			return this.outTargetsBuffer.get(position);
+		}
+		return this.outTargets[position];
+	}
+
+	/**
+	 * @return the offsets of the outgoing edges (must not be modified)
+	 */
+	public int[] getOutOffsets() {
+		return this.outOffsets;
+	}
+
+	/**
+	 * @param v
+	 *            node index
+	 * @return sorted copy of the outgoing edges of v
+	 */
+	public int[] getOutgoingEdges(int v) {
+		return this.copy(this.outTargets, this.outTargetsBuffer,
+				this.outOffsets[v], this.outOffsets[v + 1]);
+	}
+
+	/**
+	 * @param src
+	 * @param dst
+	 * @return true if the edge (src, dst) exists
+	 */
+	public boolean hasOut(int src, int dst) {
+		return this.search(this.outTargets, this.outTargetsBuffer,
+				this.outOffsets[src], this.outOffsets[src + 1], dst) >= 0;
+	}
+
+	/**
+	 * @param src
+	 * @param dst
+	 * @return position of the edge (src, dst) or a negative value in case it
+	 *         does not exist
+	 */
+	public int getOutPosition(int src, int dst) {
+		return this.search(this.outTargets, this.outTargetsBuffer,
+				this.outOffsets[src], this.outOffsets[src + 1], dst);
+	}
+
+	/*
+	 * INCOMING EDGES
+	 */
+
+	/**
+	 * @param v
+	 *            node index
+	 * @return position of the first incoming edge of v
+	 */
+	public int getInStart(int v) {
+		return this.inOffsets[v];
+	}
+
+	/**
+	 * @param v
+	 *            node index
+	 * @return position after the last incoming edge of v
+	 */
+	public int getInEnd(int v) {
+		return this.inOffsets[v + 1];
+	}
+
+	/**
+	 * @param position
+	 *            position in [getInStart(v), getInEnd(v))
+	 * @return source of the incoming edge at the given position
+	 */
+	public int getInSource(int position) {
+		if (this.offHeap) {
+			return this.inTargetsBuffer.get(position);
+		}
+		return this.inTargets[position];
+	}
+
+	/**
+	 * @return the offsets of the incoming edges (must not be modified)
+	 */
+	public int[] getInOffsets() {
+		return this.inOffsets;
+	}
+
+	/**
+	 * @param v
+	 *            node index
+	 * @return sorted copy of the incoming edges of v
+	 */
+	public int[] getIncomingEdges(int v) {
+		return this.copy(this.inTargets, this.inTargetsBuffer,
+				this.inOffsets[v], this.inOffsets[v + 1]);
+	}
+
+	/**
+	 * @param dst
+	 * @param src
+	 * @return true if the edge (src, dst) exists
+	 */
+	public boolean hasIn(int dst, int src) {
+		return this.search(this.inTargets, this.inTargetsBuffer,
+				this.inOffsets[dst], this.inOffsets[dst + 1], src) >= 0;
+	}
+
+	/*
+	 * NODE VIEW
+	 */
+
+	/**
+	 * Materializes the adjacency lists as nodes so that code working on
+	 * Node[] can still be used on graphs that are only given as CSR.
+	 *
+	 * @param graph
+	 *            graph the nodes belong to
+	 * @return nodes with copies of the (sorted) adjacency lists
+	 */
+	public Node[] toNodes(Graph graph) {
+		Node[] nodes = new Node[this.nodes];
+		for (int v = 0; v < this.nodes; v++) {
+			nodes[v] = new Node(v, graph, this.getIncomingEdges(v),
+					this.getOutgoingEdges(v));
+		}
+		return nodes;
+	}
+
+	private int[] copy(int[] array, IntBuffer buffer, int from, int to) {
+		if (array != null) {
+			return Arrays.copyOfRange(array, from, to);
+		}
+		int[] copy = new int[to - from];
+		for (int i = from; i < to; i++) {
+			copy[i - from] = buffer.get(i);
+		}
+		return copy;
+	}
+
+	private int search(int[] array, IntBuffer buffer, int from, int to,
+			int key) {
+		if (array != null) {
+			return Arrays.binarySearch(array, from, to, key);
+		}
+		int low = from;
+		int high = to - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int value = buffer.get(mid);
+			if (value < key) {
+				low = mid + 1;
+			} else if (value > key) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+}
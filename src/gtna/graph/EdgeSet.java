@@ -0,0 +1,161 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * EdgeSet.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of directed edges that are packed into a single
+ * long value (src << 32 | dst). For each edge, the position it has been
+ * stored at (e.g., in a list of edges) is kept as well so that the set can
+ * be used as an index without allocating any objects per edge.
+ */
+public class EdgeSet {
+	private static final long EMPTY = -1L;
+
+	private long[] keys;
+
+	private int[] positions;
+
+	private int size;
+
+	private int mask;
+
+	private int threshold;
+
+	public EdgeSet(int expectedEdges) {
+		int capacity = 16;
+		while (capacity < 2L * expectedEdges && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		this.allocate(capacity);
+	}
+
+	public static long pack(int src, int dst) {
+		return ((long) src << 32) | (dst & 0xFFFFFFFFL);
+	}
+
+	public static int src(long edge) {
+		return (int) (edge >>> 32);
+	}
+
+	public static int dst(long edge) {
+		return (int) edge;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean contains(int src, int dst) {
+		return this.get(EdgeSet.pack(src, dst)) != -1;
+	}
+
+	/**
+	 * @param edge
+	 *            packed edge
+	 * @return position stored for the edge or -1 in case it is not contained
+	 */
+	public int get(long edge) {
+		int i = EdgeSet.hash(edge) & this.mask;
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == edge) {
+				return this.positions[i];
+			}
+			i = (i + 1) & this.mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param edge
+	 *            packed edge
+	 * @param position
+	 *            position to store for the edge
+	 * @return true if the edge has been added, false if it was already
+	 *         contained
+	 */
+	public boolean add(long edge, int position) {
+		int i = EdgeSet.hash(edge) & this.mask;
+		while (this.keys[i] != EMPTY) {
+			if (this.keys[i] == edge) {
+				return false;
+			}
+			i = (i + 1) & this.mask;
+		}
+		this.keys[i] = edge;
+		this.positions[i] = position;
+		if (++this.size > this.threshold) {
+			this.rehash(this.keys.length << 1);
+		}
+		return true;
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.positions = new int[capacity];
+		this.mask = capacity - 1;
+		this.threshold = capacity / 2;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldPositions = this.positions;
+		this.allocate(capacity);
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] == EMPTY) {
+				continue;
+			}
+			int i = EdgeSet.hash(oldKeys[j]) & this.mask;
+			while (this.keys[i] != EMPTY) {
+				i = (i + 1) & this.mask;
+			}
+			this.keys[i] = oldKeys[j];
+			this.positions[i] = oldPositions[j];
+		}
+	}
+
+	private static int hash(long edge) {
+		// finalizer of MurmurHash3
+		edge ^= edge >>> 33;
+		edge *= 0xff51afd7ed558ccdL;
+		edge ^= edge >>> 33;
+		edge *= 0xc4ceb9fe1a85ec53L;
+		edge ^= edge >>> 33;
+		return (int) edge;
+	}
+}
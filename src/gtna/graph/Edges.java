@@ -36,81 +36,135 @@
 package gtna.graph;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 public class Edges {
 	private Node[] nodes;
 
-	private ArrayList<Edge> edges;
+	// edges packed as src << 32 | dst in the order they have been added
+	private long[] list;
+
+	private int size;
+
+	private EdgeSet set;
 
-	private HashMap<String, Edge> map;
+	// de-duplication is deferred until the edges are first accessed
+	private boolean sortAndDeduplicate;
+
+	private ArrayList<Edge> edges;
 
 	private int[] inDegree;
 
 	private int[] outDegree;
 
 	public Edges(Node[] nodes, int edges) {
+		this(nodes, edges, false);
+	}
+
+	/**
+	 * In case sortAndDeduplicate is set, edges are simply appended by add
+	 * (which then only rejects loops). Duplicates are removed by sorting all
+	 * edges when they are first accessed (e.g., by fill()). This is meant for
+	 * readers that know the number of edges up front and do not care about the
+	 * return value of add.
+	 * 
+	 * @param nodes
+	 *            nodes of the graph
+	 * @param edges
+	 *            expected number of edges
+	 * @param sortAndDeduplicate
+	 *            defer de-duplication to a single sort
+	 */
+	public Edges(Node[] nodes, int edges, boolean sortAndDeduplicate) {
 		this.nodes = nodes;
-		this.edges = new ArrayList<Edge>(edges);
-		this.map = new HashMap<String, Edge>();
+		this.list = new long[Math.max(edges, 16)];
+		this.size = 0;
+		this.sortAndDeduplicate = sortAndDeduplicate;
+		if (!sortAndDeduplicate) {
+			this.set = new EdgeSet(edges);
+		}
 		this.inDegree = new int[this.nodes.length];
 		this.outDegree = new int[this.nodes.length];
 	}
 
 	public Edges(Node[] nodes, Edge[] edges) {
 		this(nodes, edges.length);
-		for (Edge edge : edges) {
-			this.add(edge);
-		}
+		this.addAll(edges);
 	}
 
 	public boolean contains(int src, int dst) {
-		return this.map.containsKey(Edge.toString(src, dst));
+		return this.getSet().get(EdgeSet.pack(src, dst)) != -1;
 	}
 
 	public int size() {
-		return this.edges.size();
+		this.deduplicate();
+		return this.size;
 	}
 
-	private boolean add(Edge edge) {
-		if (this.map.containsKey(edge.toString())) {
+	public boolean add(int src, int dst) {
+		if (src == dst) {
 			return false;
 		}
-		if (edge.getSrc() == edge.getDst()) {
+		long edge = EdgeSet.pack(src, dst);
+		if (this.sortAndDeduplicate) {
+			this.append(edge);
+			return true;
+		}
+		if (!this.getSet().add(edge, this.size)) {
 			return false;
 		}
-		this.edges.add(edge);
-		this.map.put(edge.toString(), edge);
-		this.inDegree[edge.getDst()]++;
-		this.outDegree[edge.getSrc()]++;
+		this.append(edge);
+		this.inDegree[dst]++;
+		this.outDegree[src]++;
 		return true;
 	}
 
-	public boolean add(int src, int dst) {
-		if (this.map.containsKey(Edge.toString(src, dst))) {
-			return false;
+	/**
+	 * @param edges
+	 * @return number of edges that have been added
+	 */
+	public int addAll(Edge[] edges) {
+		this.ensureCapacity(this.size + edges.length);
+		int added = 0;
+		for (Edge edge : edges) {
+			if (this.add(edge.getSrc(), edge.getDst())) {
+				added++;
+			}
 		}
-		if (src == dst) {
-			return false;
+		return added;
+	}
+
+	/**
+	 * @param src
+	 *            sources of the edges
+	 * @param dst
+	 *            destinations of the edges
+	 * @param length
+	 *            number of edges to add from the two arrays
+	 * @return number of edges that have been added
+	 */
+	public int addAll(int[] src, int[] dst, int length) {
+		this.ensureCapacity(this.size + length);
+		int added = 0;
+		for (int i = 0; i < length; i++) {
+			if (this.add(src[i], dst[i])) {
+				added++;
+			}
 		}
-		Edge edge = new Edge(src, dst);
-		this.edges.add(edge);
-		this.map.put(edge.toString(), edge);
-		this.inDegree[edge.getDst()]++;
-		this.outDegree[edge.getSrc()]++;
-		return true;
+		return added;
 	}
 
 	public void fill() {
+		this.deduplicate();
 		for (int i = 0; i < this.nodes.length; i++) {
 			this.nodes[i].setIncomingEdges(new int[this.inDegree[i]]);
 			this.nodes[i].setOutgoingEdges(new int[this.outDegree[i]]);
 		}
 		int[] inIndex = new int[this.nodes.length];
 		int[] outIndex = new int[this.nodes.length];
-		for (Edge e : this.edges) {
-			int srcIndex = e.getSrc();
-			int dstIndex = e.getDst();
+		for (int i = 0; i < this.size; i++) {
+			int srcIndex = EdgeSet.src(this.list[i]);
+			int dstIndex = EdgeSet.dst(this.list[i]);
 			Node src = this.nodes[srcIndex];
 			Node dst = this.nodes[dstIndex];
 			dst.getIncomingEdges()[inIndex[dstIndex]] = srcIndex;
@@ -124,6 +178,14 @@ public class Edges {
 	 * @return the edges
 	 */
 	public ArrayList<Edge> getEdges() {
+		this.deduplicate();
+		if (this.edges == null) {
+			this.edges = new ArrayList<Edge>(this.size);
+			for (int i = 0; i < this.size; i++) {
+				this.edges.add(new Edge(EdgeSet.src(this.list[i]), EdgeSet
+						.dst(this.list[i])));
+			}
+		}
 		return this.edges;
 	}
 
@@ -134,6 +196,59 @@ public class Edges {
 	 * @return
 	 */
 	public Edge getEdge(int src, int dst) {
-		return map.get(Edge.toString(src, dst));
+		int position = this.getSet().get(EdgeSet.pack(src, dst));
+		if (position == -1) {
+			return null;
+		}
+		return this.getEdges().get(position);
+	}
+
+	private void append(long edge) {
+		this.ensureCapacity(this.size + 1);
+		this.list[this.size++] = edge;
+		if (this.edges != null) {
+			this.edges.add(new Edge(EdgeSet.src(edge), EdgeSet.dst(edge)));
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.list.length) {
+			this.list = Arrays.copyOf(this.list,
+					Math.max(capacity, this.list.length + (this.list.length >> 1)));
+		}
+	}
+
+	private EdgeSet getSet() {
+		this.deduplicate();
+		if (this.set == null) {
+			this.set = new EdgeSet(this.size);
+			for (int i = 0; i < this.size; i++) {
+				this.set.add(this.list[i], i);
+			}
+		}
+		return this.set;
+	}
+
+	/**
+	 * sorts the edges appended so far, removes duplicates and switches to
+	 * regular (hash-based) de-duplication for all further additions
+	 */
+	private void deduplicate() {
+		if (!this.sortAndDeduplicate) {
+			return;
+		}
+		Arrays.sort(this.list, 0, this.size);
+		int unique = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (unique > 0 && this.list[unique - 1] == this.list[i]) {
+				continue;
+			}
+			this.list[unique++] = this.list[i];
+			this.outDegree[EdgeSet.src(this.list[i])]++;
+			this.inDegree[EdgeSet.dst(this.list[i])]++;
+		}
+		this.size = unique;
+		this.sortAndDeduplicate = false;
+		this.edges = null;
 	}
 }
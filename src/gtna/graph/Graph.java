@@ -35,6 +35,8 @@
  */
 package gtna.graph;
 
+import gtna.util.Config;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -54,8 +56,23 @@ public class Graph {
 		this.nodes = Node.init(nodes, this);
 	}
 
+	/**
+	 * Creates a graph that is backed by the given CSR representation. The
+	 * Node objects are only materialized when they are requested.
+	 * 
+	 * @param name
+	 *            name of the graph
+	 * @param adjacency
+	 *            adjacency of the graph
+	 */
+	public Graph(String name, Adjacency adjacency) {
+		this.name = name;
+		this.nodes = null;
+		this.adjacency = adjacency;
+	}
+
 	public String toString() {
-		return this.name + " (" + this.nodes.length + ")";
+		return this.name + " (" + this.getNodeCount() + ")";
 	}
 
 	/*
@@ -89,6 +106,9 @@ public class Graph {
 	 * @return the nodes
 	 */
 	public Node[] getNodes() {
+		if (this.nodes == null) {
+			this.materializeNodes();
+		}
 		return this.nodes;
 	}
 
@@ -98,6 +118,7 @@ public class Graph {
 	 */
 	public void setNodes(Node[] nodes) {
 		this.nodes = nodes;
+		this.resetAdjacency();
 	}
 
 	/**
@@ -105,13 +126,53 @@ public class Graph {
 	 * @return the node with index nodeIndex
 	 */
 	public Node getNode(int nodeIndex) {
-		return this.nodes[nodeIndex];
+		return this.getNodes()[nodeIndex];
 	}
 
 	public int getNodeCount() {
+		if (this.nodes == null) {
+			return this.adjacency.getNodeCount();
+		}
 		return this.nodes.length;
 	}
 
+	private synchronized void materializeNodes() {
+		if (this.nodes == null) {
+			this.nodes = this.adjacency.toNodes(this);
+		}
+	}
+
+	/*
+	 * ADJACENCY
+	 */
+
+	private Adjacency adjacency = null;
+
+	/**
+	 * Returns the CSR representation of the graph's adjacency lists. It is
+	 * generated from the nodes when first requested and discarded as soon as
+	 * the edges of any node are modified.
+	 * 
+	 * @return the adjacency of the graph
+	 */
+	public synchronized Adjacency getAdjacency() {
+		if (this.adjacency == null) {
+			this.adjacency = new Adjacency(this.nodes,
+					Config.getBoolean("GRAPH_ADJACENCY_OFF_HEAP"));
+		}
+		return this.adjacency;
+	}
+
+	/**
+	 * Discards the cached CSR representation, called by the nodes whenever
+	 * their edges change.
+	 */
+	public synchronized void resetAdjacency() {
+		if (this.nodes != null) {
+			this.adjacency = null;
+		}
+	}
+
 	/*
 	 * EDGES
 	 */
@@ -119,6 +180,9 @@ public class Graph {
 	private Edges edges = null;
 
 	public int computeNumberOfEdges() {
+		if (this.nodes == null) {
+			return this.adjacency.getEdgeCount();
+		}
 		int E = 0;
 		for (Node n : this.nodes) {
 			E += n.getOutDegree();
@@ -127,6 +191,7 @@ public class Graph {
 	}
 
 	public Edge[] generateEdges() {
+		this.getNodes();
 		int E = 0;
 		for (Node n : this.nodes) {
 			E += n.getOutDegree();
@@ -145,6 +210,7 @@ public class Graph {
 		if (this.edges != null) {
 			return this.edges;
 		}
+		this.getNodes();
 		int E = 0;
 		for (Node n : this.nodes) {
 			E += n.getOutDegree();
@@ -39,11 +39,23 @@ import gtna.io.Filereader;
 import gtna.io.Filewriter;
 import gtna.util.Config;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
 /**
  * @author benni
  * 
  */
 public abstract class GraphProperty {
+	private static final int BINARY_BUFFER_SIZE = 1 << 16;
+
 	/**
 	 * Writes the GraphProperty into a file that should readable using the
 	 * read(filename, graph) method. Always use the methods .writeHeader(.) and
@@ -139,4 +151,122 @@ public abstract class GraphProperty {
 		}
 		return null;
 	}
+
+	/*
+	 * BINARY CONTENT
+	 */
+
+	/**
+	 * Creates the given file and writes the header (classname and key) as
+	 * done by .writeHeader(.) followed by the comment GRAPH_PROPERTY_BINARY.
+	 * Hence, the class of the GraphProperty can be determined from the file
+	 * as for text files. The content can then be written in binary form to
+	 * the returned stream (all values are big-endian) which must be closed by
+	 * the caller.
+	 * 
+	 * @param filename
+	 *            where to write the data
+	 * @param key
+	 *            key of this GraphProperty
+	 * @return stream to write the binary content to
+	 * @throws IOException
+	 */
+	protected DataOutputStream writeBinaryHeader(String filename, String key)
+			throws IOException {
+		Filewriter.generateFolders(filename);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(filename), BINARY_BUFFER_SIZE));
+		StringBuilder header = new StringBuilder();
+		header.append(Filewriter.COMMENT)
+				.append(Config.get("GRAPH_PROPERTY_CLASS")).append('\n');
+		header.append(this.getClass().getCanonicalName()).append('\n');
+		header.append(Filewriter.COMMENT)
+				.append(Config.get("GRAPH_PROPERTY_KEY")).append('\n');
+		header.append(key).append('\n');
+		header.append(Filewriter.COMMENT)
+				.append(Config.get("GRAPH_PROPERTY_BINARY")).append('\n');
+		out.write(header.toString().getBytes("UTF-8"));
+		return out;
+	}
+
+	/**
+	 * Opens a file written using .writeBinaryHeader(.), the header has to be
+	 * read using .readBinaryHeader(.) before reading the content.
+	 * 
+	 * @param filename
+	 *            where to read the GraphProperty from
+	 * @return stream to read the file from
+	 * @throws IOException
+	 */
+	protected DataInputStream openBinary(String filename) throws IOException {
+		return new DataInputStream(new BufferedInputStream(new FileInputStream(
+				filename), BINARY_BUFFER_SIZE));
+	}
+
+	/**
+	 * Reads the header written by .writeBinaryHeader(.).
+	 * 
+	 * @param in
+	 *            stream returned by .openBinary(.)
+	 * @return key given in the file
+	 * @throws IOException
+	 */
+	protected String readBinaryHeader(DataInputStream in) throws IOException {
+		// CLASS
+		this.readBinaryLine(in);
+		this.readBinaryLine(in);
+
+		// KEY
+		this.readBinaryLine(in);
+		String key = this.readBinaryLine(in);
+
+		// BINARY
+		this.readBinaryLine(in);
+
+		return key;
+	}
+
+	private String readBinaryLine(DataInputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b == -1) {
+				throw new EOFException();
+			}
+			line.write(b);
+		}
+		return line.toString("UTF-8");
+	}
+
+	protected void writeInts(DataOutputStream out, int[] values)
+			throws IOException {
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	protected void writeDoubles(DataOutputStream out, double[] values)
+			throws IOException {
+		for (double value : values) {
+			out.writeDouble(value);
+		}
+	}
+
+	protected int[] readInts(DataInputStream in, int length)
+			throws IOException {
+		int[] values = new int[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	protected double[] readDoubles(DataInputStream in, int length)
+			throws IOException {
+		double[] values = new double[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readDouble();
+		}
+		return values;
+	}
 }
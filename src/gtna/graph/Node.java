@@ -142,6 +142,7 @@ public class Node implements Comparable<Node> {
 	 */
 	public void setIncomingEdges(int[] incomingEdges) {
 		this.incomingEdges = incomingEdges;
+		this.edgesChanged();
 	}
 
 	/**
@@ -157,6 +158,7 @@ public class Node implements Comparable<Node> {
 	 */
 	public void setOutgoingEdges(int[] outgoingEdges) {
 		this.outgoingEdges = outgoingEdges;
+		this.edgesChanged();
 	}
 
 	public Edge[] getEdges() {
@@ -265,6 +267,7 @@ public class Node implements Comparable<Node> {
 
 		// added by truong
 		this.incomingEdges = array;
+		this.edgesChanged();
 	}
 
 	public void addOut(int index) {
@@ -274,6 +277,7 @@ public class Node implements Comparable<Node> {
 
 		// added by truong
 		this.outgoingEdges = array;
+		this.edgesChanged();
 	}
 
 	public boolean removeIn(int index) {
@@ -333,6 +337,15 @@ public class Node implements Comparable<Node> {
 		}
 	}
 
+	/**
+	 * invalidates the CSR representation cached by the graph
+	 */
+	private void edgesChanged() {
+		if (this.graph != null) {
+			this.graph.resetAdjacency();
+		}
+	}
+
 	/**
 	 * sort incoming/outgoing edges by index
 	 */
@@ -35,16 +35,16 @@
  */
 package gtna.graph.sorting;
 
+import gtna.algorithms.shortestPaths.AllPairsBreadthFirstSearch;
 import gtna.graph.Graph;
 import gtna.graph.Node;
+import gtna.metrics.centrality.BetweennessCentrality;
+import gtna.util.Parallel;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Random;
-import java.util.Stack;
 
 /**
  * Implement the Betweenness Centrality described by Ulrik Brandes in
@@ -156,113 +156,65 @@ public class CentralityNodeSorter extends NodeSorter {
 	}
 
 	/**
-	 * 
+	 * Closeness centrality and effective eccentricity are obtained from a
+	 * BFS of every node executed by the all-pairs BFS engine, the betweenness
+	 * centrality is computed using the (array-based) Brandes algorithm of
+	 * the BetweennessCentrality metric.
 	 */
 	private void calculate(Graph g) {
-		Node[] nodes = g.getNodes();
+		final Node[] nodes = g.getNodes();
 
-		// initiate centrality points
+		// ----- betweenness centrality
+		BetweennessCentrality bc = new BetweennessCentrality();
+		bc.computeData(g, null, null);
+		double[] cbs = bc.getNodeValueLists()[0].getValues();
 		for (Node n : nodes) {
-			this.bcMap.put(n, 0.0);
+			this.bcMap.put(n, cbs[n.getIndex()]);
 		}
 
-		for (Node s : nodes) {
-			// empty stack
-			Stack<Node> S = new Stack<Node>();
-			S.clear();
-
-			HashMap<Node, ArrayList<Node>> P = new HashMap<Node, ArrayList<Node>>();
-			for (Node n : nodes) {
-				P.put(n, new ArrayList<Node>());
-			}
-
-			// sigma
-			HashMap<Node, Integer> sigma = new HashMap<Node, Integer>();
-			for (Node n : nodes) {
-				sigma.put(n, 0);
-			}
-			sigma.put(s, 1);
-
-			// d
-			HashMap<Node, Integer> d = new HashMap<Node, Integer>();
-			for (Node n : nodes) {
-				d.put(n, -1);
-			}
-			d.put(s, 0);
-
-			// empty queue
-			LinkedList<Node> Q = new LinkedList<Node>();
-			Q.clear();
-			Q.add(s);
-
-			while (!Q.isEmpty()) {
-				Node v = Q.remove();
-				S.add(v);
-
-				// for each neighbor w of v
-				for (int outIndex : v.getOutgoingEdges()) {
-					Node w = nodes[outIndex];
-
-					// w found for the first time?
-					if (d.get(w).intValue() < 0) {
-						Q.add(w);
-						d.put(w, d.get(v).intValue() + 1);
+		final double[] ee = new double[nodes.length];
+		final double[] cc = new double[nodes.length];
+		final int rTimesNodes = (int) Math.floor(r * nodes.length);
+
+		AllPairsBreadthFirstSearch bfs = new AllPairsBreadthFirstSearch(
+				g.getAdjacency(), false, Parallel.getThreads("PARALLEL_METRICS"));
+		bfs.run(new AllPairsBreadthFirstSearch.VisitorFactory<AllPairsBreadthFirstSearch.Visitor>() {
+			@Override
+			public AllPairsBreadthFirstSearch.Visitor create() {
+				return new AllPairsBreadthFirstSearch.Visitor() {
+					@Override
+					public void visit(int s,
+							AllPairsBreadthFirstSearch.Search search) {
+						// ----- calculate effective eccentricity of s
+						// distance from s to the node with index rTimesNodes
+						// (in order of non-decreasing distance from s)
+						int distance = Integer.MAX_VALUE;
+						if (rTimesNodes < search.getReached()) {
+							distance = search.getDistance(search
+									.getNode(rTimesNodes));
+						} else {
+							System.out.println("Cannot not get " + r
+									+ " nodes!");
+						}
+						ee[s] = distance;
+
+						// ----- calculate closeness centrality of s
+						double sum = 0;
+						for (int d = 1; d < search.getLevels(); d++) {
+							sum += (double) d
+									* (search.getLevelEnd(d) - search
+											.getLevelStart(d));
+						}
+						cc[s] = 1 / sum;
 					}
-					// shortest path to w via v?
-					if (d.get(w).intValue() == d.get(v).intValue() + 1) {
-						sigma.put(w, sigma.get(w).intValue()
-								+ sigma.get(v).intValue());
-						P.get(w).add(v);
-					}
-				}
-			}
-
-			// delta
-			HashMap<Node, Double> delta = new HashMap<Node, Double>();
-			for (Node n : nodes) {
-				delta.put(n, 0.0);
-			}
-
-			// S returns vertices in order of non-increasing distance from s
-
-			// ----- calculate effective eccentricity of s
-			int rTimesNodes = (int) Math.floor(r * g.getNodes().length);
-			// distance from s to the node with index rTimesNodes
-			int distance = Integer.MAX_VALUE;
-			try {
-				distance = d.get(S.get(rTimesNodes)).intValue();
-			} catch (IndexOutOfBoundsException e) {
-				System.out.println("Cannot not get " + r + " nodes!");
+				};
 			}
-			// put the eccentricity point to the map
-			this.eeMap.put(s, (double) distance);
-			// -----
+		});
 
-			// ----- calculate closeness centrality of s
-			double sum = 0;
-			for (Node n : S) {
-				sum += d.get(n).doubleValue();
-			}
-			this.ccMap.put(s, 1 / sum);
-			// -----
-
-			// for betweenness
-			while (!S.isEmpty()) {
-				Node w = S.pop();
-				for (Node v : P.get(w)) {
-					delta.put(v, delta.get(v).doubleValue()
-							+ sigma.get(v).doubleValue()
-							/ sigma.get(w).doubleValue()
-							* (1 + delta.get(w).doubleValue()));
-				}
-				if (w.getIndex() != s.getIndex()) {
-					// put the centrality point to the map
-					bcMap.put(w, bcMap.get(w).doubleValue()
-							+ delta.get(w).doubleValue());
-				}
-			}
+		for (Node n : nodes) {
+			this.eeMap.put(n, ee[n.getIndex()]);
+			this.ccMap.put(n, cc[n.getIndex()]);
 		}
-
 	}
 
 	private class DegreeAsc implements Comparator<Node> {
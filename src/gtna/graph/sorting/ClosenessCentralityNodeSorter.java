@@ -35,9 +35,11 @@
  */
 package gtna.graph.sorting;
 
+import gtna.algorithms.shortestPaths.AllPairsBreadthFirstSearch;
 import gtna.graph.Graph;
 import gtna.graph.Node;
-import gtna.graph.sorting.algorithms.GraphSPallFloyd;
+import gtna.util.Parallel;
+
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -74,18 +76,33 @@ public class ClosenessCentralityNodeSorter extends NodeSorter {
 	}
 
 	/**
-	 * 
+	 * closeness = 1 / sum of the distances to all reachable nodes, computed
+	 * using the all-pairs BFS engine
 	 */
 	private void calculate(Graph g) {
-		GraphSPallFloyd floyd = new GraphSPallFloyd(g);
-		for (int i = 0; i < g.getNodes().length; i++) {
-			double sum = 0;
-			for (int j = 0; j < g.getNodes().length; j++) {
-				if (floyd.dist(i, j) < floyd.INF) {
-					sum += floyd.dist(i, j);
-				}
+		final double[] closeness = new double[g.getNodeCount()];
+		AllPairsBreadthFirstSearch bfs = new AllPairsBreadthFirstSearch(
+				g.getAdjacency(), false, Parallel.getThreads("PARALLEL_METRICS"));
+		bfs.run(new AllPairsBreadthFirstSearch.VisitorFactory<AllPairsBreadthFirstSearch.Visitor>() {
+			@Override
+			public AllPairsBreadthFirstSearch.Visitor create() {
+				return new AllPairsBreadthFirstSearch.Visitor() {
+					@Override
+					public void visit(int source,
+							AllPairsBreadthFirstSearch.Search search) {
+						double sum = 0;
+						for (int d = 1; d < search.getLevels(); d++) {
+							sum += (double) d
+									* (search.getLevelEnd(d) - search
+											.getLevelStart(d));
+						}
+						closeness[source] = 1.0 / sum;
+					}
+				};
 			}
-			map.put(g.getNode(i), 1.0 / sum);
+		});
+		for (Node n : g.getNodes()) {
+			map.put(n, closeness[n.getIndex()]);
 		}
 	}
 
@@ -35,25 +35,38 @@
  */
 package gtna.graph.weights;
 
+import gtna.graph.Adjacency;
 import gtna.graph.Edge;
+import gtna.graph.Graph;
 import gtna.graph.GraphProperty;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Implements a graph property to hold edge weights, i.e., a weight assigned to
- * each edge in the network. If the weight of a node is requested that has not
- * yet been assigned, the defaultWeight is returned.
+ * each edge in the network. If the weight of an edge is requested that does
+ * not exist, the defaultWeight is returned.
+ * 
+ * The weights are stored in an array that is parallel to the (sorted)
+ * outgoing edges of the CSR representation of the graph (gtna.graph.Adjacency)
+ * they have been created for, i.e., weights[i] is the weight of the edge from
+ * v to adjacency.getOutTarget(i) for adjacency.getOutStart(v) <= i <
+ * adjacency.getOutEnd(v). The weight of an edge can hence be obtained in O(1)
+ * by its position and in O(log d) by source and destination.
+ * 
+ * The property is stored in binary form (cf. GraphProperty).
  * 
  * @author benni
  * 
  */
 public class EdgeWeights extends GraphProperty {
 
-	private Map<Edge, Double> weights;
+	private Adjacency adjacency;
+
+	private double[] weights;
 
 	private double defaultWeight;
 
@@ -65,40 +78,260 @@ public class EdgeWeights extends GraphProperty {
 		this(new Edge[0], 0, defaultWeight);
 	}
 
+	/**
+	 * Creates edge weights for the given edges (duplicates are ignored).
+	 * 
+	 * @param edges
+	 * @param weight
+	 *            initial weight of all edges
+	 * @param defaultWeight
+	 *            weight returned for edges that do not exist
+	 */
 	public EdgeWeights(Edge[] edges, double weight, double defaultWeight) {
-		this.weights = new HashMap<Edge, Double>();
+		this(EdgeWeights.toAdjacency(edges), weight, defaultWeight);
+	}
+
+	/**
+	 * Creates edge weights for all edges of the given graph.
+	 * 
+	 * @param g
+	 * @param weight
+	 *            initial weight of all edges
+	 * @param defaultWeight
+	 *            weight returned for edges that do not exist
+	 */
+	public EdgeWeights(Graph g, double weight, double defaultWeight) {
+		this(g.getAdjacency(), weight, defaultWeight);
+	}
+
+	/**
+	 * Creates edge weights for all edges of the given adjacency.
+	 * 
+	 * @param adjacency
+	 * @param weight
+	 *            initial weight of all edges
+	 * @param defaultWeight
+	 *            weight returned for edges that do not exist
+	 */
+	public EdgeWeights(Adjacency adjacency, double weight, double defaultWeight) {
+		this.adjacency = adjacency;
+		this.weights = new double[adjacency.getEdgeCount()];
+		Arrays.fill(this.weights, weight);
+		this.defaultWeight = defaultWeight;
+	}
+
+	/**
+	 * @param adjacency
+	 * @param weights
+	 *            weights of the outgoing edges of the adjacency (used
+	 *            directly, not copied)
+	 * @param defaultWeight
+	 *            weight returned for edges that do not exist
+	 */
+	public EdgeWeights(Adjacency adjacency, double[] weights,
+			double defaultWeight) {
+		if (weights.length != adjacency.getEdgeCount()) {
+			throw new IllegalArgumentException("expected "
+					+ adjacency.getEdgeCount() + " weights but got "
+					+ weights.length);
+		}
+		this.adjacency = adjacency;
+		this.weights = weights;
 		this.defaultWeight = defaultWeight;
+	}
+
+	private static Adjacency toAdjacency(Edge[] edges) {
+		int nodes = 0;
+		for (Edge edge : edges) {
+			nodes = Math.max(nodes, Math.max(edge.getSrc(), edge.getDst()) + 1);
+		}
+		int[] offsets = new int[nodes + 1];
+		for (Edge edge : edges) {
+			offsets[edge.getSrc() + 1]++;
+		}
+		for (int v = 0; v < nodes; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] targets = new int[edges.length];
+		int[] pos = Arrays.copyOf(offsets, nodes);
 		for (Edge edge : edges) {
-			this.weights.put(edge, weight);
+			targets[pos[edge.getSrc()]++] = edge.getDst();
 		}
+		// sort and remove duplicates
+		int k = 0;
+		for (int v = 0; v < nodes; v++) {
+			int start = offsets[v];
+			Arrays.sort(targets, start, offsets[v + 1]);
+			offsets[v] = k;
+			for (int i = start; i < offsets[v + 1]; i++) {
+				if (i == start || targets[i] != targets[i - 1]) {
+					targets[k++] = targets[i];
+				}
+			}
+		}
+		offsets[nodes] = k;
+		return new Adjacency(offsets, Arrays.copyOf(targets, k), false);
 	}
 
-	public Set<Entry<Edge, Double>> getWeights() {
-		return this.weights.entrySet();
+	/**
+	 * @return adjacency the weights are aligned with
+	 */
+	public Adjacency getAdjacency() {
+		return this.adjacency;
 	}
 
-	public void setWeight(Edge edge, double weight) {
-		this.weights.put(edge, weight);
+	/**
+	 * @return weights of the outgoing edges of the adjacency they are aligned
+	 *         with (not a copy)
+	 */
+	public double[] getWeights() {
+		return this.weights;
+	}
+
+	/**
+	 * Returns the weights aligned with the outgoing edges of the given
+	 * adjacency, e.g., the current one of a graph. In case it is the
+	 * adjacency the weights have been created for, the weights are returned
+	 * directly, otherwise they are looked up by source and destination.
+	 * 
+	 * @param adjacency
+	 * @return weights of the outgoing edges of the given adjacency
+	 */
+	public double[] getWeights(Adjacency adjacency) {
+		if (adjacency == this.adjacency) {
+			return this.weights;
+		}
+		double[] weights = new double[adjacency.getEdgeCount()];
+		for (int v = 0; v < adjacency.getNodeCount(); v++) {
+			for (int i = adjacency.getOutStart(v); i < adjacency.getOutEnd(v); i++) {
+				weights[i] = this.getWeight(v, adjacency.getOutTarget(i));
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * @return weight returned for edges that do not exist
+	 */
+	public double getDefaultWeight() {
+		return this.defaultWeight;
+	}
+
+	/**
+	 * @param position
+	 *            position of the edge in the adjacency
+	 * @return weight of the edge at the given position
+	 */
+	public double getWeight(int position) {
+		return this.weights[position];
+	}
+
+	/**
+	 * @param position
+	 *            position of the edge in the adjacency
+	 * @param weight
+	 */
+	public void setWeight(int position, double weight) {
+		this.weights[position] = weight;
+	}
+
+	/**
+	 * @param src
+	 * @param dst
+	 * @return weight of the edge (src, dst), defaultWeight if it does not
+	 *         exist
+	 */
+	public double getWeight(int src, int dst) {
+		int position = this.getPosition(src, dst);
+		return position < 0 ? this.defaultWeight : this.weights[position];
 	}
 
 	public double getWeight(Edge edge) {
-		try {
-			return this.weights.get(edge);
-		} catch (NullPointerException e) {
-			return this.defaultWeight;
+		return this.getWeight(edge.getSrc(), edge.getDst());
+	}
+
+	/**
+	 * @param src
+	 * @param dst
+	 * @param weight
+	 * @throws IllegalArgumentException
+	 *             if the edge (src, dst) does not exist
+	 */
+	public void setWeight(int src, int dst, double weight) {
+		int position = this.getPosition(src, dst);
+		if (position < 0) {
+			throw new IllegalArgumentException("edge "
+					+ Edge.toString(src, dst) + " does not exist");
 		}
+		this.weights[position] = weight;
+	}
+
+	public void setWeight(Edge edge, double weight) {
+		this.setWeight(edge.getSrc(), edge.getDst(), weight);
+	}
+
+	private int getPosition(int src, int dst) {
+		if (src < 0 || src >= this.adjacency.getNodeCount()) {
+			return -1;
+		}
+		return this.adjacency.getOutPosition(src, dst);
 	}
 
 	@Override
 	public boolean write(String filename, String key) {
-		// TODO implement GraphProperty.write(...)
-		return false;
+		DataOutputStream out = null;
+		try {
+			out = this.writeBinaryHeader(filename, key);
+			out.writeDouble(this.defaultWeight);
+			out.writeInt(this.adjacency.getNodeCount());
+			out.writeInt(this.adjacency.getEdgeCount());
+			this.writeInts(out, this.adjacency.getOutOffsets());
+			for (int i = 0; i < this.adjacency.getEdgeCount(); i++) {
+				out.writeInt(this.adjacency.getOutTarget(i));
+			}
+			this.writeDoubles(out, this.weights);
+			out.flush();
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
 	}
 
 	@Override
 	public String read(String filename) {
-		// TODO implement GraphProperty.read(...)
-		return null;
+		DataInputStream in = null;
+		try {
+			in = this.openBinary(filename);
+			String key = this.readBinaryHeader(in);
+			this.defaultWeight = in.readDouble();
+			int nodes = in.readInt();
+			int edges = in.readInt();
+			int[] offsets = this.readInts(in, nodes + 1);
+			int[] targets = this.readInts(in, edges);
+			this.adjacency = new Adjacency(offsets, targets, false);
+			this.weights = this.readDoubles(in, edges);
+			return key;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
 	}
 
 }
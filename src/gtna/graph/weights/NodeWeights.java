@@ -38,9 +38,15 @@ package gtna.graph.weights;
 import gtna.graph.GraphProperty;
 import gtna.util.ArrayUtils;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Implements a graph property to hold node weights, i.e., a double value for
- * each node in a network.
+ * each node in a network (indexed by the node's index).
+ * 
+ * The property is stored in binary form (cf. GraphProperty).
  * 
  * @author benni
  * 
@@ -49,6 +55,10 @@ public class NodeWeights extends GraphProperty {
 
 	private double[] weights;
 
+	public NodeWeights() {
+		this(0);
+	}
+
 	public NodeWeights(int nodes) {
 		this.weights = new double[nodes];
 	}
@@ -75,14 +85,47 @@ public class NodeWeights extends GraphProperty {
 
 	@Override
 	public boolean write(String filename, String key) {
-		// TODO implement GraphProperty.write(...)
-		return false;
+		DataOutputStream out = null;
+		try {
+			out = this.writeBinaryHeader(filename, key);
+			out.writeInt(this.weights.length);
+			this.writeDoubles(out, this.weights);
+			out.flush();
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
 	}
 
 	@Override
 	public String read(String filename) {
-		// TODO implement GraphProperty.read(...)
-		return null;
+		DataInputStream in = null;
+		try {
+			in = this.openBinary(filename);
+			String key = this.readBinaryHeader(in);
+			this.weights = this.readDoubles(in, in.readInt());
+			return key;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
 	}
 
 }
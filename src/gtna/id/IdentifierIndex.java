@@ -0,0 +1,190 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * IdentifierIndex.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.id;
+
+/**
+ * Index over the partitions of a one-dimensional, circular identifier space
+ * (e.g., a ring or Chord). The nodes are sorted by the position of their
+ * partition's representative identifier so that the node responsible for an
+ * identifier as well as the successor and predecessor of a node can be
+ * determined without iterating over all partitions. Positions are compared
+ * as primitive values, identifiers are only unboxed once per query.
+ *
+ * An index is a snapshot of the partitions at the time of its creation, it
+ * must be re-created in case they are modified afterwards. It is not
+ * modified by queries, hence it can be used by several threads concurrently.
+ */
+public abstract class IdentifierIndex {
+	// nodes sorted by the position of their representative identifier
+	// (ties are broken by the node's index)
+	protected int[] nodes;
+
+	// rank[node] is the position of node in nodes
+	protected int[] rank;
+
+	protected Identifier[] representatives;
+
+	protected IdentifierIndex(Partition[] partitions) {
+		this.representatives = new Identifier[partitions.length];
+		for (int i = 0; i < partitions.length; i++) {
+			this.representatives[i] = partitions[i]
+					.getRepresentativeIdentifier();
+		}
+	}
+
+	/**
+	 * Sorts the nodes by their position as defined by compare(a, b) and
+	 * initializes nodes and rank. Must be called by the constructor of every
+	 * subclass once the positions are known.
+	 */
+	protected void sort() {
+		int n = this.representatives.length;
+		this.nodes = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.nodes[i] = i;
+		}
+		this.mergeSort(this.nodes, new int[n], 0, n);
+		this.rank = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.rank[this.nodes[i]] = i;
+		}
+	}
+
+	private void mergeSort(int[] a, int[] temp, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		this.mergeSort(a, temp, from, middle);
+		this.mergeSort(a, temp, middle, to);
+		if (this.compare(a[middle - 1], a[middle]) <= 0) {
+			return;
+		}
+		System.arraycopy(a, from, temp, from, to - from);
+		int i = from;
+		int j = middle;
+		for (int k = from; k < to; k++) {
+			if (j == to || i < middle && this.compare(temp[i], temp[j]) <= 0) {
+				a[k] = temp[i++];
+			} else {
+				a[k] = temp[j++];
+			}
+		}
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return negative, zero, or positive value in case the position of node a
+	 *         is smaller than, equal to, or larger than the position of node b
+	 */
+	protected abstract int compare(int a, int b);
+
+	/**
+	 * @param id
+	 * @return index of the node whose partition contains the given
+	 *         identifier, -1 in case no such node exists
+	 */
+	public abstract int getResponsibleNode(Identifier id);
+
+	/**
+	 * Equivalent to partitions[node].contains(id) but without accessing the
+	 * partition.
+	 *
+	 * @param node
+	 * @param id
+	 * @return true if the partition of the given node contains the identifier
+	 */
+	public abstract boolean isResponsible(int node, Identifier id);
+
+	/**
+	 * @return number of nodes / partitions
+	 */
+	public int size() {
+		return this.nodes.length;
+	}
+
+	/**
+	 * @return all nodes sorted by the position of their representative
+	 *         identifier
+	 */
+	public int[] getSortedNodes() {
+		return this.nodes.clone();
+	}
+
+	/**
+	 * @param rank
+	 * @return node at the given position of the sorted order (modulo the
+	 *         number of nodes)
+	 */
+	public int getNode(int rank) {
+		int r = rank % this.nodes.length;
+		return this.nodes[r < 0 ? r + this.nodes.length : r];
+	}
+
+	/**
+	 * @param node
+	 * @return position of the node in the sorted order
+	 */
+	public int getRank(int node) {
+		return this.rank[node];
+	}
+
+	/**
+	 * @param node
+	 * @return next node in clockwise direction
+	 */
+	public int getSuccessor(int node) {
+		return this.getNode(this.rank[node] + 1);
+	}
+
+	/**
+	 * @param node
+	 * @return next node in counter-clockwise direction
+	 */
+	public int getPredecessor(int node) {
+		return this.getNode(this.rank[node] - 1);
+	}
+
+	/**
+	 * @param node
+	 * @return representative identifier of the node's partition (shared, must
+	 *         not be modified)
+	 */
+	public Identifier getRepresentativeIdentifier(int node) {
+		return this.representatives[node];
+	}
+}
@@ -140,4 +140,15 @@ public abstract class IdentifierSpace extends GraphProperty {
 	 *         identifiers from the identifier space
 	 */
 	public abstract Identifier getRandomIdentifier(Random rand);
+
+	/**
+	 * Creates an index of the current partitions that answers which node is
+	 * responsible for an identifier without iterating over all partitions.
+	 * 
+	 * @return index of the partitions, null if this identifier space does not
+	 *         support an index
+	 */
+	public IdentifierIndex createIndex() {
+		return null;
+	}
 }
@@ -37,6 +37,7 @@ package gtna.id.ring;
 
 import gtna.id.DoubleIdentifierSpace;
 import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
 import gtna.io.Filereader;
 import gtna.io.Filewriter;
 
@@ -88,6 +89,14 @@ public class RingIdentifierSpace extends DoubleIdentifierSpace {
 	public Identifier getRandomIdentifier(Random rand) {
 		return new RingIdentifier(rand.nextDouble(), this.wrapAround);
 	}
+
+	@Override
+	public IdentifierIndex createIndex() {
+		if (!RingIndex.applicable(this.partitions)) {
+			return null;
+		}
+		return new RingIndex(this.partitions);
+	}
 	
 	public Identifier getConsecutiveIdentifier(double id){
 		return new RingIdentifier(id, this.wrapAround);
@@ -37,6 +37,7 @@ package gtna.id.ring;
 
 import gtna.id.DoubleIdentifierSpace;
 import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
 import gtna.io.Filereader;
 import gtna.io.Filewriter;
 
@@ -91,6 +92,14 @@ public class RingIdentifierSpaceSimple extends DoubleIdentifierSpace {
 		return new RingIdentifier(rand.nextDouble(), this.wrapAround);
 	}
 
+	@Override
+	public IdentifierIndex createIndex() {
+		if (!RingIndex.applicable(this.partitions)) {
+			return null;
+		}
+		return new RingIndex(this.partitions);
+	}
+
 	/**
 	 * @return the wrapAround
 	 */
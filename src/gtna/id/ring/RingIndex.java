@@ -0,0 +1,232 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * RingIndex.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.id.ring;
+
+import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
+import gtna.id.Partition;
+
+/**
+ * IdentifierIndex for the partitions of a ring, i.e., RingPartition (an
+ * interval (start, end] represented by end) or RingPartitionSimple (a single
+ * identifier). All partitions must be of the same type.
+ *
+ * For intervals, the partitions are expected to cover the ring without
+ * overlap (as created by, e.g., RandomRingIDSpace) so that the node
+ * responsible for an identifier is the one with the next larger or equal
+ * end. Single identifiers are only contained in the partition of a node at
+ * exactly the same position.
+ */
+public class RingIndex extends IdentifierIndex {
+	private boolean simple;
+
+	// start and end of the partition of every node (start is NaN for
+	// RingPartitionSimple)
+	private double[] start;
+
+	private double[] end;
+
+	private boolean[] wrapAround;
+
+	// end of the partitions in sorted order
+	private double[] sorted;
+
+	public RingIndex(Partition[] partitions) {
+		super(partitions);
+		this.simple = partitions.length > 0
+				&& partitions[0] instanceof RingPartitionSimple;
+		this.start = new double[partitions.length];
+		this.end = new double[partitions.length];
+		this.wrapAround = new boolean[partitions.length];
+		for (int i = 0; i < partitions.length; i++) {
+			if (this.simple) {
+				RingIdentifier id = ((RingPartitionSimple) partitions[i])
+						.getIdentifier();
+				this.start[i] = Double.NaN;
+				this.end[i] = id.position;
+				this.wrapAround[i] = id.wrapAround;
+			} else {
+				RingPartition p = (RingPartition) partitions[i];
+				this.start[i] = p.start.position;
+				this.end[i] = p.end.position;
+				this.wrapAround[i] = p.start.wrapAround;
+			}
+		}
+		this.sort();
+		this.sorted = new double[partitions.length];
+		for (int i = 0; i < partitions.length; i++) {
+			this.sorted[i] = this.end[this.nodes[i]];
+		}
+	}
+
+	/**
+	 * @param partitions
+	 * @return true if the given partitions can be indexed by a RingIndex
+	 */
+	public static boolean applicable(Partition[] partitions) {
+		if (partitions == null || partitions.length == 0) {
+			return false;
+		}
+		Class<?> c = partitions[0].getClass();
+		if (c != RingPartition.class && c != RingPartitionSimple.class) {
+			return false;
+		}
+		for (Partition p : partitions) {
+			if (p.getClass() != c) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected int compare(int a, int b) {
+		if (this.end[a] < this.end[b]) {
+			return -1;
+		} else if (this.end[a] > this.end[b]) {
+			return 1;
+		}
+		return a - b;
+	}
+
+	/**
+	 * @param pos
+	 * @return rank of the first node whose position is at least pos (size()
+	 *         if there is none)
+	 */
+	private int ceiling(double pos) {
+		int low = 0;
+		int high = this.sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.sorted[middle] < pos) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param pos
+	 *            position on the ring
+	 * @return index of the node whose partition contains the given position,
+	 *         -1 in case no such node exists
+	 */
+	public int getResponsibleNode(double pos) {
+		if (this.sorted.length == 0) {
+			return -1;
+		}
+		int r = this.ceiling(pos);
+		if (this.simple) {
+			return r < this.sorted.length && this.sorted[r] == pos ? this.nodes[r]
+					: -1;
+		}
+		return this.nodes[r == this.sorted.length ? 0 : r];
+	}
+
+	@Override
+	public int getResponsibleNode(Identifier id) {
+		RingIdentifier ring = (RingIdentifier) id;
+		if (!this.simple) {
+			return this.getResponsibleNode(ring.position);
+		}
+		int r = this.ceiling(ring.position);
+		while (r < this.sorted.length && this.sorted[r] == ring.position) {
+			if (this.wrapAround[this.nodes[r]] == ring.wrapAround) {
+				return this.nodes[r];
+			}
+			r++;
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean isResponsible(int node, Identifier id) {
+		RingIdentifier ring = (RingIdentifier) id;
+		if (this.simple) {
+			return this.end[node] == ring.position
+					&& this.wrapAround[node] == ring.wrapAround;
+		}
+		double s = this.start[node];
+		double e = this.end[node];
+		if (s < e) {
+			return s < ring.position && ring.position <= e;
+		}
+		return s < ring.position || ring.position <= e;
+	}
+
+	/**
+	 * Equivalent to the distance of the partition of node to the
+	 * representative identifier of the partition of other.
+	 *
+	 * @param node
+	 * @param other
+	 * @return distance between the two partitions
+	 */
+	public double getDistance(int node, int other) {
+		double pos = this.end[other];
+		if (this.simple) {
+			return this.distance(this.end[node], pos, this.wrapAround[node]);
+		}
+		RingIdentifier id = (RingIdentifier) this.representatives[other];
+		if (this.isResponsible(node, id)) {
+			return 0;
+		}
+		return Math.min(
+				this.distance(this.start[node], pos, this.wrapAround[node]),
+				this.distance(this.end[node], pos, this.wrapAround[node]));
+	}
+
+	/**
+	 * Computes the distance exactly as RingIdentifier.distance.
+	 */
+	private double distance(double a, double b, boolean wrapAround) {
+		if (!wrapAround) {
+			return Math.abs(b - a);
+		}
+		return Math.min(Math.abs(a - b), Math.min(1.0 + a - b, 1.0 - a + b));
+	}
+
+	/**
+	 * @param node
+	 * @return position of the node's representative identifier
+	 */
+	public double getPosition(int node) {
+		return this.end[node];
+	}
+}
@@ -96,10 +96,9 @@ public class RingPartition extends DoublePartition {
 	public boolean contains(Identifier id) {
 		double pos = ((RingIdentifier) id).position;
 		if (this.isWrapping()) {
-			return this.start.position < pos
-					&& pos <= this.end.position;
+			return this.start.position < pos || pos <= this.end.position;
 		}
-		return this.start.position < pos || pos <= this.end.position;
+		return this.start.position < pos && pos <= this.end.position;
 	}
 
 	@Override
@@ -134,9 +133,9 @@ public class RingPartition extends DoublePartition {
 	 */
 	public double getIntervalWidth() {
 		if (this.isWrapping()) {
-			return this.end.position - this.start.position;
+			return 1 + this.end.position - this.start.position;
 		}
-		return 1 + this.end.position - this.start.position;
+		return this.end.position - this.start.position;
 	}
 
 	/**
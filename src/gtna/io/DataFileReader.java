@@ -0,0 +1,366 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * DataFileReader.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.io;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads the rows of a data file written by the DataWriter one after the
+ * other. Both, the text and the binary columnar format are supported; the
+ * format is detected from the first bytes of the file.
+ *
+ * For the text format, the values are parsed using a DataTokenizer. For the
+ * binary format, a window of every column is buffered so that the rows can be
+ * read in a streaming fashion although the values are stored column by
+ * column.
+ *
+ * Usage: while (r.nextRow()) { r.get(0); r.get(1); ... }
+ */
+public class DataFileReader {
+	private static final int WINDOW = 8192;
+
+	private FileInputStream in;
+
+	private DataTokenizer tokenizer;
+
+	private double[] row;
+
+	private int columns;
+
+	private FileChannel channel;
+
+	private String key;
+
+	private int rows;
+
+	private long dataOffset;
+
+	private ByteBuffer[] windows;
+
+	private int[] windowStart;
+
+	private int current;
+
+	/**
+	 * @param filename
+	 *            file to read from
+	 * @throws IOException
+	 */
+	public DataFileReader(String filename) throws IOException {
+		this(filename, 0);
+	}
+
+	/**
+	 * @param filename
+	 *            file to read from
+	 * @param position
+	 *            position to continue reading from, i.e., a value returned by
+	 *            getPosition of a previous reader for the same file (0 to
+	 *            start at the beginning)
+	 * @throws IOException
+	 */
+	public DataFileReader(String filename, long position) throws IOException {
+		this.in = new FileInputStream(filename);
+		this.channel = this.in.getChannel();
+		this.rows = -1;
+		this.current = -1;
+		ByteBuffer header = ByteBuffer.allocate(8).order(
+				ByteOrder.LITTLE_ENDIAN);
+		this.read(header, 0);
+		if (header.limit() == 8 && this.startsWithMagic(header)) {
+			int keyLength = header.getInt(4);
+			ByteBuffer rest = ByteBuffer.allocate(keyLength + 8).order(
+					ByteOrder.LITTLE_ENDIAN);
+			this.read(rest, 8);
+			if (rest.limit() != keyLength + 8) {
+				throw new IOException("incomplete header in " + filename);
+			}
+			this.key = new String(rest.array(), 0, keyLength, "UTF-8");
+			this.rows = rest.getInt(keyLength);
+			this.columns = rest.getInt(keyLength + 4);
+			this.dataOffset = 16 + keyLength;
+			this.windows = new ByteBuffer[this.columns];
+			this.windowStart = new int[this.columns];
+			Arrays.fill(this.windowStart, -1);
+			// the position of a binary file is the index of the next row
+			this.current = (int) position - 1;
+		} else {
+			this.channel.position(position);
+			this.channel = null;
+			this.tokenizer = new DataTokenizer(this.in, position);
+			this.row = new double[8];
+		}
+	}
+
+	/**
+	 * Returns the position after the current row which can be passed to the
+	 * constructor to continue reading with the next row later on, without
+	 * reading all previous rows again.
+	 *
+	 * @return position of the next row
+	 * @throws IOException
+	 */
+	public long getPosition() throws IOException {
+		if (this.isBinary()) {
+			return this.current + 1;
+		}
+		return this.tokenizer.getPosition();
+	}
+
+	/**
+	 * @return true if the file is stored in the binary columnar format
+	 */
+	public boolean isBinary() {
+		return this.channel != null;
+	}
+
+	/**
+	 * @return key stored in the header of a binary file (null for text files)
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * @return number of rows of a binary file (-1 for text files)
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Moves to the next row of the file.
+	 *
+	 * @return false if there are no more rows
+	 * @throws IOException
+	 */
+	public boolean nextRow() throws IOException {
+		if (this.isBinary()) {
+			if (this.current + 1 >= this.rows) {
+				this.current = this.rows;
+				return false;
+			}
+			this.current++;
+			return true;
+		}
+		if (!this.tokenizer.nextLine()) {
+			this.columns = 0;
+			return false;
+		}
+		this.current++;
+		this.columns = 0;
+		while (this.tokenizer.hasNext()) {
+			if (this.columns == this.row.length) {
+				this.row = Arrays.copyOf(this.row, 2 * this.row.length);
+			}
+			this.row[this.columns++] = this.tokenizer.nextDouble();
+		}
+		return true;
+	}
+
+	/**
+	 * @return number of values in the current row
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @param column
+	 * @return value of the given column in the current row
+	 * @throws IOException
+	 */
+	public double get(int column) throws IOException {
+		if (column < 0 || column >= this.columns) {
+			throw new ArrayIndexOutOfBoundsException(column);
+		}
+		if (!this.isBinary()) {
+			return this.row[column];
+		}
+		ByteBuffer window = this.windows[column];
+		int start = this.windowStart[column];
+		if (start < 0 || this.current < start
+				|| this.current >= start + window.limit() / 8) {
+			if (window == null) {
+				window = ByteBuffer.allocate(8 * WINDOW).order(
+						ByteOrder.LITTLE_ENDIAN);
+				this.windows[column] = window;
+			}
+			start = this.current;
+			window.clear();
+			window.limit(8 * Math.min(WINDOW, this.rows - start));
+			this.read(window, this.position(column, start));
+			this.windowStart[column] = start;
+		}
+		return window.getDouble(8 * (this.current - start));
+	}
+
+	/**
+	 * Reads all values of the given column, starting from the current
+	 * position. Afterwards, there are no more rows to read.
+	 *
+	 * @param column
+	 * @return values of the given column (0 for rows that do not contain it)
+	 * @throws IOException
+	 */
+	public double[] readColumn(int column) throws IOException {
+		if (!this.isBinary()) {
+			double[] values = new double[64];
+			int index = 0;
+			while (this.nextRow()) {
+				if (index == values.length) {
+					values = Arrays.copyOf(values, 2 * values.length);
+				}
+				values[index++] = column < this.columns ? this.row[column] : 0;
+			}
+			return Arrays.copyOf(values, index);
+		}
+		int start = this.current + 1;
+		double[] values = new double[this.rows - start];
+		if (column >= this.columns) {
+			this.current = this.rows;
+			return values;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(8 * WINDOW).order(
+				ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < values.length; i += WINDOW) {
+			int size = Math.min(WINDOW, values.length - i);
+			buffer.clear();
+			buffer.limit(8 * size);
+			this.read(buffer, this.position(column, start + i));
+			if (buffer.limit() != 8 * size) {
+				throw new IOException("unexpected end of file");
+			}
+			buffer.asDoubleBuffer().get(values, i, size);
+		}
+		this.current = this.rows;
+		return values;
+	}
+
+	/**
+	 * Reads all remaining rows of the file. Afterwards, there are no more rows
+	 * to read.
+	 *
+	 * @return values of all remaining rows
+	 * @throws IOException
+	 */
+	public double[][] readRows() throws IOException {
+		if (this.isBinary()) {
+			int start = this.current + 1;
+			double[][] columns = new double[this.columns][];
+			for (int j = 0; j < this.columns; j++) {
+				this.current = start - 1;
+				columns[j] = this.readColumn(j);
+			}
+			double[][] rows = new double[this.rows - start][this.columns];
+			for (int i = 0; i < rows.length; i++) {
+				for (int j = 0; j < this.columns; j++) {
+					rows[i][j] = columns[j][i];
+				}
+			}
+			return rows;
+		}
+		ArrayList<double[]> rows = new ArrayList<double[]>();
+		while (this.nextRow()) {
+			rows.add(Arrays.copyOf(this.row, this.columns));
+		}
+		return rows.toArray(new double[rows.size()][]);
+	}
+
+	public void close() {
+		try {
+			this.in.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @param filename
+	 * @return number of rows of the given file (without comments and empty
+	 *         lines in case of the text format)
+	 * @throws IOException
+	 */
+	public static int countRows(String filename) throws IOException {
+		DataFileReader reader = new DataFileReader(filename);
+		try {
+			if (reader.isBinary()) {
+				return reader.getRows();
+			}
+			int rows = 0;
+			while (reader.tokenizer.nextLine()) {
+				rows++;
+			}
+			return rows;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private long position(int column, int row) {
+		return this.dataOffset + 8L * ((long) column * this.rows + row);
+	}
+
+	private boolean startsWithMagic(ByteBuffer header) {
+		for (int i = 0; i < DataWriter.BINARY_MAGIC.length; i++) {
+			if (header.get(i) != DataWriter.BINARY_MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fills the buffer (up to its limit) with the bytes starting at the given
+	 * position of the file and flips it.
+	 */
+	private void read(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = this.channel.read(buffer, position);
+			if (read < 0) {
+				break;
+			}
+			position += read;
+		}
+		buffer.flip();
+	}
+}
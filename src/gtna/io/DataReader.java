@@ -36,8 +36,8 @@
 package gtna.io;
 
 import gtna.util.Config;
-import gtna.util.Util;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -45,7 +45,8 @@ import java.util.ArrayList;
  * by the DataWriter class.
  * 
  * The configuration parameter DATA_WRITER_DELIMITER is assumed as a delimiter
- * for separating multiple values on a single line.
+ * for separating multiple values on a single line. Files written in the
+ * binary columnar format (cf. DataWriter) are detected automatically.
  * 
  * @author benni
  * 
@@ -62,21 +63,18 @@ public class DataReader {
 	 *         specified file
 	 */
 	public static double[][] readDouble2D(String filename) {
-		ArrayList<ArrayList<Double>> list = new ArrayList<ArrayList<Double>>();
-		Filereader fr = new Filereader(filename);
-		String line;
-		int index = -1;
-		String delimiter = Config.get("DATA_WRITER_DELIMITER");
-		while ((line = fr.readLine()) != null) {
-			String[] elements = line.trim().split(delimiter);
-			list.add(new ArrayList<Double>(elements.length));
-			index++;
-			for (int j = 0; j < elements.length; j++) {
-				list.get(index).add(Double.valueOf(elements[j]));
+		DataFileReader reader = null;
+		try {
+			reader = new DataFileReader(filename);
+			return reader.readRows();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			if (reader != null) {
+				reader.close();
 			}
 		}
-		fr.close();
-		return toDouble2D(list);
 	}
 
 	/**
@@ -105,27 +103,20 @@ public class DataReader {
 	 * @return single-dimensional double array read from the specified file
 	 */
 	public static double[] readDouble(String filename) {
-		return Util.arrayFromIndex(readDouble2D(filename), 1);
-	}
-
-	/**
-	 * Generates a two-dimensional double array from the given ArrayList object.
-	 * 
-	 * @param list
-	 *            ArrayList to transform
-	 * @return transformed two-dimensional double array
-	 */
-	private static double[][] toDouble2D(ArrayList<ArrayList<Double>> list) {
-		double[][] array = new double[list.size()][];
-		for (int i = 0; i < list.size(); i++) {
-			array[i] = new double[list.get(i).size()];
-			for (int j = 0; j < list.get(i).size(); j++) {
-				array[i][j] = list.get(i).get(j);
+		DataFileReader reader = null;
+		try {
+			reader = new DataFileReader(filename);
+			return reader.readColumn(1);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			if (reader != null) {
+				reader.close();
 			}
 		}
-		return array;
 	}
-	
+
 	/**
 	 * Reads a two-dimensional array of double values from the specified file.
 	 * Each array entry represents the content of a single line which are
@@ -0,0 +1,392 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * DataTokenizer.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.io;
+
+import gtna.util.Config;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming tokenizer for the text format written by the DataWriter. The
+ * input is read in blocks of bytes and the numbers are parsed directly from
+ * the buffer, i.e., no line Strings are created, no split is performed, and
+ * no values are boxed.
+ *
+ * As for the Filereader, empty lines and lines starting with "# " are
+ * skipped. Values on a line are separated by the characters of
+ * DATA_WRITER_DELIMITER or by whitespace.
+ *
+ * Decimal numbers with at most 15 significant digits and a decimal exponent
+ * of at most 22 are computed exactly from their digits (only one rounding
+ * step is performed), all other numbers (NaN, Infinity, 16 or more digits,
+ * ...) are passed to Double.parseDouble. Hence, the result is always the same
+ * as for Double.valueOf.
+ *
+ * Usage: while (t.nextLine()) { while (t.hasNext()) { t.nextDouble(); } }
+ */
+public class DataTokenizer {
+	private static final int BUFFER_SIZE = 65536;
+
+	private static final int MAX_DIGITS = 15;
+
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+			1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17,
+			1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private InputStream in;
+
+	private byte[] buffer;
+
+	private int pos;
+
+	private int limit;
+
+	private boolean[] separator;
+
+	private boolean lineEnd;
+
+	// number of bytes of the input before the first byte in the buffer
+	private long offset;
+
+	public DataTokenizer(String filename) throws IOException {
+		this(new FileInputStream(filename));
+	}
+
+	public DataTokenizer(InputStream in) {
+		this(in, 0);
+	}
+
+	/**
+	 * @param in
+	 *            input to read from
+	 * @param position
+	 *            position of the input in the file, i.e., a value returned by
+	 *            getPosition of a previous tokenizer for the same file
+	 */
+	public DataTokenizer(InputStream in, long position) {
+		this.in = in;
+		this.offset = position;
+		this.buffer = new byte[BUFFER_SIZE];
+		this.pos = 0;
+		this.limit = 0;
+		this.separator = new boolean[256];
+		this.separator[' '] = true;
+		this.separator['\t'] = true;
+		this.separator['\r'] = true;
+		String delimiter = Config.get("DATA_WRITER_DELIMITER");
+		for (int i = 0; delimiter != null && i < delimiter.length(); i++) {
+			if (delimiter.charAt(i) < 256) {
+				this.separator[delimiter.charAt(i)] = true;
+			}
+		}
+		this.lineEnd = true;
+	}
+
+	/**
+	 * Skips the remainder of the current line as well as empty and comment
+	 * lines.
+	 *
+	 * @return true if there is another line with data, false at the end of
+	 *         the input
+	 * @throws IOException
+	 */
+	public boolean nextLine() throws IOException {
+		if (!this.lineEnd) {
+			this.skipLine();
+		}
+		while (true) {
+			int c = this.skipSeparators();
+			if (c == -1) {
+				this.lineEnd = true;
+				return false;
+			}
+			if (c == '\n') {
+				this.pos++;
+				continue;
+			}
+			if (c == '#' && this.peek(1) == ' ') {
+				this.skipLine();
+				continue;
+			}
+			this.lineEnd = false;
+			return true;
+		}
+	}
+
+	/**
+	 * @return true if there is another value on the current line
+	 * @throws IOException
+	 */
+	public boolean hasNext() throws IOException {
+		if (this.lineEnd) {
+			return false;
+		}
+		int c = this.skipSeparators();
+		if (c == -1 || c == '\n') {
+			this.lineEnd = true;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return next value of the current line
+	 * @throws IOException
+	 */
+	public double nextDouble() throws IOException {
+		int len = this.token();
+		byte[] b = this.buffer;
+		int i = this.pos;
+		int end = i + len;
+		this.pos = end;
+
+		boolean negative = false;
+		if (b[i] == '-' || b[i] == '+') {
+			negative = b[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		boolean point = false;
+		for (; i < end; i++) {
+			int c = b[i];
+			if (c >= '0' && c <= '9') {
+				any = true;
+				if (digits > 0 || c != '0') {
+					if (++digits > MAX_DIGITS) {
+						return this.parse(end - len, len);
+					}
+					mantissa = 10 * mantissa + (c - '0');
+				}
+				if (point) {
+					exponent--;
+				}
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (!any) {
+			return this.parse(end - len, len);
+		}
+		if (i < end) {
+			if ((b[i] != 'e' && b[i] != 'E') || ++i == end) {
+				return this.parse(end - len, len);
+			}
+			boolean negativeExp = false;
+			if (b[i] == '-' || b[i] == '+') {
+				negativeExp = b[i] == '-';
+				i++;
+			}
+			if (i == end || end - i > 4) {
+				return this.parse(end - len, len);
+			}
+			int e = 0;
+			for (; i < end; i++) {
+				if (b[i] < '0' || b[i] > '9') {
+					return this.parse(end - len, len);
+				}
+				e = 10 * e + (b[i] - '0');
+			}
+			exponent += negativeExp ? -e : e;
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (exponent >= 0 && exponent < POW10.length) {
+			value = (double) mantissa * POW10[exponent];
+		} else if (exponent < 0 && -exponent < POW10.length) {
+			value = (double) mantissa / POW10[-exponent];
+		} else {
+			return this.parse(end - len, len);
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @return next value of the current line, parsed as an integer
+	 * @throws IOException
+	 */
+	public long nextLong() throws IOException {
+		int len = this.token();
+		byte[] b = this.buffer;
+		int i = this.pos;
+		int end = i + len;
+		this.pos = end;
+
+		boolean negative = false;
+		if (b[i] == '-' || b[i] == '+') {
+			negative = b[i] == '-';
+			i++;
+		}
+		if (i == end || end - i > 18) {
+			return Long.parseLong(new String(b, end - len, len, "ISO-8859-1"));
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			if (b[i] < '0' || b[i] > '9') {
+				throw new NumberFormatException(new String(b, end - len, len,
+						"ISO-8859-1"));
+			}
+			value = 10 * value + (b[i] - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Skips the remainder of the current line.
+	 *
+	 * @return position (byte offset in the file) of the beginning of the next
+	 *         line
+	 * @throws IOException
+	 */
+	public long getPosition() throws IOException {
+		if (!this.lineEnd) {
+			this.skipLine();
+		}
+		return this.offset + this.pos;
+	}
+
+	public void close() {
+		try {
+			this.in.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private double parse(int offset, int len) throws IOException {
+		return Double.parseDouble(new String(this.buffer, offset, len,
+				"ISO-8859-1"));
+	}
+
+	/**
+	 * Makes sure that the complete token starting at pos is contained in the
+	 * buffer.
+	 *
+	 * @return length of the token starting at pos
+	 * @throws IOException
+	 */
+	private int token() throws IOException {
+		if (!this.hasNext()) {
+			throw new IOException("no more values on the current line");
+		}
+		int i = this.pos;
+		while (true) {
+			if (i == this.limit) {
+				int offset = i - this.pos;
+				if (!this.fill()) {
+					return offset;
+				}
+				i = this.pos + offset;
+				continue;
+			}
+			int c = this.buffer[i] & 0xFF;
+			if (c == '\n' || this.separator[c]) {
+				return i - this.pos;
+			}
+			i++;
+		}
+	}
+
+	private int skipSeparators() throws IOException {
+		while (true) {
+			if (this.pos == this.limit && !this.fill()) {
+				return -1;
+			}
+			int c = this.buffer[this.pos] & 0xFF;
+			if (c == '\n' || !this.separator[c]) {
+				return c;
+			}
+			this.pos++;
+		}
+	}
+
+	private void skipLine() throws IOException {
+		while (true) {
+			if (this.pos == this.limit && !this.fill()) {
+				break;
+			}
+			if (this.buffer[this.pos++] == '\n') {
+				break;
+			}
+		}
+		this.lineEnd = true;
+	}
+
+	private int peek(int offset) throws IOException {
+		if (this.pos + offset >= this.limit) {
+			this.fill();
+			if (this.pos + offset >= this.limit) {
+				return -1;
+			}
+		}
+		return this.buffer[this.pos + offset] & 0xFF;
+	}
+
+	/**
+	 * Moves the unread bytes to the beginning of the buffer (growing it if
+	 * necessary) and reads more bytes from the input.
+	 *
+	 * @return false if no more bytes could be read
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		int remaining = this.limit - this.pos;
+		this.offset += this.pos;
+		if (remaining == this.buffer.length) {
+			byte[] temp = new byte[2 * this.buffer.length];
+			System.arraycopy(this.buffer, this.pos, temp, 0, remaining);
+			this.buffer = temp;
+		} else if (this.pos > 0) {
+			System.arraycopy(this.buffer, this.pos, this.buffer, 0, remaining);
+		}
+		this.pos = 0;
+		this.limit = remaining;
+		int read = this.in.read(this.buffer, this.limit, this.buffer.length
+				- this.limit);
+		if (read <= 0) {
+			return false;
+		}
+		this.limit += read;
+		return true;
+	}
+}
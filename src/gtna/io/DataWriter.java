@@ -37,6 +37,12 @@ package gtna.io;
 
 import gtna.util.Config;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
 /**
  * Provides methods to write data to files which then can be read using the
  * methods provided by the DataReader class. It should be used by all metrics to
@@ -45,10 +51,27 @@ import gtna.util.Config;
  * The configuration parameter DATA_WRITER_DELIMITER is used as a delimiter for
  * separating multiple values on a single line.
  * 
+ * In case DATA_WRITER_FORMAT is set to "binary", the data of metrics (written
+ * using writeWithIndex and writeWithoutIndex) is stored in a binary columnar
+ * format instead of text: the header consists of BINARY_MAGIC, the length of
+ * the metric key and its UTF-8 bytes, the number of rows, and the number of
+ * columns (all integers as 4 bytes), followed by all values of the first
+ * column, all values of the second column, ... (all values as 8 bytes). All
+ * numbers are stored little-endian. The DataReader detects the format of a
+ * file automatically. Data that is not rectangular (rows with different
+ * numbers of values) is always written as text.
+ * 
  * @author benni
  * 
  */
 public class DataWriter {
+	/**
+	 * first bytes of a file written in the binary columnar format
+	 */
+	public static final byte[] BINARY_MAGIC = { 'G', 'T', 'N', 'B' };
+
+	private static final int BUFFER_SIZE = 65536;
+
 	/**
 	 * Writes the given data to the specified file. The flag addIndex can be
 	 * used to add the array's index as the first value of each entry. If the
@@ -69,14 +92,17 @@ public class DataWriter {
 	public static boolean write(double[] values, String dest, boolean addIndex) {
 		Filewriter fw = new Filewriter(dest);
 		String delimiter = Config.get("DATA_WRITER_DELIMITER");
+		StringBuilder buff = new StringBuilder(BUFFER_SIZE);
+		boolean success = true;
 		for (int i = 0; i < values.length; i++) {
-			if (addIndex) {
-				fw.writeln(i + delimiter + values[i]);
-			} else {
-				fw.writeln(i + delimiter + values[i]);
+			buff.append(i).append(delimiter).append(values[i]).append('\n');
+			if (buff.length() >= BUFFER_SIZE) {
+				success &= fw.write(buff.toString());
+				buff.setLength(0);
 			}
 		}
-		return fw.close();
+		success &= fw.write(buff.toString());
+		return fw.close() && success;
 	}
 
 	/**
@@ -101,19 +127,160 @@ public class DataWriter {
 	public static boolean write(double[][] values, String dest, boolean addIndex) {
 		Filewriter fw = new Filewriter(dest);
 		String delimiter = Config.get("DATA_WRITER_DELIMITER");
+		StringBuilder buff = new StringBuilder(BUFFER_SIZE);
+		boolean success = true;
 		for (int i = 0; i < values.length; i++) {
 			for (int j = 0; j < values[i].length; j++) {
 				if (j == 0 && addIndex) {
-					fw.write(i + delimiter + values[i][j]);
+					buff.append(i).append(delimiter).append(values[i][j]);
 				} else if (j == 0) {
-					fw.write("" + values[i][j]);
+					buff.append(values[i][j]);
 				} else {
-					fw.write(delimiter + values[i][j]);
+					buff.append(delimiter).append(values[i][j]);
+				}
+			}
+			buff.append('\n');
+			if (buff.length() >= BUFFER_SIZE) {
+				success &= fw.write(buff.toString());
+				buff.setLength(0);
+			}
+		}
+		success &= fw.write(buff.toString());
+		return fw.close() && success;
+	}
+
+	/**
+	 * Writes the given data to the specified file using the binary columnar
+	 * format (cf. class description). If addIndex==true, the array's index is
+	 * stored as the first column.
+	 * 
+	 * @param values
+	 *            double[][] array containing the data (all entries must have
+	 *            the same length)
+	 * @param key
+	 *            key stored in the header of the file
+	 * @param dest
+	 *            destination where to write the data
+	 * @param addIndex
+	 *            flag for adding the index as the first column
+	 * @return true if the operation was successful, false otherwise
+	 */
+	public static boolean writeBinary(final double[][] values, String key,
+			String dest, boolean addIndex) {
+		final int offset = addIndex ? 1 : 0;
+		int columns = (values.length == 0 ? 0 : values[0].length) + offset;
+		return DataWriter.writeBinary(key, dest, values.length, columns,
+				new Values() {
+					public double get(int row, int column) {
+						return column < offset ? row
+								: values[row][column - offset];
+					}
+				});
+	}
+
+	/**
+	 * Writes the given data to the specified file using the binary columnar
+	 * format (cf. class description) with the array's index as the first
+	 * column and the value as the second one.
+	 * 
+	 * @param values
+	 *            double[] array containing the values
+	 * @param key
+	 *            key stored in the header of the file
+	 * @param dest
+	 *            destination where to write the data
+	 * @return true if the operation was successful, false otherwise
+	 */
+	public static boolean writeBinary(final double[] values, String key,
+			String dest) {
+		return DataWriter.writeBinary(key, dest, values.length, 2,
+				new Values() {
+					public double get(int row, int column) {
+						return column == 0 ? row : values[row];
+					}
+				});
+	}
+
+	private static abstract class Values {
+		public abstract double get(int row, int column);
+	}
+
+	private static boolean writeBinary(String key, String dest, int rows,
+			int columns, Values values) {
+		Filewriter.generateFolders(dest);
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(dest);
+			FileChannel channel = out.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(
+					ByteOrder.LITTLE_ENDIAN);
+			byte[] k = key.getBytes("UTF-8");
+			buffer.put(BINARY_MAGIC);
+			buffer.putInt(k.length);
+			DataWriter.put(channel, buffer, k);
+			if (buffer.remaining() < 8) {
+				DataWriter.flush(channel, buffer);
+			}
+			buffer.putInt(rows);
+			buffer.putInt(columns);
+			for (int j = 0; j < columns; j++) {
+				for (int i = 0; i < rows; i++) {
+					if (buffer.remaining() < 8) {
+						DataWriter.flush(channel, buffer);
+					}
+					buffer.putDouble(values.get(i, j));
+				}
+			}
+			DataWriter.flush(channel, buffer);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
 				}
 			}
-			fw.writeln("");
 		}
-		return fw.close();
+	}
+
+	private static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes)
+			throws IOException {
+		for (int i = 0; i < bytes.length; i++) {
+			if (!buffer.hasRemaining()) {
+				DataWriter.flush(channel, buffer);
+			}
+			buffer.put(bytes[i]);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * @return true if data of metrics should be written in the binary
+	 *         columnar format (DATA_WRITER_FORMAT = binary)
+	 */
+	public static boolean isBinary() {
+		return "binary".equals(Config.get("DATA_WRITER_FORMAT"));
+	}
+
+	private static boolean isRectangular(double[][] values) {
+		for (int i = 1; i < values.length; i++) {
+			if (values[i].length != values[0].length) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -136,6 +303,9 @@ public class DataWriter {
 	 */
 	public static boolean writeWithIndex(double[] values, String metricKey,
 			String folder) {
+		if (DataWriter.isBinary()) {
+			return writeBinary(values, metricKey, filename(metricKey, folder));
+		}
 		return write(values, filename(metricKey, folder), true);
 	}
 
@@ -163,6 +333,10 @@ public class DataWriter {
 	 */
 	public static boolean writeWithoutIndex(double[][] values,
 			String metricKey, String folder) {
+		if (DataWriter.isBinary() && DataWriter.isRectangular(values)) {
+			return writeBinary(values, metricKey, filename(metricKey, folder),
+					false);
+		}
 		return write(values, filename(metricKey, folder), false);
 	}
 
@@ -0,0 +1,252 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * BinaryGraphReader.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.io.graphReader;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+import gtna.graph.GraphProperty;
+import gtna.io.graphWriter.BinaryGraphWriter;
+import gtna.util.Config;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+/**
+ * Reads graphs written by the BinaryGraphWriter. The file is memory-mapped
+ * and the offset and target tables are copied into the arrays of the CSR
+ * representation (gtna.graph.Adjacency) in bulk, i.e., without parsing,
+ * per-edge allocation or de-duplication. The Node objects of the returned
+ * graph are only created once they are requested.
+ *
+ * Properties stored in the file are added to the graph.
+ */
+public class BinaryGraphReader extends GraphReader {
+	// maximum size of a single mapped region
+	private static final long MAP_SIZE = 1 << 30;
+
+	public BinaryGraphReader() {
+		super("BINARY");
+	}
+
+	@Override
+	public Graph read(String filename) {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(filename, "r");
+			FileChannel channel = file.getChannel();
+			if (!BinaryGraphReader.verifyChecksum(channel)) {
+				System.err.println("checksum of " + filename + " is invalid");
+				return null;
+			}
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY,
+					0, Math.min(channel.size(), MAP_SIZE));
+			if (header.getInt() != BinaryGraphWriter.MAGIC
+					|| header.getInt() != BinaryGraphWriter.VERSION) {
+				return null;
+			}
+			String name = BinaryGraphReader.getString(header);
+			int nodes = header.getInt();
+			int edges = header.getInt();
+			long position = header.position();
+
+			int[] offsets = new int[nodes + 1];
+			position = BinaryGraphReader.readInts(channel, position, offsets);
+			int[] targets = new int[edges];
+			position = BinaryGraphReader.readInts(channel, position, targets);
+
+			Graph graph = new Graph(name, new Adjacency(offsets, targets,
+					Config.getBoolean("GRAPH_ADJACENCY_OFF_HEAP")));
+
+			MappedByteBuffer sections = channel.map(
+					FileChannel.MapMode.READ_ONLY, position, channel.size()
+							- position);
+			int properties = sections.getInt();
+			for (int i = 0; i < properties; i++) {
+				String key = BinaryGraphReader.getString(sections);
+				String className = BinaryGraphReader.getString(sections);
+				byte[] content = new byte[sections.getInt()];
+				sections.get(content);
+				GraphProperty property = BinaryGraphReader.deserialize(
+						className, content);
+				if (property == null) {
+					return null;
+				}
+				graph.addProperty(key, property);
+			}
+			return graph;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			try {
+				if (file != null) {
+					file.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	@Override
+	public int nodes(String filename) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(filename));
+			in.readInt();
+			in.readInt();
+			in.skipBytes(in.readInt());
+			return in.readInt();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return 0;
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * @param filename
+	 * @return true if the given file starts with the magic number of the
+	 *         binary graph format
+	 */
+	public static boolean isBinary(String filename) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(filename));
+			return in.readInt() == BinaryGraphWriter.MAGIC;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, BinaryGraphWriter.CHARSET);
+	}
+
+	/**
+	 * fills the array with the ints starting at the given position, mapping
+	 * at most MAP_SIZE bytes at a time
+	 *
+	 * @return position after the last int
+	 */
+	private static long readInts(FileChannel channel, long position,
+			int[] values) throws IOException {
+		int offset = 0;
+		while (offset < values.length) {
+			int length = (int) Math.min(values.length - offset, MAP_SIZE / 4);
+			IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY,
+					position, 4L * length).asIntBuffer();
+			ints.get(values, offset, length);
+			offset += length;
+			position += 4L * length;
+		}
+		return position;
+	}
+
+	private static boolean verifyChecksum(FileChannel channel)
+			throws IOException {
+		long size = channel.size() - 8;
+		if (size < 0) {
+			return false;
+		}
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[1 << 16];
+		long position = 0;
+		while (position < size) {
+			long length = Math.min(size - position, MAP_SIZE);
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, position, length);
+			while (buffer.hasRemaining()) {
+				int l = Math.min(chunk.length, buffer.remaining());
+				buffer.get(chunk, 0, l);
+				crc.update(chunk, 0, l);
+			}
+			position += length;
+		}
+		ByteBuffer checksum = ByteBuffer.allocate(8);
+		while (checksum.hasRemaining()) {
+			if (channel.read(checksum, size + checksum.position()) < 0) {
+				return false;
+			}
+		}
+		checksum.flip();
+		return checksum.getLong() == crc.getValue();
+	}
+
+	private static GraphProperty deserialize(String className, byte[] content)
+			throws IOException {
+		File temp = File.createTempFile("gtna-property-", ".txt");
+		try {
+			Files.write(temp.toPath(), content);
+			GraphProperty property = (GraphProperty) ClassLoader
+					.getSystemClassLoader().loadClass(className)
+					.getDeclaredConstructor().newInstance();
+			property.read(temp.getAbsolutePath());
+			return property;
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} finally {
+			temp.delete();
+		}
+	}
+}
@@ -77,7 +77,7 @@ public class CaidaGraphReader extends GraphReader {
 
 		Graph graph = new Graph(this.getGraphName(filename));
 		Node[] nodes = Node.init(index, graph);
-		Edges edges = new Edges(nodes, edgeCounter);
+		Edges edges = new Edges(nodes, edgeCounter, true);
 
 		fr = new Filereader(filename);
 		line = null;
@@ -86,6 +86,21 @@ public abstract class GraphReader {
 		return this.key;
 	}
 
+	/**
+	 * returns the reader for the given file, i.e., a BinaryGraphReader for
+	 * files in the binary format and a GtnaGraphReader otherwise
+	 * 
+	 * @param filename
+	 *            filename of the graph
+	 * @return graph reader for the given file
+	 */
+	public static GraphReader getReader(String filename) {
+		if (BinaryGraphReader.isBinary(filename)) {
+			return new BinaryGraphReader();
+		}
+		return new GtnaGraphReader();
+	}
+
 	protected String getGraphName(String filename) {
 		return this.getKey() + " read from " + new File(filename).getName();
 	}
@@ -59,7 +59,7 @@ public class GtnaGraphReader extends GraphReader {
 			int E = Integer.parseInt(fr.readLine());
 			Graph graph = new Graph(name);
 			Node[] nodes = Node.init(V, graph);
-			Edges edges = new Edges(nodes, E);
+			Edges edges = new Edges(nodes, E, true);
 			while ((line = fr.readLine()) != null) {
 				String[] temp = line.split(sep1);
 				if (temp.length < 2 || temp[1].length() == 0) {
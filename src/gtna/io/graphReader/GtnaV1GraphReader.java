@@ -62,7 +62,7 @@ public class GtnaV1GraphReader extends GraphReader {
 
 		Graph graph = new Graph(name);
 		Node[] nodes = Node.init(N, graph);
-		Edges edges = new Edges(nodes, E);
+		Edges edges = new Edges(nodes, E, true);
 
 		String line = null;
 		while ((line = fr.readLine()) != null) {
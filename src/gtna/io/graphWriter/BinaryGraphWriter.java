@@ -0,0 +1,220 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * BinaryGraphWriter.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.io.graphWriter;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+import gtna.graph.GraphProperty;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a graph in a binary format that can be loaded by the
+ * BinaryGraphReader without parsing:
+ *
+ * int magic, int version, string name, int nodes, int edges, int[nodes + 1]
+ * offsets of the outgoing edges, int[edges] targets (sorted per node), int
+ * number of property sections, and for each section: string key, string
+ * class, int length, byte[length] content, long CRC32 checksum of all
+ * preceding bytes.
+ *
+ * Strings are stored as int length followed by the UTF-8 bytes, all values
+ * are big-endian. The content of a property section is the output of the
+ * property's own write method, i.e., all properties are stored in the same
+ * file as the topology.
+ */
+public class BinaryGraphWriter extends GraphWriter {
+	public static final int MAGIC = 0x47544e42;
+
+	public static final int VERSION = 1;
+
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	public BinaryGraphWriter() {
+		super("BINARY");
+	}
+
+	@Override
+	public boolean write(Graph g, String filename) {
+		return this.write(g, filename, false);
+	}
+
+	/**
+	 * All properties are stored in the graph file itself.
+	 */
+	@Override
+	public boolean writeWithProperties(Graph g, String filename) {
+		return this.write(g, filename, true);
+	}
+
+	private boolean write(Graph g, String filename, boolean properties) {
+		Adjacency adjacency = g.getAdjacency();
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(filename);
+			Output output = new Output(out.getChannel());
+			output.putInt(MAGIC);
+			output.putInt(VERSION);
+			output.putString(g.getName());
+			output.putInt(adjacency.getNodeCount());
+			output.putInt(adjacency.getEdgeCount());
+			for (int offset : adjacency.getOutOffsets()) {
+				output.putInt(offset);
+			}
+			for (int i = 0; i < adjacency.getEdgeCount(); i++) {
+				output.putInt(adjacency.getOutTarget(i));
+			}
+
+			ArrayList<String> keys = new ArrayList<String>();
+			if (properties) {
+				keys.addAll(g.getProperties().keySet());
+				Collections.sort(keys);
+			}
+			output.putInt(keys.size());
+			for (String key : keys) {
+				GraphProperty property = g.getProperty(key);
+				byte[] content = BinaryGraphWriter.serialize(property, key);
+				if (content == null) {
+					return false;
+				}
+				output.putString(key);
+				output.putString(property.getClass().getName());
+				output.putInt(content.length);
+				output.putBytes(content);
+			}
+			output.flush();
+			output.putChecksum();
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static byte[] serialize(GraphProperty property, String key)
+			throws IOException {
+		File temp = File.createTempFile("gtna-property-", ".txt");
+		try {
+			if (!property.write(temp.getAbsolutePath(), key)) {
+				return null;
+			}
+			return Files.readAllBytes(temp.toPath());
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Buffered output to a channel that computes the checksum of everything
+	 * written so far.
+	 */
+	private static class Output {
+		private FileChannel channel;
+
+		private ByteBuffer buffer;
+
+		private CRC32 crc;
+
+		private Output(FileChannel channel) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			this.crc = new CRC32();
+		}
+
+		private void putInt(int value) throws IOException {
+			if (this.buffer.remaining() < 4) {
+				this.flush();
+			}
+			this.buffer.putInt(value);
+		}
+
+		private void putBytes(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (!this.buffer.hasRemaining()) {
+					this.flush();
+				}
+				int length = Math.min(this.buffer.remaining(), bytes.length
+						- offset);
+				this.buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		private void putString(String str) throws IOException {
+			byte[] bytes = str == null ? new byte[0] : str.getBytes(CHARSET);
+			this.putInt(bytes.length);
+			this.putBytes(bytes);
+		}
+
+		private void flush() throws IOException {
+			this.crc.update(this.buffer.array(), 0, this.buffer.position());
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+
+		private void putChecksum() throws IOException {
+			this.buffer.putLong(this.crc.getValue());
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+	}
+}
@@ -150,6 +150,16 @@ public abstract class Metric extends ParameterList {
 	public abstract boolean applicable(Graph g, Network n,
 			HashMap<String, Metric> m);
 
+	/**
+	 * keys (or folders) of all metrics whose results are accessed via the
+	 * HashMap passed to computeData, they are computed before this metric
+	 * 
+	 * @return keys of the metrics this metric depends on
+	 */
+	public String[] getDependencies() {
+		return new String[0];
+	}
+
 	/**
 	 * @param folder
 	 * @param run
@@ -180,13 +190,7 @@ public abstract class Metric extends ParameterList {
 	 * @return
 	 */
 	protected double[] readDistribution(String folder, String metrickey) { // TODO replace by read 2D Vals?
-		String filename = DataWriter.filename(metrickey, folder);		
-		double[][] distributionValues = DataReader.readDouble2D(filename);		
-		double[] distribution = new double[distributionValues.length];
-		for(int i = 0; i < distributionValues.length; i++){
-			distribution[i] = distributionValues[i][1];
-		}
-		return distribution;
+		return DataReader.readDouble(DataWriter.filename(metrickey, folder));
 	}
 
 	/**
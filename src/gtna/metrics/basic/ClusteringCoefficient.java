@@ -43,13 +43,13 @@ package gtna.metrics.basic;
 
 import gtna.data.NodeValueList;
 import gtna.data.Single;
-import gtna.graph.Edges;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
-import gtna.graph.Node;
 import gtna.io.DataReader;
 import gtna.io.DataWriter;
 import gtna.io.networks.googlePlus.Statistics;
 import gtna.metrics.Metric;
+import gtna.metrics.motifs.MotifEngine;
 import gtna.networks.Network;
 import gtna.util.Distribution;
 import gtna.util.Util;
@@ -57,8 +57,7 @@ import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class ClusteringCoefficient extends Metric {
 	// TODO add LCC => binning?!?
@@ -93,46 +92,15 @@ public class ClusteringCoefficient extends Metric {
 	@Override
 	public void computeData(Graph graph, Network nw,
 			HashMap<String, Metric> metrics) {
+		Adjacency adjacency = graph.getAdjacency();
+		MotifEngine engine = new MotifEngine(adjacency);
 		if (version == 1) {
-			Edges edges = new Edges(graph.getNodes(), graph.generateEdges());
-			this.localClusteringCoefficient = this
-					.computeLocalClusteringCoefficient(graph.getNodes(), edges);
-			this.clusteringCoefficient = this
-					.computeClusteringCoefficient(this.localClusteringCoefficient);
-			this.transitivity = this.computeTransitivity(graph);
+			this.computeVersion1(adjacency, engine);
 		} else {
-			Edges edges = graph.getEdges();
-			this.localClusteringCoefficient = new double[graph.getNodeCount()];
-
-			long triplets = 0;
-			long closedTriplets = 0;
-
-			for (Node node : graph.getNodes()) {
-				Set<Integer> neighborhood = this.getNeighborhoodDirected(node);
-				int links = 0;
-				for (int a : neighborhood) {
-					for (int b : neighborhood) {
-						if (a != b && edges.contains(a, b)) {
-							links++;
-							if (a < b && edges.contains(b, a)) {
-								closedTriplets++;
-							}
-						}
-					}
-				}
-				double k = neighborhood.size();
-				if (k < 2) {
-					this.localClusteringCoefficient[node.getIndex()] = 0.0;
-				} else {
-					this.localClusteringCoefficient[node.getIndex()] = (double) links
-							/ (k * (k - 1.0));
-					triplets += k * (k - 1);
-				}
-			}
-			this.clusteringCoefficient = Util
-					.avg(this.localClusteringCoefficient);
-			this.transitivity = (double) closedTriplets / triplets;
+			this.computeVersion2(adjacency, engine);
 		}
+		this.clusteringCoefficient = this
+				.computeClusteringCoefficient(this.localClusteringCoefficient);
 
 		double[][] binned = gtna.util.Statistics.binnedDistribution(
 				this.localClusteringCoefficient, 0.0, 1.0, 100);
@@ -140,87 +108,124 @@ public class ClusteringCoefficient extends Metric {
 				binned);
 	}
 
-	private Set<Integer> getNeighborhoodDirected(Node node) {
-		Set<Integer> outList = new HashSet<Integer>();
-		for (int out : node.getOutgoingEdges()) {
-			outList.add(out);
+	/**
+	 * local clustering coefficient of a node: fraction of ordered pairs (u, v)
+	 * of its out-neighbors with an edge u -> v, transitivity: fraction of
+	 * unordered pairs of out-neighbors that are connected (in any direction)
+	 */
+	private void computeVersion1(Adjacency adjacency, MotifEngine engine) {
+		final int n = adjacency.getNodeCount();
+		// shared by all threads, a triangle adds to the counters of 3 nodes
+		final AtomicLongArray links = new AtomicLongArray(n);
+		final long[] triangles = new long[engine.getThreads()];
+		MotifEngine.TriangleVisitor[] visitors = new MotifEngine.TriangleVisitor[triangles.length];
+		for (int i = 0; i < visitors.length; i++) {
+			final int task = i;
+			visitors[i] = new MotifEngine.TriangleVisitor() {
+				@Override
+				public void visit(int a, int b, int c, int ab, int ac, int bc) {
+					int ba = MotifEngine.flip(ab);
+					int ca = MotifEngine.flip(ac);
+					int cb = MotifEngine.flip(bc);
+					if ((ab & ac & MotifEngine.OUT) != 0) {
+						links.addAndGet(a, Integer.bitCount(bc));
+						triangles[task]++;
+					}
+					if ((ba & bc & MotifEngine.OUT) != 0) {
+						links.addAndGet(b, Integer.bitCount(ac));
+						triangles[task]++;
+					}
+					if ((ca & cb & MotifEngine.OUT) != 0) {
+						links.addAndGet(c, Integer.bitCount(ab));
+						triangles[task]++;
+					}
+				}
+			};
 		}
-		Set<Integer> neighbors = new HashSet<Integer>();
-		for (int in : node.getIncomingEdges()) {
-			if (outList.contains(in)) {
-				neighbors.add(in);
+		engine.listTriangles(visitors);
+
+		this.localClusteringCoefficient = new double[n];
+		long connected = 0;
+		long triples = 0;
+		for (int node = 0; node < n; node++) {
+			long degree = adjacency.getOutDegree(node);
+			long counter = links.get(node);
+			if (adjacency.hasOut(node, node)) {
+				// a self-loop makes the node an out-neighbor of itself
+				counter += degree - 1
+						+ engine.getDegree(node, MotifEngine.BIDIRECTIONAL);
+				connected += degree - 1;
 			}
-		}
-		return neighbors;
-	}
-
-	private Set<Integer> getNeighborhoodUndirected(Node node) {
-		Set<Integer> neighbors = new HashSet<Integer>();
-		for (int out : node.getOutgoingEdges()) {
-			neighbors.add(out);
-		}
-		return neighbors;
-	}
-
-	private Set<Integer> getNeighborhod(Node node) {
-		Set<Integer> outSet = new HashSet<Integer>();
-		for (int out : node.getOutgoingEdges()) {
-
-		}
-
-		Set<Integer> neighbors = new HashSet<Integer>();
-
-		return neighbors;
-	}
-
-	private double[] computeLocalClusteringCoefficient(Node[] nodes, Edges edges) {
-		double[] lcc = new double[nodes.length];
-		for (int i = 0; i < nodes.length; i++) {
-			lcc[i] = this.computeLocalClusteringCoefficient(nodes[i], edges);
-		}
-		return lcc;
-	}
-
-	private double computeLocalClusteringCoefficient(Node node, Edges edges) {
-		if (node.getOutDegree() <= 1) {
-			return 0;
-		}
-		int[] neighbors = node.getOutgoingEdges();
-		int counter = 0;
-		for (int u : neighbors) {
-			for (int v : neighbors) {
-				if (u != v && edges.contains(u, v)) {
-					counter++;
-				}
+			if (degree > 1) {
+				this.localClusteringCoefficient[node] = (double) counter
+						/ (double) (degree * (degree - 1));
 			}
+			triples += degree * (degree - 1) / 2;
 		}
-		return (double) counter
-				/ (double) (neighbors.length * (neighbors.length - 1));
+		for (long t : triangles) {
+			connected += t;
+		}
+		this.transitivity = (double) connected / (double) triples;
 	}
 
 	/**
-	 * transitivity = triangles/(3*triples) in graph
-	 * 
-	 * @param g
-	 * @return
+	 * local clustering coefficient of a node: fraction of ordered pairs (u, v)
+	 * of its bidirectional neighbors with an edge u -> v, transitivity:
+	 * fraction of these pairs that are connected in both directions
 	 */
-	private double computeTransitivity(Graph g) {
-		int triangles = 0;
-		int triples = 0;
-		Node[] nodes = g.getNodes();
-		for (int i = 0; i < nodes.length; i++) {
-			triples = triples + (nodes[i].getOutDegree())
-					* (nodes[i].getOutDegree() - 1) / 2;
-			int[] out = nodes[i].getOutgoingEdges();
-			for (int j = 0; j < out.length; j++) {
-				for (int k = j + 1; k < out.length; k++) {
-					if (nodes[out[j]].hasNeighbor(out[k])) {
-						triangles++;
+	private void computeVersion2(Adjacency adjacency, MotifEngine engine) {
+		final int n = adjacency.getNodeCount();
+		// shared by all threads, a triangle adds to the counters of 3 nodes
+		final AtomicLongArray links = new AtomicLongArray(n);
+		final long[] closed = new long[engine.getThreads()];
+		MotifEngine.TriangleVisitor[] visitors = new MotifEngine.TriangleVisitor[closed.length];
+		for (int i = 0; i < visitors.length; i++) {
+			final int task = i;
+			visitors[i] = new MotifEngine.TriangleVisitor() {
+				@Override
+				public void visit(int a, int b, int c, int ab, int ac, int bc) {
+					if (ab == MotifEngine.BIDIRECTIONAL
+							&& ac == MotifEngine.BIDIRECTIONAL) {
+						links.addAndGet(a, Integer.bitCount(bc));
+						closed[task] += bc == MotifEngine.BIDIRECTIONAL ? 1 : 0;
+					}
+					if (ab == MotifEngine.BIDIRECTIONAL
+							&& bc == MotifEngine.BIDIRECTIONAL) {
+						links.addAndGet(b, Integer.bitCount(ac));
+						closed[task] += ac == MotifEngine.BIDIRECTIONAL ? 1 : 0;
+					}
+					if (ac == MotifEngine.BIDIRECTIONAL
+							&& bc == MotifEngine.BIDIRECTIONAL) {
+						links.addAndGet(c, Integer.bitCount(ab));
+						closed[task] += ab == MotifEngine.BIDIRECTIONAL ? 1 : 0;
 					}
 				}
+			};
+		}
+		engine.listTriangles(visitors);
+
+		this.localClusteringCoefficient = new double[n];
+		long triplets = 0;
+		long closedTriplets = 0;
+		for (int node = 0; node < n; node++) {
+			long k = engine.getDegree(node, MotifEngine.BIDIRECTIONAL);
+			long counter = links.get(node);
+			if (adjacency.hasOut(node, node)) {
+				// a self-loop makes the node a bidirectional neighbor of itself
+				counter += 2 * k;
+				closedTriplets += k;
+				k++;
 			}
+			if (k >= 2) {
+				this.localClusteringCoefficient[node] = (double) counter
+						/ ((double) k * (k - 1.0));
+				triplets += k * (k - 1);
+			}
+		}
+		for (long c : closed) {
+			closedTriplets += c;
 		}
-		return (double) triangles / (double) triples;
+		this.transitivity = (double) closedTriplets / triplets;
 	}
 
 	private double computeClusteringCoefficient(double[] lcc) {
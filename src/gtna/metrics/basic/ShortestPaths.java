@@ -38,22 +38,28 @@
  */
 package gtna.metrics.basic;
 
+import gtna.algorithms.shortestPaths.AllPairsBreadthFirstSearch;
+import gtna.algorithms.shortestPaths.HyperANF;
 import gtna.data.NodeValueList;
 import gtna.data.Single;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
-import gtna.graph.Node;
 import gtna.io.DataReader;
 import gtna.io.DataWriter;
 import gtna.metrics.Metric;
 import gtna.networks.Network;
 import gtna.util.Config;
 import gtna.util.Distribution;
+import gtna.util.Parallel;
+import gtna.util.Statistics;
 import gtna.util.Util;
+import gtna.util.parameter.IntParameter;
+import gtna.util.parameter.Parameter;
+import gtna.util.parameter.StringParameter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Queue;
 
 // TODO problem with averages for big networks (> 40.000)
 public class ShortestPaths extends Metric {
@@ -75,8 +81,62 @@ public class ShortestPaths extends Metric {
 
 	private double percentage;
 
+	/**
+	 * EXACT: BFS from every node
+	 * 
+	 * SAMPLED_SOURCES: BFS from k sources selected uniformly at random, the
+	 * counts are extrapolated by n / k
+	 * 
+	 * HYPER_ANF: neighbourhood function estimated using HyperLogLog counters
+	 * with 2^log2m registers each
+	 */
+	public static enum Approximation {
+		EXACT, SAMPLED_SOURCES, HYPER_ANF
+	}
+
+	private Approximation approximation;
+
+	private int parameter;
+
+	// confidence intervals {low, up} (SAMPLED_SOURCES only)
+	private double[] shortestPathLengthConfidenceInterval;
+
+	private double[] connectivityConfidenceInterval;
+
 	public ShortestPaths() {
 		super("SHORTEST_PATHS");
+		this.approximation = Approximation.EXACT;
+		this.parameter = 0;
+	}
+
+	/**
+	 * @param approximation
+	 *            approximation to use
+	 * @param parameter
+	 *            number of sources (SAMPLED_SOURCES) or log2 of the number of
+	 *            registers per counter (HYPER_ANF)
+	 */
+	public ShortestPaths(Approximation approximation, int parameter) {
+		super("SHORTEST_PATHS", ShortestPaths.getParameters(approximation,
+				parameter));
+		this.approximation = approximation;
+		this.parameter = parameter;
+	}
+
+	private static Parameter[] getParameters(Approximation approximation,
+			int parameter) {
+		if (approximation == Approximation.SAMPLED_SOURCES) {
+			return new Parameter[] {
+					new StringParameter("APPROXIMATION",
+							approximation.toString()),
+					new IntParameter("SOURCES", parameter) };
+		} else if (approximation == Approximation.HYPER_ANF) {
+			return new Parameter[] {
+					new StringParameter("APPROXIMATION",
+							approximation.toString()),
+					new IntParameter("LOG2M", parameter) };
+		}
+		return new Parameter[0];
 	}
 
 	@Override
@@ -87,8 +147,15 @@ public class ShortestPaths extends Metric {
 	@Override
 	public void computeData(Graph graph, Network nw,
 			HashMap<String, Metric> metrics) {
-		this.localCharacteristicPathLength = new double[graph.getNodes().length];
-		long[] SPL = this.computeShortestPathLengths(graph.getNodes());
+		this.localCharacteristicPathLength = new double[graph.getNodeCount()];
+		this.shortestPathLengthConfidenceInterval = null;
+		this.connectivityConfidenceInterval = null;
+		long[] SPL;
+		if (this.approximation == Approximation.HYPER_ANF) {
+			SPL = this.estimateShortestPathLengths(graph.getAdjacency());
+		} else {
+			SPL = this.computeShortestPathLengths(graph.getAdjacency());
+		}
 		this.shortestPathLengthDistribution = new Distribution(
 				"SHORTEST_PATHS_SHORTEST_PATH_LENGTH_DISTRIBUTION",
 				this.computeShortestPathLengthDistribution(SPL));
@@ -96,8 +163,8 @@ public class ShortestPaths extends Metric {
 				"SHORTEST_PATHS_SHORTEST_PATH_LENGTH_DISTRIBUTION_ABSOLUTE",
 				this.computeShortestPathLengthDistributionAbsolute(SPL, graph));
 		this.connectivity = (double) Util.sum(SPL)
-				/ (double) ((double) graph.getNodes().length * (double) (graph
-						.getNodes().length - 1));
+				/ (double) ((double) graph.getNodeCount() * (double) (graph
+						.getNodeCount() - 1));
 
 		this.hopPlot = new Distribution("SHORTEST_PATHS_HOP_PLOT", computeHP(
 				SPL, graph));
@@ -155,8 +222,8 @@ public class ShortestPaths extends Metric {
 
 	private double[] computeShortestPathLengthDistributionAbsolute(long[] SPL,
 			Graph graph) {
-		long sum = (long) graph.getNodes().length
-				* (long) (graph.getNodes().length - 1);
+		long sum = (long) graph.getNodeCount()
+				* (long) (graph.getNodeCount() - 1);
 		double[] spld = new double[SPL.length];
 		for (int i = 0; i < SPL.length; i++) {
 			spld[i] = (double) SPL[i] / sum;
@@ -164,48 +231,156 @@ public class ShortestPaths extends Metric {
 		return spld;
 	}
 
-	private long[] computeShortestPathLengths(Node[] nodes) {
+	private long[] computeShortestPathLengths(Adjacency adjacency) {
+		int n = adjacency.getNodeCount();
+		int[] sources;
+		if (this.approximation == Approximation.SAMPLED_SOURCES
+				&& this.parameter > 0 && this.parameter < n) {
+			sources = Util.sample(n, this.parameter,
+					Util.getRandom("METRIC_SEED"));
+		} else {
+			sources = new int[n];
+			for (int i = 0; i < n; i++) {
+				sources[i] = i;
+			}
+		}
+		AllPairsBreadthFirstSearch bfs = new AllPairsBreadthFirstSearch(
+				adjacency,
+				Config.getBoolean("SHORTEST_PATHS_DIRECTION_OPTIMIZING"),
+				Parallel.getThreads("PARALLEL_METRICS"));
+		ArrayList<SPLVisitor> visitors = bfs.run(sources,
+				new AllPairsBreadthFirstSearch.VisitorFactory<SPLVisitor>() {
+					@Override
+					public SPLVisitor create() {
+						return new SPLVisitor();
+					}
+				});
 		long[] SPL = new long[1];
-		for (Node n : nodes) {
-			SPL = this.computeSPL(nodes, n, SPL);
+		for (SPLVisitor visitor : visitors) {
+			if (visitor.SPL.length > SPL.length) {
+				SPL = Arrays.copyOf(SPL, visitor.SPL.length);
+			}
+			for (int i = 0; i < visitor.SPL.length; i++) {
+				SPL[i] += visitor.SPL[i];
+			}
+		}
+		if (sources.length < n) {
+			this.computeConfidenceIntervals(sources, visitors, n);
+			double scale = (double) n / (double) sources.length;
+			for (int i = 0; i < SPL.length; i++) {
+				SPL[i] = Math.round(SPL[i] * scale);
+			}
 		}
 		return SPL;
 	}
 
-	private long[] computeSPL(Node[] nodes, Node start, long[] SPL) {
-		Queue<Integer> queue = new LinkedList<Integer>();
-		int[] spl = Util.initIntArray(nodes.length, -1);
-		long sum = 0;
-		int found = 0;
-		queue.add(start.getIndex());
-		spl[start.getIndex()] = 0;
-		while (!queue.isEmpty()) {
-			Node current = nodes[queue.poll()];
-			for (int outIndex : current.getOutgoingEdges()) {
-				if (spl[outIndex] != -1) {
-					continue;
-				}
-				spl[outIndex] = spl[current.getIndex()] + 1;
-				queue.add(outIndex);
-				found++;
-				sum += spl[outIndex];
-				SPL = this.inc(SPL, spl[outIndex]);
+	/**
+	 * The connectivity is the mean of the fraction of nodes reached by each
+	 * source. The characteristic path length is a ratio estimator (sum of
+	 * distances / number of reached nodes), its variance is approximated
+	 * using the delta method. In both cases, the finite population correction
+	 * is applied since the sources are drawn without replacement.
+	 */
+	private void computeConfidenceIntervals(int[] sources,
+			ArrayList<SPLVisitor> visitors, int n) {
+		double z = Statistics.zValue(Config.getDouble("CONFIDENCE_INTERVAL"));
+		int k = sources.length;
+		double[] distances = new double[k];
+		double[] reached = new double[k];
+		int index = 0;
+		for (SPLVisitor visitor : visitors) {
+			for (int i = 0; i < visitor.sources; i++) {
+				distances[index] = visitor.distances[i];
+				reached[index] = visitor.reached[i];
+				index++;
 			}
 		}
-		this.localCharacteristicPathLength[start.getIndex()] = (double) sum
-				/ (double) found;
+		double fpc = k > 1 ? (double) (n - k) / (double) (n - 1) : 0;
+
+		double[] fractions = new double[k];
+		for (int i = 0; i < k; i++) {
+			fractions[i] = reached[i] / (double) (n - 1);
+		}
+		double c = Util.sum(fractions) / k;
+		double varC = 0;
+		for (int i = 0; i < k; i++) {
+			varC += (fractions[i] - c) * (fractions[i] - c);
+		}
+		varC = k > 1 ? varC / (k - 1) : 0;
+		double devC = Math.sqrt(varC * fpc / k);
+		this.connectivityConfidenceInterval = new double[] { c - z * devC,
+				c + z * devC };
+
+		double meanReached = Util.sum(reached) / k;
+		double r = meanReached == 0 ? 0 : Util.sum(distances)
+				/ Util.sum(reached);
+		double varR = 0;
+		for (int i = 0; i < k; i++) {
+			double residual = distances[i] - r * reached[i];
+			varR += residual * residual;
+		}
+		varR = k > 1 && meanReached > 0 ? varR / (k - 1)
+				/ (meanReached * meanReached) : 0;
+		double devR = Math.sqrt(varR * fpc / k);
+		this.shortestPathLengthConfidenceInterval = new double[] {
+				r - z * devR, r + z * devR };
+	}
+
+	/**
+	 * N(t) - N(t - 1) of the neighbourhood function is the number of pairs
+	 * with distance t.
+	 */
+	private long[] estimateShortestPathLengths(Adjacency adjacency) {
+		HyperANF anf = new HyperANF(adjacency, this.parameter,
+				Parallel.getThreads("PARALLEL_METRICS"), Util.getRandom(
+						"METRIC_SEED").nextLong());
+		anf.run();
+		double[] nf = anf.getNeighbourhoodFunction();
+		long[] SPL = new long[nf.length];
+		for (int t = 1; t < nf.length; t++) {
+			SPL[t] = Math.max(0, Math.round(nf[t] - nf[t - 1]));
+		}
+		for (int v = 0; v < this.localCharacteristicPathLength.length; v++) {
+			this.localCharacteristicPathLength[v] = anf.getAverageDistance(v);
+		}
 		return SPL;
 	}
 
-	private long[] inc(long[] values, int index) {
-		try {
-			values[index]++;
-			return values;
-		} catch (ArrayIndexOutOfBoundsException e) {
-			long[] valuesNew = new long[index + 1];
-			System.arraycopy(values, 0, valuesNew, 0, values.length);
-			valuesNew[index] = 1;
-			return valuesNew;
+	/**
+	 * counts the shortest path lengths found by the searches of a single task
+	 */
+	private class SPLVisitor implements AllPairsBreadthFirstSearch.Visitor {
+		private long[] SPL = new long[1];
+
+		// per-source sums, only required for confidence intervals
+		private int sources = 0;
+
+		private double[] distances = new double[16];
+
+		private double[] reached = new double[16];
+
+		@Override
+		public void visit(int source, AllPairsBreadthFirstSearch.Search search) {
+			if (search.getLevels() > this.SPL.length) {
+				this.SPL = Arrays.copyOf(this.SPL, search.getLevels());
+			}
+			long sum = 0;
+			for (int d = 1; d < search.getLevels(); d++) {
+				int count = search.getLevelEnd(d) - search.getLevelStart(d);
+				this.SPL[d] += count;
+				sum += (long) d * count;
+			}
+			// distinct sources, hence no synchronization required
+			localCharacteristicPathLength[source] = (double) sum
+					/ (double) (search.getReached() - 1);
+			if (this.sources == this.distances.length) {
+				this.distances = Arrays.copyOf(this.distances,
+						this.sources * 2);
+				this.reached = Arrays.copyOf(this.reached, this.sources * 2);
+			}
+			this.distances[this.sources] = sum;
+			this.reached[this.sources] = search.getReached() - 1;
+			this.sources++;
 		}
 	}
 
@@ -249,9 +424,28 @@ public class ShortestPaths extends Metric {
 				this.connectivity);
 		Single ecc = new Single(
 				"SHORTEST_PATHS_EFFECTIVE_DIAMETER_ECC_90QUANTIL", this.ecc90);
+		if (this.shortestPathLengthConfidenceInterval == null) {
+			return new Single[] { averageShortestPathLength,
+					medianShortestPathLength, maximumShortestPathLength,
+					connectivity, ecc };
+		}
+		// confidence intervals (SAMPLED_SOURCES only)
+		Single averageLow = new Single(
+				"SHORTEST_PATHS_SHORTEST_PATH_LENGTH_AVG_CONF_LOW",
+				this.shortestPathLengthConfidenceInterval[0]);
+		Single averageUp = new Single(
+				"SHORTEST_PATHS_SHORTEST_PATH_LENGTH_AVG_CONF_UP",
+				this.shortestPathLengthConfidenceInterval[1]);
+		Single connectivityLow = new Single(
+				"SHORTEST_PATHS_CONNECTIVITY_CONF_LOW",
+				this.connectivityConfidenceInterval[0]);
+		Single connectivityUp = new Single(
+				"SHORTEST_PATHS_CONNECTIVITY_CONF_UP",
+				this.connectivityConfidenceInterval[1]);
 		return new Single[] { averageShortestPathLength,
 				medianShortestPathLength, maximumShortestPathLength,
-				connectivity, ecc };
+				connectivity, ecc, averageLow, averageUp, connectivityLow,
+				connectivityUp };
 	}
 
 	@Override
@@ -280,7 +474,8 @@ public class ShortestPaths extends Metric {
 	}
 
 	/**
-	 * @return the localCharacteristicPathLength
+	 * @return the localCharacteristicPathLength (only computed for the
+	 *         selected sources in case of SAMPLED_SOURCES, 0 for all others)
 	 */
 	public double[] getLocalCharacteristicPathLength() {
 		return this.localCharacteristicPathLength;
@@ -293,6 +488,35 @@ public class ShortestPaths extends Metric {
 		return this.connectivity;
 	}
 
+	/**
+	 * @return confidence interval {low, up} of the characteristic path length
+	 *         in case sampled sources are used, null otherwise
+	 */
+	public double[] getShortestPathLengthConfidenceInterval() {
+		return this.shortestPathLengthConfidenceInterval;
+	}
+
+	/**
+	 * @return confidence interval {low, up} of the connectivity in case
+	 *         sampled sources are used, null otherwise
+	 */
+	public double[] getConnectivityConfidenceInterval() {
+		return this.connectivityConfidenceInterval;
+	}
+
+	/**
+	 * @return confidence interval of the characteristic path length (or the
+	 *         connectivity), created when it is first read
+	 */
+	private double[] getInterval(boolean shortestPathLength) {
+		if (this.shortestPathLengthConfidenceInterval == null) {
+			this.shortestPathLengthConfidenceInterval = new double[2];
+			this.connectivityConfidenceInterval = new double[2];
+		}
+		return shortestPathLength ? this.shortestPathLengthConfidenceInterval
+				: this.connectivityConfidenceInterval;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -302,6 +526,8 @@ public class ShortestPaths extends Metric {
 	public boolean readData(String folder) {
 
 		/* SINGLES */
+		this.shortestPathLengthConfidenceInterval = null;
+		this.connectivityConfidenceInterval = null;
 		String[][] singles = DataReader.readSingleValues(folder
 				+ "_singles.txt");
 
@@ -312,6 +538,18 @@ public class ShortestPaths extends Metric {
 				} else if ("SHORTEST_PATHS_EFFECTIVE_DIAMETER_ECC_90QUANTIL"
 						.equals(single[0])) {
 					this.ecc90 = Double.valueOf(single[1]);
+				} else if ("SHORTEST_PATHS_SHORTEST_PATH_LENGTH_AVG_CONF_LOW"
+						.equals(single[0])) {
+					this.getInterval(true)[0] = Double.valueOf(single[1]);
+				} else if ("SHORTEST_PATHS_SHORTEST_PATH_LENGTH_AVG_CONF_UP"
+						.equals(single[0])) {
+					this.getInterval(true)[1] = Double.valueOf(single[1]);
+				} else if ("SHORTEST_PATHS_CONNECTIVITY_CONF_LOW"
+						.equals(single[0])) {
+					this.getInterval(false)[0] = Double.valueOf(single[1]);
+				} else if ("SHORTEST_PATHS_CONNECTIVITY_CONF_UP"
+						.equals(single[0])) {
+					this.getInterval(false)[1] = Double.valueOf(single[1]);
 				}
 			}
 		}
@@ -0,0 +1,215 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * WeightedClusteringCoefficient.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.metrics.basic;
+
+import gtna.data.NodeValueList;
+import gtna.data.Single;
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+import gtna.graph.weights.EdgeWeights;
+import gtna.io.DataReader;
+import gtna.io.DataWriter;
+import gtna.metrics.Metric;
+import gtna.networks.Network;
+import gtna.util.Distribution;
+import gtna.util.Parallel;
+import gtna.util.Statistics;
+import gtna.util.Util;
+import gtna.util.parameter.Parameter;
+import gtna.util.parameter.StringParameter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Weighted clustering coefficient (Barrat et al.) based on the EdgeWeights
+ * stored as a property of the graph: for a node i with out-degree k and
+ * out-strength s (sum of the weights of its outgoing edges), every ordered
+ * pair (j, h) of out-neighbors with an edge j -> h contributes (w_ij + w_ih)
+ * / 2 and the sum is normalized by s (k - 1). Self-loops are ignored. With
+ * all weights equal, this is the local clustering coefficient computed by
+ * ClusteringCoefficient (version 1).
+ *
+ * The weights are read from the array aligned with the adjacency of the
+ * graph, the nodes are distributed among PARALLEL_METRICS threads.
+ */
+public class WeightedClusteringCoefficient extends Metric {
+	private String weightsKey;
+
+	private double[] localClusteringCoefficient;
+
+	private Distribution binned;
+
+	private double clusteringCoefficient;
+
+	public WeightedClusteringCoefficient() {
+		this("ew");
+	}
+
+	/**
+	 * @param weightsKey
+	 *            key of the EdgeWeights property of the graph
+	 */
+	public WeightedClusteringCoefficient(String weightsKey) {
+		super("WEIGHTED_CLUSTERING_COEFFICIENT",
+				new Parameter[] { new StringParameter("WEIGHTS", weightsKey) });
+		this.weightsKey = weightsKey;
+	}
+
+	@Override
+	public boolean applicable(Graph g, Network n, HashMap<String, Metric> m) {
+		return g.hasProperty(this.weightsKey)
+				&& g.getProperty(this.weightsKey) instanceof EdgeWeights;
+	}
+
+	@Override
+	public void computeData(Graph graph, Network nw,
+			HashMap<String, Metric> metrics) {
+		final Adjacency adjacency = graph.getAdjacency();
+		final double[] weights = ((EdgeWeights) graph
+				.getProperty(this.weightsKey)).getWeights(adjacency);
+		final int n = adjacency.getNodeCount();
+		final int threads = Parallel.getThreads("PARALLEL_METRICS");
+		final int tasks = Math.min(n, threads * 4);
+		this.localClusteringCoefficient = new double[n];
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				// weight of the edge from the current node to each of its
+				// out-neighbors, valid if marked with the current node
+				double[] weight = new double[n];
+				int[] mark = new int[n];
+				Arrays.fill(mark, -1);
+				int end = Parallel.getEnd(n, tasks, task);
+				for (int i = Parallel.getStart(n, tasks, task); i < end; i++) {
+					localClusteringCoefficient[i] = computeLocal(adjacency,
+							weights, i, weight, mark);
+				}
+			}
+		});
+		this.clusteringCoefficient = Util.avg(this.localClusteringCoefficient);
+
+		// binning sorts the values, hence a copy is passed
+		this.binned = new Distribution(
+				"WEIGHTED_CLUSTERING_COEFFICIENT_DISTRIBUTION",
+				Statistics.binnedDistribution(
+						this.localClusteringCoefficient.clone(), 0.0,
+						Math.nextUp(1.0), 100));
+	}
+
+	private double computeLocal(Adjacency adjacency, double[] weights, int i,
+			double[] weight, int[] mark) {
+		int k = 0;
+		double s = 0;
+		for (int e = adjacency.getOutStart(i); e < adjacency.getOutEnd(i); e++) {
+			int j = adjacency.getOutTarget(e);
+			if (j != i) {
+				weight[j] = weights[e];
+				mark[j] = i;
+				k++;
+				s += weights[e];
+			}
+		}
+		if (k < 2 || s == 0) {
+			return 0;
+		}
+		double sum = 0;
+		for (int e = adjacency.getOutStart(i); e < adjacency.getOutEnd(i); e++) {
+			int j = adjacency.getOutTarget(e);
+			if (j == i) {
+				continue;
+			}
+			for (int f = adjacency.getOutStart(j); f < adjacency.getOutEnd(j); f++) {
+				int h = adjacency.getOutTarget(f);
+				if (h != j && mark[h] == i) {
+					sum += (weight[j] + weight[h]) / 2.0;
+				}
+			}
+		}
+		return sum / (s * (k - 1));
+	}
+
+	@Override
+	public boolean writeData(String folder) {
+		boolean success = true;
+		success &= DataWriter.writeWithoutIndex(this.binned.getDistribution(),
+				"WEIGHTED_CLUSTERING_COEFFICIENT_DISTRIBUTION", folder);
+		success &= DataWriter.writeWithIndex(this.localClusteringCoefficient,
+				"WEIGHTED_CLUSTERING_COEFFICIENT_LCC", folder);
+		return success;
+	}
+
+	@Override
+	public Single[] getSingles() {
+		Single clusteringCoefficient = new Single(
+				"WEIGHTED_CLUSTERING_COEFFICIENT_CLUSTERING_COEFFICIENT",
+				this.clusteringCoefficient);
+		return new Single[] { clusteringCoefficient };
+	}
+
+	@Override
+	public Distribution[] getDistributions() {
+		return new Distribution[] { this.binned };
+	}
+
+	@Override
+	public NodeValueList[] getNodeValueLists() {
+		return new NodeValueList[] { new NodeValueList(
+				"WEIGHTED_CLUSTERING_COEFFICIENT_LCC",
+				this.localClusteringCoefficient) };
+	}
+
+	@Override
+	public boolean readData(String folder) {
+		String[][] singles = DataReader.readSingleValues(folder
+				+ "_singles.txt");
+		for (String[] single : singles) {
+			if (single.length == 2
+					&& "WEIGHTED_CLUSTERING_COEFFICIENT_CLUSTERING_COEFFICIENT"
+							.equals(single[0])) {
+				this.clusteringCoefficient = Double.valueOf(single[1]);
+			}
+		}
+		this.localClusteringCoefficient = this.readDistribution(folder,
+				"WEIGHTED_CLUSTERING_COEFFICIENT_LCC");
+		this.binned = new Distribution(
+				"WEIGHTED_CLUSTERING_COEFFICIENT_DISTRIBUTION",
+				this.read2DValues(folder,
+						"WEIGHTED_CLUSTERING_COEFFICIENT_DISTRIBUTION"));
+		return true;
+	}
+
+}
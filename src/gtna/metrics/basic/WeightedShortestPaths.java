@@ -0,0 +1,224 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * WeightedShortestPaths.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.metrics.basic;
+
+import gtna.algorithms.shortestPaths.Dijkstra;
+import gtna.data.NodeValueList;
+import gtna.data.Single;
+import gtna.graph.Graph;
+import gtna.graph.weights.EdgeWeights;
+import gtna.io.DataReader;
+import gtna.io.DataWriter;
+import gtna.metrics.Metric;
+import gtna.networks.Network;
+import gtna.util.Distribution;
+import gtna.util.Parallel;
+import gtna.util.Statistics;
+import gtna.util.parameter.Parameter;
+import gtna.util.parameter.StringParameter;
+
+import java.util.HashMap;
+
+/**
+ * Shortest paths where the length of a path is the sum of the weights of its
+ * edges, taken from the EdgeWeights stored as a property of the graph (the
+ * weights must be non-negative). The weighted distances from every source
+ * are computed using Dijkstra's algorithm on the weights aligned with the
+ * adjacency of the graph; the sources are distributed among
+ * PARALLEL_METRICS threads.
+ *
+ * Computed are the local characteristic path length of every node (average
+ * weighted distance to all nodes reachable from it), their distribution, the
+ * average and maximum weighted distance between all connected pairs, and the
+ * connectivity (fraction of connected pairs).
+ */
+public class WeightedShortestPaths extends Metric {
+	private String weightsKey;
+
+	private double[] localCharacteristicPathLength;
+
+	private Distribution localCharacteristicPathLengthDistribution;
+
+	private double averageDistance;
+
+	private double maximumDistance;
+
+	private double connectivity;
+
+	public WeightedShortestPaths() {
+		this("ew");
+	}
+
+	/**
+	 * @param weightsKey
+	 *            key of the EdgeWeights property of the graph
+	 */
+	public WeightedShortestPaths(String weightsKey) {
+		super("WEIGHTED_SHORTEST_PATHS", new Parameter[] { new StringParameter(
+				"WEIGHTS", weightsKey) });
+		this.weightsKey = weightsKey;
+	}
+
+	@Override
+	public boolean applicable(Graph g, Network n, HashMap<String, Metric> m) {
+		return g.hasProperty(this.weightsKey)
+				&& g.getProperty(this.weightsKey) instanceof EdgeWeights;
+	}
+
+	@Override
+	public void computeData(final Graph graph, Network nw,
+			HashMap<String, Metric> metrics) {
+		final int n = graph.getNodeCount();
+		final Dijkstra dijkstra = new Dijkstra(
+				(EdgeWeights) graph.getProperty(this.weightsKey));
+		final int tasks = Math.min(n,
+				Parallel.getThreads("PARALLEL_METRICS") * 4);
+		final double[] sum = new double[tasks];
+		final long[] pairs = new long[tasks];
+		final double[] max = new double[tasks];
+		this.localCharacteristicPathLength = new double[n];
+		Parallel.run(tasks, Parallel.getThreads("PARALLEL_METRICS"),
+				new Parallel.Task() {
+					@Override
+					public void run(int task) {
+						int end = Parallel.getEnd(n, tasks, task);
+						for (int s = Parallel.getStart(n, tasks, task); s < end; s++) {
+							double[] distance = dijkstra.getDistances(graph, s);
+							double local = 0;
+							int reached = 0;
+							for (int v = 0; v < n; v++) {
+								if (v == s
+										|| distance[v] == Double.POSITIVE_INFINITY) {
+									continue;
+								}
+								local += distance[v];
+								reached++;
+								max[task] = Math.max(max[task], distance[v]);
+							}
+							if (reached > 0) {
+								localCharacteristicPathLength[s] = local
+										/ reached;
+							}
+							sum[task] += local;
+							pairs[task] += reached;
+						}
+					}
+				});
+
+		double total = 0;
+		long connected = 0;
+		this.maximumDistance = 0;
+		for (int task = 0; task < tasks; task++) {
+			total += sum[task];
+			connected += pairs[task];
+			this.maximumDistance = Math.max(this.maximumDistance, max[task]);
+		}
+		this.averageDistance = connected == 0 ? 0 : total / connected;
+		this.connectivity = n < 2 ? 0 : (double) connected
+				/ ((double) n * (double) (n - 1));
+
+		// binning sorts the values, hence a copy is passed
+		double[][] binned = Statistics.binnedDistribution(
+				this.localCharacteristicPathLength.clone(), 0.0,
+				this.maximumDistance > 0 ? Math.nextUp(this.maximumDistance)
+						: 1.0, 100);
+		this.localCharacteristicPathLengthDistribution = new Distribution(
+				"WEIGHTED_SHORTEST_PATHS_LCPL_DISTRIBUTION", binned);
+	}
+
+	@Override
+	public boolean writeData(String folder) {
+		boolean success = true;
+		success &= DataWriter.writeWithIndex(
+				this.localCharacteristicPathLength,
+				"WEIGHTED_SHORTEST_PATHS_LCPL", folder);
+		success &= DataWriter.writeWithoutIndex(
+				this.localCharacteristicPathLengthDistribution
+						.getDistribution(),
+				"WEIGHTED_SHORTEST_PATHS_LCPL_DISTRIBUTION", folder);
+		return success;
+	}
+
+	@Override
+	public Single[] getSingles() {
+		Single avg = new Single("WEIGHTED_SHORTEST_PATHS_DISTANCE_AVG",
+				this.averageDistance);
+		Single max = new Single("WEIGHTED_SHORTEST_PATHS_DISTANCE_MAX",
+				this.maximumDistance);
+		Single connectivity = new Single(
+				"WEIGHTED_SHORTEST_PATHS_CONNECTIVITY", this.connectivity);
+		return new Single[] { avg, max, connectivity };
+	}
+
+	@Override
+	public Distribution[] getDistributions() {
+		return new Distribution[] { this.localCharacteristicPathLengthDistribution };
+	}
+
+	@Override
+	public NodeValueList[] getNodeValueLists() {
+		return new NodeValueList[] { new NodeValueList(
+				"WEIGHTED_SHORTEST_PATHS_LCPL",
+				this.localCharacteristicPathLength) };
+	}
+
+	@Override
+	public boolean readData(String folder) {
+		String[][] singles = DataReader.readSingleValues(folder
+				+ "_singles.txt");
+		for (String[] single : singles) {
+			if (single.length == 2) {
+				if ("WEIGHTED_SHORTEST_PATHS_DISTANCE_AVG".equals(single[0])) {
+					this.averageDistance = Double.valueOf(single[1]);
+				} else if ("WEIGHTED_SHORTEST_PATHS_DISTANCE_MAX"
+						.equals(single[0])) {
+					this.maximumDistance = Double.valueOf(single[1]);
+				} else if ("WEIGHTED_SHORTEST_PATHS_CONNECTIVITY"
+						.equals(single[0])) {
+					this.connectivity = Double.valueOf(single[1]);
+				}
+			}
+		}
+		this.localCharacteristicPathLength = this.readDistribution(folder,
+				"WEIGHTED_SHORTEST_PATHS_LCPL");
+		this.localCharacteristicPathLengthDistribution = new Distribution(
+				"WEIGHTED_SHORTEST_PATHS_LCPL_DISTRIBUTION",
+				this.read2DValues(folder,
+						"WEIGHTED_SHORTEST_PATHS_LCPL_DISTRIBUTION"));
+		return true;
+	}
+
+}
@@ -38,22 +38,20 @@ package gtna.metrics.centrality;
 
 import gtna.data.NodeValueList;
 import gtna.data.Single;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
-import gtna.graph.Node;
 import gtna.io.DataReader;
 import gtna.io.DataWriter;
 import gtna.metrics.Metric;
 import gtna.networks.Network;
 import gtna.util.Distribution;
+import gtna.util.Parallel;
+import gtna.util.Util;
+import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Map.Entry;
 
 /**
  * 
@@ -77,7 +75,8 @@ public class BetweennessCentrality extends Metric {
 	
 	
 	private double binSize = 0.01;
-	private int spSum=0;
+	private double spSum=0;
+	private int pivots = 0;
 
 	/**
 	 * @param key
@@ -95,6 +94,23 @@ public class BetweennessCentrality extends Metric {
 		this.binSize = binsize;
 	}
 
+	/**
+	 * Approximates the betweenness centrality using the given number of
+	 * randomly selected pivots as sources.
+	 * 
+	 * @param pivots - number of sources to use
+	 * @return betweenness centrality metric using pivot sampling
+	 */
+	public static BetweennessCentrality withPivots(int pivots) {
+		return new BetweennessCentrality(new Parameter[] { new IntParameter(
+				"PIVOTS", pivots) }, pivots);
+	}
+
+	private BetweennessCentrality(Parameter[] parameters, int pivots) {
+		super("BETWEENNESS_CENTRALITY", parameters);
+		this.pivots = pivots;
+	}
+
 	/**
 	 * @param key
 	 * @param parameters
@@ -120,7 +136,7 @@ public class BetweennessCentrality extends Metric {
 		// normalization for binned distribution
 		double[] cb = new double[cbs.length]; 
 		for (int i = 0; i < cbs.length; i++) {
-			cb[i] = (double) cbs[i]/(double) this.spSum;
+			cb[i] = cbs[i] / this.spSum;
 		}
 		
 		binned = gtna.util.Statistics.binnedDistribution(cb, 0d, 1d, 100);
@@ -128,7 +144,7 @@ public class BetweennessCentrality extends Metric {
 		
 		betweennessCentrality = new NodeValueList("BETWEENNESS_CENTRALITY_NVL", cbs);
 		binnedBetwennessCentrality = new Distribution("BETWEENNESS_CENTRALITY_DISTRIBUTION", binned);
-		this.nodes = g.getNodes().length;
+		this.nodes = g.getNodeCount();
 		this.edges = g.getEdges().size();
 
 		this.bcMax = getMax(cbs);
@@ -187,109 +203,153 @@ public class BetweennessCentrality extends Metric {
 
 	/**
 	 * Calculates the betweenness centrality array with the Brandes Algorithm
-	 * 
+	 *
 	 * see: Algorithm 1: Betweenness centrality in unweighted graphs (A Faster
 	 * Algorithm for Betweenness Centrality, Brandes, 2001)
-	 * 
+	 *
+	 * The sources are split among PARALLEL_METRICS tasks, each of them
+	 * working on its own scratch arrays and accumulating into its own
+	 * dependency array which are summed up in the end. In case a number of
+	 * pivots is given, only that many sources are selected uniformly at
+	 * random and the resulting values are extrapolated by n / pivots
+	 * (Brandes and Pich, "Centrality Estimation in Large Networks", 2007).
+	 *
 	 * @param g
 	 */
 	private void calculateBC(Graph g) {
-		cbs = new double[g.getNodeCount()];
-		spSum = 0;
-		Arrays.fill(cbs, 0); // initialize with 0 as the nodes are initially
-								// included in 0 shortest paths
-
-		Node[] V = g.getNodes();
+		final Adjacency adjacency = g.getAdjacency();
+		final int n = adjacency.getNodeCount();
 
-		for (Node s : V) {
-			// stage 1: local init
-			ArrayDeque<Node> S = new ArrayDeque<Node>();
-			ArrayDeque<Node> Q = new ArrayDeque<Node>();
-			HashMap<Node, List<Node>> P = new HashMap<Node, List<Node>>();
-			HashMap<Node, Integer> sigma = new HashMap<Node, Integer>();
-			HashMap<Node, Integer> distance = new HashMap<Node, Integer>();
-			for(Node v : V){
-				P.put(v, new ArrayList<Node>());
-				if(v.getIndex() == s.getIndex()){
-					sigma.put(v, 1);
-					distance.put(v, Integer.MAX_VALUE);
-				} else {
-					sigma.put(v, 0);
-					distance.put(v, Integer.MAX_VALUE);
-				}
+		final int[] sources;
+		if (this.pivots > 0 && this.pivots < n) {
+			sources = Util.sample(n, this.pivots,
+					Util.getRandom("METRIC_SEED"));
+		} else {
+			sources = new int[n];
+			for (int i = 0; i < n; i++) {
+				sources[i] = i;
 			}
-			Q.offer(s);
-			
-			// stage 2: BFS traversal
-			while(!Q.isEmpty()){
-				Node v = Q.pollFirst();
-				S.push(v);
-				
-				for(int wIndex : v.getOutgoingEdges()){
-					Node w = g.getNode(wIndex);
-					
-					// w found for the first time:
-					if(distance.get(w) == Integer.MAX_VALUE){
-						Q.offer(w);
-						distance.put(w, distance.get(v)+1);
-					}
-					
-					// new/additional shortest path to w
-					if(distance.get(w) == distance.get(v)+1){
-						sigma.put(w, sigma.get(w) + sigma.get(v));
-						P.get(w).add(v);
-					}
+		}
+
+		int threads = Parallel.getThreads("PARALLEL_METRICS");
+		final int tasks = Math.max(1, Math.min(threads, sources.length));
+		final double[][] partialCbs = new double[tasks][];
+		final double[] partialSpSums = new double[tasks];
+
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				Brandes brandes = new Brandes(adjacency);
+				// interleaved assignment to balance sources of different cost
+				for (int i = task; i < sources.length; i += tasks) {
+					brandes.accumulate(sources[i]);
 				}
+				partialCbs[task] = brandes.cb;
+				partialSpSums[task] = brandes.spSum;
 			}
-			
-			// stage 3: dependency accumulation
-			HashMap<Node, Double> delta = new HashMap<Node, Double>();
-			for(Node v : V){
-				delta.put(v, 0d);
+		});
+
+		this.cbs = new double[n];
+		this.spSum = 0;
+		for (int task = 0; task < tasks; task++) {
+			for (int v = 0; v < n; v++) {
+				this.cbs[v] += partialCbs[task][v];
 			}
-			while(!S.isEmpty()){
-				Node w = S.pop();
-				for(Node v : P.get(w)){
-					delta.put(v, delta.get(v) + sigma.get(v)/sigma.get(w)*(1+delta.get(w)));
-				}
-				if(w.getIndex() != s.getIndex()){
-					cbs[w.getIndex()] = cbs[w.getIndex()] + delta.get(w);
-				}
+			this.spSum += partialSpSums[task];
+		}
+		if (sources.length < n) {
+			double scale = (double) n / (double) sources.length;
+			for (int v = 0; v < n; v++) {
+				this.cbs[v] *= scale;
 			}
-			spSum += sumSps(sigma);
-			
+			this.spSum *= scale;
 		}
-
 	}
 
 	/**
-	 * @param sigma
-	 * @return
+	 * Scratch buffers of a single task, they are reset after each source by
+	 * only visiting the nodes that have been reached.
 	 */
-	private int sumSps(HashMap<Node, Integer> sigma) {
-		int s = 0;
-		
-		for(Entry<Node, Integer> e : sigma.entrySet()){
-			s+=e.getValue();
-		}
-		
-		return s-2; // -1 since sigma(root)=1 but this is not a shortest path in our sense of shortest path counting
-	}
+	private static class Brandes {
+		private Adjacency adjacency;
 
-	/**
-	 * @param v
-	 * @return
-	 */
-	private Node[] getNeighborNodes(Node v, Graph g) {
-		Collection<Node> nv = new ArrayList<Node>();
+		private int[] distance;
+
+		// number of shortest paths, double to avoid overflows
+		private double[] sigma;
+
+		private double[] delta;
 
-		int[] oe = v.getOutgoingEdges();
+		// BFS order, i.e., queue in stage 2 and (reversed) stack in stage 3
+		private int[] order;
 
-		for (int n : oe) {
-			nv.add(g.getNode(n));
+		private double[] cb;
+
+		private double spSum;
+
+		private Brandes(Adjacency adjacency) {
+			int n = adjacency.getNodeCount();
+			this.adjacency = adjacency;
+			this.distance = new int[n];
+			Arrays.fill(this.distance, -1);
+			this.sigma = new double[n];
+			this.delta = new double[n];
+			this.order = new int[n];
+			this.cb = new double[n];
+			this.spSum = 0;
 		}
 
-		return nv.toArray(new Node[0]);
+		private void accumulate(int s) {
+			// stage 1: local init
+			this.distance[s] = 0;
+			this.sigma[s] = 1;
+			this.order[0] = s;
+			int head = 0;
+			int tail = 1;
+
+			// stage 2: BFS traversal
+			while (head < tail) {
+				int v = this.order[head++];
+				int dv = this.distance[v];
+				for (int i = this.adjacency.getOutStart(v); i < this.adjacency
+						.getOutEnd(v); i++) {
+					int w = this.adjacency.getOutTarget(i);
+					// w found for the first time:
+					if (this.distance[w] == -1) {
+						this.distance[w] = dv + 1;
+						this.order[tail++] = w;
+					}
+					// new/additional shortest path to w
+					if (this.distance[w] == dv + 1) {
+						this.sigma[w] += this.sigma[v];
+					}
+				}
+			}
+
+			// stage 3: dependency accumulation, the predecessors of w are
+			// all in-neighbors that are one hop closer to s
+			for (int j = tail - 1; j > 0; j--) {
+				int w = this.order[j];
+				int dw = this.distance[w];
+				double coefficient = (1.0 + this.delta[w]) / this.sigma[w];
+				for (int i = this.adjacency.getInStart(w); i < this.adjacency
+						.getInEnd(w); i++) {
+					int v = this.adjacency.getInSource(i);
+					if (this.distance[v] == dw - 1) {
+						this.delta[v] += this.sigma[v] * coefficient;
+					}
+				}
+				this.cb[w] += this.delta[w];
+				this.spSum += this.sigma[w];
+			}
+
+			for (int j = 0; j < tail; j++) {
+				int v = this.order[j];
+				this.distance[v] = -1;
+				this.sigma[v] = 0;
+				this.delta[v] = 0;
+			}
+		}
 	}
 
 	private double getMax(double[] dis) {
@@ -323,7 +383,8 @@ public class BetweennessCentrality extends Metric {
 	}
 
 	private double getMed(double[] dis) {
-		double[] s = dis;
+		double[] s = Arrays.copyOf(dis, dis.length);
+		dis = s;
 		double median;
 		Arrays.sort(s);
 
@@ -38,13 +38,14 @@ package gtna.metrics.centrality;
 
 import gtna.data.NodeValueList;
 import gtna.data.Single;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
-import gtna.graph.Node;
 import gtna.io.DataReader;
 import gtna.io.DataWriter;
 import gtna.metrics.Metric;
 import gtna.networks.Network;
 import gtna.util.Distribution;
+import gtna.util.Parallel;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -57,22 +58,13 @@ public class PageRank extends Metric {
 	
 	private NodeValueList pageRank;
 	
-	private static final int ITERATIONS = 50;
+	private int maxIterations = 100;
+	private double tolerance = 1e-10;
 	private int bins = 20;
 
 	private double alpha = 0.85; // initialized with the Brin/Page proposed
 									// value
 
-	
-	
-	private double[][] H; // hyperlink matrix
-	private double[][] A;
-	private double[][] S;
-
-	private double[][] ONE;
-
-	private double[][] G;
-
 	private double[] prVector;
 
 	private double nodes;
@@ -95,6 +87,21 @@ public class PageRank extends Metric {
 		this.bins = bins;
 	}
 	
+	/**
+	 * @param alpha - damping factor
+	 * @param bins - number of bins for the distribution
+	 * @param maxIterations - maximum number of power iterations
+	 * @param tolerance - the iteration stops once the L1 distance between
+	 *            two consecutive vectors drops below this value
+	 */
+	public PageRank(double alpha, int bins, int maxIterations, double tolerance){
+		super("PAGERANK_DISTRIBUTION");
+		this.alpha = alpha;
+		this.bins = bins;
+		this.maxIterations = maxIterations;
+		this.tolerance = tolerance;
+	}
+	
 	public PageRank(int bins){
 		super("PAGERANK_DISTRIBUTION");
 		this.bins = bins;
@@ -120,17 +127,8 @@ public class PageRank extends Metric {
 	 */
 	@Override
 	public void computeData(Graph g, Network n, HashMap<String, Metric> m) {
-		calculateBaseMatrices(g);
-
-		prVector = initVector(G.length);
+		prVector = calculatePageRank(g.getAdjacency());
 
-		double[] prOld = initVector(G.length);
-		for (int j = 0; j < ITERATIONS; j++) {
-			prOld = prVector;
-			prVector = calculateMatrixVectorProduct(G, prVector);
-			prVector = normalizeVector(prVector);
-		}
-//		Arrays.sort(prVector);
 		pageRank = new NodeValueList("PAGERANK_DISTRIBUTION_PAGERANK_DISTRIBUTION", prVector);
 		nodes = g.getNodeCount();
 		edges = g.getEdges().size();
@@ -142,6 +140,100 @@ public class PageRank extends Metric {
 
 	}
 
+	/**
+	 * Sparse power iteration over the incoming edges:
+	 *
+	 * pr'(v) = (1 - alpha) / n + alpha * (sum_{u -> v} pr(u) / out(u) + D / n)
+	 *
+	 * where D is the rank currently held by dangling nodes (no outgoing
+	 * edges) which is distributed uniformly. The iteration stops after
+	 * maxIterations or as soon as the L1 distance between two consecutive
+	 * vectors is below the tolerance. The per-node update is split among
+	 * PARALLEL_METRICS tasks.
+	 *
+	 * @param adjacency
+	 * @return PageRank vector (sums up to 1)
+	 */
+	private double[] calculatePageRank(final Adjacency adjacency) {
+		final int n = adjacency.getNodeCount();
+		if (n == 0) {
+			return new double[0];
+		}
+		final double[] inverseOutDegree = new double[n];
+		for (int v = 0; v < n; v++) {
+			int out = adjacency.getOutDegree(v);
+			inverseOutDegree[v] = out == 0 ? 0.0 : 1.0 / out;
+		}
+
+		final double[][] vectors = new double[][] { new double[n],
+				new double[n] };
+		final double[] contribution = new double[n];
+		Arrays.fill(vectors[0], 1.0 / n);
+
+		int threads = Parallel.getThreads("PARALLEL_METRICS");
+		final int tasks = Math.max(1, Math.min(threads, n));
+		final double[] partial = new double[tasks];
+
+		int current = 0;
+		for (int iteration = 0; iteration < this.maxIterations; iteration++) {
+			final double[] pr = vectors[current];
+			final double[] next = vectors[1 - current];
+
+			// contribution of each node to its out-neighbors, collecting
+			// the mass of dangling nodes as a scalar
+			Parallel.run(tasks, threads, new Parallel.Task() {
+				@Override
+				public void run(int task) {
+					double dangling = 0;
+					int end = Parallel.getEnd(n, tasks, task);
+					for (int v = Parallel.getStart(n, tasks, task); v < end; v++) {
+						contribution[v] = pr[v] * inverseOutDegree[v];
+						if (inverseOutDegree[v] == 0.0) {
+							dangling += pr[v];
+						}
+					}
+					partial[task] = dangling;
+				}
+			});
+			double dangling = 0;
+			for (int task = 0; task < tasks; task++) {
+				dangling += partial[task];
+			}
+			final double base = (1.0 - this.alpha) / n + this.alpha
+					* dangling / n;
+
+			// pull the contributions over the incoming edges
+			Parallel.run(tasks, threads, new Parallel.Task() {
+				@Override
+				public void run(int task) {
+					double diff = 0;
+					int end = Parallel.getEnd(n, tasks, task);
+					for (int v = Parallel.getStart(n, tasks, task); v < end; v++) {
+						double sum = 0;
+						for (int i = adjacency.getInStart(v); i < adjacency
+								.getInEnd(v); i++) {
+							sum += contribution[adjacency.getInSource(i)];
+						}
+						next[v] = base + alpha * sum;
+						diff += Math.abs(next[v] - pr[v]);
+					}
+					partial[task] = diff;
+				}
+			});
+			double diff = 0;
+			for (int task = 0; task < tasks; task++) {
+				diff += partial[task];
+			}
+
+			current = 1 - current;
+			if (diff < this.tolerance) {
+				break;
+			}
+		}
+
+		return normalizeVector(vectors[current]);
+	}
+
 	/**
 	 * @param vector
 	 * @return
@@ -160,31 +252,6 @@ public class PageRank extends Metric {
 		return normalized;
 	}
 
-	/**
-	 * @param prVector2
-	 * @param prOld
-	 * @return
-	 */
-	private double[] diffVector(double[] prVector2, double[] prOld) {
-		double[] d = new double[prVector2.length];
-
-		for (int i = 0; i < d.length; i++) {
-			d[i] = prVector2[i] - prOld[i];
-		}
-
-		return d;
-	}
-
-	/**
-	 * @param length
-	 * @return
-	 */
-	private double[] initVector(int length) {
-		double[] t = new double[length];
-		Arrays.fill(t, length);
-		return t;
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -231,101 +298,6 @@ public class PageRank extends Metric {
 		return true;
 	}
 
-	private void calculateBaseMatrices(Graph g) {
-		H = new double[g.getNodeCount()][g.getNodeCount()];
-		A = new double[g.getNodeCount()][g.getNodeCount()];
-		S = new double[g.getNodeCount()][g.getNodeCount()];
-		G = new double[g.getNodeCount()][g.getNodeCount()];
-		ONE = new double[g.getNodeCount()][g.getNodeCount()];
-
-		initializeMatrix(H, 0);
-		initializeMatrix(A, 0);
-		initializeMatrix(S, 0);
-		initializeMatrix(G, 0);
-		initializeMatrix(ONE, 1);
-
-		Node[] nodes = g.getNodes();
-		for (Node n : nodes) {
-			int ni = n.getIndex();
-			if (n.getOutDegree() > 0) { // fill H as some outgoing links are
-										// present
-				double[] nch = H[ni];
-				int nod = n.getOutDegree();
-				for (int i : n.getOutgoingEdges()) {
-					nch[i] = (double) 1 / (double) nod; // set Hij = 1/li
-				}
-				H[ni] = nch;
-			} else { // fill A as no outgoing links are present
-				double[] nca = A[ni];
-				Arrays.fill(nca, 1 / g.getNodeCount());
-				A[ni] = nca;
-			}
-		}
-
-		S = addMatrices(H, A);
-		double[][] alphaS = multiplyMatrix(S, alpha);
-		double[][] jumpM = multiplyMatrix(ONE, 1 / g.getNodeCount());
-		jumpM = multiplyMatrix(ONE, 1 - alpha);
-		G = addMatrices(alphaS, jumpM);
-
-	}
-
-	private double[] calculateMatrixVectorProduct(double[][] m, double[] v) {
-		if (m.length != v.length) {
-			throw new IllegalArgumentException(
-					"m/v dimensions are incompatible for the Matrix-Vector Multiplication");
-		}
-
-		double[] r = new double[v.length];
-		Arrays.fill(r, 0.0);
-
-		for (int i = 0; i < v.length; i++) {
-			for (int j = 0; j < v.length; j++) {
-				r[i] = r[i] + m[i][j] * v[j];
-			}
-		}
-
-		return r;
-	}
-
-	/**
-	 * @param s2
-	 * @param alpha2
-	 * @return
-	 */
-	private double[][] multiplyMatrix(double[][] s1, double alpha2) {
-		for (int i = 0; i < s1.length; i++) {
-			for (int j = 0; j < s1[0].length; j++) {
-				s1[i][j] = s1[i][j] * alpha2;
-			}
-		}
-
-		return s1;
-	}
-
-	private double[][] addMatrices(double[][] s1, double[][] s2) {
-		double[][] t = new double[s1.length][s1[0].length];
-		for (int i = 0; i < s1.length; i++) {
-			for (int j = 0; j < s1[0].length; j++) {
-				t[i][j] = s1[i][j] + s2[i][j];
-			}
-		}
-
-		return t;
-	}
-
-	/**
-	 * @param a2
-	 * @param i
-	 */
-	private void initializeMatrix(double[][] M, int initValue) {
-		for (int i = 0; i < M.length; i++) {
-			double[] mi = M[i];
-			Arrays.fill(mi, initValue);
-			M[i] = mi;
-		}
-	}
-
 	private double getMax(double[] dis) {
 		double max = 0;
 
@@ -357,7 +329,8 @@ public class PageRank extends Metric {
 	}
 
 	private double getMed(double[] dis) {
-		double[] s = dis;
+		double[] s = Arrays.copyOf(dis, dis.length);
+		dis = s;
 		double median;
 		Arrays.sort(s);
 
@@ -105,16 +105,52 @@ public abstract class Fragmentation extends Metric {
 
 	private int[] cpts;
 
+	/**
+	 * Sizes of the components of the graph after removing some nodes.
+	 */
+	protected static interface Components {
+		/**
+		 * @return number of components
+		 */
+		public int getCount();
+
+		/**
+		 * @param rank
+		 *            rank in descending order of size, starting at 0
+		 * @return size of the component with the given rank
+		 */
+		public int getSize(int rank);
+
+		/**
+		 * @return number of nodes in all components
+		 */
+		public int getNodeCount();
+	}
+
+	private double[] isolatedComponentSizeAvgArray;
+
+	private double[] isolatedComponentSizeMaxArray;
+
+	private double[] isolatedComponentSizeMedArray;
+
+	private double[] isolatedComponentSizeMinArray;
+
+	private double[] numberOfIsolatedComponentsArray;
+
+	private double[] largestComponentSizeArray;
+
+	private double[] largestComponentSizeFractionArray;
+
 	@Override
 	public void computeData(Graph g, Network n, HashMap<String, Metric> m) {
 		int[] excludeFirst = this.getExcludeFirst(g.getNodes().length);
-		double[] isolatedComponentSizeAvgArray = new double[excludeFirst.length];
-		double[] isolatedComponentSizeMaxArray = new double[excludeFirst.length];
-		double[] isolatedComponentSizeMedArray = new double[excludeFirst.length];
-		double[] isolatedComponentSizeMinArray = new double[excludeFirst.length];
-		double[] numberOfIsolatedComponentsArray = new double[excludeFirst.length];
-		double[] largestComponentSizeArray = new double[excludeFirst.length];
-		double[] largestComponentSizeFractionArray = new double[excludeFirst.length];
+		isolatedComponentSizeAvgArray = new double[excludeFirst.length];
+		isolatedComponentSizeMaxArray = new double[excludeFirst.length];
+		isolatedComponentSizeMedArray = new double[excludeFirst.length];
+		isolatedComponentSizeMinArray = new double[excludeFirst.length];
+		numberOfIsolatedComponentsArray = new double[excludeFirst.length];
+		largestComponentSizeArray = new double[excludeFirst.length];
+		largestComponentSizeFractionArray = new double[excludeFirst.length];
 		this.criticalPoint = 1.0;
 		this.cpts = this.getCriticalPointThreshold();
 		this.criticalPoints = new double[this.cpts.length];
@@ -124,31 +160,9 @@ public abstract class Fragmentation extends Metric {
 		Random rand = new Random();
 		this.addCriticalPointConfigs();
 		Node[] sorted = this.sorter.sort(g, rand);
-		for (int i = 0; i < excludeFirst.length; i++) {
-			boolean[] exclude = this.getExclude(sorted, excludeFirst[i]);
-			Partition p = this.partition(g, sorted, exclude);
-
-			numberOfIsolatedComponentsArray[i] = p.getComponents().length - 1;
-			largestComponentSizeArray[i] = p.getLargestComponent().length;
-			largestComponentSizeFractionArray[i] = (double) p
-					.getLargestComponent().length
-					/ (double) g.getNodes().length;
-
-			if (numberOfIsolatedComponentsArray[i] == 0) {
-				isolatedComponentSizeAvgArray[i] = 0;
-				isolatedComponentSizeMaxArray[i] = 0;
-				isolatedComponentSizeMedArray[i] = 0;
-				isolatedComponentSizeMinArray[i] = 0;
-			} else {
-				isolatedComponentSizeAvgArray[i] = this.avgIsolatedSize(p);
-				isolatedComponentSizeMaxArray[i] = p.getComponents()[p
-						.getComponents().length - 2].length;
-				isolatedComponentSizeMedArray[i] = p.getComponents()[(int) Math
-						.floor(p.getComponents().length / 2)].length;
-				isolatedComponentSizeMinArray[i] = p.getComponents()[p
-						.getComponents().length - 1].length;
-			}
+		this.computeComponents(g, sorted, excludeFirst);
 
+		for (int i = 0; i < excludeFirst.length; i++) {
 			if (largestComponentSizeArray[i] < 0.5 * (g.getNodes().length - excludeFirst[i])
 					&& (double) excludeFirst[i] / (double) g.getNodes().length < this.criticalPoint) {
 				this.criticalPoint = (double) excludeFirst[i]
@@ -176,6 +190,70 @@ public abstract class Fragmentation extends Metric {
 		largestComponentSizeFraction = new NodeValueList("FRAGMENTATION_LARGEST_COMPONENT_SIZE_FRACTION", largestComponentSizeFractionArray);
 	}
 
+	/**
+	 * Determines the components of the graph without the first excludeFirst[i]
+	 * nodes of sorted and passes them to setComponents(g, i, ...) for every i.
+	 * By default, a new partition is computed for each entry.
+	 * 
+	 * @param g
+	 * @param sorted
+	 * @param excludeFirst
+	 */
+	protected void computeComponents(Graph g, Node[] sorted, int[] excludeFirst) {
+		for (int i = 0; i < excludeFirst.length; i++) {
+			boolean[] exclude = this.getExclude(sorted, excludeFirst[i]);
+			final Partition p = this.partition(g, sorted, exclude);
+			this.setComponents(g, i, new Components() {
+				@Override
+				public int getCount() {
+					return p.getComponents().length;
+				}
+
+				@Override
+				public int getSize(int rank) {
+					return p.getComponents()[rank].length;
+				}
+
+				@Override
+				public int getNodeCount() {
+					int nodes = 0;
+					for (int[] component : p.getComponents()) {
+						nodes += component.length;
+					}
+					return nodes;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Records the components of the graph without the first excludeFirst[i]
+	 * nodes.
+	 * 
+	 * @param g
+	 * @param i
+	 * @param c
+	 */
+	protected void setComponents(Graph g, int i, Components c) {
+		numberOfIsolatedComponentsArray[i] = c.getCount() - 1;
+		largestComponentSizeArray[i] = c.getSize(0);
+		largestComponentSizeFractionArray[i] = (double) c.getSize(0)
+				/ (double) g.getNodes().length;
+
+		if (numberOfIsolatedComponentsArray[i] == 0) {
+			isolatedComponentSizeAvgArray[i] = 0;
+			isolatedComponentSizeMaxArray[i] = 0;
+			isolatedComponentSizeMedArray[i] = 0;
+			isolatedComponentSizeMinArray[i] = 0;
+		} else {
+			isolatedComponentSizeAvgArray[i] = this.avgIsolatedSize(c);
+			isolatedComponentSizeMaxArray[i] = c.getSize(c.getCount() - 2);
+			isolatedComponentSizeMedArray[i] = c.getSize((int) Math.floor(c
+					.getCount() / 2));
+			isolatedComponentSizeMinArray[i] = c.getSize(c.getCount() - 1);
+		}
+	}
+
 	private int[] getCriticalPointThreshold() {
 		String[] temp = Config.get("FRAGMENTATION_CRITICAL_POINTS").split(",");
 		int[] criticalPoints = new int[temp.length];
@@ -221,12 +299,9 @@ public abstract class Fragmentation extends Metric {
 		}
 	}
 
-	private double avgIsolatedSize(Partition p) {
-		double sum = 0;
-		for (int i = 1; i < p.getComponents().length; i++) {
-			sum += p.getComponents()[i].length;
-		}
-		return sum / p.getComponents().length;
+	private double avgIsolatedSize(Components c) {
+		double sum = c.getNodeCount() - c.getSize(0);
+		return sum / c.getCount();
 	}
 
 	private int[] getExcludeFirst(int nodes) {
@@ -246,7 +321,7 @@ public abstract class Fragmentation extends Metric {
 		}
 	}
 
-	private boolean[] getExclude(Node[] sorted, int excludeFirst) {
+	protected boolean[] getExclude(Node[] sorted, int excludeFirst) {
 		boolean[] exclude = new boolean[sorted.length];
 		for (int i = 0; i < excludeFirst; i++) {
 			exclude[sorted[i].getIndex()] = true;
@@ -35,12 +35,18 @@
  */
 package gtna.metrics.fragmentation;
 
+import gtna.algorithms.components.StronglyConnectedComponents;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 import gtna.graph.partition.Partition;
 import gtna.graph.sorting.NodeSorter;
 
+import java.util.Arrays;
+
 /**
+ * The strongly connected components are re-computed for every step using
+ * Tarjan's algorithm, reusing the same buffers for all of them.
+ * 
  * @author benni
  * 
  */
@@ -50,10 +56,55 @@ public class StrongFragmentation extends Fragmentation {
 		super(Fragmentation.Type.STRONG, sorter, resolution);
 	}
 
+	@Override
+	protected void computeComponents(Graph g, Node[] sorted, int[] excludeFirst) {
+		StronglyConnectedComponents scc = new StronglyConnectedComponents(g);
+		boolean[] exclude = new boolean[sorted.length];
+		final int[] sizes = new int[sorted.length];
+		int excluded = 0;
+		for (int i = 0; i < excludeFirst.length; i++) {
+			while (excluded < excludeFirst[i]) {
+				exclude[sorted[excluded++].getIndex()] = true;
+			}
+			final int count = scc.compute(exclude);
+			System.arraycopy(scc.getSizes(), 0, sizes, 0, count);
+			Arrays.sort(sizes, 0, count);
+			final int nodes = sorted.length - excluded;
+			this.setComponents(g, i, new Components() {
+				@Override
+				public int getCount() {
+					return count;
+				}
+
+				@Override
+				public int getSize(int rank) {
+					return sizes[count - 1 - rank];
+				}
+
+				@Override
+				public int getNodeCount() {
+					return nodes;
+				}
+			});
+		}
+	}
+
 	@Override
 	protected Partition partition(Graph g, Node[] sorted, boolean[] exclude) {
-		// TODO Auto-generated method stub
-		return null;
+		StronglyConnectedComponents scc = new StronglyConnectedComponents(g);
+		int count = scc.compute(exclude);
+		int[][] components = new int[count][];
+		for (int c = 0; c < count; c++) {
+			components[c] = new int[scc.getSize(c)];
+		}
+		int[] next = new int[count];
+		for (int v = 0; v < sorted.length; v++) {
+			int c = scc.getComponent(v);
+			if (c != -1) {
+				components[c][next[c]++] = v;
+			}
+		}
+		return new Partition(components);
 	}
 
 }
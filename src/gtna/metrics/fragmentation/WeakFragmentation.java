@@ -35,6 +35,8 @@
  */
 package gtna.metrics.fragmentation;
 
+import gtna.algorithms.components.UnionFind;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 import gtna.graph.partition.Partition;
@@ -42,6 +44,10 @@ import gtna.graph.sorting.NodeSorter;
 import gtna.transformation.partition.WeakConnectivityPartition;
 
 /**
+ * The curve is computed in a single pass: starting from the empty graph, the
+ * nodes are added back in reverse order of their removal and the components
+ * are maintained in a union-find structure.
+ * 
  * @author benni
  * 
  */
@@ -52,6 +58,46 @@ public class WeakFragmentation extends Fragmentation {
 		super(Fragmentation.Type.WEAK, sorter, resolution);
 	}
 
+	@Override
+	protected void computeComponents(Graph g, Node[] sorted, int[] excludeFirst) {
+		Adjacency adjacency = g.getAdjacency();
+		final UnionFind uf = new UnionFind(sorted.length);
+		Components components = new Components() {
+			@Override
+			public int getCount() {
+				return uf.getComponentCount();
+			}
+
+			@Override
+			public int getSize(int rank) {
+				return rank == 0 ? uf.getLargestSize() : uf.getSizeByRank(rank);
+			}
+
+			@Override
+			public int getNodeCount() {
+				return uf.getElementCount();
+			}
+		};
+		int added = sorted.length;
+		for (int i = excludeFirst.length - 1; i >= 0; i--) {
+			while (added > excludeFirst[i]) {
+				int v = sorted[--added].getIndex();
+				uf.add(v);
+				for (int j = adjacency.getOutStart(v); j < adjacency.getOutEnd(v); j++) {
+					if (uf.contains(adjacency.getOutTarget(j))) {
+						uf.union(v, adjacency.getOutTarget(j));
+					}
+				}
+				for (int j = adjacency.getInStart(v); j < adjacency.getInEnd(v); j++) {
+					if (uf.contains(adjacency.getInSource(j))) {
+						uf.union(v, adjacency.getInSource(j));
+					}
+				}
+			}
+			this.setComponents(g, i, components);
+		}
+	}
+
 	@Override
 	protected Partition partition(Graph g, Node[] sorted, boolean[] exclude) {
 		return WeakConnectivityPartition.getWeakPartition(g, exclude);
@@ -39,11 +39,8 @@ package gtna.metrics.id;
 import gtna.data.NodeValueList;
 import gtna.data.Single;
 import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.id.DoubleIdentifier;
-import gtna.id.DoublePartition;
-import gtna.id.Partition;
 import gtna.id.ring.RingIdentifierSpace;
+import gtna.id.ring.RingIndex;
 import gtna.io.DataWriter;
 import gtna.metrics.Metric;
 import gtna.networks.Network;
@@ -81,13 +78,11 @@ public class RingIdentifierSpaceSuccessorDistances extends Metric {
 	public void computeData(Graph g, Network n, HashMap<String, Metric> m) {
 		RingIdentifierSpace ids = (RingIdentifierSpace) g
 				.getProperty("ID_SPACE_0");
-		Partition[] partitions = ids.getPartitions();
 		double maxDist = ids.getMaxDistance();
 
-		int[] nodesSorted = SuccessorComparator.getNodesSorted(partitions);
+		RingIndex index = new RingIndex(ids.getPartitions());
 
-		double[] dist = this.computeSuccessorDistances(g.getNodes(),
-				nodesSorted, partitions, maxDist);
+		double[] dist = this.computeSuccessorDistances(index, maxDist);
 		this.successorDistanceDistribution = Statistics.binnedDistribution(
 				dist, 0, 1, this.bins);
 		this.successorDistanceDistributionCdf = Statistics
@@ -95,17 +90,12 @@ public class RingIdentifierSpaceSuccessorDistances extends Metric {
 
 	}
 
-	private double[] computeSuccessorDistances(Node[] nodes, int[] nodesSorted,
-			Partition[] partitions, double maxDist) {
-		double[] dist = new double[nodes.length];
-
-		for (int i = 0; i < nodesSorted.length; i++) {
-			int n = nodesSorted[i];
-			int succ = nodesSorted[(i + 1) % nodesSorted.length];
-			dist[i] = ((DoublePartition) partitions[n])
-					.distance((DoubleIdentifier) partitions[succ]
-							.getRepresentativeIdentifier())
-					/ maxDist;
+	private double[] computeSuccessorDistances(RingIndex index, double maxDist) {
+		double[] dist = new double[index.size()];
+
+		for (int i = 0; i < dist.length; i++) {
+			int n = index.getNode(i);
+			dist[i] = index.getDistance(n, index.getSuccessor(n)) / maxDist;
 		}
 
 		return dist;
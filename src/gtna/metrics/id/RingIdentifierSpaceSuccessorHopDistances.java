@@ -40,8 +40,8 @@ import gtna.data.NodeValueList;
 import gtna.data.Single;
 import gtna.graph.Graph;
 import gtna.graph.Node;
-import gtna.id.Partition;
 import gtna.id.ring.RingIdentifierSpace;
+import gtna.id.ring.RingIndex;
 import gtna.io.DataWriter;
 import gtna.metrics.Metric;
 import gtna.networks.Network;
@@ -70,9 +70,8 @@ public class RingIdentifierSpaceSuccessorHopDistances extends Metric {
 	public void computeData(Graph g, Network n, HashMap<String, Metric> m) {
 		RingIdentifierSpace ids = (RingIdentifierSpace) g
 				.getProperty("ID_SPACE_0");
-		Partition[] partitions = ids.getPartitions();
-
-		int[] nodesSorted = SuccessorComparator.getNodesSorted(partitions);
+		int[] nodesSorted = new RingIndex(ids.getPartitions())
+				.getSortedNodes();
 
 		this.successorHopDistanceDistribution = this
 				.computeSuccessorHopDistanceDistribution(g.getNodes(),
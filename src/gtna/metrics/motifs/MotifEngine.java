@@ -0,0 +1,643 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * MotifEngine.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.metrics.motifs;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+import gtna.util.Parallel;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Engine for counting triangles and small motifs on the simple undirected
+ * graph underlying a (possibly directed) graph: two nodes are adjacent in
+ * case there is an edge between them in at least one direction, self-loops
+ * are ignored. The directions of the original edges between two adjacent
+ * nodes are kept as flags (OUT and / or IN).
+ *
+ * Nodes are ranked by degree (ties are broken by index) and every edge is
+ * oriented from the lower- to the higher-ranked node. Each triangle is found
+ * exactly once from its lowest-ranked node by intersecting the oriented
+ * neighborhoods of both ends of an oriented edge, so the work per edge is
+ * bounded by the small oriented degree instead of the degree of hubs. All
+ * neighborhoods are sorted by rank and intersected by merging them; the
+ * oriented neighbors of nodes with many of them are marked in a bitset once
+ * and the neighborhoods of their neighbors are probed against it instead.
+ *
+ * The nodes are processed in chunks by PARALLEL_METRICS threads.
+ */
+public class MotifEngine {
+	/**
+	 * flag of an edge from the first to the second node
+	 */
+	public static final int OUT = 1;
+
+	/**
+	 * flag of an edge from the second to the first node
+	 */
+	public static final int IN = 2;
+
+	/**
+	 * flags of a pair of nodes connected in both directions
+	 */
+	public static final int BIDIRECTIONAL = OUT | IN;
+
+	public static interface TriangleVisitor {
+		/**
+		 * Called once for every triangle of the underlying undirected graph.
+		 *
+		 * @param a
+		 *            first node
+		 * @param b
+		 *            second node
+		 * @param c
+		 *            third node
+		 * @param ab
+		 *            flags of the edges between a and b (OUT: a -> b, IN: b
+		 *            -> a)
+		 * @param ac
+		 *            flags of the edges between a and c
+		 * @param bc
+		 *            flags of the edges between b and c
+		 */
+		public void visit(int a, int b, int c, int ab, int ac, int bc);
+	}
+
+	// minimal number of oriented neighbors of a node for using a bitset
+	private static final int HUB_DEGREE = 64;
+
+	// number of nodes processed by a thread at once
+	private static final int CHUNK_SIZE = 64;
+
+	private int threads;
+
+	// order[r] is the node with rank r
+	private int[] order;
+
+	private int[] rank;
+
+	// the neighbors of the node with rank r are neighbors[offsets[r],
+	// offsets[r + 1]) given as ranks in ascending order, its oriented
+	// neighbors (with higher rank) start at forward[r]
+	private int[] offsets;
+
+	private int[] forward;
+
+	private int[] neighbors;
+
+	// flags[i] are the flags of the edges from the node with rank r to
+	// neighbors[i]
+	private byte[] flags;
+
+	public MotifEngine(Graph graph) {
+		this(graph.getAdjacency());
+	}
+
+	public MotifEngine(Adjacency adjacency) {
+		this.threads = Parallel.getThreads("PARALLEL_METRICS");
+		int n = adjacency.getNodeCount();
+
+		int max = 0;
+		for (int v = 0; v < n; v++) {
+			max = Math.max(max, adjacency.getOutDegree(v)
+					+ adjacency.getInDegree(v));
+		}
+		int[] buffer = new int[max];
+		byte[] flagBuffer = new byte[max];
+
+		// rank nodes by degree using a (stable) counting sort
+		int[] degree = new int[n];
+		int maxDegree = 0;
+		long edges = 0;
+		for (int v = 0; v < n; v++) {
+			degree[v] = this.merge(adjacency, v, buffer, flagBuffer);
+			maxDegree = Math.max(maxDegree, degree[v]);
+			edges += degree[v];
+		}
+		if (edges > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					"too many edges for counting motifs: " + edges / 2);
+		}
+		int[] start = new int[maxDegree + 2];
+		for (int v = 0; v < n; v++) {
+			start[degree[v] + 1]++;
+		}
+		for (int d = 0; d <= maxDegree; d++) {
+			start[d + 1] += start[d];
+		}
+		this.order = new int[n];
+		this.rank = new int[n];
+		for (int v = 0; v < n; v++) {
+			this.rank[v] = start[degree[v]]++;
+			this.order[this.rank[v]] = v;
+		}
+
+		// adding the ranks in ascending order keeps all neighborhoods sorted
+		this.offsets = new int[n + 1];
+		for (int r = 0; r < n; r++) {
+			this.offsets[r + 1] = this.offsets[r] + degree[this.order[r]];
+		}
+		this.neighbors = new int[(int) edges];
+		this.flags = new byte[(int) edges];
+		int[] next = new int[n];
+		System.arraycopy(this.offsets, 0, next, 0, n);
+		for (int r = 0; r < n; r++) {
+			int k = this.merge(adjacency, this.order[r], buffer, flagBuffer);
+			for (int i = 0; i < k; i++) {
+				int w = this.rank[buffer[i]];
+				this.neighbors[next[w]] = r;
+				this.flags[next[w]++] = (byte) MotifEngine.flip(flagBuffer[i]);
+			}
+		}
+		this.forward = new int[n];
+		for (int r = 0; r < n; r++) {
+			int i = this.offsets[r];
+			while (i < this.offsets[r + 1] && this.neighbors[i] < r) {
+				i++;
+			}
+			this.forward[r] = i;
+		}
+	}
+
+	/**
+	 * writes all nodes adjacent to v (except v itself) in ascending order and
+	 * the respective flags into the given buffers by merging the sorted
+	 * adjacency lists
+	 *
+	 * @return number of adjacent nodes
+	 */
+	private int merge(Adjacency adjacency, int v, int[] buffer,
+			byte[] flagBuffer) {
+		int k = 0;
+		int i = adjacency.getOutStart(v);
+		int j = adjacency.getInStart(v);
+		int outEnd = adjacency.getOutEnd(v);
+		int inEnd = adjacency.getInEnd(v);
+		while (i < outEnd || j < inEnd) {
+			int out = i < outEnd ? adjacency.getOutTarget(i)
+					: Integer.MAX_VALUE;
+			int in = j < inEnd ? adjacency.getInSource(j) : Integer.MAX_VALUE;
+			int w = Math.min(out, in);
+			int f = 0;
+			if (out == w) {
+				f |= OUT;
+				i++;
+			}
+			if (in == w) {
+				f |= IN;
+				j++;
+			}
+			if (w == v) {
+				continue;
+			}
+			if (k > 0 && buffer[k - 1] == w) {
+				flagBuffer[k - 1] |= f;
+			} else {
+				buffer[k] = w;
+				flagBuffer[k++] = (byte) f;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * @param flags
+	 *            flags of the edges from a to b
+	 * @return flags of the edges from b to a
+	 */
+	public static int flip(int flags) {
+		return (flags & OUT) << 1 | (flags & IN) >> 1;
+	}
+
+	/**
+	 * @return number of threads used for processing, i.e., the number of
+	 *         visitors expected by listTriangles
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int getNodeCount() {
+		return this.order.length;
+	}
+
+	/**
+	 * @return number of edges of the underlying undirected graph
+	 */
+	public int getEdgeCount() {
+		return this.neighbors.length / 2;
+	}
+
+	/**
+	 * @param node
+	 * @return number of nodes adjacent to the given one
+	 */
+	public int getDegree(int node) {
+		int r = this.rank[node];
+		return this.offsets[r + 1] - this.offsets[r];
+	}
+
+	/**
+	 * @param node
+	 * @param flags
+	 *            OUT, IN, or BIDIRECTIONAL
+	 * @return number of nodes connected to the given one by exactly the given
+	 *         edges
+	 */
+	public int getDegree(int node, int flags) {
+		int r = this.rank[node];
+		int degree = 0;
+		for (int i = this.offsets[r]; i < this.offsets[r + 1]; i++) {
+			if (this.flags[i] == flags) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	/**
+	 * Passes every triangle of the underlying undirected graph to one of the
+	 * given visitors. The triangles are distributed over the visitors so that
+	 * each visitor is only used by a single thread at a time.
+	 *
+	 * @param visitors
+	 *            visitors, one per thread (getThreads())
+	 */
+	public void listTriangles(final TriangleVisitor[] visitors) {
+		this.process(visitors.length, new EdgeTask() {
+			@Override
+			public void visit(int task, Intersection in, int a, int b,
+					int edge, int count) {
+				TriangleVisitor visitor = visitors[task];
+				int nodeA = order[a];
+				int nodeB = order[b];
+				int ab = flags[edge];
+				for (int t = 0; t < count; t++) {
+					visitor.visit(nodeA, nodeB, order[in.common[t]], ab,
+							flags[in.positionA[t]], flags[in.positionB[t]]);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return number of triangles of the underlying undirected graph
+	 */
+	public long countTriangles() {
+		final long[] triangles = new long[this.threads];
+		this.process(this.threads, new EdgeTask() {
+			@Override
+			public void visit(int task, Intersection in, int a, int b,
+					int edge, int count) {
+				triangles[task] += count;
+			}
+		});
+		long sum = 0;
+		for (long t : triangles) {
+			sum += t;
+		}
+		return sum;
+	}
+
+	/**
+	 * Counts all connected induced subgraphs with 3 and 4 nodes of the
+	 * underlying undirected graph. The result contains the number of
+	 *
+	 * 0: paths of 3 nodes, 1: triangles, 2: stars of 4 nodes, 3: paths of 4
+	 * nodes, 4: triangles with an additional edge, 5: cycles of 4 nodes, 6:
+	 * 4-cliques without one edge, and 7: 4-cliques.
+	 *
+	 * Subgraphs are not enumerated, their counts are derived from the counts
+	 * of (not necessarily induced) stars, paths, cycles, and cliques which in
+	 * turn are derived from the degrees and the triangles of every edge.
+	 *
+	 * @return number of induced subgraphs
+	 */
+	public long[] countInducedSubgraphs() {
+		final int n = this.getNodeCount();
+		final AtomicIntegerArray edgeTriangles = new AtomicIntegerArray(
+				this.neighbors.length);
+		final long[][] partial = new long[this.threads][3];
+
+		// triangles, triangles with an additional edge, and 4-cliques
+		this.process(this.threads, new EdgeTask() {
+			@Override
+			public void visit(int task, Intersection in, int a, int b,
+					int edge, int count) {
+				if (count == 0) {
+					return;
+				}
+				long[] sums = partial[task];
+				sums[0] += count;
+				edgeTriangles.addAndGet(edge, count);
+				int ab = degree(a) + degree(b) - 4;
+				for (int t = 0; t < count; t++) {
+					int c = in.common[t];
+					edgeTriangles.incrementAndGet(in.positionA[t]);
+					edgeTriangles.incrementAndGet(in.positionB[t]);
+					sums[1] += ab + degree(c) - 2;
+					sums[2] += in.countCommon(t + 1, count, c);
+				}
+			}
+		});
+		long triangles = 0;
+		long paws = 0;
+		long cliques = 0;
+		for (long[] sums : partial) {
+			triangles += sums[0];
+			paws += sums[1];
+			cliques += sums[2];
+		}
+
+		// 4-cycles, each one is found from its highest-ranked node
+		final long[] cycles = new long[this.threads];
+		final AtomicInteger nextChunk = new AtomicInteger();
+		Parallel.run(this.threads, this.threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				int[] paths = new int[n];
+				int[] touched = new int[n];
+				int chunk;
+				while ((chunk = nextChunk.getAndAdd(CHUNK_SIZE)) < n) {
+					int chunkEnd = Math.min(n, chunk + CHUNK_SIZE);
+					for (int v = chunk; v < chunkEnd; v++) {
+						int k = 0;
+						for (int i = offsets[v]; i < forward[v]; i++) {
+							int u = neighbors[i];
+							for (int j = offsets[u]; j < offsets[u + 1]
+									&& neighbors[j] < v; j++) {
+								int w = neighbors[j];
+								if (paths[w]++ == 0) {
+									touched[k++] = w;
+								}
+							}
+						}
+						for (int i = 0; i < k; i++) {
+							long p = paths[touched[i]];
+							cycles[task] += p * (p - 1) / 2;
+							paths[touched[i]] = 0;
+						}
+					}
+				}
+			}
+		});
+		long c4 = 0;
+		for (long c : cycles) {
+			c4 += c;
+		}
+
+		long p3 = 0;
+		long stars = 0;
+		long p4 = 0;
+		for (int r = 0; r < n; r++) {
+			long d = this.degree(r);
+			p3 += d * (d - 1) / 2;
+			stars += d * (d - 1) * (d - 2) / 6;
+			for (int i = this.forward[r]; i < this.offsets[r + 1]; i++) {
+				p4 += (d - 1) * (this.degree(this.neighbors[i]) - 1);
+			}
+		}
+		p3 -= 3 * triangles;
+		p4 -= 3 * triangles;
+		long diamonds = 0;
+		for (int i = 0; i < this.neighbors.length; i++) {
+			long t = edgeTriangles.get(i);
+			diamonds += t * (t - 1) / 2;
+		}
+
+		// remove the subgraphs contained in denser induced subgraphs
+		diamonds -= 6 * cliques;
+		c4 -= diamonds + 3 * cliques;
+		paws -= 4 * diamonds + 12 * cliques;
+		stars -= paws + 2 * diamonds + 4 * cliques;
+		p4 -= 2 * paws + 4 * c4 + 6 * diamonds + 12 * cliques;
+
+		return new long[] { p3, triangles, stars, p4, paws, c4, diamonds,
+				cliques };
+	}
+
+	private int degree(int r) {
+		return this.offsets[r + 1] - this.offsets[r];
+	}
+
+	private static abstract class EdgeTask {
+		/**
+		 * Called for every oriented edge (a, b) with the common oriented
+		 * neighbors of a and b (all with rank larger than b) stored in the
+		 * given intersection.
+		 *
+		 * @param task
+		 *            index of the task
+		 * @param in
+		 *            intersection
+		 * @param a
+		 *            rank of the first node
+		 * @param b
+		 *            rank of the second node
+		 * @param edge
+		 *            position of the edge in the neighborhood of a
+		 * @param count
+		 *            number of common neighbors
+		 */
+		public abstract void visit(int task, Intersection in, int a, int b,
+				int edge, int count);
+	}
+
+	/**
+	 * Calls task.visit for every oriented edge, distributing chunks of nodes
+	 * over the given number of tasks.
+	 */
+	private void process(final int tasks, final EdgeTask task) {
+		final int n = this.getNodeCount();
+		final AtomicInteger nextChunk = new AtomicInteger();
+		Parallel.run(tasks, this.threads, new Parallel.Task() {
+			@Override
+			public void run(int t) {
+				Intersection in = new Intersection(n);
+				int chunk;
+				while ((chunk = nextChunk.getAndAdd(CHUNK_SIZE)) < n) {
+					int chunkEnd = Math.min(n, chunk + CHUNK_SIZE);
+					for (int a = chunk; a < chunkEnd; a++) {
+						in.setNode(a);
+						for (int e = forward[a]; e < offsets[a + 1]; e++) {
+							int count = in.intersect(e);
+							task.visit(t, in, a, neighbors[e], e, count);
+						}
+						in.clear();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Per-thread buffers for intersecting the oriented neighborhood of a node
+	 * a with the oriented neighborhoods of its oriented neighbors b.
+	 */
+	private class Intersection {
+		private int a;
+
+		private long[] bitset;
+
+		private boolean hub;
+
+		// common neighbors c of a and b, the positions of the edges (a, c) in
+		// the neighborhood of a and of (b, c) in the neighborhood of b
+		private int[] common;
+
+		private int[] positionA;
+
+		private int[] positionB;
+
+		private Intersection(int n) {
+			this.bitset = new long[(n + 63) >>> 6];
+			this.common = new int[16];
+			this.positionA = new int[16];
+			this.positionB = new int[16];
+		}
+
+		private void setNode(int a) {
+			this.a = a;
+			this.hub = offsets[a + 1] - forward[a] >= HUB_DEGREE;
+			if (this.hub) {
+				for (int i = forward[a]; i < offsets[a + 1]; i++) {
+					this.bitset[neighbors[i] >>> 6] |= 1L << neighbors[i];
+				}
+			}
+		}
+
+		private void clear() {
+			if (this.hub) {
+				for (int i = forward[this.a]; i < offsets[this.a + 1]; i++) {
+					this.bitset[neighbors[i] >>> 6] = 0;
+				}
+			}
+		}
+
+		/**
+		 * Determines the common neighbors c > b of a and b = neighbors[edge].
+		 *
+		 * @return number of common neighbors
+		 */
+		private int intersect(int edge) {
+			int b = neighbors[edge];
+			int i = edge + 1;
+			int endA = offsets[this.a + 1];
+			int j = forward[b];
+			int endB = offsets[b + 1];
+			int count = 0;
+			if (this.hub && endB - j < endA - i) {
+				for (; j < endB; j++) {
+					int c = neighbors[j];
+					if ((this.bitset[c >>> 6] & 1L << c) != 0) {
+						this.add(count++, c,
+								this.binarySearch(i, endA, c), j);
+					}
+				}
+				return count;
+			}
+			while (i < endA && j < endB) {
+				int c = neighbors[i];
+				int d = neighbors[j];
+				if (c < d) {
+					i++;
+				} else if (c > d) {
+					j++;
+				} else {
+					this.add(count++, c, i++, j++);
+				}
+			}
+			return count;
+		}
+
+		private void add(int index, int c, int i, int j) {
+			if (index == this.common.length) {
+				this.common = Arrays.copyOf(this.common, index * 2);
+				this.positionA = Arrays.copyOf(this.positionA,
+						index * 2);
+				this.positionB = Arrays.copyOf(this.positionB,
+						index * 2);
+			}
+			this.common[index] = c;
+			this.positionA[index] = i;
+			this.positionB[index] = j;
+		}
+
+		private int binarySearch(int from, int to, int c) {
+			int low = from;
+			int high = to - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (neighbors[middle] < c) {
+					low = middle + 1;
+				} else if (neighbors[middle] > c) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @return number of common[from, to) that are oriented neighbors of
+		 *         c
+		 */
+		private int countCommon(int from, int to, int c) {
+			int count = 0;
+			int i = from;
+			int j = forward[c];
+			int end = offsets[c + 1];
+			while (i < to && j < end) {
+				if (this.common[i] < neighbors[j]) {
+					i++;
+				} else if (this.common[i] > neighbors[j]) {
+					j++;
+				} else {
+					count++;
+					i++;
+					j++;
+				}
+			}
+			return count;
+		}
+	}
+}
@@ -52,6 +52,8 @@ import gtna.routing.selection.target.RepresentativeIdTargetSelection;
 import gtna.routing.selection.target.TargetSelection;
 import gtna.util.Config;
 import gtna.util.Distribution;
+import gtna.util.Parallel;
+import gtna.util.Util;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.ParameterListParameter;
 
@@ -126,48 +128,22 @@ public class Routing extends Metric {
 		this.sourceSelection.init(graph);
 		this.targetSelection.init(graph);
 
-		Random rand = new Random();
+		long seed = Routing.getSeed();
+		this.sourceSelection.setSeed(seed);
+		this.targetSelection.setSeed(seed + 1);
+
+		// sources and targets are drawn sequentially so that they only
+		// depend on the seed and not on the number of threads
 		int routesPerNode = Config.getInt("ROUTING_ROUTES_PER_NODE");
-		this.routes = new Route[graph.getNodes().length * routesPerNode];
-		int index = 0;
-
-		// int parallel = Config.getInt("PARALLEL_ROUTINGS");
-		// if (parallel == 1) {
-		for (int n = 0; n < graph.getNodeCount(); n++) {
-			for (int i = 0; i < routesPerNode; i++) {
-				int start = this.sourceSelection.getNextSource();
-				Identifier target = this.targetSelection.getNextTarget();
-				Route r = this.ra.routeToTarget(graph, start, target, rand);
-				this.routes[index++] = r;
-			}
+		final int[] starts = new int[graph.getNodeCount() * routesPerNode];
+		final Identifier[] targets = new Identifier[starts.length];
+		for (int i = 0; i < starts.length; i++) {
+			starts[i] = this.sourceSelection.getNextSource();
+			targets[i] = this.targetSelection.getNextTarget();
 		}
-		// } else {
-		// System.err
-		// .println("parallelization in routing not supported right now");
-		// RoutingThread[] threads = new RoutingThread[parallel];
-		// for (int i = 0; i < threads.length; i++) {
-		// int start = graph.getNodes().length / threads.length * i;
-		// int end = graph.getNodes().length / threads.length * (i + 1)
-		// - 1;
-		// if (i == threads.length - 1) {
-		// end = graph.getNodes().length - 1;
-		// }
-		// threads[i] = new RoutingThread(start, end, routesPerNode,
-		// graph, ra, rand);
-		// threads[i].start();
-		// }
-		// index = 0;
-		// for (RoutingThread t : threads) {
-		// try {
-		// t.join();
-		// } catch (InterruptedException e) {
-		// e.printStackTrace();
-		// }
-		// for (Route r : t.getRoutes()) {
-		// this.routes[index++] = r;
-		// }
-		// }
-		// }
+
+		this.routes = new Route[starts.length];
+		this.computeRoutes(graph, starts, targets, seed);
 
 		this.hopDistribution = this.computeHopDistribution();
 		this.hopDistributionAbsolute = this.computeHopDistributionAbsolute();
@@ -316,51 +292,42 @@ public class Routing extends Metric {
 		return true;
 	}
 
-	private class RoutingThread extends Thread {
-		private int start;
-
-		private int end;
-
-		private int times;
-
-		private Graph graph;
-
-		private RoutingAlgorithm ra;
-
-		private Random rand;
-
-		private Route[] routes;
-
-		private RoutingThread(int start, int end, int times, Graph graph,
-				RoutingAlgorithm ra, Random rand) {
-			this.start = start;
-			this.end = end;
-			this.times = times;
-			this.graph = graph;
-			this.ra = ra;
-			this.rand = rand;
-			this.routes = new Route[(end - start + 1) * times];
+	/**
+	 * Computes the routes for the given sources and targets. In case the
+	 * routing algorithm allows it, the routes are split among
+	 * PARALLEL_ROUTINGS threads. Each route uses its own random number
+	 * generator whose seed is derived from the given seed and the index of
+	 * the route, i.e., the routes do not depend on the number of threads.
+	 */
+	private void computeRoutes(final Graph graph, final int[] starts,
+			final Identifier[] targets, final long seed) {
+		int threads = 1;
+		if (this.ra.isParallelizable()) {
+			threads = Parallel.getThreads("PARALLEL_ROUTINGS");
 		}
-
-		public void run() {
-			int index = 0;
-			for (int i = this.start; i <= this.end; i++) {
-				for (int j = 0; j < this.times; j++) {
-					// this.routes[index++] = ra.routeToRandomTarget(graph, i,
-					// rand);
+		// nodes are materialized before they are accessed concurrently
+		graph.getNodes();
+		final int tasks = Math.max(1, Math.min(threads, starts.length));
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				int end = Parallel.getEnd(starts.length, tasks, task);
+				for (int i = Parallel.getStart(starts.length, tasks, task); i < end; i++) {
+					routes[i] = ra.routeToTarget(graph, starts[i], targets[i],
+							new Random(Util.mix(seed, i)));
 				}
 			}
-		}
-
-		/**
-		 * @return the routes
-		 */
-		public Route[] getRoutes() {
-			return this.routes;
-		}
+		});
+	}
 
-		public String toString() {
-			return this.start + " => " + this.end;
+	/**
+	 * @return ROUTING_SEED or a random seed in case it is 0
+	 */
+	private static long getSeed() {
+		long seed = Long.parseLong(Config.get("ROUTING_SEED").trim());
+		if (seed == 0) {
+			seed = new Random().nextLong();
 		}
+		return seed;
 	}
 }
@@ -64,6 +64,11 @@ public class Routing_HopDegreeDistribution extends Metric {
 		return true;
 	}
 
+	@Override
+	public String[] getDependencies() {
+		return new String[] { "ROUTING" };
+	}
+
 	@Override
 	public void computeData(Graph graph, Network network,
 			HashMap<String, Metric> metrics) {
@@ -35,14 +35,26 @@
  */
 package gtna.metrics.trust;
 
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
-
-import gtna.graph.Graph;
 
 /**
+ * Breadth-first search bounded by a maximum distance k where the length of an
+ * edge is given by an EdgeValuator (1 by default). Nodes can be excluded from
+ * the search by closing them.
+ *
+ * The searches run on the adjacency of the graph. All buffers (visited marks,
+ * distances, queues, predecessors, and the bitset of closed nodes) are
+ * allocated once per thread and re-used for every search: a node counts as
+ * visited if it is marked with the number of the current search (epoch
+ * stamp), hence nothing has to be cleared between two searches. The results
+ * of a search (counters, visited nodes, path) are kept per thread as well so
+ * that a single instance can be used by multiple threads concurrently.
+ * 
  * @author Dirk
  * 
  */
@@ -51,38 +63,30 @@ public class BFS {
 	private Graph g;
 	private EdgeValuator e;
 
-	private int nodesCounter;
-	private int edgesCounter;
-
-	private List<Integer> visitedNodes;
-
-	private int predA[];
-	private int succB[];
+	private Adjacency adjacency;
 
-	private int rendevouz;
-
-	private List<Integer> closedNodes;
+	private ThreadLocal<State> states;
 
 	public BFS(Graph g, int k) {
+		this(g, k, null);
+	}
+
+	public BFS(Graph g, int k, EdgeValuator e) {
 		this.k = k;
 		this.g = g;
-		this.e = new EdgeValuator() {
-
+		this.e = e;
+		this.adjacency = g.getAdjacency();
+		final int n = this.adjacency.getNodeCount();
+		this.states = new ThreadLocal<State>() {
 			@Override
-			public double getEdgeValue(Graph g, int src, int dst) {
-				return 1;
+			protected State initialValue() {
+				return new State(n);
 			}
 		};
-
-		closedNodes = new ArrayList<Integer>();
 	}
 
-	public BFS(Graph g, int k, EdgeValuator e) {
-		this.k = k;
-		this.g = g;
-		this.e = e;
-		
-		closedNodes = new ArrayList<Integer>();
+	private double getEdgeValue(int src, int dst) {
+		return this.e == null ? 1 : this.e.getEdgeValue(this.g, src, dst);
 	}
 
 	public void search(int srcNode) {
@@ -90,65 +94,76 @@ public class BFS {
 	}
 
 	public void unidirectonalSearch(int srcNode, int dstNode) {
-		boolean[] visited = new boolean[g.getNodeCount()];
-		double[] distance = new double[g.getNodeCount()];
-		Queue<Integer> queue = new LinkedList<Integer>();
-
-		visitedNodes = new ArrayList<Integer>();
-
-		visited[srcNode] = true;
-
-		queue.add(srcNode);
-
-		nodesCounter = 0;
-		edgesCounter = 0;
-
-		while (!queue.isEmpty()) {
-			int currentNode = queue.poll();
-			nodesCounter++;
-			for (int neighbor : g.getNode(currentNode).getOutgoingEdges()) {
-				edgesCounter++;
-				if (!visited[neighbor] && !closedNodes.contains(neighbor)) {
-					distance[neighbor] = distance[currentNode]
-							+ e.getEdgeValue(g, currentNode, neighbor);
-					if (distance[neighbor] <= k) {
-						visited[neighbor] = true;
-						visitedNodes.add(neighbor);
-						queue.add(neighbor);
+		State s = this.states.get();
+		int epoch = s.nextEpoch();
+		int[] visited = s.visitedA;
+		double[] distance = s.distanceA;
+		int[] queue = s.visitedNodes;
+		int head = 0;
+		int tail = 0;
+
+		visited[srcNode] = epoch;
+		distance[srcNode] = 0;
+		queue[tail++] = srcNode;
+
+		s.nodesCounter = 0;
+		s.edgesCounter = 0;
+
+		while (head < tail) {
+			int currentNode = queue[head++];
+			s.nodesCounter++;
+			int end = this.adjacency.getOutEnd(currentNode);
+			for (int i = this.adjacency.getOutStart(currentNode); i < end; i++) {
+				int neighbor = this.adjacency.getOutTarget(i);
+				s.edgesCounter++;
+				if (visited[neighbor] != epoch && !s.isClosed(neighbor)) {
+					double d = distance[currentNode]
+							+ getEdgeValue(currentNode, neighbor);
+					if (d <= k) {
+						visited[neighbor] = epoch;
+						distance[neighbor] = d;
+						queue[tail++] = neighbor;
 						if (neighbor == dstNode)
-							queue.clear();
+							head = tail;
 					}
 				}
 			}
 		}
-
+		// all nodes but the source that have been added to the queue
+		s.visitedNodesCount = tail;
 	}
 
 	/*
 	 * Performs a bidrectional BFS
 	 */
 	public boolean bidirectionalSearch(int srcNode, int dstNode) {
-		boolean[] visitedA = new boolean[g.getNodeCount()];
-		double[] distanceA = new double[g.getNodeCount()];
-		Queue<Integer> queueA = new LinkedList<Integer>();
-
-		boolean[] visitedB = new boolean[g.getNodeCount()];
-		double[] distanceB = new double[g.getNodeCount()];
-		Queue<Integer> queueB = new LinkedList<Integer>();
-
-		predA = new int[g.getNodeCount()];
-		succB = new int[g.getNodeCount()];
-		for (int i = 0; i < g.getNodeCount(); i++) {
-			predA[i] = -1;
-			succB[i] = -1;
-		}
-		rendevouz = -1;
-
-		visitedA[srcNode] = true;
-		queueA.add(srcNode);
-
-		visitedB[dstNode] = true;
-		queueB.add(dstNode);
+		State s = this.states.get();
+		int epoch = s.nextEpoch();
+		int[] visitedA = s.visitedA;
+		double[] distanceA = s.distanceA;
+		int[] queueA = s.queueA;
+		int headA = 0;
+		int tailA = 0;
+
+		int[] visitedB = s.visitedB;
+		double[] distanceB = s.distanceB;
+		int[] queueB = s.queueB;
+		int headB = 0;
+		int tailB = 0;
+
+		int[] predA = s.predA;
+		int[] succB = s.succB;
+		s.rendevouz = -1;
+
+		visitedA[srcNode] = epoch;
+		distanceA[srcNode] = 0;
+		predA[srcNode] = -1;
+		queueA[tailA++] = srcNode;
+
+		visitedB[dstNode] = epoch;
+		distanceB[dstNode] = 0;
+		succB[dstNode] = -1;
+		queueB[tailB++] = dstNode;
 
 		int kA = k / 2;
 		int kB = k / 2;
@@ -158,58 +173,54 @@ public class BFS {
 
 		boolean found = false;
 
-		while (!queueA.isEmpty() || !queueB.isEmpty()) {
+		while (headA < tailA || headB < tailB) {
 
-			
-			if (!queueA.isEmpty()) {
-				int currentNodeA = queueA.poll();
-			
-				if (visitedB[currentNodeA]) {
-					queueA.clear();
-					queueB.clear();
+			if (headA < tailA) {
+				int currentNodeA = queueA[headA++];
+
+				if (visitedB[currentNodeA] == epoch) {
+					headA = tailA;
+					headB = tailB;
 					found = true;
-					rendevouz = currentNodeA;
+					s.rendevouz = currentNodeA;
 				} else {
-					for (int neighbor : g.getNode(currentNodeA)
-							.getOutgoingEdges()) {
-
-						if (!visitedA[neighbor]
-								&& !closedNodes.contains(neighbor)) {
-
-							distanceA[neighbor] = distanceA[currentNodeA]
-									+ e.getEdgeValue(g, currentNodeA, neighbor);
-							if (distanceA[neighbor] <= kA) {
-								visitedA[neighbor] = true;
+					int end = this.adjacency.getOutEnd(currentNodeA);
+					for (int i = this.adjacency.getOutStart(currentNodeA); i < end; i++) {
+						int neighbor = this.adjacency.getOutTarget(i);
+						if (visitedA[neighbor] != epoch && !s.isClosed(neighbor)) {
+							double d = distanceA[currentNodeA]
+									+ getEdgeValue(currentNodeA, neighbor);
+							if (d <= kA) {
+								visitedA[neighbor] = epoch;
+								distanceA[neighbor] = d;
 								predA[neighbor] = currentNodeA;
-								queueA.add(neighbor);
-							} 
+								queueA[tailA++] = neighbor;
+							}
 						}
 					}
 				}
 			}
 
-			if (!queueB.isEmpty()) {
-				int currentNodeB = queueB.poll();
+			if (headB < tailB) {
+				int currentNodeB = queueB[headB++];
 
-				if (visitedA[currentNodeB]) {
-					queueA.clear();
-					queueB.clear();
+				if (visitedA[currentNodeB] == epoch) {
+					headA = tailA;
+					headB = tailB;
 					found = true;
-					rendevouz = currentNodeB;
+					s.rendevouz = currentNodeB;
 				} else {
-					for (int neighbor : g.getNode(currentNodeB)
-							.getIncomingEdges()) {
-
-						if (!visitedB[neighbor]
-								&& !closedNodes.contains(neighbor)) {
-
-							distanceB[neighbor] = distanceB[currentNodeB]
-									+ e.getEdgeValue(g, currentNodeB, neighbor);
-							if (distanceB[neighbor] <= kB) {
-
-								visitedB[neighbor] = true;
+					int end = this.adjacency.getInEnd(currentNodeB);
+					for (int i = this.adjacency.getInStart(currentNodeB); i < end; i++) {
+						int neighbor = this.adjacency.getInSource(i);
+						if (visitedB[neighbor] != epoch && !s.isClosed(neighbor)) {
+							double d = distanceB[currentNodeB]
+									+ getEdgeValue(currentNodeB, neighbor);
+							if (d <= kB) {
+								visitedB[neighbor] = epoch;
+								distanceB[neighbor] = d;
 								succB[neighbor] = currentNodeB;
-								queueB.add(neighbor);
+								queueB[tailB++] = neighbor;
 							}
 						}
 					}
@@ -220,27 +231,31 @@ public class BFS {
 	}
 
 	public List<Integer> getPath(int src, int dst) {
-
-
 		boolean exists = bidirectionalSearch(src, dst);
 
-
 		if (exists) {
+			State s = this.states.get();
+			int rendevouz = s.rendevouz;
 			int current = rendevouz;
 
-			LinkedList<Integer> path = new LinkedList<Integer>();
+			ArrayList<Integer> path = new ArrayList<Integer>();
 
 			if (rendevouz != dst && rendevouz != src) {
 				while (current != src) {
-					path.addFirst(current);
-					current = predA[current];
+					path.add(current);
+					current = s.predA[current];
+				}
+				// the nodes from the source side have been added in reverse
+				// order
+				for (int i = 0, j = path.size() - 1; i < j; i++, j--) {
+					path.set(i, path.set(j, path.get(i)));
 				}
 
-				current = succB[rendevouz];
+				current = s.succB[rendevouz];
 
 				while (current != dst) {
-					path.addLast(current);
-					current = succB[current];
+					path.add(current);
+					current = s.succB[current];
 				}
 			}
 
@@ -249,31 +264,94 @@ public class BFS {
 		return null;
 	}
 
+	/**
+	 * Releases the buffers and results of the calling thread, they are
+	 * allocated again by its next search. Must be called by every thread
+	 * once it is done, since the (pool) threads outlive the instance.
+	 */
+	public void release() {
+		this.states.remove();
+	}
+
 	/**
 	 * @return the nodesCounter
 	 */
 	public int getNodesCounter() {
-		return this.nodesCounter;
+		return this.states.get().nodesCounter;
 	}
 
 	/**
 	 * @return the edgesCounter
 	 */
 	public int getEdgesCounter() {
-		return this.edgesCounter;
+		return this.states.get().edgesCounter;
+	}
+
+	/**
+	 * @return number of nodes visited by the last (unidirectional) search,
+	 *         excluding the source
+	 */
+	public int getVisitedNodesCount() {
+		return Math.max(this.states.get().visitedNodesCount - 1, 0);
+	}
+
+	/**
+	 * @return copy of the nodes visited by the last (unidirectional) search,
+	 *         excluding the source, in the order they have been visited
+	 */
+	public int[] getVisitedNodesArray() {
+		State s = this.states.get();
+		if (s.visitedNodesCount <= 1) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(s.visitedNodes, 1, s.visitedNodesCount);
 	}
 
 	/**
 	 * @return the visitedNodes
 	 */
 	public List<Integer> getVisitedNodes() {
-		return this.visitedNodes;
+		int[] nodes = this.getVisitedNodesArray();
+		List<Integer> visitedNodes = new ArrayList<Integer>(nodes.length);
+		for (int node : nodes) {
+			visitedNodes.add(node);
+		}
+		return visitedNodes;
+	}
+
+	/**
+	 * @param node
+	 * @return true if the given node is excluded from the searches
+	 */
+	public boolean isClosed(int node) {
+		return this.states.get().isClosed(node);
+	}
+
+	/**
+	 * Excludes the given node from all subsequent searches.
+	 * 
+	 * @param node
+	 */
+	public void closeNode(int node) {
+		this.states.get().close(node);
+	}
+
+	/**
+	 * Re-opens all closed nodes.
+	 */
+	public void clearClosedNodes() {
+		this.states.get().clearClosed();
 	}
 
 	/**
 	 * @return the closedNodes
 	 */
 	public List<Integer> getClosedNodes() {
+		State s = this.states.get();
+		List<Integer> closedNodes = new ArrayList<Integer>(s.closedCount);
+		for (int i = 0; i < s.closedCount; i++) {
+			closedNodes.add(s.closedNodes[i]);
+		}
 		return closedNodes;
 	}
 
@@ -282,6 +360,88 @@ public class BFS {
 	 *            the closedNodes to set
 	 */
 	public void setClosedNodes(List<Integer> closedNodes) {
-		this.closedNodes = closedNodes;
+		State s = this.states.get();
+		s.clearClosed();
+		for (int node : closedNodes) {
+			s.close(node);
+		}
+	}
+
+	/**
+	 * Buffers and results of the searches of a single thread.
+	 */
+	private static class State {
+		private int epoch;
+
+		private int[] visitedA;
+		private double[] distanceA;
+		private int[] queueA;
+		private int[] predA;
+
+		private int[] visitedB;
+		private double[] distanceB;
+		private int[] queueB;
+		private int[] succB;
+
+		private int rendevouz;
+
+		private int[] visitedNodes;
+		private int visitedNodesCount;
+
+		private int nodesCounter;
+		private int edgesCounter;
+
+		private long[] closed;
+		private int[] closedNodes;
+		private int closedCount;
+
+		private State(int n) {
+			this.epoch = 0;
+			this.visitedA = new int[n];
+			this.distanceA = new double[n];
+			this.queueA = new int[n];
+			this.predA = new int[n];
+			this.visitedB = new int[n];
+			this.distanceB = new double[n];
+			this.queueB = new int[n];
+			this.succB = new int[n];
+			this.visitedNodes = new int[n];
+			this.visitedNodesCount = 0;
+			this.closed = new long[(n + 63) >>> 6];
+			this.closedNodes = new int[16];
+			this.closedCount = 0;
+		}
+
+		private int nextEpoch() {
+			if (++this.epoch == Integer.MAX_VALUE) {
+				Arrays.fill(this.visitedA, 0);
+				Arrays.fill(this.visitedB, 0);
+				this.epoch = 1;
+			}
+			return this.epoch;
+		}
+
+		private boolean isClosed(int node) {
+			return (this.closed[node >>> 6] & (1L << node)) != 0;
+		}
+
+		private void close(int node) {
+			if (this.isClosed(node)) {
+				return;
+			}
+			this.closed[node >>> 6] |= 1L << node;
+			if (this.closedCount == this.closedNodes.length) {
+				this.closedNodes = Arrays.copyOf(this.closedNodes,
+						2 * this.closedCount);
+			}
+			this.closedNodes[this.closedCount++] = node;
+		}
+
+		private void clearClosed() {
+			for (int i = 0; i < this.closedCount; i++) {
+				this.closed[this.closedNodes[i] >>> 6] = 0;
+			}
+			this.closedCount = 0;
+		}
 	}
 }
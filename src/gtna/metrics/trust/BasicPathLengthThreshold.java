@@ -101,4 +101,12 @@ public class BasicPathLengthThreshold extends TrustMetric {
 	public boolean computeTrust(Node n1, Node n2) {
 		return bfs.bidirectionalSearch(n1.getIndex(), n2.getIndex());
 	}
+
+	/* (non-Javadoc)
+	 * @see gtna.metrics.trust.TrustMetric#releaseThreadState()
+	 */
+	@Override
+	protected void releaseThreadState() {
+		bfs.release();
+	}
 }
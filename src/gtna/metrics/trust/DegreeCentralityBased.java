@@ -131,4 +131,11 @@ public class DegreeCentralityBased extends TrustMetric {
 		return bfs.bidirectionalSearch(n1.getIndex(), n2.getIndex());
 	}
 
+	/* (non-Javadoc)
+	 * @see gtna.metrics.trust.TrustMetric#releaseThreadState()
+	 */
+	@Override
+	protected void releaseThreadState() {
+		bfs.release();
+	}
 }
@@ -0,0 +1,386 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * DisjointPathCounter.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.metrics.trust;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Counts internally vertex-disjoint paths between two nodes using a
+ * unit-capacity max-flow: every node other than source and destination can
+ * be used by a single path (node splitting), augmenting paths are found by a
+ * breadth-first search in the residual graph, and the computation stops as
+ * soon as the requested number of paths has been found.
+ *
+ * Only nodes v with d(src, v) + d(v, dst) <= k (hop distances) are
+ * considered, i.e., nodes lying on a path of length at most k. Hence, the
+ * number of paths found is an upper bound of the number of disjoint paths of
+ * length at most k. A path of the flow may still be longer than k since
+ * previously found paths can be re-routed (counting disjoint paths of bounded
+ * length exactly is NP-hard in general), countBoundedPaths returns how many
+ * of them are not, i.e., a lower bound.
+ *
+ * As for the BFS, all buffers are allocated once per thread and marked using
+ * epoch stamps so that a single instance can be used by multiple threads.
+ */
+public class DisjointPathCounter {
+	private Adjacency adjacency;
+
+	private int k;
+
+	private ThreadLocal<State> states;
+
+	/**
+	 * @param g
+	 *            graph
+	 * @param k
+	 *            maximum length of the paths
+	 */
+	public DisjointPathCounter(Graph g, int k) {
+		this.adjacency = g.getAdjacency();
+		this.k = k;
+		final int n = this.adjacency.getNodeCount();
+		this.states = new ThreadLocal<State>() {
+			@Override
+			protected State initialValue() {
+				return new State(n);
+			}
+		};
+	}
+
+	/**
+	 * Releases the buffers of the calling thread, they are allocated again
+	 * by its next call of count. Must be called by every thread once it is
+	 * done, since the (pool) threads outlive the instance.
+	 */
+	public void release() {
+		this.states.remove();
+	}
+
+	/**
+	 * Counts internally vertex-disjoint paths from src to dst (of which none
+	 * is the direct edge src -> dst) up to the given limit.
+	 * 
+	 * @param src
+	 *            source node
+	 * @param dst
+	 *            destination node (different from src)
+	 * @param limit
+	 *            number of paths after which the computation stops
+	 * @return number of disjoint paths found (at most limit)
+	 */
+	public int count(int src, int dst, int limit) {
+		if (limit <= 0 || src == dst) {
+			return 0;
+		}
+		State s = this.states.get();
+		// distances, flow, and one search per path (plus the failing one)
+		s.reserveEpochs(Math.min(limit, this.adjacency.getNodeCount()) + 4);
+		this.computeDistances(s, src, dst);
+		s.flowEpoch = s.nextEpoch();
+		if (!s.isAllowed(dst, this.k)) {
+			return 0;
+		}
+		int paths = 0;
+		while (paths < limit && this.augment(s, src, dst)) {
+			paths++;
+		}
+		return paths;
+	}
+
+	/**
+	 * Decomposes the flow computed by the last call of count (by the current
+	 * thread) into its paths.
+	 * 
+	 * @param src
+	 *            source node passed to count
+	 * @param dst
+	 *            destination node passed to count
+	 * @return number of these paths whose length is at most k
+	 */
+	public int countBoundedPaths(int src, int dst) {
+		State s = this.states.get();
+		int bounded = 0;
+		int end = this.adjacency.getOutEnd(src);
+		for (int i = this.adjacency.getOutStart(src); i < end; i++) {
+			int v = this.adjacency.getOutTarget(i);
+			if (v == dst || s.getFlowIn(v) != src) {
+				continue;
+			}
+			int length = 1;
+			while (v != dst && v != -1 && length <= this.k) {
+				v = s.getFlowOut(v);
+				length++;
+			}
+			if (v == dst && length <= this.k) {
+				bounded++;
+			}
+		}
+		return bounded;
+	}
+
+	/**
+	 * Computes the hop distances from src and to dst up to k.
+	 */
+	private void computeDistances(State s, int src, int dst) {
+		int[] queue = s.queue;
+		s.fromEpoch = s.nextEpoch();
+		int head = 0;
+		int tail = 0;
+		s.fromStamp[src] = s.fromEpoch;
+		s.from[src] = 0;
+		queue[tail++] = src;
+		while (head < tail) {
+			int v = queue[head++];
+			if (s.from[v] == this.k) {
+				continue;
+			}
+			int end = this.adjacency.getOutEnd(v);
+			for (int i = this.adjacency.getOutStart(v); i < end; i++) {
+				int w = this.adjacency.getOutTarget(i);
+				if (s.fromStamp[w] != s.fromEpoch) {
+					s.fromStamp[w] = s.fromEpoch;
+					s.from[w] = s.from[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+
+		s.toEpoch = s.nextEpoch();
+		head = 0;
+		tail = 0;
+		s.toStamp[dst] = s.toEpoch;
+		s.to[dst] = 0;
+		queue[tail++] = dst;
+		while (head < tail) {
+			int v = queue[head++];
+			if (s.to[v] == this.k) {
+				continue;
+			}
+			int end = this.adjacency.getInEnd(v);
+			for (int i = this.adjacency.getInStart(v); i < end; i++) {
+				int w = this.adjacency.getInSource(i);
+				if (s.toStamp[w] != s.toEpoch) {
+					s.toStamp[w] = s.toEpoch;
+					s.to[w] = s.to[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches an augmenting path in the residual graph of the split nodes:
+	 * state 2v is the entry and 2v + 1 the exit of node v, the source is only
+	 * represented by its exit and the destination by its entry. The flow is
+	 * stored as the predecessor (flowIn) and successor (flowOut) of every
+	 * node on a path.
+	 * 
+	 * @return true if an augmenting path has been found (and applied)
+	 */
+	private boolean augment(State s, int src, int dst) {
+		int epoch = s.nextEpoch();
+		int[] queue = s.queue;
+		int head = 0;
+		int tail = 0;
+		int start = 2 * src + 1;
+		int target = 2 * dst;
+		s.seen[start] = epoch;
+		queue[tail++] = start;
+		while (head < tail && s.seen[target] != epoch) {
+			int state = queue[head++];
+			int v = state >>> 1;
+			if ((state & 1) == 1) {
+				// exit of v: edges v -> w without flow, or back to the entry
+				// if v is used by a path
+				int end = this.adjacency.getOutEnd(v);
+				for (int i = this.adjacency.getOutStart(v); i < end; i++) {
+					int w = this.adjacency.getOutTarget(i);
+					if (w == src || w == v || !s.isAllowed(w, this.k)) {
+						continue;
+					}
+					if (w == dst) {
+						if (v != src && s.getFlowOut(v) != dst) {
+							tail = s.visit(2 * w, state, epoch, tail);
+						}
+					} else if (s.getFlowIn(w) != v) {
+						tail = s.visit(2 * w, state, epoch, tail);
+					}
+				}
+				if (v != src && s.getFlowIn(v) != -1) {
+					tail = s.visit(2 * v, state, epoch, tail);
+				}
+			} else {
+				// entry of v: through the node if unused, otherwise back to
+				// its predecessor on the path
+				int pred = s.getFlowIn(v);
+				if (pred == -1) {
+					tail = s.visit(2 * v + 1, state, epoch, tail);
+				} else {
+					tail = s.visit(2 * pred + 1, state, epoch, tail);
+				}
+			}
+		}
+		if (s.seen[target] != epoch) {
+			return false;
+		}
+
+		int state = target;
+		while (state != start) {
+			int parent = s.parent[state];
+			int u = parent >>> 1;
+			int w = state >>> 1;
+			if (u != w) {
+				if ((parent & 1) == 1) {
+					// forward edge u -> w
+					if (w != dst) {
+						s.setFlowIn(w, u);
+					}
+					if (u != src) {
+						s.setFlowOut(u, w);
+					}
+				} else {
+					// cancelled edge w -> u
+					if (s.getFlowIn(u) == w) {
+						s.setFlowIn(u, -1);
+					}
+					if (s.getFlowOut(w) == u) {
+						s.setFlowOut(w, -1);
+					}
+				}
+			}
+			state = parent;
+		}
+		return true;
+	}
+
+	/**
+	 * Buffers of a single thread.
+	 */
+	private static class State {
+		private int epoch;
+
+		private int[] queue;
+
+		private int[] seen;
+		private int[] parent;
+
+		private int fromEpoch;
+		private int[] fromStamp;
+		private int[] from;
+
+		private int toEpoch;
+		private int[] toStamp;
+		private int[] to;
+
+		private int flowEpoch;
+		private int[] flowInStamp;
+		private int[] flowIn;
+		private int[] flowOutStamp;
+		private int[] flowOut;
+
+		private State(int n) {
+			this.epoch = 0;
+			this.queue = new int[2 * n];
+			this.seen = new int[2 * n];
+			this.parent = new int[2 * n];
+			this.fromStamp = new int[n];
+			this.from = new int[n];
+			this.toStamp = new int[n];
+			this.to = new int[n];
+			this.flowInStamp = new int[n];
+			this.flowIn = new int[n];
+			this.flowOutStamp = new int[n];
+			this.flowOut = new int[n];
+		}
+
+		private int nextEpoch() {
+			return ++this.epoch;
+		}
+
+		/**
+		 * Resets all stamps if less than the given number of epochs remain,
+		 * the stamps must not be reset during a single computation.
+		 */
+		private void reserveEpochs(int epochs) {
+			if (this.epoch >= Integer.MAX_VALUE - epochs) {
+				Arrays.fill(this.seen, 0);
+				Arrays.fill(this.fromStamp, 0);
+				Arrays.fill(this.toStamp, 0);
+				Arrays.fill(this.flowInStamp, 0);
+				Arrays.fill(this.flowOutStamp, 0);
+				this.epoch = 0;
+			}
+		}
+
+		private boolean isAllowed(int v, int k) {
+			return this.fromStamp[v] == this.fromEpoch
+					&& this.toStamp[v] == this.toEpoch
+					&& this.from[v] + this.to[v] <= k;
+		}
+
+		private int visit(int state, int parent, int epoch, int tail) {
+			if (this.seen[state] == epoch) {
+				return tail;
+			}
+			this.seen[state] = epoch;
+			this.parent[state] = parent;
+			this.queue[tail] = state;
+			return tail + 1;
+		}
+
+		private int getFlowIn(int v) {
+			return this.flowInStamp[v] == this.flowEpoch ? this.flowIn[v] : -1;
+		}
+
+		private void setFlowIn(int v, int u) {
+			this.flowInStamp[v] = this.flowEpoch;
+			this.flowIn[v] = u;
+		}
+
+		private int getFlowOut(int v) {
+			return this.flowOutStamp[v] == this.flowEpoch ? this.flowOut[v]
+					: -1;
+		}
+
+		private void setFlowOut(int v, int w) {
+			this.flowOutStamp[v] = this.flowEpoch;
+			this.flowOut[v] = w;
+		}
+	}
+}
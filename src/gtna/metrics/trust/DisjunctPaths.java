@@ -35,14 +35,14 @@
  */
 package gtna.metrics.trust;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
+import java.util.List;
+
 /**
  * @author Dirk
  *
@@ -54,6 +54,10 @@ public class DisjunctPaths extends TrustMetric {
 	
 	BFS bfs;
 
+	DisjointPathCounter counter;
+
+	Adjacency adjacency;
+
 	/**
 	 * @param sampleSize
 	 * @param parameters
@@ -70,6 +74,8 @@ public class DisjunctPaths extends TrustMetric {
 	@Override
 	public void prepareGraph(Graph g) {
 		bfs = new BFS(g, maxPathLength);
+		counter = new DisjointPathCounter(g, maxPathLength);
+		adjacency = g.getAdjacency();
 	}
 
 	/* (non-Javadoc)
@@ -86,7 +92,7 @@ public class DisjunctPaths extends TrustMetric {
 	@Override
 	public int getNoOfTrustedNodes(Node n) {
 		//System.out.println("--- GET_NO_OF_TRUSTED_NODES (" + n.getIndex() + "---");
-		List<Integer> possibleNodes = bfs.getVisitedNodes();
+		int[] possibleNodes = bfs.getVisitedNodesArray();
 		
 		int counter = 0;		
 		
@@ -113,28 +119,47 @@ public class DisjunctPaths extends TrustMetric {
 		return computeTrust(n1.getIndex(), n2.getIndex());
 	}
 	
+	/**
+	 * A node trusts itself and the nodes it has a direct edge to (if
+	 * maxPathLength >= 1), any other node if at least minPaths vertex-disjoint
+	 * paths of length at most maxPathLength to it are found.
+	 * 
+	 * The max-flow of the DisjointPathCounter is an upper bound of the number
+	 * of such paths, so the node is not trusted if it is below minPaths. The
+	 * node is trusted if enough of the flow's paths are short enough,
+	 * otherwise the greedy search (shortest path, close its nodes, repeat)
+	 * decides.
+	 */
 	public boolean computeTrust(int node1, int node2) {
-		int noPaths = 0;
-		List<Integer> closedNodes = new ArrayList<Integer>();
-		
-		List<Integer> path;
-		
-		bfs.setClosedNodes(closedNodes);
-		
-		path = bfs.getPath(node1, node2);
-		
-		if (path != null && path.size() == 0)
+		if (node1 == node2
+				|| (maxPathLength >= 1 && adjacency.hasOut(node1, node2)))
 			return true;
-		
-		while (path != null) {
-			
-			 noPaths++;
-			 if (noPaths >= minPaths)
-				 return true;
-			 closedNodes.addAll(path);
-			 bfs.setClosedNodes(closedNodes);
-			 path = bfs.getPath(node1, node2);
+		if (counter.count(node1, node2, minPaths) < minPaths)
+			return false;
+		if (counter.countBoundedPaths(node1, node2) >= minPaths)
+			return true;
+		return countGreedyPaths(node1, node2) >= minPaths;
+	}
+
+	private int countGreedyPaths(int node1, int node2) {
+		int noPaths = 0;
+		List<Integer> path = bfs.getPath(node1, node2);
+		while (path != null && !path.isEmpty() && noPaths < minPaths) {
+			noPaths++;
+			for (int node : path)
+				bfs.closeNode(node);
+			path = bfs.getPath(node1, node2);
 		}
-		return noPaths >= minPaths;
+		bfs.clearClosedNodes();
+		return noPaths;
+	}
+
+	/* (non-Javadoc)
+	 * @see gtna.metrics.trust.TrustMetric#releaseThreadState()
+	 */
+	@Override
+	protected void releaseThreadState() {
+		bfs.release();
+		counter.release();
 	}
 }
@@ -51,12 +51,24 @@ import gtna.metrics.Metric;
 import gtna.networks.Network;
 import gtna.util.Config;
 import gtna.util.Distribution;
+import gtna.util.Parallel;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.ParameterList;
 import gtna.util.parameter.StringParameter;
 
 /**
+ * Base class of trust metrics evaluated for a random sample of nodes (trust
+ * distributions) and node pairs (runtimes).
+ * 
+ * The samples are drawn sequentially and then evaluated by PARALLEL_METRICS
+ * threads, i.e., prepareNode, getNoOfTrustedNodes, getNoOfEdgesInSubtree, and
+ * computeTrust may be called concurrently and the state prepared for a node
+ * must be kept per thread (as done by BFS and DisjointPathCounter). Each
+ * task calls releaseThreadState when it is done so that this state does not
+ * remain attached to the pool threads. A subclass that does not support
+ * concurrent evaluation can return false in isParallel.
+ * 
  * @author Dirk
  * 
  */
@@ -145,21 +157,37 @@ public abstract class TrustMetric extends Metric {
 
 	private void computeTrustDistributions(Graph g) {
 
-		int[] trustedNodes = new int[sampleSize];
-		int[] edgesInSubtree = new int[sampleSize];
+		final int[] trustedNodes = new int[sampleSize];
+		final int[] edgesInSubtree = new int[sampleSize];
+
+		final Node[] samples = new Node[sampleSize];
+		for (int i = 0; i < sampleSize; i++)
+			samples[i] = getRandomNode(g);
+
+		// the state prepared for a node is kept per thread, hence all three
+		// steps are performed by the same task
+		final int threads = getThreads();
+		final int tasks = Math.min(sampleSize, threads * 4);
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				int end = Parallel.getEnd(sampleSize, tasks, task);
+				try {
+					for (int i = Parallel.getStart(sampleSize, tasks, task); i < end; i++) {
+						prepareNode(samples[i]);
+						trustedNodes[i] = getNoOfTrustedNodes(samples[i]);
+						edgesInSubtree[i] = getNoOfEdgesInSubtree(samples[i]);
+					}
+				} finally {
+					releaseThreadState();
+				}
+			}
+		});
 
 		int maxTrustedNodes = 0;
 		int maxEdges = 0;
 
 		for (int i = 0; i < sampleSize; i++) {
-
-			Node n = getRandomNode(g);
-
-			prepareNode(n);
-
-			trustedNodes[i] = getNoOfTrustedNodes(n);
-			edgesInSubtree[i] = getNoOfEdgesInSubtree(n);
-
 			if (trustedNodes[i] > maxTrustedNodes)
 				maxTrustedNodes = trustedNodes[i];
 			if (edgesInSubtree[i] > maxEdges)
@@ -197,21 +225,45 @@ public abstract class TrustMetric extends Metric {
 		minRuntimeUntrusted = Long.MAX_VALUE;
 		maxRuntimeUntrusted = 0;
 
-		long[] runtimes = new long[sampleSize];
+		final long[] runtimes = new long[sampleSize];
 		long[] runtimesTrustedTemp = new long[sampleSize];
 		long[] runtimesUntrustedTemp = new long[sampleSize];
 
 		int countTrusted = 0;
 		int countUntrusted = 0;
 
+		final Node[] sources = new Node[sampleSize];
+		final Node[] destinations = new Node[sampleSize];
 		for (int i = 0; i < sampleSize; i++) {
-			long t0 = System.nanoTime();
-			boolean b = computeTrust(getRandomNode(g), getRandomNode(g));
-			long t1 = System.nanoTime();
+			sources[i] = getRandomNode(g);
+			destinations[i] = getRandomNode(g);
+		}
 
-			long t = (t1 - t0);
+		// the runtime of every single computation is measured by the thread
+		// performing it
+		final boolean[] trusted = new boolean[sampleSize];
+		final int threads = getThreads();
+		final int tasks = Math.min(sampleSize, threads * 4);
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				int end = Parallel.getEnd(sampleSize, tasks, task);
+				try {
+					for (int i = Parallel.getStart(sampleSize, tasks, task); i < end; i++) {
+						long t0 = System.nanoTime();
+						trusted[i] = computeTrust(sources[i], destinations[i]);
+						long t1 = System.nanoTime();
+						runtimes[i] = t1 - t0;
+					}
+				} finally {
+					releaseThreadState();
+				}
+			}
+		});
 
-			runtimes[i] = t;
+		for (int i = 0; i < sampleSize; i++) {
+			boolean b = trusted[i];
+			long t = runtimes[i];
 
 			sumRuntime += t;
 
@@ -291,6 +343,10 @@ public abstract class TrustMetric extends Metric {
 
 	}
 
+	private int getThreads() {
+		return isParallel() ? Parallel.getThreads("PARALLEL_METRICS") : 1;
+	}
+
 	private Node getRandomNode(Graph g) {
 
 		return g.getNodes()[rnd.nextInt(g.getNodeCount())];
@@ -441,6 +497,21 @@ public abstract class TrustMetric extends Metric {
 		return true;
 	}
 
+	/**
+	 * @return false if the samples must be evaluated sequentially, i.e., if
+	 *         the node-specific methods are not thread-safe
+	 */
+	protected boolean isParallel() {
+		return true;
+	}
+
+	/**
+	 * Releases the state kept for the calling thread (e.g., by BFS and
+	 * DisjointPathCounter), called by every task once it is done.
+	 */
+	protected void releaseThreadState() {
+	}
+
 	public abstract void prepareGraph(Graph g);
 
 	public abstract void prepareNode(Node n);
@@ -50,6 +50,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 
 /**
+ * Compares the singles and distributions of a metric computed for two
+ * series. In mode BASEWITHRUN, the aggregated values of the base series are
+ * read only once and kept in memory for all runs.
+ * 
  * @author Tim
  * 
  */
@@ -58,7 +62,6 @@ public class ErrorComparison extends Metric {
 	private Metric metric;
 	private Series[] series2;
 	private Series[] series1;
-	private Series seriesMy;
 
 	private ArrayList<Distribution> distributions = new ArrayList<Distribution>();
 	private ArrayList<Distribution> nodevaluelists = new ArrayList<Distribution>();
@@ -69,6 +72,11 @@ public class ErrorComparison extends Metric {
 	
 	private int type;
 
+	private String baseFolder;
+	private Single[] baseSingles;
+	private Distribution[] baseDistributions;
+	private NodeValueList[] baseNodeValueLists;
+
 	/**
 	 * @param key
 	 */
@@ -129,14 +137,33 @@ public class ErrorComparison extends Metric {
 		}
 
 		/*
-		 * Read Metric values from files.
+		 * Read Metric values from files. The values of the base metric are
+		 * taken before reading the changed one as both might be the same
+		 * instance.
 		 */
-		@SuppressWarnings("static-access")
-		int r = seriesMy.getCurrentRun();
+		int r = Series.getCurrentRun();
+		Single[] bSingles;
+		Distribution[] bDistributions;
+		NodeValueList[] bNodeValueLists;
 		if(this.type == RUNWITHRUN){
 			b.readData(series1[0].getMetricFolder(r, b));
+			bSingles = b.getSingles();
+			bDistributions = b.getDistributions();
+			bNodeValueLists = b.getNodeValueLists();
 		} else if (this.type == BASEWITHRUN){
-			b.readData(series1[0].getFolder(b));
+			synchronized (this) {
+				String folder = series1[0].getFolder(b);
+				if (!folder.equals(this.baseFolder)) {
+					b.readData(folder);
+					this.baseSingles = b.getSingles();
+					this.baseDistributions = b.getDistributions();
+					this.baseNodeValueLists = b.getNodeValueLists();
+					this.baseFolder = folder;
+				}
+				bSingles = this.baseSingles;
+				bDistributions = this.baseDistributions;
+				bNodeValueLists = this.baseNodeValueLists;
+			}
 		} else {
 			throw new IllegalArgumentException("Comparison Type not accepted: " + this.type);
 		}
@@ -145,9 +172,9 @@ public class ErrorComparison extends Metric {
 		/*
 		 * Compare Metric values
 		 */
-		compareSingles(b.getSingles(), c.getSingles());
-		compareDistributions(b.getDistributions(), c.getDistributions());
-		compareNodeValueLists(b.getNodeValueLists(), c.getNodeValueLists());
+		compareSingles(bSingles, c.getSingles());
+		compareDistributions(bDistributions, c.getDistributions());
+		compareNodeValueLists(bNodeValueLists, c.getNodeValueLists());
 
 	}
 
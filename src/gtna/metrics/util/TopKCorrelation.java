@@ -43,15 +43,24 @@ import gtna.io.DataWriter;
 import gtna.metrics.Metric;
 import gtna.networks.Network;
 import gtna.transformation.sampling.Sample;
+import gtna.util.Config;
 import gtna.util.Distribution;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.StringParameter;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 
 /**
+ * Compares the node values of a metric computed for two series by the
+ * overlap of their top-k nodes (for all k) and the correlation coefficient.
+ * 
+ * The numbers of nodes are taken from the etc files of the series (NODES),
+ * i.e., the networks are not generated again. In mode BASEWITHRUN, the
+ * aggregated values of the base series are read only once and kept in memory
+ * for all runs.
+ * 
  * @author Tim
  * 
  */
@@ -60,7 +69,6 @@ public class TopKCorrelation extends Metric {
 	private Metric metric;
 	private Series[] series2;
 	private Series[] series1;
-	private Series seriesMy;
 
 	private double[] fraction;
 
@@ -95,6 +103,11 @@ public class TopKCorrelation extends Metric {
 	private Type type;
 	private Mode mode;
 	private Sample sampleProperty;
+	private int sampleRun = -1;
+
+	private String baseFolder;
+	private NodeValueList[] baseValues;
+	private int baseNodes;
 
 	/**
 	 * @param key
@@ -142,44 +155,71 @@ public class TopKCorrelation extends Metric {
 		/*
 		 * Read Metric values from files.
 		 */
-		@SuppressWarnings("static-access")
-		int r = seriesMy.getCurrentRun();
+		int r = Series.getCurrentRun();
+		NodeValueList[] base;
+		int s1count;
 		if (this.mode == Mode.RUNWITHRUN) {
 			b.readData(series1[0].getMetricFolder(r, b));
+			base = b.getNodeValueLists();
+			s1count = series1[0].getNodes(r);
 		} else if (this.mode == Mode.BASEWITHRUN) {
-			b.readData(series1[0].getFolder(b));
+			synchronized (this) {
+				String folder = series1[0].getFolder(b);
+				if (!folder.equals(this.baseFolder)) {
+					b.readData(folder);
+					this.baseValues = b.getNodeValueLists();
+					this.baseNodes = series1[0].getNodes();
+					this.baseFolder = folder;
+				}
+				base = this.baseValues;
+				s1count = this.baseNodes;
+			}
 		} else {
 			throw new IllegalArgumentException("Comparison Type not accepted: "
 					+ this.type);
 		}
 		c.readData(series2[0].getMetricFolder(r, c));
+		NodeValueList[] changed = c.getNodeValueLists();
+		int s2count = series2[0].getNodes(r);
+
+		// series generated before the number of nodes has been stored
+		if (s1count < 0) {
+			s1count = base[0].getValues().length;
+		}
+		if (s2count < 0) {
+			s2count = changed[0].getValues().length;
+		}
 
 		/*
 		 * Compare Metric values
 		 */
 
 		// TODO: provide metric.getTopKNodeValueList()?
-		calculateTopK(b.getNodeValueLists(), c.getNodeValueLists());
+		calculateTopK(base, changed, s1count, s2count, r);
 
 	}
 
 	/**
+	 * Computes the fraction of nodes contained in both top-k sets for all k
+	 * in a single pass: a node is contained in the top-k set of a list iff
+	 * its rank (position in the sorted list) is smaller than k.
+	 * 
 	 * @param base
 	 * @param changed
+	 * @param s1count
+	 *            number of nodes of the base graph
+	 * @param s2count
+	 *            number of nodes of the changed graph
+	 * @param run
 	 */
-	private void calculateTopK(NodeValueList[] base, NodeValueList[] changed) {
-
-		int s1count = (series1[0].getNetwork().generate()).getNodeCount();
-		int s2count = (series2[0].getNetwork().generate()).getNodeCount();
+	private void calculateTopK(NodeValueList[] base, NodeValueList[] changed,
+			int s1count, int s2count, int run) {
 
 		int nc = Math.max(s1count, s2count);
 
 		this.fraction = new double[nc + 1];
 		this.fraction[0] = 1;
 
-		HashSet<Integer> s1 = new HashSet<Integer>(s1count);
-		HashSet<Integer> s2 = new HashSet<Integer>(s2count);
-
 		SortableElement[] e1 = SortableElement.convert(base[0].getValues());
 		SortableElement[] e2 = SortableElement.convert(changed[0].getValues());
 
@@ -199,28 +239,25 @@ public class TopKCorrelation extends Metric {
 		Arrays.sort(e1);
 		Arrays.sort(e2);
 
-		double denominator = 0;
+		int[] rank1 = ranks(e1);
+		int[] rank2 = ranks(e2);
+
 		double count = 0;
 		for (int i = 0; i < nc; i++) {
-			denominator++;
-			s1.add(e1[(i >= e1.length) ? e1.length - 1 : i].getIndex());
-			s2.add(e2[(i >= e2.length) ? e2.length - 1 : i].getIndex());
-			if (e1[(i >= e1.length) ? e1.length - 1 : i].getIndex() == e2[(i >= e2.length) ? e2.length - 1
-					: i].getIndex()) {
+			// the last node is repeated if a list is shorter than nc
+			int n1 = e1[(i >= e1.length) ? e1.length - 1 : i].getIndex();
+			int n2 = e2[(i >= e2.length) ? e2.length - 1 : i].getIndex();
+			if (n1 == n2) {
 				count++;
 			} else {
-				if (s1.contains(this
-						.mapForward(e2[(i >= e2.length) ? e2.length - 1 : i]
-								.getIndex()))) {
+				if (isTopK(rank1, this.mapForward(n2, run), i)) {
 					count++;
 				}
-				if (s2.contains(this
-						.mapBackward(e1[(i >= e1.length) ? e1.length - 1 : i]
-								.getIndex()))) {
+				if (isTopK(rank2, this.mapBackward(n1, run), i)) {
 					count++;
 				}
 			}
-			this.fraction[i + 1] = count / denominator;
+			this.fraction[i + 1] = count / (i + 1);
 		}
 
 		this.sorted1 = new double[nc];
@@ -249,16 +286,39 @@ public class TopKCorrelation extends Metric {
 		}
 	}
 
+	/**
+	 * @param sorted
+	 * @return position of every node in the given sorted list
+	 */
+	private static int[] ranks(SortableElement[] sorted) {
+		int[] rank = new int[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			rank[sorted[i].getIndex()] = i;
+		}
+		return rank;
+	}
+
+	/**
+	 * @param rank
+	 * @param index
+	 * @param k
+	 * @return true if the node is among the first k + 1 nodes
+	 */
+	private static boolean isTopK(int[] rank, int index, int k) {
+		return index >= 0 && index < rank.length && rank[index] <= k;
+	}
+
 	/**
 	 * @param index
+	 * @param run
 	 * @return
 	 */
-	private int mapForward(int index) {
+	private int mapForward(int index, int run) {
 		if (type == Type.NETWORK) {
 			return index;
 		} else {
-			if (sampleProperty == null)
-				initProperty();
+			if (sampleProperty == null || sampleRun != run)
+				initProperty(run);
 
 			return sampleProperty.getOldNodeId(index);
 		}
@@ -266,26 +326,39 @@ public class TopKCorrelation extends Metric {
 
 	/**
 	 * @param index
+	 * @param run
 	 * @return
 	 */
-	private int mapBackward(int index) {
+	private int mapBackward(int index, int run) {
 		if (type == Type.NETWORK) {
 			return index;
 		} else {
-			if (sampleProperty == null)
-				initProperty();
+			if (sampleProperty == null || sampleRun != run)
+				initProperty(run);
 
 			return sampleProperty.getNewNodeId(index);
 		}
 	}
 
 	/**
+	 * Reads the SAMPLE property written with the graph of the base series
+	 * (SERIES_GRAPH_WRITE), only if it is not available the network is
+	 * generated again.
 	 * 
+	 * @param run
 	 */
-	private void initProperty() {
-		sampleProperty = (Sample) series1[0].getNetwork().generate()
-				.getProperty("SAMPLE_0"); // TODO use variable to set property
-											// index
+	private void initProperty(int run) {
+		String filename = series1[0].getGraphFilename(run)
+				+ Config.get("GRAPH_WRITER_PROPERTY_FILE_DELIMITER")
+				+ "SAMPLE_0"; // TODO use variable to set property index
+		if (new File(filename).exists()) {
+			sampleProperty = new Sample();
+			sampleProperty.read(filename);
+		} else {
+			sampleProperty = (Sample) series1[0].getNetwork().generate()
+					.getProperty("SAMPLE_0");
+		}
+		sampleRun = run;
 	}
 
 	private static double sum(SortableElement[] values) {
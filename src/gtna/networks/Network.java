@@ -37,10 +37,13 @@ package gtna.networks;
 
 import gtna.graph.Graph;
 import gtna.transformation.Transformation;
+import gtna.util.Util;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.ParameterList;
 
+import java.util.Random;
+
 /**
  * Interface that must be implemented by all network generators.
  * 
@@ -98,6 +101,18 @@ public abstract class Network extends ParameterList {
 	 */
 	public abstract Graph generate();
 
+	/**
+	 * Random number generator for generating an instance of the network. In
+	 * case NETWORK_SEED is set (i.e., not 0), its seed is derived from
+	 * NETWORK_SEED and the current run so that every run of a series can be
+	 * reproduced while different runs are uncorrelated.
+	 * 
+	 * @return random number generator for the current run
+	 */
+	protected Random getRandom() {
+		return Util.getRandom("NETWORK_SEED");
+	}
+
 	public String getFolderName() {
 		StringBuffer buff = new StringBuffer(super.getFolderName());
 		for (Transformation t : this.transformations) {
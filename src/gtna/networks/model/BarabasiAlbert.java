@@ -35,6 +35,8 @@
  */
 package gtna.networks.model;
 
+import gtna.algorithms.generation.EndpointArray;
+import gtna.graph.EdgeSet;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
@@ -43,7 +45,6 @@ import gtna.transformation.Transformation;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -56,6 +57,11 @@ import java.util.Random;
  * Parameters are the initial network size and the number of edges per added
  * node.
  * 
+ * The nodes to connect to are drawn from an EndpointArray, i.e., every new
+ * node is attached in O(m) instead of summing up the degrees of all previous
+ * nodes. The random number generator is obtained from Network.getRandom, so
+ * runs can be reproduced by setting NETWORK_SEED.
+ * 
  * @author benni
  * 
  */
@@ -64,6 +70,9 @@ public class BarabasiAlbert extends Network {
 
 	private int EDGES_PER_NODE = 3;
 
+	// attempts (per edge) to draw distinct nodes for a new node
+	private static final int MAX_ATTEMPTS = 100;
+
 	public static BarabasiAlbert[] get(int nodes, int[] edgesPerNode,
 			Transformation[] t) {
 		BarabasiAlbert[] nw = new BarabasiAlbert[edgesPerNode.length];
@@ -90,69 +99,61 @@ public class BarabasiAlbert extends Network {
 
 	public Graph generate() {
 		Graph graph = new Graph(this.getDescription());
-		Random rand = new Random(System.currentTimeMillis());
+		Random rand = this.getRandom();
 		Node[] nodes = Node.init(this.getNodes(), graph);
-		int[] in = new int[nodes.length];
-		int[] out = new int[nodes.length];
+		int m = this.EDGES_PER_NODE;
+		int initNodes = Math.min(nodes.length,
+				Math.max(this.INIT_NETWORK_SIZE, m + 5));
+		EndpointArray endpoints = new EndpointArray(initNodes * m
+				+ (nodes.length - initNodes) * m);
 
-		int initNodes = Math.max(this.INIT_NETWORK_SIZE,
-				this.EDGES_PER_NODE + 5);
-		int initEdges = initNodes * this.EDGES_PER_NODE;
-		int ed = 0;
-		Graph temp = new ErdosRenyi(initNodes, this.EDGES_PER_NODE, true, null)
-				.generate();
-		Edges edges = new Edges(nodes, initEdges + (nodes.length - initNodes)
-				* this.EDGES_PER_NODE);
-		for (int i = 0; i < temp.getNodes().length; i++) {
-			in[i] = temp.getNodes()[i].getInDegree();
-			out[i] = temp.getNodes()[i].getOutDegree();
-			int[] Out = temp.getNodes()[i].getOutgoingEdges();
-			for (int j = 0; j < Out.length; j++) {
-				edges.add(i, Out[j]);
-				ed++;
+		// initial random network, same as ErdosRenyi(initNodes, m, true)
+		int initEdges = Math.min((initNodes * m / 2 + 1) / 2, initNodes
+				* (initNodes - 1) / 2);
+		EdgeSet initial = new EdgeSet(initEdges);
+		while (endpoints.getEdgeCount() < initEdges) {
+			int src = rand.nextInt(initNodes);
+			int dst = rand.nextInt(initNodes);
+			if (src != dst
+					&& initial.add(EdgeSet.pack(Math.min(src, dst),
+							Math.max(src, dst)), 0)) {
+				endpoints.add(src, dst);
 			}
 		}
 
-		// System.out.println("init = " + initEdges + " ed=" +ed);
-		int edgeCounter = edges.size();
+		// every new node is connected to m distinct nodes, each selected with
+		// probability proportional to its degree
+		int[] targets = new int[m];
 		for (int i = initNodes; i < nodes.length; i++) {
 			int added = 0;
-			double[] rands = new double[this.EDGES_PER_NODE];
-			for (int j = 0; j < rands.length; j++) {
-				rands[j] = rand.nextDouble() * 2 * edgeCounter;
-			}
-			Arrays.sort(rands);
-
-			// System.out.println("i=" + i + " rands:");
-			// for (int j = 0; j < rands.length; j++){
-			// System.out.println("" + rands[j] + " edges=" + edgeCounter);
-			// }
-			double sum2 = 0;
-			int current = i - 1;
-			while (added < rands.length && current > -1) {
-				sum2 = sum2 + (double) (in[current] + out[current]);
-				// System.out.println("Sum " + sum2 + " i="+i +
-				// " edgeCounter = " + edgeCounter + " current=" + current);
-				if (sum2 >= rands[added]) {
-					edges.add(i, current);
-					edges.add(current, i);
-					added++;
-					in[i]++;
-					out[i]++;
-					in[current]++;
-					out[current]++;
-					edgeCounter = edgeCounter + 2;
-
+			for (int attempt = 0; added < m && attempt < MAX_ATTEMPTS * m; attempt++) {
+				int target = endpoints.sample(rand);
+				if (target == -1) {
+					break;
+				}
+				if (!BarabasiAlbert.contains(targets, added, target)) {
+					targets[added++] = target;
 				}
-				current--;
 			}
-			// System.out.println("Added " + added);
-
+			for (int j = 0; j < added; j++) {
+				endpoints.add(i, targets[j]);
+			}
 		}
 
+		Edges edges = new Edges(nodes, 2 * endpoints.getEdgeCount(), true);
+		endpoints.addTo(edges);
 		edges.fill();
 
 		graph.setNodes(nodes);
 		return graph;
 	}
+
+	private static boolean contains(int[] values, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
@@ -35,10 +35,9 @@
  */
 package gtna.networks.model;
 
-import java.awt.Point;
-import java.util.ArrayList;
 import java.util.Random;
 
+import gtna.algorithms.generation.EndpointArray;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
@@ -49,6 +48,11 @@ import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
 /**
+ * Generalized linear preference (GLP) model by Bu and Towsley, "On
+ * distinguishing between Internet power law topology generators" (2002).
+ * Nodes are selected with probability proportional to (degree - beta) using
+ * an EndpointArray, so every selection takes O(1) expected time.
+ * 
  * @author truong
  * 
  */
@@ -60,9 +64,12 @@ public class GLP extends Network {
 	private int numOfAddedEdges;
 	private double beta;
 
+	// attempts to select a node (a second node for an internal link)
+	private static final int MAX_ATTEMPTS = 100;
+
 	// variables for algorithm
 	private int[] nodeDegree;
-	private ArrayList<Point> edgesList;
+	private EndpointArray endpoints;
 
 	public GLP(int nodes, int numOfStartNode, int numOfAddedEdges, double p,
 			double beta, Transformation[] t) {
@@ -85,32 +92,18 @@ public class GLP extends Network {
 	 */
 	@Override
 	public Graph generate() {
-		System.out.println("m0 = " + numOfStartNodes);
-		System.out.println("p = " + p);
-		System.out.println("m = " + numOfAddedEdges);
-		System.out.println("beta = " + beta);
-
-		// Graph graph = new Graph(this.getDescription());
-		Graph graph = new Graph("test");
+		Graph graph = new Graph(this.getDescription());
 		Node[] nodes = Node.init(this.getNodes(), graph);
-		// nodePref = new double[nodes.length];
-		edgesList = new ArrayList<Point>();
+		Random rand = this.getRandom();
+		endpoints = new EndpointArray(2 * nodes.length);
 		nodeDegree = new int[nodes.length];
 
-		Random randForP = new Random();
-		Random randForM = new Random();
 		int i = 1;
-
-		// test
-		int sumOfM = 0;
-		int usedM = 0;
-
 		while (i < nodes.length) {
 			// we start with m0 nodes connected through (m0 - 1) edges
 			if (i < numOfStartNodes) {
 				// select a node randomly from 0 to (i - 1)
-				int nodeIndex = (new Random()).nextInt(i);
-				addEdge(i, nodeIndex);
+				addEdge(i, rand.nextInt(i));
 				i++;
 				continue;
 			}
@@ -118,50 +111,37 @@ public class GLP extends Network {
 			// m, the initial degree of new nodes in the GLP model, is a
 			// constant integer. However, the initial degree can be a random
 			// variable with some distribution.
-			if (randForM.nextDouble() < 0.87) {
-				this.numOfAddedEdges = 1;
-			} else {
-				this.numOfAddedEdges = 2;
-			}
-
-			// test
-			sumOfM += this.numOfAddedEdges;
-			usedM++;
-
-			Random randForNode = new Random();
+			int m = rand.nextDouble() < 0.87 ? 1 : 2;
 
 			// with probability p we add m <= m0 new links.
-			if (randForP.nextDouble() < p) {
-				for (int j = 0; j < numOfAddedEdges; j++) {
-					int src = this.selectNodeUsingPref(i - 1, randForNode);
+			if (i > 1 && rand.nextDouble() < p) {
+				for (int j = 0; j < m; j++) {
+					int src = this.selectNodeUsingPref(i, rand);
 					int dst = src;
-					while (dst == src) {
-						dst = this.selectNodeUsingPref(i - 1, randForNode);
+					for (int attempt = 0; dst == src && attempt < MAX_ATTEMPTS; attempt++) {
+						dst = this.selectNodeUsingPref(i, rand);
+					}
+					if (dst != src) {
+						addEdge(src, dst);
 					}
-					addEdge(src, dst);
 				}
 			}
 			// with probability (1 - p) we add a new node. The new nodes has m
-			// new links
+			// new links (all selected before the first one is added)
 			else {
-				for (int j = 0; j < numOfAddedEdges; j++) {
-					int dst = this.selectNodeUsingPref(i - 1, randForNode);
-					// TODO: is it already used???
-					addEdge(i, dst);
+				int dst1 = this.selectNodeUsingPref(i, rand);
+				int dst2 = m == 2 ? this.selectNodeUsingPref(i, rand) : -1;
+				addEdge(i, dst1);
+				if (dst2 != -1) {
+					addEdge(i, dst2);
 				}
 				i++;
 			}
 		}
 
-		// test
-		System.out.println("m = " + (((double) sumOfM) / usedM));
-
 		// copy edges to graph
-		Edges edges = new Edges(nodes, 2 * edgesList.size());
-		for (Point p : edgesList) {
-			edges.add(p.x, p.y);
-			edges.add(p.y, p.x);
-		}
+		Edges edges = new Edges(nodes, 2 * endpoints.getEdgeCount(), true);
+		endpoints.addTo(edges);
 
 		// return graph
 		edges.fill();
@@ -169,33 +149,45 @@ public class GLP extends Network {
 		return graph;
 	}
 
-	/**
-	 * @param i
-	 * @param nodeIndex
-	 */
 	private void addEdge(int src, int dst) {
-		edgesList.add(new Point(src, dst));
+		endpoints.add(src, dst);
 		nodeDegree[src]++;
 		nodeDegree[dst]++;
-		// updatePreference(src);
-		// updatePreference(dst);
 	}
 
-	private int selectNodeUsingPref(int maxIndex, Random rand) {
-		double prefSum = 0;
-		for (int i = 0; i <= maxIndex; i++) {
-			prefSum += nodeDegree[i] - beta;
+	/**
+	 * Selects one of the nodes 0 to (n - 1) with probability proportional to
+	 * (degree - beta). The sum of these preferences is 2 * edges - beta * n,
+	 * so for beta <= 0 a node is drawn either proportional to its degree (from
+	 * the endpoints) or uniformly at random. For 0 < beta < 1, a node drawn
+	 * proportional to its degree is accepted with probability (degree - beta)
+	 * / degree.
+	 * 
+	 * @param n
+	 *            number of nodes to select from
+	 * @param rand
+	 * @return selected node
+	 */
+	private int selectNodeUsingPref(int n, Random rand) {
+		int edges = endpoints.getEdgeCount();
+		if (edges == 0) {
+			return rand.nextInt(n);
+		}
+		if (beta <= 0) {
+			double degreeSum = 2.0 * edges;
+			if (rand.nextDouble() * (degreeSum - beta * n) < degreeSum) {
+				return endpoints.sample(rand);
+			}
+			return rand.nextInt(n);
 		}
-		double r = rand.nextDouble();
-		double threshold = r * prefSum;
-		double sum = 0;
-		for (int i = 0; i <= maxIndex; i++) {
-			sum += nodeDegree[i];
-			if (sum >= threshold) {
-				return i;
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			int node = endpoints.sample(rand);
+			if (rand.nextDouble() * nodeDegree[node] < nodeDegree[node] - beta) {
+				return node;
 			}
 		}
-		return (int) (r * maxIndex);
+		// only possible for beta >= 1 (no node with a positive preference)
+		return endpoints.sample(rand);
 	}
 
 }
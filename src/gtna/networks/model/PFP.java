@@ -35,22 +35,27 @@
  */
 package gtna.networks.model;
 
-import java.awt.Point;
-import java.util.ArrayList;
 import java.util.Random;
 
-import gtna.graph.Edge;
+import gtna.algorithms.generation.EndpointArray;
+import gtna.algorithms.generation.WeightedSampler;
+import gtna.graph.EdgeSet;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 import gtna.networks.Network;
-import gtna.networks.canonical.Complete;
 import gtna.transformation.Transformation;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
 /**
+ * Positive-feedback preference (PFP) model by Zhou and Mondragon, "Accurately
+ * modeling the Internet topology" (2004): nodes are selected with probability
+ * proportional to k^(1 + delta * ln k) where k is their degree. The
+ * preferences are kept in a WeightedSampler, so a node is selected in
+ * O(log n) time.
+ * 
  * @author truong
  * 
  */
@@ -61,10 +66,14 @@ public class PFP extends Network {
 	private double delta;
 	private int numOfStartNodes;
 
+	// attempts to draw an admissible node before scanning all nodes
+	private static final int MAX_ATTEMPTS = 64;
+
 	// variables for algorithm
-	private double[] nodePref;
-	private ArrayList<Point> edgesList;
-	private double[] nodeDegree;
+	private WeightedSampler nodePref;
+	private EndpointArray edgesList;
+	private EdgeSet edgeSet;
+	private int[] nodeDegree;
 
 	/**
 	 * @param key
@@ -91,75 +100,51 @@ public class PFP extends Network {
 	 */
 	@Override
 	public Graph generate() {
-		System.out.println("p = " + this.p);
-		System.out.println("delta = " + this.delta);
-		// Graph graph = new Graph(this.getDescription());
-		Graph graph = new Graph("test");
+		Graph graph = new Graph(this.getDescription());
 		Node[] nodes = Node.init(this.getNodes(), graph);
-		nodePref = new double[nodes.length];
-		edgesList = new ArrayList<Point>();
-		nodeDegree = new double[nodes.length];
-
-		Random rand = new Random();
-
-		// original random graph
-		Complete ba = new Complete(this.numOfStartNodes, null);
-		Graph g = ba.generate();
-		for (Edge e : g.getEdges().getEdges()) {
-			int src = e.getSrc();
-			int dst = e.getDst();
-			this.addEdge(src, dst);
+		nodePref = new WeightedSampler(nodes.length);
+		edgesList = new EndpointArray(3 * nodes.length);
+		edgeSet = new EdgeSet(3 * nodes.length);
+		nodeDegree = new int[nodes.length];
+
+		Random rand = this.getRandom();
+
+		// original random graph (complete)
+		int start = Math.min(this.numOfStartNodes, nodes.length);
+		for (int i = 0; i < start; i++) {
+			for (int j = 0; j < i; j++) {
+				this.addEdge(i, j);
+			}
 		}
 
-		for (int i = this.numOfStartNodes; i < nodes.length; i++) {
-			// TODO: generate original random graph
-			// ---Test---
-			/*
-			 * if (i < this.numOfStartNodes) { for (int j = 0; j < i; j++) {
-			 * this.addEdge(i, j); } continue; }
-			 */
-			// ---
+		for (int i = start; i < nodes.length; i++) {
 			if (rand.nextDouble() < p) {
 
 				// a new node is attached to "host"
-				int hostIndex = this.selectNodeUsingPref(i - 1);
+				int hostIndex = this.selectNodeUsingPref(i, -1, -1, rand);
 				addEdge(i, hostIndex);
 
 				// the host develops new links to two peers
-				int peer1Index = hostIndex;
-				while (peer1Index == hostIndex) {
-					peer1Index = this.selectNodeUsingPref(i - 1);
-				}
-				int peer2Index = hostIndex;
-				while (peer2Index == peer1Index || peer2Index == hostIndex) {
-					peer2Index = this.selectNodeUsingPref(i - 1);
-					// System.out.println("host = " + hostIndex);
-					// System.out.println("peer1 = " + peer1Index);
-					// System.out.println("perr2 = " + peer2Index);
-				}
+				int peer1Index = this.selectNodeUsingPref(i, hostIndex, -1,
+						rand);
+				int peer2Index = this.selectNodeUsingPref(i, hostIndex,
+						peer1Index, rand);
 				addEdge(hostIndex, peer1Index);
 				addEdge(hostIndex, peer2Index);
 
 			} else {
 
 				// a new node is attached to two hosts
-				int host1Index = this.selectNodeUsingPref(i - 1);
-				int host2Index = host1Index;
-				while (host1Index == host2Index) {
-					host2Index = this.selectNodeUsingPref(i - 1);
-					// System.out.println("host1 = " + host1Index);
-					// System.out.println("host2 = " + host2Index);
-				}
+				int host1Index = this.selectNodeUsingPref(i, -1, -1, rand);
+				int host2Index = this.selectNodeUsingPref(i, host1Index, -1,
+						rand);
 				addEdge(i, host1Index);
 				addEdge(i, host2Index);
 
 				// one of the hosts is linked to a peer
-				int peerIndex = host1Index;
-				while (peerIndex == host1Index || peerIndex == host2Index) {
-					peerIndex = this.selectNodeUsingPref(i - 1);
-					// System.out.println("peer = " + peerIndex);
-				}
-				if ((new Random()).nextInt(2) == 0) {
+				int peerIndex = this.selectNodeUsingPref(i, host1Index,
+						host2Index, rand);
+				if (rand.nextInt(2) == 0) {
 					addEdge(host1Index, peerIndex);
 				} else {
 					addEdge(host2Index, peerIndex);
@@ -168,11 +153,8 @@ public class PFP extends Network {
 		}
 
 		// copy edges to graph
-		Edges edges = new Edges(nodes, 2 * edgesList.size());
-		for (Point p : edgesList) {
-			edges.add(p.x, p.y);
-			edges.add(p.y, p.x);
-		}
+		Edges edges = new Edges(nodes, 2 * edgesList.getEdgeCount(), true);
+		edgesList.addTo(edges);
 
 		// return graph
 		edges.fill();
@@ -182,34 +164,58 @@ public class PFP extends Network {
 
 	private void updatePreference(int nodeIndex) {
 		double degree = (double) (nodeDegree[nodeIndex]);
-		nodePref[nodeIndex] = Math.pow(degree, 1 + delta * Math.log(degree));
+		nodePref.set(nodeIndex,
+				Math.pow(degree, 1 + delta * Math.log(degree)));
 	}
 
-	private Random refRand = new Random();
-
-	private int selectNodeUsingPref(int maxIndex) {
+	/**
+	 * Selects one of the nodes 0 to (n - 1) except for the given ones with
+	 * probability proportional to its preference. Nodes are drawn from all
+	 * preferences (the new node n already has one) until an admissible one is
+	 * found. In the rare case that this fails MAX_ATTEMPTS times, the
+	 * admissible nodes are scanned.
+	 * 
+	 * @return selected node (-1 in case there is no admissible node)
+	 */
+	private int selectNodeUsingPref(int n, int exclude1, int exclude2,
+			Random rand) {
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			int node = nodePref.sample(rand);
+			if (node == -1) {
+				break;
+			}
+			if (node < n && node != exclude1 && node != exclude2) {
+				return node;
+			}
+		}
 		double prefSum = 0;
-		for (int i = 0; i <= maxIndex; i++) {
-			prefSum += nodePref[i];
+		for (int i = 0; i < n; i++) {
+			if (i != exclude1 && i != exclude2) {
+				prefSum += nodePref.get(i);
+			}
 		}
-		double r = refRand.nextDouble();
-		double threshold = r * prefSum;
+		double threshold = rand.nextDouble() * prefSum;
 		double sum = 0;
-		for (int i = 0; i <= maxIndex; i++) {
-			sum += nodePref[i];
-			if (sum >= threshold) {
-				return i;
+		int last = -1;
+		for (int i = 0; i < n; i++) {
+			if (i != exclude1 && i != exclude2 && nodePref.get(i) > 0) {
+				sum += nodePref.get(i);
+				last = i;
+				if (sum > threshold) {
+					return i;
+				}
 			}
 		}
-		return (int) (r * maxIndex);
+		return last;
 	}
 
 	private void addEdge(int src, int dst) {
-		for (Point p : this.edgesList) {
-			if ((p.x == src && p.y == dst) || (p.x == dst && p.y == src))
-				return;
+		if (src == -1 || dst == -1
+				|| !edgeSet.add(EdgeSet.pack(Math.min(src, dst),
+						Math.max(src, dst)), edgesList.getEdgeCount())) {
+			return;
 		}
-		edgesList.add(new Point(src, dst));
+		edgesList.add(src, dst);
 		nodeDegree[src]++;
 		nodeDegree[dst]++;
 		updatePreference(src);
@@ -37,17 +37,23 @@ package gtna.networks.model;
 
 import java.util.Random;
 
+import gtna.algorithms.generation.WeightedSampler;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 import gtna.networks.Network;
 import gtna.transformation.Transformation;
-import gtna.util.Timer;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
 /**
+ * Positive-feedback preference model (Zhou and Mondragon): nodes are selected
+ * with probability proportional to k^(1 + DELTA * log10(k)) where k is their
+ * degree. The preferences are kept in a WeightedSampler, so a node is
+ * selected in O(log n) time instead of summing up the preferences of all
+ * nodes.
+ * 
  * @author Tim
  * 
  */
@@ -60,6 +66,9 @@ public class PositiveFeedbackPreference extends Network {
 	private double pER = 0.4; // probability to create an edge in the initial
 								// random network
 
+	// attempts to draw an admissible node before scanning all nodes
+	private static final int MAX_ATTEMPTS = 64;
+
 	/**
 	 * @param nodes
 	 * @param initialsize
@@ -91,106 +100,78 @@ public class PositiveFeedbackPreference extends Network {
 	@Override
 	public Graph generate() {
 		Graph graph = new Graph(this.getDescription());
-		Random rand = new Random(System.currentTimeMillis());
+		Random rand = this.getRandom();
 		Node[] nodes = Node.init(this.getNodes(), graph);
-		Edges edges = new Edges(nodes, INITIAL);
+		int initial = Math.min(INITIAL, nodes.length);
+		Edges edges = new Edges(nodes, initial * initial + 3 * nodes.length);
 
 		int[] nodeDegree = new int[nodes.length];
+		WeightedSampler preference = new WeightedSampler(nodes.length);
 
 		// initial random graph
-		for (int src = 0; src < INITIAL; src++) {
-			for (int dst = 0; dst < INITIAL; dst++) {
+		for (int src = 0; src < initial; src++) {
+			for (int dst = 0; dst < initial; dst++) {
 				if (src == dst) {
 					continue;
 				}
 				if (rand.nextDouble() >= pER) {
-					edges.add(src, dst);
-					nodeDegree[src]++;
-					nodeDegree[dst]++;
+					link(edges, nodeDegree, preference, src, dst);
 				}
 			}
 		}
 
-
 		// grow network to add the missing nodes
-		for (int newNodeIndex = INITIAL; newNodeIndex < nodes.length; newNodeIndex++) {
-
+		for (int newNodeIndex = initial; newNodeIndex < nodes.length; newNodeIndex++) {
 
 			double pi = rand.nextDouble();
-			Timer t = new Timer();
 			if (pi <= 1 - P - Q) {
 				// new node: 2 links to host nodes
 				// 1 of the host nodes: 1 link to a peer
 
 				// add links with the new node
-				int h1 = getNPPNode(nodes, nodeDegree, edges, newNodeIndex, -1,
+				int h1 = getNPPNode(preference, edges, newNodeIndex, -1,
 						newNodeIndex, rand);
-				int h2 = getNPPNode(nodes, nodeDegree, edges, newNodeIndex, h1,
+				link(edges, nodeDegree, preference, newNodeIndex, h1);
+				int h2 = getNPPNode(preference, edges, newNodeIndex, h1,
 						newNodeIndex, rand);
-				edges.add(newNodeIndex, h1);
-				edges.add(newNodeIndex, h2);
-				nodeDegree[newNodeIndex]++;
-				nodeDegree[h1]++;
-				nodeDegree[h2]++;
+				link(edges, nodeDegree, preference, newNodeIndex, h2);
 
 				// add link of one of the host nodes
-				int h = (rand.nextDouble() < 0.5) ? h1 : h2;
-				int peer = getNPPNode(nodes, nodeDegree, edges, newNodeIndex,
-						h, h, rand);
-				edges.add(h, peer);
-				nodeDegree[h]++;
-				nodeDegree[peer]++;
-
-
+				int h = (rand.nextDouble() < 0.5 || h2 == -1) ? h1 : h2;
+				int peer = getNPPNode(preference, edges, newNodeIndex, h, h,
+						rand);
+				link(edges, nodeDegree, preference, h, peer);
 
 			} else if (pi <= 1 - P) {
 				// new node: 1 link to a host node
 				// host node: 2 links to peers
 
 				// add link with the new node
-				int h = getNPPNode(nodes, nodeDegree, edges, newNodeIndex, -1,
+				int h = getNPPNode(preference, edges, newNodeIndex, -1,
 						newNodeIndex, rand);
-				edges.add(newNodeIndex, h);
-				nodeDegree[newNodeIndex]++;
-				nodeDegree[h]++;
+				link(edges, nodeDegree, preference, newNodeIndex, h);
 
-				int peer1 = -1;
-				int peer2 = -1;
 				// add 2 links of the host node
 				for (int j = 0; j < 2; j++) {
-					int peer = getNPPNode(nodes, nodeDegree, edges,
-							newNodeIndex, h, h, rand);
-					if (j == 0)
-						peer1 = peer;
-					else
-						peer2 = peer; // TODO
-					edges.add(h, peer);
-					nodeDegree[h]++;
-					nodeDegree[peer]++;
+					int peer = getNPPNode(preference, edges, newNodeIndex, h,
+							h, rand);
+					link(edges, nodeDegree, preference, h, peer);
 				}
 
-			} else if (pi <= 1) {
+			} else {
 				// new node: 1 link to a host node
 				// host node: 1 links to a peer
 
 				// add link with the new node
-				int h = getNPPNode(nodes, nodeDegree, edges, newNodeIndex, -1,
+				int h = getNPPNode(preference, edges, newNodeIndex, -1,
 						newNodeIndex, rand);
-				edges.add(newNodeIndex, h);
-				nodeDegree[newNodeIndex]++;
-				nodeDegree[h]++;
+				link(edges, nodeDegree, preference, newNodeIndex, h);
 
 				// add link of the host node
-				int peer = getNPPNode(nodes, nodeDegree, edges, newNodeIndex,
-						h, h, rand);
-				edges.add(h, peer);
-				nodeDegree[h]++;
-				nodeDegree[peer]++;
-
-
+				int peer = getNPPNode(preference, edges, newNodeIndex, h, h,
+						rand);
+				link(edges, nodeDegree, preference, h, peer);
 			}
-			t.end();
-
 		}
 
 		edges.fill();
@@ -199,40 +180,60 @@ public class PositiveFeedbackPreference extends Network {
 	}
 
 	/**
-	 * @param nodes
-	 * @param maxId
-	 * @param h1
-	 * @return
+	 * Adds the edge (src, dst) and updates the preferences of both nodes.
+	 * Nothing is done in case one of them is -1 (no node could be selected).
 	 */
-	private int getNPPNode(Node[] nodes, int[] degrees, Edges e, int maxId,
-			int ignoreNode, int srcNode, Random rng) {
+	private void link(Edges edges, int[] degrees, WeightedSampler preference,
+			int src, int dst) {
+		if (src == -1 || dst == -1 || !edges.add(src, dst)) {
+			return;
+		}
+		degrees[src]++;
+		degrees[dst]++;
+		preference.set(src, Math.pow(degrees[src], calcExponent(degrees[src])));
+		preference.set(dst, Math.pow(degrees[dst], calcExponent(degrees[dst])));
+	}
 
-		
-		int npp = -1;
+	/**
+	 * Selects a node from [0, maxId) with probability proportional to its
+	 * preference k^(1 + DELTA * log10(k)), excluding ignoreNode and the nodes
+	 * srcNode is already connected to. Candidates are drawn from the
+	 * WeightedSampler until an admissible one is found; only in case this
+	 * fails MAX_ATTEMPTS times, the admissible nodes are scanned.
+	 * 
+	 * @return selected node (-1 in case there is no admissible node)
+	 */
+	private int getNPPNode(WeightedSampler preference, Edges e, int maxId,
+			int ignoreNode, int srcNode, Random rng) {
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			int k = preference.sample(rng);
+			if (k == -1) {
+				break;
+			}
+			if (k < maxId && k != ignoreNode && !e.contains(srcNode, k)) {
+				return k;
+			}
+		}
 
 		double sumK = 0;
-
-		for (int j = 0; j < maxId; j++) {
-			int kj = degrees[j];
-			sumK += Math.pow(kj, calcExponent(kj));
+		for (int k = 0; k < maxId; k++) {
+			if (k != ignoreNode && !e.contains(srcNode, k)) {
+				sumK += preference.get(k);
+			}
 		}
-
+		double takeNode = rng.nextDouble() * sumK;
 		double sumK2 = 0;
-
-		while (npp < 0) {
-			double takeNode = rng.nextDouble();
-			for (int k = 0; k < maxId; k++) {
-
-				int kj = degrees[k];
-				sumK2 += Math.pow(kj, calcExponent(kj)) / sumK;
-
-				if (sumK2 > takeNode && k != ignoreNode
-						&& !e.contains(srcNode, k)) {
-					return npp = k;
+		int npp = -1;
+		for (int k = 0; k < maxId; k++) {
+			if (k != ignoreNode && preference.get(k) > 0
+					&& !e.contains(srcNode, k)) {
+				sumK2 += preference.get(k);
+				npp = k;
+				if (sumK2 > takeNode) {
+					return npp;
 				}
 			}
 		}
-		// should not be reachable!
 		return npp;
 	}
 
@@ -33,13 +33,15 @@
  */
 package gtna.networks.model.placementmodels.connectors;
 
+import gtna.algorithms.spatial.SpatialEdges;
+import gtna.algorithms.spatial.SpatialIndex;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
-import gtna.id.DoubleIdentifier;
-import gtna.id.DoublePartition;
 import gtna.id.plane.PlaneIdentifierSpaceSimple;
 import gtna.networks.model.placementmodels.NodeConnectorImpl;
+import gtna.util.Parallel;
+import gtna.util.Util;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.Parameter;
 
@@ -59,6 +61,11 @@ import java.util.Random;
  */
 public class LogDistanceConnector extends NodeConnectorImpl {
 
+	// the gaussian term is assumed to never exceed SIGMAS * sigma, which
+	// limits the distance of nodes that can be connected (the probability of
+	// exceeding 8 standard deviations is below 10^-15)
+	private static final double SIGMAS = 8;
+
 	private double range;
 	private double gamma;
 	private double d0;
@@ -100,26 +107,30 @@ public class LogDistanceConnector extends NodeConnectorImpl {
 	 * . If the resulting value is smaller or equal to <code>range</code> the
 	 * nodes are connected, otherwise they are not connected.
 	 * 
+	 * Only pairs whose distance is at most
+	 * <code>d0 * 10^((range + 8 * sigma) / (10 * gamma))</code> are
+	 * considered.
 	 */
 	@Override
 	public Edges connect(Node[] nodes, PlaneIdentifierSpaceSimple ids, Graph g) {
-		Random rnd = new Random();
-		Edges edges = new Edges(nodes, nodes.length * (nodes.length - 1));
-		double dist;
-		for (int i = 0; i < nodes.length; i++) {
-			for (int j = 0; j < nodes.length; j++) {
-				if (i == j)
-					continue;
-				dist = 10
-						* gamma
-						* Math.log10(((DoublePartition) ids.getPartitions()[i])
-								.distance((DoubleIdentifier) ids.getPartitions()[j]
-										.getRepresentativeIdentifier())
-								/ d0) + rnd.nextGaussian() * sigma;
-				if (dist < range)
-					edges.add(i, j);
-			}
+		double radius = Double.POSITIVE_INFINITY;
+		if (gamma > 0 && d0 > 0) {
+			radius = Math.pow(10, (range + SIGMAS * Math.abs(sigma))
+					/ (10 * gamma))
+					* d0;
 		}
+		SpatialIndex index = SpatialIndex.create(ids, radius);
+		Edges edges = SpatialEdges.create(nodes, index, radius,
+				new SpatialEdges.Rule() {
+					@Override
+					public boolean connect(int src, int dst, double distance,
+							Random rnd) {
+						double dist = 10 * gamma * Math.log10(distance / d0)
+								+ rnd.nextGaussian() * sigma;
+						return dist < range;
+					}
+				}, Parallel.getThreads("PARALLEL_TRANSFORMATIONS"),
+				Util.getRandom("NETWORK_SEED").nextLong());
 
 		// As the distance calculation for this connector involves a random
 		// element, establishing a reliable minimum distance is not that easy.
@@ -33,16 +33,20 @@
  */
 package gtna.networks.model.placementmodels.connectors;
 
+import gtna.algorithms.spatial.SpatialEdges;
+import gtna.algorithms.spatial.SpatialIndex;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
-import gtna.id.DoubleIdentifier;
-import gtna.id.DoublePartition;
 import gtna.id.plane.PlaneIdentifierSpaceSimple;
 import gtna.networks.model.placementmodels.NodeConnectorImpl;
+import gtna.util.Parallel;
+import gtna.util.Util;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.Parameter;
 
+import java.util.Random;
+
 /**
  * A <code>QUDGConnector</code> connects nodes based on their distance. If the
  * distance is smaller than or equal to <code>range1</code>, they will always
@@ -92,21 +96,19 @@ public class QUDGConnector extends NodeConnectorImpl {
 	@Override
 	public Edges connect(Node[] nodes, PlaneIdentifierSpaceSimple ids, Graph g) {
 
-		Edges edges = new Edges(nodes, nodes.length * (nodes.length - 1));
-		double dist;
-		for (int i = 0; i < nodes.length; i++) {
-			for (int j = 0; j < nodes.length; j++) {
-				if (i == j)
-					continue;
-				dist = ((DoublePartition) ids.getPartitions()[i])
-						.distance((DoubleIdentifier) ids.getPartitions()[j]
-								.getRepresentativeIdentifier());
-				if (dist <= range1)
-					edges.add(i, j);
-				else if (dist <= range2 && Math.random() < perc)
-					edges.add(i, j);
-			}
-		}
+		double radius = Math.max(range1, range2);
+		SpatialIndex index = SpatialIndex.create(ids, radius);
+		Edges edges = SpatialEdges.create(nodes, index, radius,
+				new SpatialEdges.Rule() {
+					@Override
+					public boolean connect(int src, int dst, double dist,
+							Random rand) {
+						if (dist <= range1)
+							return true;
+						return dist <= range2 && rand.nextDouble() < perc;
+					}
+				}, Parallel.getThreads("PARALLEL_TRANSFORMATIONS"),
+				Util.getRandom("NETWORK_SEED").nextLong());
 
 		g.addProperty("RANGE_0", new RangeProperty(range1, nodes.length));
 
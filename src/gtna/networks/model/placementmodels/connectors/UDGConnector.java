@@ -33,13 +33,14 @@
  */
 package gtna.networks.model.placementmodels.connectors;
 
+import gtna.algorithms.spatial.SpatialEdges;
+import gtna.algorithms.spatial.SpatialIndex;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
-import gtna.id.DoubleIdentifier;
-import gtna.id.DoublePartition;
 import gtna.id.plane.PlaneIdentifierSpaceSimple;
 import gtna.networks.model.placementmodels.NodeConnectorImpl;
+import gtna.util.Parallel;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.Parameter;
 
@@ -75,18 +76,10 @@ public class UDGConnector extends NodeConnectorImpl {
 	@Override
 	public Edges connect(Node[] nodes, PlaneIdentifierSpaceSimple ids, Graph g) {
 
-		Edges edges = new Edges(nodes, nodes.length * (nodes.length - 1));
-
-		for (int i = 0; i < nodes.length; i++) {
-			for (int j = 0; j < nodes.length; j++) {
-				if (i != j
-						&& ((DoublePartition) ids.getPartitions()[i])
-								.distance((DoubleIdentifier) ids.getPartitions()[j]
-										.getRepresentativeIdentifier()) <= range) {
-					edges.add(i, j);
-				}
-			}
-		}
+		SpatialIndex index = SpatialIndex.create(ids, range);
+		Edges edges = SpatialEdges.create(nodes, index, range,
+				SpatialEdges.ALL,
+				Parallel.getThreads("PARALLEL_TRANSFORMATIONS"), 0);
 
 		g.addProperty("RANGE_0", new RangeProperty(range, nodes.length));
 
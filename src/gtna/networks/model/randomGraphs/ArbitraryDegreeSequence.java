@@ -35,6 +35,7 @@
  */
 package gtna.networks.model.randomGraphs;
 
+import gtna.algorithms.generation.StubMatcher;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
@@ -44,14 +45,18 @@ import gtna.util.parameter.BooleanParameter;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.StringParameter;
 
-import java.util.Arrays;
 import java.util.Random;
-import java.util.Vector;
 
 /**
  * @author stef create an undirected graph with a arbitrary degree sequence
+ * 
+ *         The stubs are matched by the StubMatcher (configuration model) in
+ *         O(m), loops are removed and multi-edges are merged.
  */
 public class ArbitraryDegreeSequence extends Network {
+	// restarts of the matching in case a loop cannot be removed
+	private static final int MAX_RESTARTS = 1000;
+
 	int[] sequence;
 	int[] sequenceIn;
 	int[] sequenceOut;
@@ -104,7 +109,7 @@ public class ArbitraryDegreeSequence extends Network {
 		} else {
 			this.sequence = new int[nodes.length];
 			for (int i = 0; i < nodes.length; i++) {
-				this.sequenceIn[i] = nodes[i].getInDegree();
+				this.sequence[i] = nodes[i].getInDegree();
 			}
 		}
 	}
@@ -140,45 +145,13 @@ public class ArbitraryDegreeSequence extends Network {
 
 	private Graph generateUndirected() {
 		Graph graph = new Graph(this.getDescription());
-		Random rand = new Random(System.currentTimeMillis());
+		Random rand = this.getRandom();
 		Node[] nodes = Node.init(this.getNodes(), graph);
-		int sum = 0;
-		for (int j = 0; j < sequence.length; j++) {
-			sum = sum + sequence[j];
-		}
-		Edges edges = new Edges(nodes, sum);
-		Vector<Integer> stubs = new Vector<Integer>();
-		Arrays.sort(sequence);
-		for (int i = 0; i < sequence.length; i++) {
-			for (int j = 0; j < sequence[sequence.length - i - 1]; j++) {
-				stubs.add(sequence.length - i - 1);
-			}
-		}
-		int k = 0;
-		int src, dst;
-		Vector<Integer> cStubs = (Vector<Integer>) stubs.clone();
-		while (k < 1000 && stubs.size() > 1) {
-			src = stubs.remove(0);
-			int med = rand.nextInt(stubs.size());
-			dst = stubs.remove(med);
-			int t = 0;
-			while (t < 1000 && src == dst) {
-				stubs.add(med, dst);
-				t++;
-				med = rand.nextInt(stubs.size());
-				dst = stubs.remove(med);
-			}
-			if (src == dst) {
-				k++;
-				stubs = cStubs;
-			} else {
-				edges.add(src, dst);
-				edges.add(dst, src);
-			}
-		}
-		if (stubs.size() > 0) {
-			throw new IllegalArgumentException(
-					"Graph construction not possible");
+		int[] stubs = StubMatcher.match(this.sequence, rand, MAX_RESTARTS);
+		Edges edges = new Edges(nodes, stubs.length, true);
+		for (int i = 0; i < stubs.length; i += 2) {
+			edges.add(stubs[i], stubs[i + 1]);
+			edges.add(stubs[i + 1], stubs[i]);
 		}
 		edges.fill();
 		graph.setNodes(nodes);
@@ -187,33 +160,12 @@ public class ArbitraryDegreeSequence extends Network {
 
 	private Graph generateDirected() {
 		Graph graph = new Graph(this.getDescription());
-		Random rand = new Random(System.currentTimeMillis());
+		Random rand = this.getRandom();
 		Node[] nodes = Node.init(this.getNodes(), graph);
-		int sum = 0;
-		for (int j = 0; j < this.sequenceIn.length; j++) {
-			sum = sum + this.sequenceIn[j];
-		}
-		Edges edges = new Edges(nodes, sum);
-		Vector<Integer> stubsOut = new Vector<Integer>(sum);
-		Vector<Integer> stubsIn = new Vector<Integer>(sum);
-		for (int i = 0; i < this.sequenceOut.length; i++) {
-			for (int j = 0; j < this.sequenceOut[i]; j++) {
-				stubsOut.add(i);
-			}
-			for (int j = 0; j < this.sequenceIn[i]; j++) {
-				stubsIn.add(i);
-			}
-		}
-		if (stubsIn.size() != stubsOut.size()) {
-			throw new IllegalArgumentException(
-					"Graph construction not possible");
-		}
-		int src, dst;
-		while (stubsIn.size() > 0 && stubsOut.size() > 0) {
-			src = stubsOut.remove(stubsOut.size() - 1);
-			dst = stubsIn.remove(rand.nextInt(stubsIn.size()));
-			edges.add(src, dst);
-		}
+		int[][] stubs = StubMatcher.matchDirected(this.sequenceOut,
+				this.sequenceIn, rand);
+		Edges edges = new Edges(nodes, stubs[0].length, true);
+		edges.addAll(stubs[0], stubs[1], stubs[0].length);
 		edges.fill();
 		graph.setNodes(nodes);
 		return graph;
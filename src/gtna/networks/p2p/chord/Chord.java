@@ -121,36 +121,39 @@ public class Chord extends Network {
 
 		ChordIdentifierSpace idSpace = (ChordIdentifierSpace) graph
 				.getProperty("ID_SPACE_0");
-		ChordPartition[] partitions = (ChordPartition[]) idSpace
-				.getPartitions();
+		ChordIndex index = new ChordIndex(idSpace);
 
 		int[] successors = new int[nodes.length];
-		Edges edges = new Edges(nodes, nodes.length * this.bits);
-		for (Node node : nodes) {
-			ChordPartition p = partitions[node.getIndex()];
-			BigInteger id = ((ChordIdentifier) p.getRepresentativeIdentifier()).position;
-			// BigInteger predID = p.getPred().getId();
-			BigInteger succID = id.add(BigInteger.ONE).mod(idSpace.modulus);
-
-			// int predIndex = this.find(partitions, p.getPred(),
-			// node.getIndex());
-			successors[node.getIndex()] = this.find(partitions,
-					new ChordIdentifier(succID, this.bits), node.getIndex());
-
-			BigInteger add = BigInteger.ONE;
-			int[] fingerIndex = new int[this.bits];
-			BigInteger[] fingerID = new BigInteger[this.bits];
-			for (int i = 0; i < this.bits; i++) {
-				fingerID[i] = id.add(add).mod(idSpace.getModulus());
-				fingerIndex[i] = this.find(partitions, new ChordIdentifier(
-						fingerID[i], this.bits), node.getIndex());
-				add = add.shiftLeft(1);
+		int[] fingers = new int[nodes.length * this.bits];
+		if (index.isLong()) {
+			long mask = this.bits == 0 ? 0 : -1L >>> (64 - this.bits);
+			for (int n = 0; n < nodes.length; n++) {
+				long id = index.getPosition(n);
+				for (int i = 0; i < this.bits; i++) {
+					fingers[n * this.bits + i] = index
+							.getResponsibleNode((id + (1L << i)) & mask);
+				}
+				successors[n] = index.getResponsibleNode((id + 1) & mask);
 			}
+		} else {
+			BigInteger modulus = idSpace.getModulus();
+			for (int n = 0; n < nodes.length; n++) {
+				BigInteger id = index.getBigPosition(n);
+				BigInteger add = BigInteger.ONE;
+				for (int i = 0; i < this.bits; i++) {
+					fingers[n * this.bits + i] = index.getResponsibleNode(id
+							.add(add).mod(modulus));
+					add = add.shiftLeft(1);
+				}
+				successors[n] = fingers[n * this.bits];
+			}
+		}
 
-			// edges.add(node.getIndex(), predIndex);
-			edges.add(node.getIndex(), successors[node.getIndex()]);
-			for (int finger : fingerIndex) {
-				edges.add(node.getIndex(), finger);
+		Edges edges = new Edges(nodes, nodes.length * this.bits);
+		for (int n = 0; n < nodes.length; n++) {
+			edges.add(n, successors[n]);
+			for (int i = 0; i < this.bits; i++) {
+				edges.add(n, fingers[n * this.bits + i]);
 			}
 		}
 
@@ -165,12 +168,4 @@ public class Chord extends Network {
 		return graph;
 	}
 
-	private int find(ChordPartition[] partitions, ChordIdentifier id, int start) {
-		int index = start;
-		while (!partitions[index].contains(id)) {
-			index = (index + 1) % partitions.length;
-		}
-		return index;
-	}
-
 }
@@ -37,6 +37,7 @@ package gtna.networks.p2p.chord;
 
 import gtna.id.BigIntegerIdentifierSpace;
 import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
 import gtna.io.Filereader;
 import gtna.io.Filewriter;
 
@@ -80,6 +81,11 @@ public class ChordIdentifierSpace extends BigIntegerIdentifierSpace {
 		return new ChordIdentifier(new BigInteger(this.bits, rand), this.bits);
 	}
 
+	@Override
+	public IdentifierIndex createIndex() {
+		return new ChordIndex(this);
+	}
+
 	/**
 	 * @return the bits
 	 */
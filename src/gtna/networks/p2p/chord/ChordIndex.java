@@ -0,0 +1,224 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * ChordIndex.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.networks.p2p.chord;
+
+import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
+import gtna.id.Partition;
+
+import java.math.BigInteger;
+
+/**
+ * IdentifierIndex for the partitions (start, end] of a Chord identifier
+ * space, each represented by its end. The partitions are expected to cover
+ * the identifier space without overlap (as created by RandomChordIDSpace) so
+ * that the node responsible for an identifier is the one with the next
+ * larger or equal end, i.e., its successor on the ring.
+ *
+ * For identifier spaces of at most 63 bits, all positions are stored and
+ * compared as long values, BigInteger is only used for larger spaces.
+ */
+public class ChordIndex extends IdentifierIndex {
+	/**
+	 * maximum number of bits for which positions are stored as long
+	 */
+	public static final int MAX_LONG_BITS = 63;
+
+	private int bits;
+
+	// positions as long (bits <= MAX_LONG_BITS)
+
+	private long[] start;
+
+	private long[] end;
+
+	private long[] sorted;
+
+	// positions as BigInteger (bits > MAX_LONG_BITS)
+
+	private BigInteger[] bigStart;
+
+	private BigInteger[] bigEnd;
+
+	private BigInteger[] bigSorted;
+
+	public ChordIndex(Partition[] partitions, int bits) {
+		super(partitions);
+		this.bits = bits;
+		int n = partitions.length;
+		if (this.isLong()) {
+			this.start = new long[n];
+			this.end = new long[n];
+			for (int i = 0; i < n; i++) {
+				ChordPartition p = (ChordPartition) partitions[i];
+				this.start[i] = p.start.position.longValue();
+				this.end[i] = p.end.position.longValue();
+			}
+			this.sort();
+			this.sorted = new long[n];
+			for (int i = 0; i < n; i++) {
+				this.sorted[i] = this.end[this.nodes[i]];
+			}
+		} else {
+			this.bigStart = new BigInteger[n];
+			this.bigEnd = new BigInteger[n];
+			for (int i = 0; i < n; i++) {
+				ChordPartition p = (ChordPartition) partitions[i];
+				this.bigStart[i] = p.start.position;
+				this.bigEnd[i] = p.end.position;
+			}
+			this.sort();
+			this.bigSorted = new BigInteger[n];
+			for (int i = 0; i < n; i++) {
+				this.bigSorted[i] = this.bigEnd[this.nodes[i]];
+			}
+		}
+	}
+
+	public ChordIndex(ChordIdentifierSpace idSpace) {
+		this(idSpace.getPartitions(), idSpace.getBits());
+	}
+
+	/**
+	 * @return true if positions are stored as long values
+	 */
+	public boolean isLong() {
+		return this.bits <= MAX_LONG_BITS;
+	}
+
+	/**
+	 * @return number of bits of the identifier space
+	 */
+	public int getBits() {
+		return this.bits;
+	}
+
+	@Override
+	protected int compare(int a, int b) {
+		int c;
+		if (this.isLong()) {
+			c = this.end[a] < this.end[b] ? -1 : (this.end[a] > this.end[b] ? 1
+					: 0);
+		} else {
+			c = this.bigEnd[a].compareTo(this.bigEnd[b]);
+		}
+		return c != 0 ? c : a - b;
+	}
+
+	/**
+	 * @param pos
+	 *            position in [0, 2^bits), bits <= MAX_LONG_BITS
+	 * @return index of the node whose partition contains the given position
+	 */
+	public int getResponsibleNode(long pos) {
+		int low = 0;
+		int high = this.sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.sorted[middle] < pos) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return this.nodes[low == this.sorted.length ? 0 : low];
+	}
+
+	/**
+	 * @param pos
+	 *            position in [0, 2^bits)
+	 * @return index of the node whose partition contains the given position
+	 */
+	public int getResponsibleNode(BigInteger pos) {
+		if (this.isLong()) {
+			return this.getResponsibleNode(pos.longValue());
+		}
+		int low = 0;
+		int high = this.bigSorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.bigSorted[middle].compareTo(pos) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return this.nodes[low == this.bigSorted.length ? 0 : low];
+	}
+
+	@Override
+	public int getResponsibleNode(Identifier id) {
+		return this.getResponsibleNode(((ChordIdentifier) id).position);
+	}
+
+	@Override
+	public boolean isResponsible(int node, Identifier id) {
+		BigInteger position = ((ChordIdentifier) id).position;
+		if (this.isLong()) {
+			long s = this.start[node];
+			long e = this.end[node];
+			long pos = position.longValue();
+			if (s < e) {
+				return s < pos && pos <= e;
+			}
+			return s < pos || pos <= e;
+		}
+		BigInteger s = this.bigStart[node];
+		BigInteger e = this.bigEnd[node];
+		if (s.compareTo(e) < 0) {
+			return s.compareTo(position) < 0 && position.compareTo(e) <= 0;
+		}
+		return s.compareTo(position) < 0 || position.compareTo(e) <= 0;
+	}
+
+	/**
+	 * @param node
+	 * @return position of the node's representative identifier (bits <=
+	 *         MAX_LONG_BITS)
+	 */
+	public long getPosition(int node) {
+		return this.end[node];
+	}
+
+	/**
+	 * @param node
+	 * @return position of the node's representative identifier
+	 */
+	public BigInteger getBigPosition(int node) {
+		return this.isLong() ? BigInteger.valueOf(this.end[node])
+				: this.bigEnd[node];
+	}
+}
@@ -36,7 +36,7 @@
 package gtna.networks.util;
 
 import gtna.graph.Graph;
-import gtna.io.graphReader.GtnaGraphReader;
+import gtna.io.graphReader.GraphReader;
 import gtna.networks.Network;
 import gtna.transformation.Transformation;
 import gtna.util.Config;
@@ -65,7 +65,7 @@ public class ReadableFile extends Network {
 
 	public ReadableFile(String name, String folder, String filename,
 			Parameter[] parameters, Transformation[] t) {
-		super(ReadableFile.key(folder, name), new GtnaGraphReader()
+		super(ReadableFile.key(folder, name), GraphReader.getReader(filename)
 				.nodes(filename), parameters, t);
 		this.filename = filename;
 		for (Parameter p : parameters) {
@@ -90,7 +90,8 @@ public class ReadableFile extends Network {
 	}
 
 	public Graph generate() {
-		Graph graph = new GtnaGraphReader().readWithProperties(this.filename);
+		Graph graph = GraphReader.getReader(this.filename).readWithProperties(
+				this.filename);
 		graph.setName(this.getDescription());
 		return graph;
 	}
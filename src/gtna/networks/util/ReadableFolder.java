@@ -36,7 +36,7 @@
 package gtna.networks.util;
 
 import gtna.graph.Graph;
-import gtna.io.graphReader.GtnaGraphReader;
+import gtna.io.graphReader.GraphReader;
 import gtna.networks.Network;
 import gtna.transformation.Transformation;
 import gtna.util.Config;
@@ -81,8 +81,9 @@ public class ReadableFolder extends Network {
 		if (this.files.length == 0) {
 			return null;
 		}
-		Graph graph = new GtnaGraphReader()
-				.readWithProperties(this.files[this.index].getAbsolutePath());
+		String filename = this.files[this.index].getAbsolutePath();
+		Graph graph = GraphReader.getReader(filename).readWithProperties(
+				filename);
 		graph.setName(this.getDescription());
 		this.incIndex();
 		return graph;
@@ -97,7 +98,8 @@ public class ReadableFolder extends Network {
 		if (f.length == 0) {
 			return 0;
 		}
-		return new GtnaGraphReader().nodes(f[0].getAbsolutePath());
+		return GraphReader.getReader(f[0].getAbsolutePath()).nodes(
+				f[0].getAbsolutePath());
 	}
 
 	public static String key(String folder, String name) {
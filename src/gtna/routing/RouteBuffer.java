@@ -0,0 +1,168 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * RouteBuffer.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.routing;
+
+import java.util.Arrays;
+
+/**
+ * Re-usable buffers for computing a single route iteratively. The nodes of
+ * the route are stored in a growing int array and nodes are marked as visited
+ * using the number of the current route (epoch stamp), i.e., neither the path
+ * nor the visited set has to be allocated or cleared for every route. Along
+ * with the visited mark, the node it has been reached from can be stored.
+ *
+ * Every thread owns a single buffer (get(nodes)), hence a routing algorithm
+ * must not compute another route (e.g., of a sub-algorithm) while it is still
+ * using the buffer. The Route returned by toRoute is a trimmed copy of the
+ * path.
+ */
+public class RouteBuffer {
+	private static final ThreadLocal<RouteBuffer> buffers = new ThreadLocal<RouteBuffer>() {
+		@Override
+		protected RouteBuffer initialValue() {
+			return new RouteBuffer();
+		}
+	};
+
+	private int[] path;
+
+	private int size;
+
+	private int[] stamp;
+
+	private int[] previous;
+
+	private int epoch;
+
+	private RouteBuffer() {
+		this.path = new int[16];
+		this.size = 0;
+		this.stamp = new int[0];
+		this.previous = new int[0];
+		this.epoch = 0;
+	}
+
+	/**
+	 * @param nodes
+	 *            number of nodes of the graph
+	 * @return the empty buffer of the current thread
+	 */
+	public static RouteBuffer get(int nodes) {
+		RouteBuffer buffer = buffers.get();
+		buffer.reset(nodes);
+		return buffer;
+	}
+
+	private void reset(int nodes) {
+		if (this.stamp.length < nodes) {
+			this.stamp = new int[nodes];
+			this.previous = new int[nodes];
+			this.epoch = 0;
+		}
+		if (++this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.stamp, 0);
+			this.epoch = 1;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * Appends the given node to the path.
+	 *
+	 * @param node
+	 */
+	public void add(int node) {
+		if (this.size == this.path.length) {
+			this.path = Arrays.copyOf(this.path, this.path.length * 2);
+		}
+		this.path[this.size++] = node;
+	}
+
+	/**
+	 * @return number of nodes on the path
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @param index
+	 * @return node at the given position of the path
+	 */
+	public int getNode(int index) {
+		return this.path[index];
+	}
+
+	/**
+	 * @param node
+	 * @return true if the node has been marked as visited for this route
+	 */
+	public boolean isVisited(int node) {
+		return this.stamp[node] == this.epoch;
+	}
+
+	/**
+	 * Marks the node as visited.
+	 *
+	 * @param node
+	 * @param previous
+	 *            node from which it has been reached (-1 for none)
+	 */
+	public void visit(int node, int previous) {
+		this.stamp[node] = this.epoch;
+		this.previous[node] = previous;
+	}
+
+	/**
+	 * @param node
+	 * @return node from which the given node has been reached, -1 if there is
+	 *         none or the node has not been visited
+	 */
+	public int getPrevious(int node) {
+		if (this.stamp[node] != this.epoch) {
+			return -1;
+		}
+		return this.previous[node];
+	}
+
+	/**
+	 * @param successful
+	 * @return Route consisting of a copy of the current path
+	 */
+	public Route toRoute(boolean successful) {
+		return new Route(Arrays.copyOf(this.path, this.size), successful);
+	}
+}
@@ -37,6 +37,7 @@ package gtna.routing;
 
 import gtna.graph.Graph;
 import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
 import gtna.id.IdentifierSpace;
 import gtna.id.data.DataStoreList;
 import gtna.util.parameter.Parameter;
@@ -56,6 +57,9 @@ public abstract class RoutingAlgorithm extends ParameterList {
 
 	protected IdentifierSpace identifierSpace;
 
+	// index of identifierSpace (null if not supported)
+	protected IdentifierIndex identifierIndex;
+
 	protected DataStoreList dataStorageList;
 
 	public RoutingAlgorithm(String key) {
@@ -103,6 +107,7 @@ public abstract class RoutingAlgorithm extends ParameterList {
 		if (graph.hasProperty("ID_SPACE_0", IdentifierSpace.class)) {
 			this.identifierSpace = (IdentifierSpace) graph
 					.getProperty("ID_SPACE_0");
+			this.identifierIndex = this.identifierSpace.createIndex();
 		}
 		if (graph.hasProperty("DATA_STORAGE_0", DataStoreList.class)) {
 			this.dataStorageList = (DataStoreList) graph
@@ -110,6 +115,17 @@ public abstract class RoutingAlgorithm extends ParameterList {
 		}
 	}
 
+	/**
+	 * Checks if routeToTarget can be called concurrently by several threads
+	 * after the pre-processing, i.e., if the routing does not modify the
+	 * state of the algorithm or the graph.
+	 *
+	 * @return true if routes can be computed in parallel, false otherwise
+	 */
+	public boolean isParallelizable() {
+		return false;
+	}
+
 	public boolean hasDataItem(int node, Identifier id) {
 		if (this.dataStorageList == null) {
 			return false;
@@ -121,6 +137,9 @@ public abstract class RoutingAlgorithm extends ParameterList {
 		if (this.identifierSpace == null) {
 			return false;
 		}
+		if (this.identifierIndex != null) {
+			return this.identifierIndex.isResponsible(node, id);
+		}
 		return this.identifierSpace.getPartitions()[node].contains(id);
 	}
 
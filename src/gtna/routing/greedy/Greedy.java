@@ -49,6 +49,7 @@ import gtna.networks.Network;
 import gtna.networks.util.ReadableFile;
 import gtna.plot.Plotting;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.routing.routingTable.CcnRouting;
 import gtna.routing.selection.source.ConsecutiveSourceSelection;
@@ -62,7 +63,6 @@ import gtna.transformation.id.node.NodeIdsRoutingTable;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -86,29 +86,35 @@ public class Greedy extends RoutingAlgorithm {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		return this.route(new ArrayList<Integer>(), start, target, rand,
-				graph.getNodes());
-	}
-
-	private Route route(ArrayList<Integer> route, int current,
-			Identifier target, Random rand, Node[] nodes) {
-		route.add(current);
+		Node[] nodes = graph.getNodes();
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
 
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
 
-		int closest = target.getClosestNode(nodes[current].getOutgoingEdges(),
-				this.identifierSpace.getPartitions());
-		if (!target.isCloser(this.identifierSpace.getPartition(closest),
-				this.identifierSpace.getPartition(current))) {
-			return new Route(route, false);
+			int closest = target.getClosestNode(
+					nodes[current].getOutgoingEdges(),
+					this.identifierSpace.getPartitions());
+			if (closest == -1
+					|| !target.isCloser(
+							this.identifierSpace.getPartition(closest),
+							this.identifierSpace.getPartition(current))) {
+				return route.toRoute(false);
+			}
+			current = closest;
 		}
+	}
 
-		return this.route(route, closest, target, rand, nodes);
+	@Override
+	public boolean isParallelizable() {
+		return true;
 	}
 
 	@Override
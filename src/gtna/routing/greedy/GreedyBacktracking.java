@@ -40,12 +40,11 @@ import gtna.graph.Node;
 import gtna.id.DoubleIdentifierSpace;
 import gtna.id.Identifier;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Random;
 
 /**
@@ -70,35 +69,69 @@ public class GreedyBacktracking extends RoutingAlgorithm {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		return this.route(new ArrayList<Integer>(), start, target, rand,
-				graph.getNodes(), new HashMap<Integer, Integer>());
-	}
+		Node[] nodes = graph.getNodes();
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		route.visit(start, -1);
+		int current = start;
+		while (true) {
+			route.add(current);
+
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
 
-	private Route route(ArrayList<Integer> route, int current,
-			Identifier target, Random rand, Node[] nodes,
-			HashMap<Integer, Integer> from) {
-		route.add(current);
+			int closest = this.getClosestUnvisited(nodes[current], target,
+					route);
+			if (closest == -1
+					|| !target.isCloser(
+							this.identifierSpace.getPartition(closest),
+							this.identifierSpace.getPartition(current))) {
+				if (route.getPrevious(current) != -1) {
+					current = route.getPrevious(current);
+					continue;
+				}
+				return route.toRoute(false);
+			}
 
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
+			route.visit(closest, current);
+			current = closest;
 		}
+	}
 
-		int closest = target.getClosestNode(nodes[current].getOutgoingEdges(),
+	/**
+	 * Nodes that have already been visited are skipped since returning to
+	 * them would only repeat the same detour over and over again.
+	 *
+	 * @return the out-neighbor of the node that has not been visited yet and
+	 *         is closest to the target, -1 if there is none
+	 */
+	private int getClosestUnvisited(Node node, Identifier target,
+			RouteBuffer route) {
+		int closest = target.getClosestNode(node.getOutgoingEdges(),
 				this.identifierSpace.getPartitions());
-		if (!target.isCloser(this.identifierSpace.getPartition(closest),
-				this.identifierSpace.getPartition(current))) {
-			if (from.containsKey(current)) {
-				return this.route(route, from.get(current), target, rand,
-						nodes, from);
+		if (closest == -1 || !route.isVisited(closest)) {
+			return closest;
+		}
+		closest = -1;
+		for (int out : node.getOutgoingEdges()) {
+			if (route.isVisited(out)) {
+				continue;
+			}
+			if (closest == -1
+					|| target.isCloser(this.identifierSpace.getPartition(out),
+							this.identifierSpace.getPartition(closest))) {
+				closest = out;
 			}
-			return new Route(route, false);
 		}
+		return closest;
+	}
 
-		from.put(closest, current);
-		return this.route(route, closest, target, rand, nodes, from);
+	@Override
+	public boolean isParallelizable() {
+		return true;
 	}
 
 	@Override
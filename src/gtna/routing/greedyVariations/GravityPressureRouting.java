@@ -11,12 +11,12 @@ import gtna.id.DIdentifierSpace;
 import gtna.id.DPartition;
 import gtna.id.Identifier;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -55,53 +55,62 @@ public class GravityPressureRouting extends RoutingAlgorithm {
 			Random rand) {
 		this.setSets(graph.getNodes().length);
 		if (this.idSpaceBI != null) {
-			return this.routeBI(new ArrayList<Integer>(), start,
-					(BIIdentifier) target, rand, graph.getNodes(),
+			return this.routeBI(start, (BIIdentifier) target, rand,
+					graph.getNodes(),
 					this.idSpaceBI.getMaxDistance());
 		} else if (this.idSpaceD != null) {
-			return this.routeD(new ArrayList<Integer>(), start,
-					(DIdentifier) target, rand, graph.getNodes(),
+			return this.routeD(start, (DIdentifier) target, rand,
+					graph.getNodes(),
 					this.idSpaceD.getMaxDistance());
 		} else {
 			return null;
 		}
 	}
 
-	private Route routeBI(ArrayList<Integer> route, int current,
-			BIIdentifier target, Random rand, Node[] nodes, BigInteger minDist) {
-		route.add(current);
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, false);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
-		BigInteger[] next = this.getNextBI(current, target, rand, nodes,
-				minDist);
-		int minNode = next[0].intValue();
-		BigInteger dist = next[1];
-		if (minNode == -1) {
-			return new Route(route, false);
+	private Route routeBI(int start, BIIdentifier target, Random rand,
+			Node[] nodes, BigInteger minDist) {
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(false);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
+			BigInteger[] next = this.getNextBI(current, target, rand, nodes,
+					minDist);
+			int minNode = next[0].intValue();
+			if (minNode == -1) {
+				return route.toRoute(false);
+			}
+			current = minNode;
+			minDist = next[1];
 		}
-		return this.routeBI(route, minNode, target, rand, nodes, dist);
 	}
 
-	private Route routeD(ArrayList<Integer> route, int current,
-			DIdentifier target, Random rand, Node[] nodes, double minDist) {
-		route.add(current);
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
-		double[] next = this.getNextD(current, target, rand, nodes, minDist);
-		int minNode = (int) next[0];
-		// double dist = next[1];
-		if (minNode == -1) {
-			return new Route(route, false);
+	private Route routeD(int start, DIdentifier target, Random rand,
+			Node[] nodes, double minDist) {
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
+			double[] next = this.getNextD(current, target, rand, nodes,
+					minDist);
+			int minNode = (int) next[0];
+			// double dist = next[1];
+			if (minNode == -1) {
+				return route.toRoute(false);
+			}
+			current = minNode;
 		}
-		return this.routeD(route, minNode, target, rand, nodes, minDist);
 	}
 
 	@Override
@@ -46,11 +46,11 @@ import gtna.id.DIdentifierSpace;
 import gtna.id.DPartition;
 import gtna.id.Identifier;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -97,11 +97,11 @@ public abstract class GreedyTemplate extends RoutingAlgorithm {
 			Random rand) {
 		this.setSets(graph.getNodes().length);
 		if (this.idSpaceBI != null) {
-			return this.routeBI(new ArrayList<Integer>(), start,
-					(BIIdentifier) target, rand, graph.getNodes());
+			return this.routeBI(start, (BIIdentifier) target, rand,
+					graph.getNodes());
 		} else if (this.idSpaceD != null) {
-			return this.routeD(new ArrayList<Integer>(), start,
-					(DIdentifier) target, rand, graph.getNodes());
+			return this.routeD(start, (DIdentifier) target, rand,
+					graph.getNodes());
 		} else {
 			return null;
 		}
@@ -111,54 +111,60 @@ public abstract class GreedyTemplate extends RoutingAlgorithm {
 	 * generic method for the routing procedure: check if target is reached, if
 	 * not select the next node or fail
 	 * 
-	 * @param route
-	 * @param current
+	 * @param start
 	 * @param target
 	 * @param rand
 	 * @param nodes
 	 * @return
 	 */
-	private Route routeBI(ArrayList<Integer> route, int current,
-			BIIdentifier target, Random rand, Node[] nodes) {
-		route.add(current);
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
-		int minNode = this.getNextBI(current, target, rand, nodes);
-		if (minNode == -1) {
-			return new Route(route, false);
+	private Route routeBI(int start, BIIdentifier target, Random rand,
+			Node[] nodes) {
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
+			int minNode = this.getNextBI(current, target, rand, nodes);
+			if (minNode == -1) {
+				return route.toRoute(false);
+			}
+			current = minNode;
 		}
-		return this.routeBI(route, minNode, target, rand, nodes);
 	}
 
 	/**
 	 * generic method for the routing procedure: check if target is reached, if
 	 * not select the next node or fail
 	 * 
-	 * @param route
-	 * @param current
+	 * @param start
 	 * @param target
 	 * @param rand
 	 * @param nodes
 	 * @return
 	 */
-	private Route routeD(ArrayList<Integer> route, int current,
-			DIdentifier target, Random rand, Node[] nodes) {
-		route.add(current);
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
-		int minNode = this.getNextD(current, target, rand, nodes);
-		if (minNode == -1) {
-			return new Route(route, false);
+	private Route routeD(int start, DIdentifier target, Random rand,
+			Node[] nodes) {
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
+			int minNode = this.getNextD(current, target, rand, nodes);
+			if (minNode == -1) {
+				return route.toRoute(false);
+			}
+			current = minNode;
 		}
-		return this.routeD(route, minNode, target, rand, nodes);
 	}
 
 	@Override
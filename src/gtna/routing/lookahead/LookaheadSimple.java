@@ -40,12 +40,11 @@ import gtna.graph.Node;
 import gtna.id.Identifier;
 import gtna.id.IdentifierSpace;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Random;
 
 /**
@@ -69,57 +68,62 @@ public class LookaheadSimple extends RoutingAlgorithm {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		return this.route(new ArrayList<Integer>(), start, target, rand,
-				graph.getNodes(), new HashSet<Integer>());
-	}
-
-	private Route route(ArrayList<Integer> route, int current,
-			Identifier target, Random rand, Node[] nodes, HashSet<Integer> seen) {
-		route.add(current);
-		seen.add(current);
-
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
+		Node[] nodes = graph.getNodes();
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
 
-		int via = -1;
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
 
-		if (nodes[current].getOutDegree() == 0) {
-			return new Route(route, false);
-		}
+			int via = -1;
 
-		// NEIGHBORS
-		int closest = target.getClosestNode(nodes[current].getOutgoingEdges(),
-				this.identifierSpace.getPartitions());
-		if (target.isCloser(this.identifierSpace.getPartition(closest),
-				this.identifierSpace.getPartition(current))) {
-			via = closest;
-		}
+			if (nodes[current].getOutDegree() == 0) {
+				return route.toRoute(false);
+			}
 
-		// NEIGHBOR'S NEIGHBORS
-		for (int neighbor : nodes[current].getOutgoingEdges()) {
-			closest = target.getClosestNode(nodes[neighbor].getOutgoingEdges(),
+			// NEIGHBORS
+			int closest = target.getClosestNode(
+					nodes[current].getOutgoingEdges(),
 					this.identifierSpace.getPartitions());
-			if (via != -1
-					&& target.isCloser(
-							this.identifierSpace.getPartition(closest),
-							this.identifierSpace.getPartition(via))) {
-				via = closest;
-			} else if (via == -1
-					&& target.isCloser(
-							this.identifierSpace.getPartition(closest),
-							this.identifierSpace.getPartition(current))) {
+			if (target.isCloser(this.identifierSpace.getPartition(closest),
+					this.identifierSpace.getPartition(current))) {
 				via = closest;
 			}
-		}
 
-		if (via == -1) {
-			return new Route(route, false);
+			// NEIGHBOR'S NEIGHBORS
+			for (int neighbor : nodes[current].getOutgoingEdges()) {
+				closest = target.getClosestNode(
+						nodes[neighbor].getOutgoingEdges(),
+						this.identifierSpace.getPartitions());
+				if (via != -1
+						&& target.isCloser(
+								this.identifierSpace.getPartition(closest),
+								this.identifierSpace.getPartition(via))) {
+					via = closest;
+				} else if (via == -1
+						&& target.isCloser(
+								this.identifierSpace.getPartition(closest),
+								this.identifierSpace.getPartition(current))) {
+					via = closest;
+				}
+			}
+
+			if (via == -1) {
+				return route.toRoute(false);
+			}
+			current = via;
 		}
-		return this.route(route, via, target, rand, nodes, seen);
+	}
+
+	@Override
+	public boolean isParallelizable() {
+		return true;
 	}
 
 	@Override
@@ -125,6 +125,16 @@ public class MultiPhaseRouting extends RoutingAlgorithm {
 		return true;
 	}
 
+	@Override
+	public boolean isParallelizable() {
+		for (RoutingAlgorithm phase : this.phases) {
+			if (!phase.isParallelizable()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public void preprocess(Graph graph) {
 		super.preprocess(graph);
@@ -40,11 +40,11 @@ import gtna.graph.Node;
 import gtna.id.Identifier;
 import gtna.id.IdentifierSpace;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -64,29 +64,30 @@ public class RandomWalk extends RoutingAlgorithm {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		return this.route(new ArrayList<Integer>(), start, target, rand,
-				graph.getNodes());
-	}
+		Node[] nodes = graph.getNodes();
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
 
-	private Route route(ArrayList<Integer> route, int current,
-			Identifier target, Random rand, Node[] nodes) {
-		route.add(current);
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
+			if (nodes[current].getOutDegree() == 0) {
+				return route.toRoute(false);
+			}
 
-		if (nodes[current].getOutDegree() == 0) {
-			return new Route(route, false);
+			int nextIndex = rand.nextInt(nodes[current].getOutDegree());
+			current = nodes[current].getOutgoingEdges()[nextIndex];
 		}
+	}
 
-		int nextIndex = rand.nextInt(nodes[current].getOutDegree());
-		int nextHop = nodes[current].getOutgoingEdges()[nextIndex];
-
-		return this.route(route, nextHop, target, rand, nodes);
-
+	@Override
+	public boolean isParallelizable() {
+		return true;
 	}
 
 	@Override
@@ -39,7 +39,6 @@ import gtna.graph.Graph;
 import gtna.id.Identifier;
 import gtna.routing.Route;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -54,8 +53,7 @@ public class CcnRouting extends RoutingTableRouting {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		Route route = this.routeToTarget(new ArrayList<Integer>(), start,
-				target, graph.getNodes());
+		Route route = this.route(start, target, graph.getNodeCount());
 		if (route.isSuccessful()) {
 			for (int node : route.getRoute()) {
 				this.dataStorageList.getStorageForNode(node).addReplica(target);
@@ -63,4 +61,12 @@ public class CcnRouting extends RoutingTableRouting {
 		}
 		return route;
 	}
+
+	/**
+	 * Successful routes add replicas to the data storage of the nodes.
+	 */
+	@Override
+	public boolean isParallelizable() {
+		return false;
+	}
 }
@@ -36,15 +36,14 @@
 package gtna.routing.routingTable;
 
 import gtna.graph.Graph;
-import gtna.graph.Node;
 import gtna.id.Identifier;
 import gtna.id.IdentifierSpace;
 import gtna.id.data.DataStoreList;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.routing.table.RoutingTables;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -76,25 +75,32 @@ public class RoutingTableRouting extends RoutingAlgorithm {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		return this.routeToTarget(new ArrayList<Integer>(), start, target,
-				graph.getNodes());
+		return this.route(start, target, graph.getNodeCount());
 	}
 
-	public Route routeToTarget(ArrayList<Integer> route, int current,
-			Identifier target, Node[] nodes) {
-		route.add(current);
+	protected Route route(int start, Identifier target, int nodes) {
+		RouteBuffer route = RouteBuffer.get(nodes);
+		int current = start;
+		while (true) {
+			route.add(current);
 
-		if (this.isEndPoint(current, target))
-			return new Route(route, true);
+			if (this.isEndPoint(current, target))
+				return route.toRoute(true);
 
-		if (route.size() > ttl)
-			return new Route(route, false);
+			if (route.size() > ttl)
+				return route.toRoute(false);
 
-		int nextHop = this.rt.getRoutingTable(current).getNextHop(target);
-		if (nextHop == current || nextHop == RoutingTables.noRoute)
-			return new Route(route, false);
+			int nextHop = this.rt.getRoutingTable(current).getNextHop(target);
+			if (nextHop == current || nextHop == RoutingTables.noRoute)
+				return route.toRoute(false);
 
-		return this.routeToTarget(route, nextHop, target, nodes);
+			current = nextHop;
+		}
+	}
+
+	@Override
+	public boolean isParallelizable() {
+		return true;
 	}
 
 	@Override
@@ -58,12 +58,23 @@ public abstract class SourceSelection extends ParameterList {
 
 	public SourceSelection(String key, Parameter[] parameters) {
 		super(key, parameters);
+		this.rand = new Random();
 	}
 
 	public void init(Graph graph) {
 		this.graph = graph;
 	}
 
+	/**
+	 * Re-initializes the random number generator used for selecting the
+	 * sources.
+	 * 
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.rand = new Random(seed);
+	}
+
 	public abstract int getNextSource();
 
 	public abstract boolean applicable(Graph graph);
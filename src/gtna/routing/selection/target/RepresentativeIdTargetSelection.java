@@ -37,9 +37,14 @@ package gtna.routing.selection.target;
 
 import gtna.graph.Graph;
 import gtna.id.Identifier;
+import gtna.id.IdentifierIndex;
 import gtna.id.IdentifierSpace;
 
 /**
+ * Selects the representative identifier of a random node's partition as
+ * target. In case the identifier space supports an index, the identifiers
+ * are taken from the index instead of being created for every target.
+ * 
  * @author benni
  * 
  */
@@ -47,6 +52,8 @@ public class RepresentativeIdTargetSelection extends TargetSelection {
 
 	protected IdentifierSpace ids;
 
+	protected IdentifierIndex index;
+
 	public RepresentativeIdTargetSelection() {
 		super("TARGET_SELECTION_REPRESENTATIVE_ID");
 	}
@@ -54,10 +61,15 @@ public class RepresentativeIdTargetSelection extends TargetSelection {
 	public void init(Graph graph) {
 		super.init(graph);
 		this.ids = (IdentifierSpace) this.graph.getProperty("ID_SPACE_0");
+		this.index = this.ids.createIndex();
 	}
 
 	@Override
 	public Identifier getNextTarget() {
+		if (this.index != null) {
+			return this.index.getRepresentativeIdentifier(this.rand
+					.nextInt(this.index.size()));
+		}
 		return this.ids.getPartitions()[this.rand.nextInt(this.ids
 				.getPartitions().length)].getRepresentativeIdentifier();
 	}
@@ -59,12 +59,23 @@ public abstract class TargetSelection extends ParameterList {
 
 	public TargetSelection(String key, Parameter[] parameters) {
 		super(key, parameters);
+		this.rand = new Random();
 	}
 
 	public void init(Graph graph) {
 		this.graph = graph;
 	}
 
+	/**
+	 * Re-initializes the random number generator used for selecting the
+	 * targets.
+	 * 
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.rand = new Random(seed);
+	}
+
 	public abstract Identifier getNextTarget();
 
 	public abstract boolean applicable(Graph graph);
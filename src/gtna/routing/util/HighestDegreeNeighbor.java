@@ -40,11 +40,11 @@ import gtna.graph.Node;
 import gtna.id.Identifier;
 import gtna.id.IdentifierSpace;
 import gtna.routing.Route;
+import gtna.routing.RouteBuffer;
 import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -70,38 +70,41 @@ public class HighestDegreeNeighbor extends RoutingAlgorithm {
 	@Override
 	public Route routeToTarget(Graph graph, int start, Identifier target,
 			Random rand) {
-		return this.route(new ArrayList<Integer>(), start, target, rand,
-				graph.getNodes());
-	}
-
-	private Route route(ArrayList<Integer> route, int current,
-			Identifier target, Random rand, Node[] nodes) {
-		route.add(current);
-		if (this.isEndPoint(current, target)) {
-			return new Route(route, true);
-		}
-		if (route.size() > this.ttl) {
-			return new Route(route, false);
-		}
+		Node[] nodes = graph.getNodes();
+		RouteBuffer route = RouteBuffer.get(nodes.length);
+		int current = start;
+		while (true) {
+			route.add(current);
+			if (this.isEndPoint(current, target)) {
+				return route.toRoute(true);
+			}
+			if (route.size() > this.ttl) {
+				return route.toRoute(false);
+			}
 
-		if (nodes[current].getOutDegree() == 0) {
-			return new Route(route, false);
-		}
+			if (nodes[current].getOutDegree() == 0) {
+				return route.toRoute(false);
+			}
 
-		int nextIndex = -1;
-		int maxDegree = nodes[current].getOutDegree();
-		for (int out : nodes[current].getOutgoingEdges()) {
-			if (nodes[out].getOutDegree() > maxDegree) {
-				nextIndex = out;
-				maxDegree = nodes[out].getOutDegree();
+			int nextIndex = -1;
+			int maxDegree = nodes[current].getOutDegree();
+			for (int out : nodes[current].getOutgoingEdges()) {
+				if (nodes[out].getOutDegree() > maxDegree) {
+					nextIndex = out;
+					maxDegree = nodes[out].getOutDegree();
+				}
 			}
-		}
 
-		if (nextIndex == -1) {
-			return new Route(route, false);
+			if (nextIndex == -1) {
+				return route.toRoute(false);
+			}
+			current = nextIndex;
 		}
+	}
 
-		return this.route(route, nextIndex, target, rand, nodes);
+	@Override
+	public boolean isParallelizable() {
+		return true;
 	}
 
 	@Override
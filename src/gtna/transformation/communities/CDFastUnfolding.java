@@ -35,283 +35,508 @@
  */
 package gtna.transformation.communities;
 
-import java.util.HashMap;
-
-import gtna.graph.Edge;
-import gtna.graph.Edges;
+import gtna.communities.CommunityList;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
-import gtna.graph.Node;
 import gtna.graph.weights.EdgeWeights;
-import gtna.graph.weights.NodeWeights;
 import gtna.transformation.Transformation;
+import gtna.util.GraphUtils;
+import gtna.util.Parallel;
+import gtna.util.parameter.BooleanParameter;
+import gtna.util.parameter.IntParameter;
+import gtna.util.parameter.Parameter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
 
 /**
+ * Louvain method ("fast unfolding") for community detection by Blondel et
+ * al. Every edge is treated as undirected (with the weight given by the
+ * EdgeWeights stored as "ew", 1 otherwise) and the modularity is maximized
+ * by repeating two phases: local moving of single nodes to the neighboring
+ * community with the highest modularity gain and aggregation of each
+ * community into a single node.
+ * 
+ * All levels are stored as weighted adjacency arrays (CSR), communities are
+ * described by their total degree only, and the weights from a node to its
+ * neighboring communities are accumulated in arrays that are reset after
+ * each node.
+ * 
+ * By default, the nodes are visited in order of their index. Given a seed,
+ * they are visited in a random order determined by it. With parallel local
+ * moving, nodes that are not adjacent (i.e., of the same color of a greedy
+ * coloring) are moved concurrently by PARALLEL_TRANSFORMATIONS threads. The
+ * nodes are then colored in the order determined by the seed. The result
+ * does not depend on the number of threads.
+ * 
+ * The resulting communities are stored as CommunityList COMMUNITIES.
+ * 
  * @author Flipp
  * 
  */
-public class CDFastUnfolding extends Transformation{
+public class CDFastUnfolding extends Transformation {
+	// minimal increase of the modularity for continuing local moving
+	private static final double MIN_IMPROVEMENT = 1e-7;
+
+	private Integer seed;
+
+	private boolean parallel;
 
-	/**
-	 * @param key
-	 */
 	public CDFastUnfolding() {
 		super("CD_FAST_UNFOLDING");
+		this.seed = null;
+		this.parallel = false;
 	}
 
-	private double edges;
-	private int l;
+	/**
+	 * @param seed
+	 *            seed for the order in which nodes are visited (or colored in
+	 *            case of parallel local moving)
+	 * @param parallel
+	 *            determine the moves of all nodes concurrently
+	 */
+	public CDFastUnfolding(int seed, boolean parallel) {
+		super("CD_FAST_UNFOLDING", new Parameter[] {
+				new IntParameter("SEED", seed),
+				new BooleanParameter("PARALLEL", parallel) });
+		this.seed = seed;
+		this.parallel = parallel;
+	}
 
+	@Override
 	public Graph transform(Graph g) {
-		l = 0;
-		edges = g.getEdges().getEdges().size();
-		int[] mastercoms = new int[g.getNodes().length];
-		for (int i = 0; i < mastercoms.length; i++)
-			mastercoms[i] = i;
-
-		mastercoms = doWork(g, mastercoms);
-		
+		Level level = new Level(g.getAdjacency(), (EdgeWeights) g
+				.getProperty("ew"));
+		int[] communities = new int[level.nodes];
+		for (int i = 0; i < communities.length; i++) {
+			communities[i] = i;
+		}
+		Random rand = this.seed == null ? null : new Random(this.seed);
+
+		while (level.totalWeight > 0) {
+			int[] assignment = new int[level.nodes];
+			int count = this.parallel ? this.moveParallel(level, assignment,
+					rand) : this.move(level, assignment, rand);
+			if (count == level.nodes) {
+				break;
+			}
+			for (int i = 0; i < communities.length; i++) {
+				communities[i] = assignment[communities[i]];
+			}
+			level = new Level(level, assignment, count);
+		}
+
 		HashMap<Integer, Integer> c = new HashMap<Integer, Integer>();
-		
-		for(int i = 0; i < mastercoms.length; i++){
-			
-			c.put(i, mastercoms[i]);
+		for (int i = 0; i < communities.length; i++) {
+			c.put(i, communities[i]);
 		}
-		
-		g.addProperty(g.getNextKey("COMMUNITIES"), new gtna.communities.CommunityList(c));
+		g.addProperty(g.getNextKey("COMMUNITIES"), new CommunityList(c));
 
-		
 		return g;
 	}
 
-	private int[] doWork(Graph g, int[] mastercoms) {
-		l++;
-		CommunityList coms = new CommunityList();
-		EdgeWeights ews = (EdgeWeights) g.getProperty("ew");
-		NodeWeights nws = (NodeWeights) g.getProperty("nw");
-		Community temp;
-		Node[] nodes = g.getNodes();
-		for (Node akt : nodes) {
-			temp = new Community(akt.getIndex(), g, coms, nws, ews);
-			temp.setNode(akt);
-			coms.add(temp);
-
+	/**
+	 * Local moving: every node is moved to the neighboring community with the
+	 * largest modularity gain, one after the other, until the modularity does
+	 * not increase anymore.
+	 * 
+	 * @param level
+	 * @param community
+	 *            community of every node (renumbered to [0, count))
+	 * @param rand
+	 *            random order of the nodes (null for the order of their index)
+	 * @return number of communities
+	 */
+	private int move(Level level, int[] community, Random rand) {
+		int n = level.nodes;
+		int[] order = this.order(n, rand);
+		for (int v = 0; v < n; v++) {
+			community[v] = v;
 		}
-
-		boolean finished = false;
-		boolean changed = false;
-		
-
-		MoveValue mv;
-		Community tempC;
-		// find communities
-		while (!finished) {
-
-			finished = true;
-			for (Node akt : g.getNodes()) {
-				mv = getBestMove(akt, coms, g, ews);
-				if (mv.getModDelta() > 0) {
-
-					tempC = coms.getCommunityByNode(akt);
-					tempC.removeNode(akt);
-					if(tempC.getNodes().length == 0)
-						coms.removeCom(tempC);
-					
-					System.out.println("Moving #"+akt.getIndex()+":" + tempC.getIndex()+"->" +mv.getNewCom()+"("+mv.getModDelta()+")");
-					coms.getCommunityByID(mv.getNewCom()).addNode(akt);
-					
-					
-					changed = true;
-					finished = false;
+		double[] total = level.degree.clone();
+		Neighborhood neighborhood = new Neighborhood(n);
+		double q = level.modularity(community, total);
+		while (true) {
+			int moves = 0;
+			for (int i = 0; i < n; i++) {
+				int v = order[i];
+				int own = community[v];
+				int best = neighborhood.getBest(level, v, own, community, total);
+				if (best != own) {
+					total[own] -= level.degree[v];
+					total[best] += level.degree[v];
+					community[v] = best;
+					moves++;
 				}
 			}
+			double next = level.modularity(community, total);
+			if (moves == 0 || next - q < MIN_IMPROVEMENT) {
+				break;
+			}
+			q = next;
+		}
+		return this.renumber(community);
+	}
+
+	/**
+	 * Parallel local moving: the nodes are colored greedily (in the given
+	 * order) such that no two adjacent nodes have the same color. In every
+	 * round, the colors are
+	 * processed one after the other: the best community of all nodes of a
+	 * color is determined concurrently, then all of them are moved. Rounds are
+	 * repeated until the modularity does not increase anymore (the last round
+	 * is reverted if it decreased the modularity).
+	 * 
+	 * @param level
+	 * @param community
+	 *            community of every node (renumbered to [0, count))
+	 * @param rand
+	 *            random order in which the nodes are colored (null for the
+	 *            order of their index)
+	 * @return number of communities
+	 */
+	private int moveParallel(final Level level, final int[] community,
+			Random rand) {
+		final int n = level.nodes;
+		final double[] total = level.degree.clone();
+		final int[] target = new int[n];
+		int[] previous = new int[n];
+		for (int v = 0; v < n; v++) {
+			community[v] = v;
+		}
+
+		// nodes of color c are colored[colorStart[c], colorStart[c + 1])
+		int[] color = GraphUtils.color(new Adjacency(level.offsets,
+				level.targets, false), this.order(n, rand));
+		int colors = 0;
+		for (int v = 0; v < n; v++) {
+			colors = Math.max(colors, color[v] + 1);
 		}
-		
-
-		if (!changed)
-			return mastercoms;
-
-		Graph n = new Graph("temp");
-		int distinct = coms.getCommunities().size();
-		System.out.println(l + ":" + g.getNodes().length+"->"+distinct);
-		Node[] n2 = new Node[distinct];
-		NodeWeights nw = new NodeWeights(distinct);
-		EdgeWeights ew = new EdgeWeights(distinct);
-		Edges edges = new Edges(n2, distinct);
-		Edge e;
-		
-		coms.normalizeIDs();
-
-		
-		int[][] edgetemp = new int[distinct][distinct];
-		for (Edge akt : g.getEdges().getEdges()) {
-			edgetemp[coms.getCommunityByNode(g.getNode(akt.getSrc())).getIndex()][coms
-					.getCommunityByNode(g.getNode(akt.getDst())).getIndex()] += (ew == null) ? 1 : ew
-					.getWeight(akt);
+		int[] colorStart = new int[colors + 1];
+		for (int v = 0; v < n; v++) {
+			colorStart[color[v] + 1]++;
 		}
-		
-		int[] mcnew = new int[mastercoms.length];
-	
-		for (Community akt : coms.getCommunities()) {
-			
-			n2[akt.getIndex()] = new Node(akt.getIndex(), n);
-			
-			nw.setWeight(akt.getIndex(), akt.getInternalEdges());
-			for (Community akt2 : coms.getCommunities()) {
-				if (akt.equals(akt2))
-					continue;
-
-				if (edgetemp[akt.getIndex()][akt2.getIndex()] > 0) {
-					e = new Edge(akt.getIndex(), akt2.getIndex());
-					edges.add(akt.getIndex(), akt2.getIndex());
-					ew.setWeight(e,edgetemp[akt.getIndex()][akt2.getIndex()]);
+		for (int c = 0; c < colors; c++) {
+			colorStart[c + 1] += colorStart[c];
+		}
+		final int[] colored = new int[n];
+		int[] next = Arrays.copyOf(colorStart, colors);
+		for (int v = 0; v < n; v++) {
+			colored[next[color[v]]++] = v;
+		}
+
+		final int threads = Parallel.getThreads("PARALLEL_TRANSFORMATIONS");
+		final Neighborhood[] neighborhoods = new Neighborhood[threads];
+		double q = level.modularity(community, total);
+		while (true) {
+			System.arraycopy(community, 0, previous, 0, n);
+			int moves = 0;
+			for (int c = 0; c < colors; c++) {
+				final int from = colorStart[c];
+				final int nodes = colorStart[c + 1] - from;
+				final int tasks = Math.max(1, Math.min(threads, nodes));
+				Parallel.run(tasks, threads, new Parallel.Task() {
+					@Override
+					public void run(int task) {
+						if (neighborhoods[task] == null) {
+							neighborhoods[task] = new Neighborhood(n);
+						}
+						int end = from + Parallel.getEnd(nodes, tasks, task);
+						for (int i = from + Parallel.getStart(nodes, tasks, task); i < end; i++) {
+							int v = colored[i];
+							target[v] = neighborhoods[task].getBest(level, v,
+									community[v], community, total);
+						}
+					}
+				});
+				for (int i = from; i < from + nodes; i++) {
+					int v = colored[i];
+					if (target[v] != community[v]) {
+						total[community[v]] -= level.degree[v];
+						total[target[v]] += level.degree[v];
+						community[v] = target[v];
+						moves++;
+					}
 				}
 			}
-			for (Node k : akt.getNodes()) {
-				for (int j = 0; j < mastercoms.length; j++) {
-					if (mastercoms[j] == k.getIndex())
-						mcnew[j] = akt.getIndex();
+			double nextQ = level.modularity(community, total);
+			if (moves == 0 || nextQ - q < MIN_IMPROVEMENT) {
+				if (nextQ < q) {
+					System.arraycopy(previous, 0, community, 0, n);
 				}
+				break;
 			}
-			
+			q = nextQ;
 		}
-		
-		edges.fill();
-		n.setNodes(n2);
-
-		n.addProperty("ew", ew);
-		n.addProperty("nw", nw);
-
-		return doWork(n, mcnew);
-
-		// merge/create new graph
-
+		return this.renumber(community);
 	}
 
 	/**
-	 * @param aktNode
-	 * @param coms
-	 * @param g
-	 * @param nws
-	 * @return
+	 * @return nodes [0, n) in random order (in order of their index in case
+	 *         rand is null)
 	 */
-	private MoveValue getBestMove(Node aktNode, CommunityList coms, Graph g,
-			EdgeWeights ew) {
-		Community ownc = coms.getCommunityByNode(aktNode);
-		Community c;
-		double v1;
-		int index = aktNode.getIndex();
-		MoveValue ret = new MoveValue();
-		ret.setOldCom(ownc.getIndex());
-		ret.setModDelta(-Double.MAX_VALUE);
-
-		for (Edge akt : aktNode.getEdges()) {
-			if (akt.getSrc() == index)
-				c = coms.getCommunityByNode(g.getNode(akt.getDst()));
-			else
-				c = coms.getCommunityByNode(g.getNode(akt.getSrc()));
-			if(c.getIndex() == ownc.getIndex())
-				continue;
-			
-			v1 = calcDeltaAddc(aktNode, c, coms, g, ew);
-			if(!(ownc.getNodes().length == 1))
-				v1 -= calcDeltaRemove(aktNode, c, coms, g, ew);
-			
-			
-
-			if (v1 > ret.getModDelta()) {
-				ret.setModDelta(v1);
-				ret.setNewCom(c.getIndex());
+	private int[] order(int n, Random rand) {
+		int[] order = new int[n];
+		for (int v = 0; v < n; v++) {
+			order[v] = v;
+		}
+		if (rand != null) {
+			for (int i = n - 1; i > 0; i--) {
+				int j = rand.nextInt(i + 1);
+				int temp = order[i];
+				order[i] = order[j];
+				order[j] = temp;
 			}
-
 		}
-
-		return ret;
+		return order;
 	}
 
 	/**
-	 * @param i
-	 * @param ownc
-	 * @param coms
-	 * @param g
-	 * @return
+	 * Renumbers the communities to [0, count) in the order of their first
+	 * node.
+	 * 
+	 * @return number of communities
 	 */
-	private double calcDeltaRemove(Node i, Community c, CommunityList coms,
-			Graph g, EdgeWeights ew) {
-		double nodeToCom = getSumWeightsNodeToCom(i, c, coms, ew, g);
-		double sumIn = c.getInternalEdges() - nodeToCom;
-		double sumNode = getSumWeight(i, ew);
-		double sumOut = c.getExternalEdges() - (sumNode - nodeToCom) + sumIn;
-		return (((sumIn + getSumWeightsNodeToCom(i, c, coms, ew, g)) / (2 * edges)) - Math
-				.pow(((sumOut + sumNode) / (2 * edges)), 2))
-				- ((sumIn / (2 * edges)) - Math.pow(sumOut / (2 * edges), 2) - Math
-						.pow(sumNode / ( 2 * edges), 2));
+	private int renumber(int[] community) {
+		int[] id = new int[community.length];
+		Arrays.fill(id, -1);
+		int count = 0;
+		for (int v = 0; v < community.length; v++) {
+			if (id[community[v]] == -1) {
+				id[community[v]] = count++;
+			}
+			community[v] = id[community[v]];
+		}
+		return count;
+	}
 
+	@Override
+	public boolean applicable(Graph g) {
+		return true;
 	}
 
 	/**
-	 * @param i
-	 * @param c
-	 * @param coms
-	 * @param g
-	 * @param nws
-	 * @return
+	 * Weighted, undirected graph stored as adjacency arrays, i.e., the
+	 * neighbors of node v are targets[offsets[v], offsets[v + 1]) connected
+	 * by edges of the respective weights. Self-loops are contained with twice
+	 * their weight, as both of their ends contribute to the degree.
 	 */
-	private double calcDeltaAddc(Node i, Community c, CommunityList coms,
-			Graph g, EdgeWeights ew) {
-		double sumIn = c.getInternalEdges();
-		double sumOut = c.getExternalEdges() + sumIn;
-		double sumNode = getSumWeight(i, ew);
-		
-		return (((sumIn + getSumWeightsNodeToCom(i, c, coms, ew, g)) / (2 * edges)) - Math
-				.pow(((sumOut + sumNode) / (2 * edges)), 2))
-				- ((sumIn / (2 * edges)) - Math.pow(sumOut / (2 * edges), 2) - Math
-						.pow(sumNode / ( 2 * edges), 2));
+	private static class Level {
+		private int nodes;
 
-	}
+		private int[] offsets;
 
-	/**
-	 * @param i
-	 * @param c
-	 * @return
-	 */
-	private double getSumWeightsNodeToCom(Node i, Community c,
-			CommunityList coms, EdgeWeights ew, Graph g) {
-		int temp;
-		double ret = 0;
-		for (Edge akt : i.getEdges()) {
-			if (akt.getSrc() == i.getIndex())
-				temp = coms.getCommunityByNode(g.getNode(akt.getDst())).getIndex();
-			else
-				temp = coms.getCommunityByNode(g.getNode(akt.getSrc())).getIndex();
-
-			if (temp == c.getIndex())
-				ret += (ew == null) ? 1 : ew.getWeight(akt);
+		private int[] targets;
+
+		private double[] weights;
+
+		private double[] degree;
+
+		private double totalWeight;
+
+		/**
+		 * Creates the first level from the given graph, merging edges in both
+		 * directions between two nodes into one.
+		 */
+		private Level(Adjacency adjacency, EdgeWeights ew) {
+			this.nodes = adjacency.getNodeCount();
+			this.offsets = new int[this.nodes + 1];
+			int max = 0;
+			for (int v = 0; v < this.nodes; v++) {
+				max += adjacency.getOutDegree(v) + adjacency.getInDegree(v);
+			}
+			this.targets = new int[max];
+			this.weights = new double[max];
+			double[] outWeights = ew == null ? null : ew.getWeights(adjacency);
+			int k = 0;
+			for (int v = 0; v < this.nodes; v++) {
+				int i = adjacency.getOutStart(v);
+				int j = adjacency.getInStart(v);
+				int outEnd = adjacency.getOutEnd(v);
+				int inEnd = adjacency.getInEnd(v);
+				while (i < outEnd || j < inEnd) {
+					int out = i < outEnd ? adjacency.getOutTarget(i)
+							: Integer.MAX_VALUE;
+					int in = j < inEnd ? adjacency.getInSource(j)
+							: Integer.MAX_VALUE;
+					int w = Math.min(out, in);
+					double weight = 0;
+					if (out == w) {
+						weight += ew == null ? 1 : outWeights[i];
+						i++;
+					}
+					if (in == w) {
+						weight += ew == null ? 1 : ew.getWeight(w, v);
+						j++;
+					}
+					if (k > this.offsets[v] && this.targets[k - 1] == w) {
+						this.weights[k - 1] += weight;
+					} else {
+						this.targets[k] = w;
+						this.weights[k++] = weight;
+					}
+				}
+				this.offsets[v + 1] = k;
+			}
+			this.computeDegrees();
+		}
+
+		/**
+		 * Aggregates each community of the given level into a single node.
+		 * The edges of each community are merged by accumulating the weights
+		 * to all neighboring communities and sorting them.
+		 * 
+		 * @param level
+		 *            previous level
+		 * @param assignment
+		 *            community of each node in [0, count)
+		 * @param count
+		 *            number of communities
+		 */
+		private Level(Level level, int[] assignment, int count) {
+			this.nodes = count;
+			this.offsets = new int[count + 1];
+			this.targets = new int[level.targets.length];
+			this.weights = new double[level.targets.length];
+
+			// members of each community
+			int[] start = new int[count + 1];
+			for (int v = 0; v < level.nodes; v++) {
+				start[assignment[v] + 1]++;
+			}
+			for (int c = 0; c < count; c++) {
+				start[c + 1] += start[c];
+			}
+			int[] members = new int[level.nodes];
+			int[] next = Arrays.copyOf(start, count);
+			for (int v = 0; v < level.nodes; v++) {
+				members[next[assignment[v]]++] = v;
+			}
+
+			double[] accumulated = new double[count];
+			boolean[] seen = new boolean[count];
+			int[] touched = new int[count];
+			int k = 0;
+			for (int c = 0; c < count; c++) {
+				int t = 0;
+				for (int m = start[c]; m < start[c + 1]; m++) {
+					int v = members[m];
+					for (int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+						int d = assignment[level.targets[e]];
+						if (!seen[d]) {
+							seen[d] = true;
+							touched[t++] = d;
+						}
+						accumulated[d] += level.weights[e];
+					}
+				}
+				Arrays.sort(touched, 0, t);
+				for (int i = 0; i < t; i++) {
+					int d = touched[i];
+					this.targets[k] = d;
+					this.weights[k++] = accumulated[d];
+					accumulated[d] = 0;
+					seen[d] = false;
+				}
+				this.offsets[c + 1] = k;
+			}
+			this.targets = Arrays.copyOf(this.targets, k);
+			this.weights = Arrays.copyOf(this.weights, k);
+			this.computeDegrees();
+		}
+
+		private void computeDegrees() {
+			this.degree = new double[this.nodes];
+			this.totalWeight = 0;
+			for (int v = 0; v < this.nodes; v++) {
+				for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+					this.degree[v] += this.weights[e];
+				}
+				this.totalWeight += this.degree[v];
+			}
+		}
+
+		/**
+		 * @return modularity of the given assignment of nodes to communities
+		 */
+		private double modularity(int[] community, double[] total) {
+			double internal = 0;
+			for (int v = 0; v < this.nodes; v++) {
+				for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+					if (community[v] == community[this.targets[e]]) {
+						internal += this.weights[e];
+					}
+				}
+			}
+			double q = internal / this.totalWeight;
+			for (int c = 0; c < this.nodes; c++) {
+				q -= (total[c] / this.totalWeight) * (total[c] / this.totalWeight);
+			}
+			return q;
 		}
-		return ret;
 	}
 
 	/**
-	 * @param i
-	 * @return
+	 * Accumulates the weights from a node to its neighboring communities.
 	 */
-	private double getSumWeight(Node i, EdgeWeights ews) {
+	private static class Neighborhood {
+		private double[] weight;
 
-		if (ews == null)
-			return i.getEdges().length;
+		// neighboring communities in the order of their discovery
+		private int[] communities;
 
-		double ret = 0;
-		for (Edge akt : i.getEdges())
-			ret += ews.getWeight(akt);
+		private boolean[] seen;
 
-		return ret;
-	}
+		private int count;
 
-	/* (non-Javadoc)
-	 * @see gtna.transformation.Transformation#applicable(gtna.graph.Graph)
-	 */
-	@Override
-	public boolean applicable(Graph g) {
-		return true;
-	}
+		private Neighborhood(int nodes) {
+			this.weight = new double[nodes];
+			this.communities = new int[nodes];
+			this.seen = new boolean[nodes];
+		}
 
+		/**
+		 * Determines the community of the neighbors with the largest
+		 * modularity gain for the given node when removing it from its
+		 * community own (total[own] still contains the node's degree).
+		 * 
+		 * @return best community (own in case no other one is better)
+		 */
+		private int getBest(Level level, int v, int own, int[] community,
+				double[] total) {
+			this.count = 0;
+			this.add(own, 0);
+			for (int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+				int w = level.targets[e];
+				if (w != v) {
+					this.add(community[w], level.weights[e]);
+				}
+			}
+			double factor = level.degree[v] / level.totalWeight;
+			double ownTotal = total[own] - level.degree[v];
+			int best = own;
+			double bestGain = this.weight[own] - ownTotal * factor;
+			for (int i = 0; i < this.count; i++) {
+				int c = this.communities[i];
+				double gain = this.weight[c] - (c == own ? ownTotal : total[c])
+						* factor;
+				if (gain > bestGain) {
+					best = c;
+					bestGain = gain;
+				}
+				this.weight[c] = 0;
+				this.seen[c] = false;
+			}
+			return best;
+		}
+
+		private void add(int c, double w) {
+			if (!this.seen[c]) {
+				this.seen[c] = true;
+				this.communities[this.count++] = c;
+			}
+			this.weight[c] += w;
+		}
+	}
 }
@@ -35,26 +35,33 @@
  */
 package gtna.transformation.communities;
 
+import gtna.algorithms.communities.LabelPropagation;
+import gtna.algorithms.communities.LabelPropagation.Mode;
 import gtna.communities.CommunityList;
 import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.graph.sorting.NodeSorting;
 import gtna.transformation.Transformation;
 import gtna.util.Util;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
+import gtna.util.parameter.StringParameter;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Random;
 
 /**
+ * Community detection using the label propagation algorithm (cf.
+ * LabelPropagation). By default, the labels are updated asynchronously in a
+ * random order. Optionally, the synchronous or semi-synchronous (colored)
+ * update modes can be used which update labels concurrently.
+ * 
  * @author benni
  * 
  */
 public class CDLPA extends Transformation {
 	private int iterationLimitFactor;
 
+	private Mode mode;
+
 	/**
 	 * Standard constructor. Only argument is the factor that determines the
 	 * maximum number of iterations that is being done. This maximum number is
@@ -71,19 +78,36 @@ public class CDLPA extends Transformation {
 		super("CD_LPA", new Parameter[] { new IntParameter(
 				"LIMIT_FACTOR", limitFactor) });
 		this.iterationLimitFactor = limitFactor;
+		this.mode = Mode.ASYNCHRONOUS;
+	}
+
+	/**
+	 * @param limitFactor
+	 *            The maximum number of iterations is determined by factor *
+	 *            nodes.
+	 * @param mode
+	 *            mode for updating the labels
+	 */
+	public CDLPA(int limitFactor, Mode mode) {
+		super("CD_LPA", new Parameter[] {
+				new IntParameter("LIMIT_FACTOR", limitFactor),
+				new StringParameter("MODE", mode.toString()) });
+		this.iterationLimitFactor = limitFactor;
+		this.mode = mode;
 	}
 
 	@Override
 	public Graph transform(Graph g) {
 		HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
 
-		int[] labels = labelPropagationAlgorithm(g.getNodes());
+		LabelPropagation lpa = new LabelPropagation(g);
+		int[] labels = lpa.compute(this.mode, (long) g.getNodes().length
+				* this.iterationLimitFactor + 1, new Random().nextLong());
 		HashMap<Integer, Integer> labelCommunityMapping = Util
 				.mapLabelsToCommunities(labels);
 
-		for (Node n : g.getNodes()) {
-			map.put(n.getIndex(),
-					labelCommunityMapping.get(labels[n.getIndex()]));
+		for (int i = 0; i < labels.length; i++) {
+			map.put(i, labelCommunityMapping.get(labels[i]));
 		}
 
 		g.addProperty(g.getNextKey("COMMUNITIES"),
@@ -91,76 +115,6 @@ public class CDLPA extends Transformation {
 		return g;
 	}
 
-	/**
-	 * Assigns labels to nodes using the label propagation algorithm.
-	 * 
-	 * @param nodes
-	 * @return an array containing the label of each node
-	 */
-	private int[] labelPropagationAlgorithm(Node[] nodes) {
-		Random rand = new Random();
-		boolean finished = false;
-		int[] labels = new int[nodes.length];
-		for (int i = 0; i < labels.length; i++)
-			labels[i] = i;
-
-		int count = 0;
-
-		while (!finished) {
-
-			Node[] X = NodeSorting.random(nodes, rand);
-			finished = true;
-			for (Node x : X) {
-				ArrayList<Integer> maxLabels = selectMaxLabels(
-						x.getOutgoingEdges(), labels);
-				if (!maxLabels.isEmpty()) {
-					int maxLabel = maxLabels
-							.get(rand.nextInt(maxLabels.size()));
-					if (!maxLabels.contains(labels[x.getIndex()]))
-						finished = false;
-					labels[x.getIndex()] = maxLabel;
-				}
-			}
-			count++;
-
-			if (count > nodes.length * iterationLimitFactor)
-				finished = true;
-		}
-		return labels;
-	}
-
-	/**
-	 * Selects the labels occurring with the highest frequency among the
-	 * neighboring nodes.
-	 * 
-	 * @param nodes
-	 * @param labels
-	 * @return list of labels occuring with the highest frequency
-	 */
-	private ArrayList<Integer> selectMaxLabels(int[] nodes, int[] labels) {
-		HashMap<Integer, Integer> counter = new HashMap<Integer, Integer>(); // <label,
-																				// count>
-		ArrayList<Integer> maxLabels = new ArrayList<Integer>();
-		int maxCount = 0;
-
-		for (int node : nodes) {
-			int label = labels[node];
-			int count = counter.containsKey(label) ? counter.get(label) + 1 : 1;
-			counter.put(label, count);
-			if (count > maxCount) {
-				maxCount = count;
-			}
-		}
-
-		for (int label : counter.keySet()) {
-			if (counter.get(label) == maxCount) {
-				maxLabels.add(label);
-			}
-		}
-
-		return maxLabels;
-	}
-
 	@Override
 	public boolean applicable(Graph g) {
 		return true;
@@ -1,18 +1,18 @@
 package gtna.transformation.communities;
 
+import gtna.algorithms.communities.LabelPropagation;
+import gtna.algorithms.communities.LabelPropagation.Mode;
 import gtna.communities.CommunityList;
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
 import gtna.graph.Node;
-import gtna.graph.sorting.NodeSorting;
 import gtna.transformation.Transformation;
 import gtna.util.Util;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.StringParameter;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Random;
 
 public class CDLPAExtended extends Transformation {
 
@@ -82,66 +82,36 @@ public class CDLPAExtended extends Transformation {
 	}
 
 	public int[] labelPropagationAlgorithmExtended(Node[] nodes) {
-
-		int[] labels = new int[nodes.length];
-		double[] scores = new double[nodes.length];
-		for (int i = 0; i < labels.length; i++) {
-			labels[i] = i;
-			scores[i] = 1.0;
-		}
-		Random rand = new Random(System.currentTimeMillis());
-
-		// label propagation loop
-		boolean finished = false;
-		while (!finished) {
-			finished = true;
-			Node[] X = NodeSorting.random(nodes, rand);
-			for (Node x : X) {
-				ArrayList<Integer> maxLabels = selectMaxLabelsExtended(x,
-						nodes, labels, scores, ew, nc, m);
-				if (!maxLabels.isEmpty()) {
-					int maxLabel = maxLabels
-							.get(rand.nextInt(maxLabels.size()));
-					if (!maxLabels.contains(labels[x.getIndex()])) {
-						finished = false;
-						scores[x.getIndex()] = scores[x.getIndex()] - d;
-					}
-					labels[x.getIndex()] = maxLabel;
-				}
-			}
-		}
-		return labels;
+		return this.labelPropagationAlgorithmExtended(nodes, new Adjacency(
+				nodes, false));
 	}
 
-	private ArrayList<Integer> selectMaxLabelsExtended(Node n, Node[] nodes,
-			int[] l, double[] s, EdgeWeight w, NodeCharacteristic f, double m) {
-		HashMap<Integer, Double> sums = new HashMap<Integer, Double>();
-		Node dst = null;
-		for (int akt : n.getOutgoingEdges()) {
-			dst = nodes[akt];
-			int label = l[dst.getIndex()];
-			double weight = w.getWeight(n, dst) + w.getWeight(dst, n);
-			double psum = s[dst.getIndex()]
-					* Math.pow(f.getCharacteristic(dst), m) * weight;
-			Double sum = sums.get(label);
-			if (sum != null) {
-				psum += sum;
+	/**
+	 * Runs the label propagation with the weight s(dst) * f(dst)^m * (w(src,
+	 * dst) + w(dst, src)) of each neighbor dst where the score s is decreased
+	 * by d whenever a node's label changes.
+	 * 
+	 * @param nodes
+	 * @param adjacency
+	 * @return an array containing the label of each node
+	 */
+	private int[] labelPropagationAlgorithmExtended(Node[] nodes,
+			Adjacency adjacency) {
+		double[] edgeWeights = new double[adjacency.getEdgeCount()];
+		double[] nodeWeights = new double[nodes.length];
+		for (int v = 0; v < nodes.length; v++) {
+			nodeWeights[v] = Math.pow(this.nc.getCharacteristic(nodes[v]),
+					this.m);
+			for (int e = adjacency.getOutStart(v); e < adjacency.getOutEnd(v); e++) {
+				Node dst = nodes[adjacency.getOutTarget(e)];
+				edgeWeights[e] = this.ew.getWeight(nodes[v], dst)
+						+ this.ew.getWeight(dst, nodes[v]);
 			}
-			sums.put(label, psum);
 		}
-
-		ArrayList<Integer> ret = new ArrayList<Integer>();
-
-		double maxSum = 0;
-		for (int label : sums.keySet()) {
-			if (sums.get(label) > maxSum) {
-				maxSum = sums.get(label);
-				ret.clear();
-				ret.add(label);
-			} else if (sums.get(label) == maxSum)
-				ret.add(label);
-		}
-		return ret;
+		LabelPropagation lpa = new LabelPropagation(adjacency, edgeWeights,
+				nodeWeights, this.d);
+		return lpa.compute(Mode.ASYNCHRONOUS, Long.MAX_VALUE,
+				System.currentTimeMillis());
 	}
 
 	@Override
@@ -153,13 +123,13 @@ public class CDLPAExtended extends Transformation {
 	public Graph transform(Graph g) {
 		HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
 
-		int[] labels = labelPropagationAlgorithmExtended(g.getNodes());
+		int[] labels = this.labelPropagationAlgorithmExtended(g.getNodes(),
+				g.getAdjacency());
 		HashMap<Integer, Integer> labelCommunityMapping = Util
 				.mapLabelsToCommunities(labels);
 
-		for (Node n : g.getNodes()) {
-			map.put(n.getIndex(),
-					labelCommunityMapping.get(labels[n.getIndex()]));
+		for (int i = 0; i < labels.length; i++) {
+			map.put(i, labelCommunityMapping.get(labels[i]));
 		}
 
 		g.addProperty(g.getNextKey("COMMUNITIES"),
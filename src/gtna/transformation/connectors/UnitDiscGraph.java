@@ -35,12 +35,13 @@
  */
 package gtna.transformation.connectors;
 
+import gtna.algorithms.spatial.SpatialEdges;
+import gtna.algorithms.spatial.SpatialIndex;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
-import gtna.id.DoubleIdentifier;
-import gtna.id.DoublePartition;
-import gtna.id.plane.PlaneIdentifierSpaceSimple;
+import gtna.id.IdentifierSpace;
 import gtna.transformation.Transformation;
+import gtna.util.Parallel;
 import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.Parameter;
 
@@ -59,28 +60,20 @@ public class UnitDiscGraph extends Transformation {
 
 	@Override
 	public Graph transform(Graph g) {
-		Edges edges = new Edges(g.getNodes(), g.getNodes().length
-				* (g.getNodes().length - 1));
-		PlaneIdentifierSpaceSimple idSpace = (PlaneIdentifierSpaceSimple) g
-				.getProperty("ID_SPACE_0");
-		for (int i = 0; i < g.getNodes().length; i++) {
-			for (int j = 0; j < g.getNodes().length; j++) {
-				if (i != j
-						&& ((DoublePartition) idSpace.getPartition(i))
-								.distance(((DoubleIdentifier) idSpace
-										.getPartition(j)
-										.getRepresentativeIdentifier())) <= radius) {
-					edges.add(i, j);
-				}
-			}
-		}
+		IdentifierSpace idSpace = (IdentifierSpace) g.getProperty("ID_SPACE_0");
+		SpatialIndex index = SpatialIndex.create(idSpace, this.radius);
+		Edges edges = SpatialEdges.create(g.getNodes(), index, this.radius,
+				SpatialEdges.ALL,
+				Parallel.getThreads("PARALLEL_TRANSFORMATIONS"), 0);
 		edges.fill();
 		return g;
 	}
 
 	@Override
 	public boolean applicable(Graph g) {
-		return g.getProperty("ID_SPACE_0") instanceof PlaneIdentifierSpaceSimple;
+		return g.getProperty("ID_SPACE_0") instanceof IdentifierSpace
+				&& SpatialIndex.applicable((IdentifierSpace) g
+						.getProperty("ID_SPACE_0"));
 	}
 
 }
@@ -112,6 +112,47 @@ public abstract class ForceDrivenAbstract extends GraphDrawingAbstract {
 		return iV;
 	}
 
+	/**
+	 * Flat equivalent of getCoordinate for all nodes: the coordinates of node
+	 * i (shifted by the bias, i.e., in [-modulus/2, modulus/2]) are stored at
+	 * [i * d, (i + 1) * d).
+	 * 
+	 * @return coordinates of all nodes
+	 */
+	protected double[] getCoordinates() {
+		int d = this.moduli.length;
+		double[] coordinates = new double[this.partitions.length * d];
+		for (int i = 0; i < this.partitions.length; i++) {
+			double[] c = ((MDIdentifier) this.partitions[i]
+					.getRepresentativeIdentifier()).getCoordinates();
+			for (int k = 0; k < d; k++) {
+				coordinates[i * d + k] = c[k] - this.bias.getCoordinate(k);
+			}
+		}
+		return coordinates;
+	}
+
+	/**
+	 * Flat equivalent of setNormalized and setCoordinate for all nodes.
+	 * 
+	 * @param coordinates
+	 *            coordinates of all nodes as returned by getCoordinates()
+	 */
+	protected void setCoordinates(double[] coordinates) {
+		int d = this.moduli.length;
+		double[] modulus = this.idSpace.getModulus();
+		for (int i = 0; i < this.partitions.length; i++) {
+			double[] c = new double[d];
+			for (int k = 0; k < d; k++) {
+				c[k] = Math.min(modulus[k] / 2,
+						Math.max(modulus[k] / -2, coordinates[i * d + k]))
+						+ this.bias.getCoordinate(k);
+			}
+			((MDIdentifier) this.partitions[i].getRepresentativeIdentifier())
+					.setCoordinates(c);
+		}
+	}
+
 	protected void setCoordinate(Node v, MDVector newPos) {
 		// System.out.print("Setting " + newPos);
 		newPos.add(bias);
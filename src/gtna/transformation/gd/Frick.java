@@ -35,6 +35,7 @@
  */
 package gtna.transformation.gd;
 
+import gtna.algorithms.spatial.BarnesHutTree;
 import gtna.drawing.GraphPlotter;
 import gtna.graph.Graph;
 import gtna.graph.Node;
@@ -42,6 +43,7 @@ import gtna.util.MDVector;
 import gtna.util.Util;
 import gtna.util.parameter.BooleanParameter;
 import gtna.util.parameter.DoubleArrayParameter;
+import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
@@ -49,6 +51,14 @@ import java.util.Arrays;
 import java.util.Collections;
 
 /**
+ * Force-directed graph drawing as proposed by Frick et al. (GEM): one node is
+ * moved at a time with its own local temperature. The repulsive forces on a
+ * node are computed from all other nodes, or approximated using a
+ * BarnesHutTree in case theta > 0. As the nodes are moved one after the
+ * other, the tree is built once per round (every n moves) and only the
+ * coordinates of its points are updated in between, i.e., the cells and
+ * their centers of mass may lag behind by up to one round.
+ * 
  * @author Nico
  * 
  */
@@ -96,19 +106,62 @@ public class Frick extends ForceDrivenAbstract {
 	 */
 	private final double gamma = 10.0625;
 
+	/*
+	 * Accuracy of the Barnes-Hut approximation of the repulsive forces, 0 for
+	 * computing them between all pairs of nodes
+	 */
+	private double theta;
+
+	/*
+	 * Tree of the current round, the coordinates of its points (updated
+	 * after every move) and the buffer the forces are accumulated in
+	 */
+	private BarnesHutTree tree;
+	private double[] positions;
+	private double[] forces;
+	private BarnesHutTree.Force repulsion;
+
 	public Frick(int realities, double[] moduli, Boolean wrapAround,
 			GraphPlotter plotter) {
-		super("GDA_FRICK", new Parameter[] {
+		this(realities, moduli, wrapAround, 0, plotter, new Parameter[] {
 				new IntParameter("REALITIES", realities),
 				new DoubleArrayParameter("MODULI", moduli),
 				new BooleanParameter("WRAPAROUND", wrapAround) });
+	}
+
+	/**
+	 * @param realities
+	 * @param moduli
+	 * @param wrapAround
+	 * @param theta
+	 *            accuracy of the Barnes-Hut approximation of the repulsive
+	 *            forces (e.g., 0.5), 0 for the exact computation
+	 * @param plotter
+	 */
+	public Frick(int realities, double[] moduli, Boolean wrapAround,
+			double theta, GraphPlotter plotter) {
+		this(realities, moduli, wrapAround, theta, plotter, new Parameter[] {
+				new IntParameter("REALITIES", realities),
+				new DoubleArrayParameter("MODULI", moduli),
+				new BooleanParameter("WRAPAROUND", wrapAround),
+				new DoubleParameter("THETA", theta) });
+	}
+
+	private Frick(int realities, double[] moduli, Boolean wrapAround,
+			double theta, GraphPlotter plotter, Parameter[] parameters) {
+		super("GDA_FRICK", parameters);
 		this.realities = realities;
 		this.moduli = moduli;
 		this.wrapAround = wrapAround;
 		this.graphPlotter = plotter;
+		this.theta = theta;
 	}
 
 	public GraphDrawingAbstract clone() {
+		if (this.theta > 0) {
+			return new Frick(realities, moduli, wrapAround, theta,
+					graphPlotter);
+		}
 		return new Frick(realities, moduli, wrapAround, graphPlotter);
 	}
 
@@ -124,6 +177,12 @@ public class Frick extends ForceDrivenAbstract {
 		for (double singleModulus : moduli)
 			this.area = this.area * singleModulus;
 		eDes = Math.sqrt(this.area / this.partitions.length);
+		this.repulsion = new BarnesHutTree.Force() {
+			@Override
+			public double force(double distance) {
+				return eDes * eDes / distance;
+			}
+		};
 
 		Node[] nodeList = g.getNodes();
 		maxIterations = 8 * nodeList.length;
@@ -146,6 +205,12 @@ public class Frick extends ForceDrivenAbstract {
 				 * visited
 				 */
 				Collections.shuffle(Arrays.asList(nodeList));
+				if (this.theta > 0) {
+					this.positions = this.getCoordinates();
+					this.tree = new BarnesHutTree(this.positions,
+							this.moduli.length);
+					this.forces = new double[this.positions.length];
+				}
 			}
 
 			Node v = nodeList[currIteration % nodeList.length];
@@ -158,6 +223,9 @@ public class Frick extends ForceDrivenAbstract {
 				+ " iterations (of maximal " + maxIterations
 				+ "), and temperature is " + tGlobal + " (minimal: " + tMin
 				+ ")");
+		this.tree = null;
+		this.positions = null;
+		this.forces = null;
 		if (graphPlotter != null)
 			graphPlotter.plotFinalGraph(g, idSpace);
 		writeIDSpace(g);
@@ -190,20 +258,10 @@ public class Frick extends ForceDrivenAbstract {
 		/*
 		 * Repulsive forces
 		 */
-		for (Node u : g.getNodes()) {
-			if (u.getIndex() == v.getIndex())
-				continue;
-			delta = getCoordinate(v).subtract(getCoordinate(u));
-			deltaNorm = delta.getNorm();
-			if (deltaNorm != 0) {
-				System.out.print("Old p: " + p + ", ");
-				System.out.print("Delta: " + delta + ", multiply with " + eDes
-						+ "^2, divide by " + deltaNorm + "^2 = ");
-				delta.multiplyWith(eDes * eDes).divideBy(deltaNorm * deltaNorm);
-				System.out.print(delta);
-				p.add(delta);
-				System.out.println(" -- new p:" + p);
-			}
+		if (this.tree != null) {
+			p.add(this.approximateRepulsion(v));
+		} else {
+			this.addRepulsion(g, v, p);
 		}
 		System.out.println("After all repulsive forces: " + p);
 
@@ -242,6 +300,12 @@ public class Frick extends ForceDrivenAbstract {
 
 			vPos = getCoordinate(v);
 			System.out.println(" New coord: " + vPos + "\n");
+			if (this.tree != null) {
+				int d = this.moduli.length;
+				for (int k = 0; k < d; k++) {
+					this.positions[v.getIndex() * d + k] = vPos.getCoordinate(k);
+				}
+			}
 		}
 		if (vertexData[v.getIndex()].lastImpulse.getNorm() != 0) {
 			/*
@@ -295,6 +359,43 @@ public class Frick extends ForceDrivenAbstract {
 		return g;
 	}
 
+	/**
+	 * Adds the repulsive forces between v and all other nodes to p.
+	 */
+	private void addRepulsion(Graph g, Node v, MDVector p) {
+		MDVector delta;
+		double deltaNorm;
+		for (Node u : g.getNodes()) {
+			if (u.getIndex() == v.getIndex())
+				continue;
+			delta = getCoordinate(v).subtract(getCoordinate(u));
+			deltaNorm = delta.getNorm();
+			if (deltaNorm != 0) {
+				System.out.print("Old p: " + p + ", ");
+				System.out.print("Delta: " + delta + ", multiply with " + eDes
+						+ "^2, divide by " + deltaNorm + "^2 = ");
+				delta.multiplyWith(eDes * eDes).divideBy(deltaNorm * deltaNorm);
+				System.out.print(delta);
+				p.add(delta);
+				System.out.println(" -- new p:" + p);
+			}
+		}
+	}
+
+	/**
+	 * @return repulsive forces on v approximated using the tree of the
+	 *         current round
+	 */
+	private MDVector approximateRepulsion(Node v) {
+		int d = this.moduli.length;
+		int offset = v.getIndex() * d;
+		Arrays.fill(this.forces, offset, offset + d, 0);
+		this.tree.accumulate(v.getIndex(), this.theta, this.repulsion,
+				this.forces);
+		return new MDVector(Arrays.copyOfRange(this.forces, offset, offset
+				+ d));
+	}
+
 	private MDVector getRandomDisturbanceVector() {
 		double minModulus = Util.min(idSpace.getModulus());
 		return new MDVector(idSpace.getModulus().length, rand.nextDouble()
@@ -35,18 +35,24 @@
  */
 package gtna.transformation.gd;
 
+import gtna.algorithms.spatial.BarnesHutTree;
 import gtna.drawing.GraphPlotter;
 import gtna.graph.Edge;
 import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.util.MDVector;
+import gtna.util.Parallel;
 import gtna.util.Util;
 import gtna.util.parameter.BooleanParameter;
 import gtna.util.parameter.DoubleArrayParameter;
+import gtna.util.parameter.DoubleParameter;
 import gtna.util.parameter.IntParameter;
 import gtna.util.parameter.Parameter;
 
 /**
+ * Force-directed graph drawing as proposed by Fruchterman and Reingold. The
+ * repulsive forces are computed between all pairs of nodes, or approximated
+ * using a BarnesHutTree in case theta > 0. In both cases, the forces of the
+ * nodes are accumulated in parallel using PARALLEL_TRANSFORMATIONS threads.
+ * 
  * @author Nico
  * 
  */
@@ -78,23 +84,64 @@ public class FruchtermanReingold extends ForceDrivenAbstract {
 	 */
 	private double t;
 
-	private Edge[] edgeList;
+	/*
+	 * Accuracy of the Barnes-Hut approximation of the repulsive forces, 0 for
+	 * computing them between all pairs of nodes
+	 */
+	private double theta;
+
+	/*
+	 * Source and destination of all edges
+	 */
+	private int[] edgeSrc;
+	private int[] edgeDst;
 
 	public FruchtermanReingold(int realities, double[] moduli,
 			Boolean wrapAround, int iterations, GraphPlotter plotter) {
-		super("GDA_FRUCHTERMAN_REINGOLD", new Parameter[] {
-				new IntParameter("REALITIES", realities),
-				new DoubleArrayParameter("MODULI", moduli),
-				new BooleanParameter("WRAPAROUND", wrapAround) });
+		this(realities, moduli, wrapAround, iterations, 0, plotter,
+				new Parameter[] { new IntParameter("REALITIES", realities),
+						new DoubleArrayParameter("MODULI", moduli),
+						new BooleanParameter("WRAPAROUND", wrapAround) });
+	}
+
+	/**
+	 * @param realities
+	 * @param moduli
+	 * @param wrapAround
+	 * @param iterations
+	 * @param theta
+	 *            accuracy of the Barnes-Hut approximation of the repulsive
+	 *            forces (e.g., 0.5), 0 for the exact computation
+	 * @param plotter
+	 */
+	public FruchtermanReingold(int realities, double[] moduli,
+			Boolean wrapAround, int iterations, double theta,
+			GraphPlotter plotter) {
+		this(realities, moduli, wrapAround, iterations, theta, plotter,
+				new Parameter[] { new IntParameter("REALITIES", realities),
+						new DoubleArrayParameter("MODULI", moduli),
+						new BooleanParameter("WRAPAROUND", wrapAround),
+						new DoubleParameter("THETA", theta) });
+	}
+
+	private FruchtermanReingold(int realities, double[] moduli,
+			Boolean wrapAround, int iterations, double theta,
+			GraphPlotter plotter, Parameter[] parameters) {
+		super("GDA_FRUCHTERMAN_REINGOLD", parameters);
 		this.realities = realities;
 		this.moduli = moduli;
 		this.wrapAround = wrapAround;
 		this.graphPlotter = plotter;
 		this.iterations = iterations;
+		this.theta = theta;
 	}
 
 	public GraphDrawingAbstract clone() {
-		return new FruchtermanReingold(iterations, moduli, wrapAround,
+		if (this.theta > 0) {
+			return new FruchtermanReingold(realities, moduli, wrapAround,
+					iterations, theta, graphPlotter);
+		}
+		return new FruchtermanReingold(realities, moduli, wrapAround,
 				iterations, graphPlotter);
 	}
 
@@ -110,7 +157,21 @@ public class FruchtermanReingold extends ForceDrivenAbstract {
 		// System.out.println("Best distance: " + k);
 
 		this.t = Util.max(idSpace.getModulus());
-		edgeList = g.generateEdges();
+		Edge[] edgeList = g.generateEdges();
+		int edges = 0;
+		for (Edge e : edgeList) {
+			if (e != null)
+				edges++;
+		}
+		this.edgeSrc = new int[edges];
+		this.edgeDst = new int[edges];
+		edges = 0;
+		for (Edge e : edgeList) {
+			if (e == null)
+				continue;
+			this.edgeSrc[edges] = e.getSrc();
+			this.edgeDst[edges++] = e.getDst();
+		}
 
 		for (int i = 0; i < this.iterations; i++) {
 			// System.out.println("\n\n   >>> in iteration " + i + " <<<");
@@ -125,90 +186,114 @@ public class FruchtermanReingold extends ForceDrivenAbstract {
 	}
 
 	private Graph doIteration(Graph g) {
-		MDVector delta, currDisp;
+		final int d = this.moduli.length;
+		final int nodes = this.partitions.length;
+		final double[] pos = this.getCoordinates();
 
 		/*
 		 * Displacement array which will hold the displacement throughout one
-		 * single iteration
+		 * single iteration (d values per node)
 		 */
-		MDVector[] disp = new MDVector[this.partitions.length];
+		final double[] disp = new double[pos.length];
 
 		// First step: repulsive forces
-		for (Node v : g.getNodes()) {
-			if (v == null)
-				continue;
-
-			// Reset displacement
-			disp[v.getIndex()] = new MDVector(idSpace.getModulus().length, 0d);
-
-			// Calculate repulsive forces to *all* other nodes
-			for (Node u : g.getNodes()) {
-				if (u == null)
-					continue;
-				if (u.getIndex() == v.getIndex())
-					continue;
-				delta = getCoordinate(v);
-				delta.subtract(getCoordinate(u));
-				currDisp = new MDVector(delta.getDimension(),
-						delta.getCoordinates());
-				double currDispNorm = currDisp.getNorm();
-				if (Double.isNaN(currDispNorm))
-					throw new GDTransformationException("You broke it");
-				currDisp.divideBy(currDispNorm);
-				currDisp.multiplyWith(fr(currDispNorm));
-				disp[v.getIndex()].add(currDisp);
+		final BarnesHutTree tree = this.theta > 0 ? new BarnesHutTree(pos, d)
+				: null;
+		final BarnesHutTree.Force repulsion = new BarnesHutTree.Force() {
+			@Override
+			public double force(double distance) {
+				return fr(distance);
 			}
-		}
+		};
+		final int threads = Parallel.getThreads("PARALLEL_TRANSFORMATIONS");
+		final int tasks = Math.min(nodes, threads * 4);
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				int end = Parallel.getEnd(nodes, tasks, task);
+				for (int v = Parallel.getStart(nodes, tasks, task); v < end; v++) {
+					if (tree != null) {
+						tree.accumulate(v, theta, repulsion, disp);
+					} else {
+						repulse(v, pos, disp, d);
+					}
+				}
+			}
+		});
 
 		// Second step: attractive forces
-		for (Edge e : edgeList) {
-			if (e == null)
-				continue;
-
-			delta = getCoordinate(e.getSrc());
-			delta.subtract(getCoordinate(e.getDst()));
-			currDisp = new MDVector(delta.getDimension(),
-					delta.getCoordinates());
-			double currDispNorm = currDisp.getNorm();
-			if (Double.isNaN(currDispNorm) || currDispNorm == 0)
+		double[] delta = new double[d];
+		for (int i = 0; i < this.edgeSrc.length; i++) {
+			int src = this.edgeSrc[i] * d;
+			int dst = this.edgeDst[i] * d;
+			double deltaNorm = 0;
+			for (int k = 0; k < d; k++) {
+				delta[k] = pos[src + k] - pos[dst + k];
+				deltaNorm += delta[k] * delta[k];
+			}
+			deltaNorm = Math.sqrt(deltaNorm);
+			if (Double.isNaN(deltaNorm) || deltaNorm == 0)
 				continue;
-			currDisp.divideBy(currDispNorm);
-			currDisp.multiplyWith(fa(currDispNorm));
-
-			disp[e.getSrc()].subtract(currDisp);
-			disp[e.getDst()].add(currDisp);
+			double force = fa(deltaNorm);
+			for (int k = 0; k < d; k++) {
+				double currDisp = delta[k] / deltaNorm * force;
+				disp[src + k] -= currDisp;
+				disp[dst + k] += currDisp;
+			}
 		}
 
 		// Last but not least: assign new coordinates
-		for (Node v : g.getNodes()) {
-			MDVector vVector = getCoordinate(v);
-
-			currDisp = new MDVector(disp[v.getIndex()].getDimension(),
-					disp[v.getIndex()].getCoordinates());
-			double currDispNorm = currDisp.getNorm();
-			currDisp.divideBy(currDispNorm);
-			currDisp.multiplyWith(Math.min(currDispNorm, t));
-			// System.out.println("Move " + vVector + " by " + currDisp +
-			// " (calculated disp: " + disp[v.getIndex()] + ", t: " + t + ")" );
-			// System.out.println("Old pos: " + vVector );
-
-			vVector.add(currDisp);
-			vVector = setNormalized(vVector);
-			setCoordinate(v, vVector);
-
-			// System.out.println("New pos: " + vVector + " for " +
-			// v.getIndex());
+		for (int v = 0; v < nodes; v++) {
+			double dispNorm = 0;
+			for (int k = 0; k < d; k++) {
+				dispNorm += disp[v * d + k] * disp[v * d + k];
+			}
+			dispNorm = Math.sqrt(dispNorm);
+			double length = Math.min(dispNorm, t);
+			for (int k = 0; k < d; k++) {
+				double currDisp = disp[v * d + k] / dispNorm * length;
+				if (!Double.isNaN(currDisp))
+					pos[v * d + k] += currDisp;
+			}
 		}
+		this.setCoordinates(pos);
 
 		t = cool(t);
 		return g;
 	}
 
-	private double fr(Double x) {
+	/**
+	 * Adds the repulsive forces of all other nodes to the displacement of v.
+	 */
+	private void repulse(int v, double[] pos, double[] disp, int d) {
+		int nodes = pos.length / d;
+		for (int u = 0; u < nodes; u++) {
+			if (u == v)
+				continue;
+			double deltaNorm = 0;
+			for (int k = 0; k < d; k++) {
+				double delta = pos[v * d + k] - pos[u * d + k];
+				deltaNorm += delta * delta;
+			}
+			deltaNorm = Math.sqrt(deltaNorm);
+			if (Double.isNaN(deltaNorm))
+				throw new GDTransformationException("You broke it");
+			double force = fr(deltaNorm);
+			for (int k = 0; k < d; k++) {
+				// skipped for nodes at the same position (as by MDVector.add)
+				double currDisp = (pos[v * d + k] - pos[u * d + k])
+						/ deltaNorm * force;
+				if (!Double.isNaN(currDisp))
+					disp[v * d + k] += currDisp;
+			}
+		}
+	}
+
+	private double fr(double x) {
 		return ((k * k) / x);
 	}
 
-	private double fa(Double x) {
+	private double fa(double x) {
 		return attractionFactor * ((x * x) / k);
 	}
 
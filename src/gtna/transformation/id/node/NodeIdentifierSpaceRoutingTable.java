@@ -46,6 +46,7 @@ import gtna.routing.table.NodeRoutingTable;
 import gtna.routing.table.RoutingTable;
 import gtna.routing.table.RoutingTables;
 import gtna.transformation.Transformation;
+import gtna.util.Parallel;
 import gtna.util.parameter.Parameter;
 import gtna.util.parameter.StringParameter;
 
@@ -74,12 +75,18 @@ public class NodeIdentifierSpaceRoutingTable extends Transformation {
 		NodeIdentifierSpace ids = new NodeIdentifierSpace(p);
 		g.addProperty(g.getNextKey("ID_SPACE"), ids);
 
-		RoutingTable[] tables = new RoutingTable[g.getNodeCount()];
+		final RoutingTable[] tables = new RoutingTable[g.getNodeCount()];
 		ShortestPathsAlgorithm spa = new Dijkstra();
-		for (int i = 0; i < tables.length; i++) {
-			int[][] temp = spa.getShortestPaths(g, i);
-			tables[i] = new NodeRoutingTable(i, temp[2]);
-		}
+		// only the next hops are kept, distinct sources are written
+		// concurrently
+		spa.getShortestPaths(g, Parallel.getThreads("PARALLEL_TRANSFORMATIONS"),
+				new ShortestPathsAlgorithm.Consumer() {
+					@Override
+					public void consume(int start, int[] dist,
+							int[] previous, int[] nextHop) {
+						tables[start] = new NodeRoutingTable(start, nextHop);
+					}
+				});
 		RoutingTables rt = new RoutingTables(tables);
 		g.addProperty(g.getNextKey("ROUTING_TABLES"), rt);
 
@@ -0,0 +1,240 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * AIndexWalker.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.transformation.sampling;
+
+import gtna.graph.Adjacency;
+import gtna.graph.Graph;
+import gtna.graph.Node;
+import gtna.transformation.sampling.sample.INetworkSample;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Walker that is located at a single node and selects the next node directly
+ * from the adjacency of the graph (by index) instead of resolving and
+ * filtering lists of candidate nodes.
+ *
+ * Every walker uses its own RNG stream which is seeded from the sampling
+ * controller's RNG when the start node is set. Hence, a step only depends
+ * on the walker itself and the current sample so that independent walkers
+ * can be advanced concurrently (cf. AWalkerController.walkOneStep) with a
+ * deterministic outcome: prepareStep determines the next node (without
+ * modifying shared state) and completeStep moves the walker (or restarts it
+ * if it is blocked).
+ */
+public abstract class AIndexWalker extends AWalker {
+
+	/**
+	 * returned by selectNextIndex if there is no candidate to move to
+	 */
+	public static final int BLOCKED = -1;
+
+	private int current = -1;
+
+	private int next = BLOCKED;
+
+	private Random rng;
+
+	/**
+	 * @param walker
+	 */
+	public AIndexWalker(String walker) {
+		super(walker);
+	}
+
+	/**
+	 * Selects the next node of the walker.
+	 *
+	 * @param adjacency
+	 *            adjacency of the graph
+	 * @param current
+	 *            index of the current node
+	 * @param rng
+	 *            RNG stream of this walker
+	 * @return index of the next node, BLOCKED if there is no candidate
+	 */
+	protected abstract int selectNextIndex(Adjacency adjacency, int current,
+			Random rng);
+
+	/**
+	 * Determines the next node of the walker without moving it.
+	 *
+	 * @param adjacency
+	 * @return false if the walker is blocked
+	 */
+	public boolean prepareStep(Adjacency adjacency) {
+		this.next = this.selectNextIndex(adjacency, this.current, this.rng);
+		return this.next != BLOCKED;
+	}
+
+	/**
+	 * Moves the walker to the node determined by prepareStep or to a restart
+	 * node if it is blocked.
+	 *
+	 * @param g
+	 */
+	public void completeStep(Graph g) {
+		if (this.next == BLOCKED) {
+			this.next = this.getRestartNodes().get(0).getIndex();
+		}
+		this.moveTo(g.getNode(this.next));
+		this.next = BLOCKED;
+	}
+
+	@Override
+	public void takeAStep(Graph g, INetworkSample ns) {
+		this.prepareStep(g.getAdjacency());
+		this.completeStep(g);
+	}
+
+	private void moveTo(Node node) {
+		this.current = node.getIndex();
+		this.currents.clear();
+		this.currents.add(node);
+	}
+
+	@Override
+	public void setStartNode(Node node) {
+		if (this.current == -1) {
+			this.rng = new Random(super.getRNG().nextLong());
+			this.moveTo(node);
+		}
+	}
+
+	/**
+	 * @return index of the current node (-1 if no start node is set)
+	 */
+	public int getCurrentIndex() {
+		return this.current;
+	}
+
+	/**
+	 * @return the RNG stream of this walker
+	 */
+	@Override
+	public Random getRNG() {
+		return this.rng;
+	}
+
+	/**
+	 * Selects a neighbor of the given node uniformly at random among the ones
+	 * accepted by the candidate filter. A random neighbor is tried first; only
+	 * if it is rejected, the candidates are counted.
+	 *
+	 * @param adjacency
+	 * @param v
+	 * @param rng
+	 * @return index of the selected neighbor, BLOCKED if there is none
+	 */
+	protected int randomCandidate(Adjacency adjacency, int v, Random rng) {
+		int start = adjacency.getOutStart(v);
+		int end = adjacency.getOutEnd(v);
+		if (start == end) {
+			return BLOCKED;
+		}
+		// accepted with probability 1 / degree, otherwise uniform among all
+		// candidates, i.e., uniform overall
+		int w = adjacency.getOutTarget(start + rng.nextInt(end - start));
+		if (this.isCandidate(w)) {
+			return w;
+		}
+		int candidates = 0;
+		for (int e = start; e < end; e++) {
+			if (this.isCandidate(adjacency.getOutTarget(e))) {
+				candidates++;
+			}
+		}
+		if (candidates == 0) {
+			return BLOCKED;
+		}
+		int k = rng.nextInt(candidates);
+		for (int e = start;; e++) {
+			w = adjacency.getOutTarget(e);
+			if (this.isCandidate(w) && k-- == 0) {
+				return w;
+			}
+		}
+	}
+
+	/**
+	 * returns the list of neighbors as candidates
+	 *
+	 * @param g
+	 *            Graph
+	 * @param n
+	 *            Current node
+	 * @return List of candidates
+	 */
+	@Override
+	public List<Node> resolveCandidates(Graph g, Node n) {
+		int[] nids = n.getOutgoingEdges();
+		ArrayList<Node> nn = new ArrayList<Node>(nids.length);
+		for (int i : nids) {
+			nn.add(g.getNode(i));
+		}
+		return nn;
+	}
+
+	/**
+	 * Selects the next node using selectNextIndex for the walker's current
+	 * node (as held in currents, which callers of this method update). The
+	 * given candidates are only used in case the walker is blocked.
+	 */
+	@Override
+	protected Node selectNextNode(Collection<Node> candidates) {
+		Graph g = this.getGraph();
+		Random rng = this.rng != null ? this.rng : super.getRNG();
+		if (!this.currents.isEmpty()) {
+			int v = this.currents.iterator().next().getIndex();
+			int next = this.selectNextIndex(g.getAdjacency(), v, rng);
+			if (next != BLOCKED) {
+				return g.getNode(next);
+			}
+		}
+		if (!candidates.isEmpty()) {
+			int k = rng.nextInt(candidates.size());
+			for (Node n : candidates) {
+				if (k-- == 0) {
+					return n;
+				}
+			}
+		}
+		return this.getRestartNodes().get(0);
+	}
+}
@@ -36,6 +36,8 @@
 package gtna.transformation.sampling;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -126,9 +128,18 @@ public abstract class ASampler extends Parameter {
 		LinkedList<Node> sampled = new LinkedList<Node>();
 
 		for (AWalker w : walkers) {
-			Map<Node, List<Node>> wcc = w.getCurrentCandidates();
-			Map<Node, List<Node>> fc = walkerController
-					.filterCandidates(wcc);
+			Map<Node, List<Node>> fc;
+			if (this.usesCandidates()) {
+				Map<Node, List<Node>> wcc = w.getCurrentCandidates();
+				fc = walkerController.filterCandidates(wcc);
+			} else {
+				// only the current nodes are sampled, there is no need to
+				// resolve and filter their neighbors
+				fc = new HashMap<Node, List<Node>>();
+				for (Node n : w.getCurrentNodes()) {
+					fc.put(n, Collections.<Node> emptyList());
+				}
+			}
 			sampled.addAll(sampleNodes(fc, round));
 		}
 
@@ -150,6 +161,17 @@ public abstract class ASampler extends Parameter {
 
 	}
 
+	/**
+	 * Determines if sampleNodes depends on the candidates of the current
+	 * nodes. If not, only the current nodes are passed to sampleNodes (each
+	 * with an empty list of candidates).
+	 * 
+	 * @return true if the filtered candidates are used by sampleNodes
+	 */
+	protected boolean usesCandidates() {
+		return true;
+	}
+
 	/**
 	 * Select the sampled node out of the filtered candidates
 	 * 
@@ -177,6 +177,15 @@ public abstract class AWalker extends Parameter {
 	return controller.filterCandidates(nodesToFilter);
     }
 
+    /**
+     * @param node
+     *            index of a node
+     * @return true if the node is not removed by the candidate filter
+     */
+    public boolean isCandidate(int node) {
+	return controller.isCandidate(node);
+    }
+
     /**
      * @return
      */
@@ -42,9 +42,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import gtna.graph.Adjacency;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 import gtna.transformation.sampling.sample.INetworkSample;
+import gtna.util.Parallel;
 import gtna.util.Timer;
 import gtna.util.parameter.Parameter;
 
@@ -216,8 +218,13 @@ public abstract class AWalkerController extends Parameter {
 		
 		Timer t = new Timer(); // TODO
 		Collection<AWalker> activeWalkers = this.getActiveWalkers();
-		for (AWalker w : activeWalkers) {
-			w.takeAStep(this.getGraph(), this.getNetworkSample());
+		if (activeWalkers.size() > 1 && this.indexBased(activeWalkers)) {
+			this.walkOneStepParallel(activeWalkers
+					.toArray(new AIndexWalker[activeWalkers.size()]));
+		} else {
+			for (AWalker w : activeWalkers) {
+				w.takeAStep(this.getGraph(), this.getNetworkSample());
+			}
 		}
 		
 		// TODO
@@ -225,6 +232,52 @@ public abstract class AWalkerController extends Parameter {
 		runtime += t.getMsec();
 	}
 
+	private boolean indexBased(Collection<AWalker> walkers) {
+		for (AWalker w : walkers) {
+			if (!(w instanceof AIndexWalker)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Advances independent index-based walkers concurrently
+	 * (PARALLEL_TRANSFORMATIONS threads): the next nodes are determined in
+	 * parallel (each walker using its own RNG stream), then the walkers are
+	 * moved and blocked ones restarted in their given order. Hence, the result
+	 * does not depend on the number of threads.
+	 * 
+	 * @param walkers
+	 */
+	private void walkOneStepParallel(final AIndexWalker[] walkers) {
+		final Adjacency adjacency = this.getGraph().getAdjacency();
+		final int threads = Parallel.getThreads("PARALLEL_TRANSFORMATIONS");
+		// a single step is cheap, split only larger numbers of walkers
+		final int tasks = Math.min(threads, (walkers.length + 255) / 256);
+		Parallel.run(tasks, threads, new Parallel.Task() {
+			@Override
+			public void run(int task) {
+				int end = Parallel.getEnd(walkers.length, tasks, task);
+				for (int i = Parallel.getStart(walkers.length, tasks, task); i < end; i++) {
+					walkers[i].prepareStep(adjacency);
+				}
+			}
+		});
+		for (AIndexWalker w : walkers) {
+			w.completeStep(this.getGraph());
+		}
+	}
+
+	/**
+	 * @param node
+	 *            index of a node
+	 * @return true if the node is not removed by the candidate filter
+	 */
+	public boolean isCandidate(int node) {
+		return candidateFilter.isCandidate(node, this.getNetworkSample());
+	}
+
 	public List<Node> filterCandidates(List<Node> candidates) {
 		return candidateFilter.filterCandidates(candidates, this.getNetworkSample());
 	}
@@ -115,6 +115,19 @@ public class CandidateFilter {
     	return c;
     }
 
+    /**
+     * Checks a single candidate with respect to @classfield revisiting
+     * 
+     * @param node
+     *            index of the candidate node
+     * @param ns
+     *            current network sample
+     * @return true if the node is a real candidate
+     */
+    public boolean isCandidate(int node, INetworkSample ns) {
+	return revisiting || !ns.contains(node);
+    }
+
 	/**
 	 * @return the runtime
 	 */
@@ -68,6 +68,15 @@ public interface INetworkSample {
 	 */
 	public abstract boolean contains(Node n);
 
+	/**
+	 * Checks if the node with the given index is already sampled
+	 * 
+	 * @param index
+	 *            index of the node in the original graph
+	 * @return true if contained, else false
+	 */
+	public abstract boolean contains(int index);
+
 	/**
 	 * Return the RevisitFrequency-Map for the whole sampling Key = nodeID (from
 	 * the node in the original graph) Value = List of the rounds in which the
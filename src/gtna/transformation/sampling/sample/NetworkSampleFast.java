@@ -35,38 +35,39 @@
  */
 package gtna.transformation.sampling.sample;
 
-import gnu.trove.THashMap;
 import gtna.graph.Node;
-import gtna.util.Timer;
 import gtna.util.parameter.Parameter;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map;
 import java.util.Map.Entry;
 
 /**
+ * Network sample without revisit frequencies. The mapping of sampled nodes
+ * to their index in the sampled graph is stored in arrays: newIndex holds
+ * the new index of every node of the original graph (-1 if not sampled) and
+ * oldIndex the original index of every sampled node (in order of sampling).
+ * 
  * @author Tim
  * 
  */
 public class NetworkSampleFast extends Parameter implements INetworkSample {
 
-	THashMap<Integer, Integer> sampleNodeMapping;
+	// new index of every node (-1 if not sampled)
+	int[] newIndex;
+	// original index of every sampled node
+	int[] oldIndex;
+	int size;
 	String algorithm;
 	double scaledown;
 	int dimension;
 	boolean revisiting;
 	int numberOfRounds = 0;
 	String type;
-	boolean[] contained;
 
 	
 	/**
@@ -98,7 +99,6 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	public NetworkSampleFast(String type, String algorithm, double scaledown, int dimension,
 			boolean revisiting) {
 		super("NETWORK_SAMPLE", type);
-		sampleNodeMapping = new THashMap<Integer, Integer>();
 
 		this.type = type;
 		this.algorithm = algorithm;
@@ -115,13 +115,13 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	public NetworkSampleFast(String type) {
 		super("NETWORK_SAMPLE", type);
 		this.type = type;
-		sampleNodeMapping = new THashMap<Integer, Integer>();
 	}
 	
 	public void initialize(int nodecount){
-		contained = new boolean[nodecount];
-		Arrays.fill(contained, false);
-		
+		newIndex = new int[nodecount];
+		Arrays.fill(newIndex, -1);
+		oldIndex = new int[Math.min(nodecount, 16)];
+		size = 0;
 	}
 
 	/**
@@ -148,9 +148,7 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 		for (Node n : nodes) {
 			if (!contains(n)) {
 				// add node to the sample and initialize the RF for this node
-				int newId = sampleNodeMapping.size();
-				sampleNodeMapping.put(n.getIndex(), newId);
-				contained[n.getIndex()]=true;
+				put(n.getIndex(), size);
 			}
 		}
 
@@ -159,6 +157,30 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 		return true;
 	}
 
+	/**
+	 * Adds the node with the given (original) index to the mapping
+	 * 
+	 * @param oldId
+	 * @param newId
+	 */
+	private void put(int oldId, int newId) {
+		if (oldId >= newIndex.length) {
+			int length = Math.max(oldId + 1, 2 * newIndex.length);
+			int from = newIndex.length;
+			newIndex = Arrays.copyOf(newIndex, length);
+			Arrays.fill(newIndex, from, length, -1);
+		}
+		if (newId >= oldIndex.length) {
+			oldIndex = Arrays.copyOf(oldIndex,
+					Math.max(newId + 1, 2 * oldIndex.length));
+		}
+		if (newIndex[oldId] == -1) {
+			size++;
+		}
+		newIndex[oldId] = newId;
+		oldIndex[newId] = oldId;
+	}
+
 	/**
 	 * Checks if a node is already sampled
 	 * 
@@ -167,7 +189,15 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @return true if contained, else false
 	 */
 	public boolean contains(Node n) {
-		return contained[n.getIndex()];
+		return contains(n.getIndex());
+	}
+
+	/* (non-Javadoc)
+	 * @see gtna.transformation.sampling.sample.INetworkSample#contains(int)
+	 */
+	@Override
+	public boolean contains(int index) {
+		return index < newIndex.length && newIndex[index] != -1;
 	}
 
 	/**
@@ -199,8 +229,11 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @return
 	 */
 	public HashMap<Integer, Integer> getSampleNodeMapping() {
-		HashMap<Integer, Integer> hm = new HashMap<Integer, Integer>();
-		hm.putAll(sampleNodeMapping);
+		HashMap<Integer, Integer> hm = new HashMap<Integer, Integer>(
+				2 * size);
+		for (int i = 0; i < size; i++) {
+			hm.put(oldIndex[i], i);
+		}
 		return hm;
 	}
 
@@ -210,7 +243,7 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @return
 	 */
 	public int getSampleSize() {
-		return sampleNodeMapping.size();
+		return size;
 	}
 
 	/**
@@ -219,7 +252,7 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @return
 	 */
 	private boolean initialized() {
-			if (sampleNodeMapping != null && contained != null) {
+			if (newIndex != null && oldIndex != null) {
 			return true;
 		}
 
@@ -256,7 +289,11 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @return nodeId in the sampled graph
 	 */
 	public int getNewIndexOfSampledNode(int n) {
-		return sampleNodeMapping.get(n); 
+		if (!contains(n)) {
+			throw new IllegalArgumentException("node " + n
+					+ " is not contained in the sample");
+		}
+		return newIndex[n];
 	}
 
 	/**
@@ -269,10 +306,8 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	private String printMapping() {
 		StringBuilder sb = new StringBuilder();
 		
-		for (int n : sampleNodeMapping.keySet()) {
-			Integer newId = sampleNodeMapping.get(n);
-			
-			sb.append(n + ";" + newId + ";\n");
+		for (int i = 0; i < size; i++) {
+			sb.append(oldIndex[i] + ";" + i + ";\n");
 		}
 
 		return sb.toString();
@@ -286,8 +321,7 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @param rf
 	 */
 	public void addNodeEntry(int oldId, int newId, List<Integer> rf) {
-		sampleNodeMapping.put(oldId, newId);
-		contained[oldId]=true;
+		put(oldId, newId);
 	}
 
 	/**
@@ -302,7 +336,7 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 * @return
 	 */
 	public INetworkSample cleanInstance() {
-		return new NetworkSampleFull(type, algorithm, scaledown, dimension, revisiting);
+		return new NetworkSampleFast(type, algorithm, scaledown, dimension, revisiting);
 		
 	}
 
@@ -311,13 +345,11 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 */
 	private void clear() {
 
-		sampleNodeMapping = new THashMap<Integer, Integer>(); 
-		
 		numberOfRounds = 0;
-		Arrays.fill(contained, false);
+		size = 0;
+		Arrays.fill(newIndex, -1);
 		
 	}
-
 	/* (non-Javadoc)
 	 * @see gtna.transformation.sampling.sample.NetworkSample1#getAlgorithm()
 	 */
@@ -393,7 +425,7 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 		ListIterator<Node> lit = toFilter.listIterator();
 		while(lit.hasNext()){
 			Node n = lit.next();
-			if(!contained[n.getIndex()]){
+			if(!contains(n.getIndex())){
 				filtered.add(n);
 			}
 		}
@@ -414,8 +446,14 @@ public class NetworkSampleFast extends Parameter implements INetworkSample {
 	 */
 	@Override
 	public void setSampleNodeMapping(HashMap<Integer, Integer> snm) {
-		this.sampleNodeMapping = new THashMap<Integer, Integer>();
-		this.sampleNodeMapping.putAll(snm);
+		int nodes = 0;
+		for (int oldId : snm.keySet()) {
+			nodes = Math.max(nodes, oldId + 1);
+		}
+		this.initialize(nodes);
+		for (Entry<Integer, Integer> e : snm.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
 		
 	}
 	
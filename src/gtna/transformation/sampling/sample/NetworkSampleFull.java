@@ -168,6 +168,14 @@ public class NetworkSampleFull extends Parameter implements INetworkSample {
 		return contained[n.getIndex()];
 	}
 
+	/* (non-Javadoc)
+	 * @see gtna.transformation.sampling.sample.INetworkSample#contains(int)
+	 */
+	@Override
+	public boolean contains(int index) {
+		return contained[index];
+	}
+
 	/* (non-Javadoc)
 	 * @see gtna.transformation.sampling.sample.NetworkSample1#getRevisitFrequency()
 	 */
@@ -83,4 +83,12 @@ public class RoundBasedVisitedNodeSampler extends ASampler {
 		return selected;
 	}
 
+	/* (non-Javadoc)
+	 * @see gtna.transformation.sampling.ASampler#usesCandidates()
+	 */
+	@Override
+	protected boolean usesCandidates() {
+		return false; // only the visited nodes are sampled
+	}
+
 }
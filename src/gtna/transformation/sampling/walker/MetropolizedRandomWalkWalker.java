@@ -35,20 +35,16 @@
  */
 package gtna.transformation.sampling.walker;
 
-import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.transformation.sampling.AWalker;
+import gtna.graph.Adjacency;
+import gtna.transformation.sampling.AIndexWalker;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 import java.util.Random;
 
 /**
  * @author Tim
  * 
  */
-public class MetropolizedRandomWalkWalker extends AWalker {
+public class MetropolizedRandomWalkWalker extends AIndexWalker {
 
 	/**
 	 * @param walker
@@ -61,59 +57,28 @@ public class MetropolizedRandomWalkWalker extends AWalker {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * gtna.transformation.sampling.AWalker#selectNextNode(java.util.Collection)
+	 * gtna.transformation.sampling.AIndexWalker#selectNextIndex(gtna.graph.
+	 * Adjacency, int, java.util.Random)
 	 */
 	@Override
-	protected Node selectNextNode(Collection<Node> candidates) {
-		Random r = this.getRNG();
-		Collection<Node> c = this.getCurrentNodes();
-		if (c.size() > 0) {
-			Node current = c.toArray(new Node[0])[0];
-
-			int next = r.nextInt(candidates.size());
-			next = next % candidates.size();
-
-			Node nextStepCandidate = candidates.toArray(new Node[0])[next];
-
-			int nscDegree = nextStepCandidate.getDegree();
-			int cDegree = current.getDegree();
-
-			double d = (double) cDegree / (double) nscDegree;
+	protected int selectNextIndex(Adjacency adjacency, int current, Random rng) {
+		int nextStepCandidate = this.randomCandidate(adjacency, current, rng);
+		if (nextStepCandidate == BLOCKED) {
+			return BLOCKED;
+		}
 
-			d = Math.min(d, 1);
+		int nscDegree = adjacency.getDegree(nextStepCandidate);
+		int cDegree = adjacency.getDegree(current);
 
-			double p = r.nextDouble();
+		double d = (double) cDegree / (double) nscDegree;
+		d = Math.min(d, 1);
 
-			if (p < d) {
-				return nextStepCandidate; // move the walker to the next node
-			} else {
-				return current; // stay and don't move the walker!
-			}
+		double p = rng.nextDouble();
+		if (p < d) {
+			return nextStepCandidate; // move the walker to the next node
 		} else {
-			c = this.getRestartNodes();
-
-			return c.toArray(new Node[0])[0];
-		}
-
-	}
-
-	/**
-	 * returns the list of neighbors as candidates
-	 * 
-	 * @param g
-	 *            Graph
-	 * @param n
-	 *            Current node
-	 * @return List of candidates
-	 */
-	@Override
-	public List<Node> resolveCandidates(Graph g, Node n) {
-		int[] nids = n.getOutgoingEdges();
-		ArrayList<Node> nn = new ArrayList<Node>();
-		for (int i : nids) {
-			nn.add(g.getNode(i));
+			return current; // stay and don't move the walker!
 		}
-		return nn;
 	}
 
 }
@@ -35,21 +35,16 @@
  */
 package gtna.transformation.sampling.walker;
 
-import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.transformation.sampling.AWalker;
+import gtna.graph.Adjacency;
+import gtna.transformation.sampling.AIndexWalker;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
 import java.util.Random;
 
 /**
  * @author Tim
  * 
  */
-public class RandomJumpWalker extends AWalker {
+public class RandomJumpWalker extends AIndexWalker {
 
 	double pJump;
 
@@ -65,47 +60,50 @@ public class RandomJumpWalker extends AWalker {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * gtna.transformation.sampling.AWalker#selectNextNode(java.util.Collection)
+	 * gtna.transformation.sampling.AIndexWalker#selectNextIndex(gtna.graph.
+	 * Adjacency, int, java.util.Random)
 	 */
 	@Override
-	protected Node selectNextNode(Collection<Node> candidates) {
-		Random r = super.getRNG();
-
-		double c = r.nextDouble();
-
+	protected int selectNextIndex(Adjacency adjacency, int current, Random rng) {
+		double c = rng.nextDouble();
 		if (c > pJump) {
-			int next = r.nextInt(candidates.size());
-			next = next % candidates.size();
-
-			return candidates.toArray(new Node[0])[next];
+			return this.randomCandidate(adjacency, current, rng);
 		} else {
-			Graph g = super.getGraph();
-			Collection<Node> fc = super.filterCandidates(Arrays.asList(g
-					.getNodes()));
-
-			int next = r.nextInt(fc.size());
-
-			return fc.toArray(new Node[0])[next];
+			return this.randomNode(adjacency.getNodeCount(), rng);
 		}
 	}
 
 	/**
-	 * returns the list of neighbors as candidates
+	 * Selects a node of the graph uniformly at random among the ones
+	 * accepted by the candidate filter. Random nodes are tried first, the
+	 * candidates are only counted if this fails repeatedly.
 	 * 
-	 * @param g
-	 *            Graph
-	 * @param n
-	 *            Current node
-	 * @return List of candidates
+	 * @param nodes
+	 * @param rng
+	 * @return index of the selected node, BLOCKED if there is none
 	 */
-	@Override
-	public List<Node> resolveCandidates(Graph g, Node n) {
-		int[] nids = n.getOutgoingEdges();
-		ArrayList<Node> nn = new ArrayList<Node>();
-		for (int i : nids) {
-			nn.add(g.getNode(i));
+	private int randomNode(int nodes, Random rng) {
+		for (int i = 0; i < 64; i++) {
+			int v = rng.nextInt(nodes);
+			if (this.isCandidate(v)) {
+				return v;
+			}
+		}
+		int candidates = 0;
+		for (int v = 0; v < nodes; v++) {
+			if (this.isCandidate(v)) {
+				candidates++;
+			}
+		}
+		if (candidates == 0) {
+			return BLOCKED;
+		}
+		int k = rng.nextInt(candidates);
+		for (int v = 0;; v++) {
+			if (this.isCandidate(v) && k-- == 0) {
+				return v;
+			}
 		}
-		return nn;
 	}
 
 }
@@ -35,20 +35,16 @@
  */
 package gtna.transformation.sampling.walker;
 
-import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.transformation.sampling.AWalker;
+import gtna.graph.Adjacency;
+import gtna.transformation.sampling.AIndexWalker;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 import java.util.Random;
 
 /**
  * @author Tim
  *
  */
-public class RandomWalkDegreeCorrectionWalker extends AWalker {
+public class RandomWalkDegreeCorrectionWalker extends AIndexWalker {
 
 	/**
 	 * @param walker
@@ -58,51 +54,34 @@ public class RandomWalkDegreeCorrectionWalker extends AWalker {
 	}
 
 	/* (non-Javadoc)
-	 * @see gtna.transformation.sampling.AWalker#selectNextNode(java.util.Collection)
+	 * @see gtna.transformation.sampling.AIndexWalker#selectNextIndex(gtna.graph.Adjacency, int, java.util.Random)
 	 */
 	@Override
-	protected Node selectNextNode(Collection<Node> candidates) {
-		Random r = this.getRNG();
-		ArrayList<Node> can = new ArrayList<Node>();
-		can.addAll(candidates);
-		
-		double pnext = r.nextDouble();
-		double pd = 0.0;
-		int i = 0;
-		Node next;
-		do{
+	protected int selectNextIndex(Adjacency adjacency, int current, Random rng) {
+		int start = adjacency.getOutStart(current);
+		int end = adjacency.getOutEnd(current);
+		boolean blocked = true;
+		for (int e = start; e < end && blocked; e++) {
+			blocked = !this.isCandidate(adjacency.getOutTarget(e));
+		}
+		if (blocked) {
+			return BLOCKED;
+		}
+
+		double pnext = rng.nextDouble();
+		int e = start;
+		while (true) {
 			// if the whole candidate set is tried, reset counter and draw a new random
-			if(i >= can.size()){
-				i = 0;
-				pnext = r.nextDouble();
+			if (e >= end) {
+				e = start;
+				pnext = rng.nextDouble();
+			}
+			int next = adjacency.getOutTarget(e++);
+			if (this.isCandidate(next)
+					&& pnext <= 1.0 / adjacency.getOutDegree(next)) {
+				return next;
 			}
-			next = can.get(i);
-			pd = 1.0 / next.getOutDegree();
-			
-			i++;
-		}while(pnext > pd);
-		
-		return next;
+		}
 	}
-	
-	
-	 /**
-     * returns the list of neighbors as candidates
-     * 
-     * @param g
-     *            Graph
-     * @param n
-     *            Current node
-     * @return List of candidates
-     */
-	@Override
-    public List<Node> resolveCandidates(Graph g, Node n) {
-    	int[] nids = n.getOutgoingEdges();
-    	ArrayList<Node> nn = new ArrayList<Node>();
-    	for (int i : nids) {
-    		nn.add(g.getNode(i));
-    	}
-    	return nn;
-    }
 
 }
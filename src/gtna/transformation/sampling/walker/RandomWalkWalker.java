@@ -35,19 +35,16 @@
  */
 package gtna.transformation.sampling.walker;
 
-import gtna.graph.Graph;
-import gtna.graph.Node;
-import gtna.transformation.sampling.AWalker;
+import gtna.graph.Adjacency;
+import gtna.transformation.sampling.AIndexWalker;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.Random;
 
 /**
  * @author Tim
  *
  */
-public class RandomWalkWalker extends AWalker {
+public class RandomWalkWalker extends AIndexWalker {
 
 	/**
 	 * @param walker
@@ -57,35 +54,11 @@ public class RandomWalkWalker extends AWalker {
 	}
 
 	/* (non-Javadoc)
-	 * @see gtna.transformation.sampling.AWalker#selectNextNode(java.util.Collection)
+	 * @see gtna.transformation.sampling.AIndexWalker#selectNextIndex(gtna.graph.Adjacency, int, java.util.Random)
 	 */
 	@Override
-	protected Node selectNextNode(Collection<Node> candidates) {
-			
-		int next = this.getRNG().nextInt(candidates.size());
-		next = next % candidates.size();
-		
-		return candidates.toArray(new Node[0])[next];
+	protected int selectNextIndex(Adjacency adjacency, int current, Random rng) {
+		return this.randomCandidate(adjacency, current, rng);
 	}
-	
-	
-	 /**
-     * returns the list of neighbors as candidates
-     * 
-     * @param g
-     *            Graph
-     * @param n
-     *            Current node
-     * @return List of candidates
-     */
-	@Override
-    public List<Node> resolveCandidates(Graph g, Node n) {
-    	int[] nids = n.getOutgoingEdges();
-    	ArrayList<Node> nn = new ArrayList<Node>();
-    	for (int i : nids) {
-    		nn.add(g.getNode(i));
-    	}
-    	return nn;
-    }
 
 }
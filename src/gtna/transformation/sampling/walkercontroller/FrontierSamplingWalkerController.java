@@ -35,16 +35,13 @@
  */
 package gtna.transformation.sampling.walkercontroller;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Collections;
 import java.util.Random;
 
+import gtna.graph.Adjacency;
 import gtna.graph.Node;
+import gtna.transformation.sampling.AIndexWalker;
 import gtna.transformation.sampling.AWalker;
 import gtna.transformation.sampling.AWalkerController;
 import gtna.transformation.sampling.CandidateFilter;
@@ -57,6 +54,8 @@ public class FrontierSamplingWalkerController extends AWalkerController {
 
     public CandidateFilter cf;
     Collection<AWalker> walkers;
+    private AWalker[] wa;
+    private int[] degrees;
 
 	public FrontierSamplingWalkerController(Collection<AWalker> w,
 	    CandidateFilter cf) {
@@ -91,54 +90,52 @@ public class FrontierSamplingWalkerController extends AWalkerController {
      */
     @Override
     protected Collection<AWalker> getActiveWalkers() {
-	// return the walker with the highest node-degree
+	// select a walker with probability proportional to the degree of its
+	// current node
 	Random r = super.getRNG();
+	Adjacency adjacency = super.getGraph().getAdjacency();
 
-	double p = r.nextDouble();
-	Map<Node, List<Node>> c;
-	Map<AWalker, Integer> wp = new HashMap<AWalker, Integer>();
-
-	for (AWalker w : walkers) {
-	    c = w.getCurrentCandidates();
-	    int maxD = 0;
-	    for (Node n : c.keySet()) {
-		if (n.getDegree() > maxD) {
-		    maxD = n.getDegree();
-		}
-	    }
-	    wp.put(w, maxD);
+	if (wa == null || wa.length != walkers.size()) {
+	    wa = walkers.toArray(new AWalker[0]);
+	    degrees = new int[wa.length];
 	}
-	
-	AWalker active = null;
-	
-	double sumP = 0;
-	for(Integer i : wp.values()){
-		sumP += i;
+
+	double p = r.nextDouble();
+	long sumP = 0;
+	for (int i = 0; i < wa.length; i++) {
+	    degrees[i] = degree(wa[i], adjacency);
+	    sumP += degrees[i];
 	}
-	
+
+	// if all degrees are 0, the last walker is selected
+	AWalker active = wa[wa.length - 1];
 	double currentP = 0.0;
-	for(Iterator<Entry<AWalker, Integer>> iter = wp.entrySet().iterator(); iter.hasNext();){
-		Entry<AWalker, Integer> w = iter.next();
-		currentP += w.getValue()/sumP;
-		if(currentP > p){
-			active = w.getKey();
-			break;
-		}
-	}
-	
-	// should never happen
-	if(active==null){
-		int cd = -1;
-		for(AWalker w : walkers){
-			active = (cd > w.getCurrentNodes().toArray(new Node[0])[0].getDegree()) ? active : w;
-		}
+	for (int i = 0; i < wa.length; i++) {
+	    currentP += degrees[i] / (double) sumP;
+	    if (currentP > p) {
+		active = wa[i];
+		break;
+	    }
 	}
-	
-	Collection<AWalker> activeWalker = new ArrayList<AWalker>();
-	activeWalker.add(active);
 
-	return activeWalker;
+	return Collections.singletonList(active);
+
+    }
 
+    /**
+     * @param w
+     * @param adjacency
+     * @return the highest degree of the walker's current nodes
+     */
+    private int degree(AWalker w, Adjacency adjacency) {
+	if (w instanceof AIndexWalker) {
+	    return adjacency.getDegree(((AIndexWalker) w).getCurrentIndex());
+	}
+	int maxD = 0;
+	for (Node n : w.getCurrentNodes()) {
+	    maxD = Math.max(maxD, adjacency.getDegree(n.getIndex()));
+	}
+	return maxD;
     }
 
 }
@@ -35,10 +35,12 @@
  */
 package gtna.util;
 
+import gtna.graph.Adjacency;
 import gtna.graph.Edges;
 import gtna.graph.Graph;
 import gtna.graph.Node;
 
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -81,4 +83,46 @@ public class GraphUtils {
 		graph.setNodes(nodes);
 		return graph;
 	}
+
+	/**
+	 * Colors the nodes greedily, i.e., every node gets the smallest color not
+	 * used by any of its neighbors colored before. Nodes connected by an edge
+	 * (in any direction) get different colors, hence nodes of the same color
+	 * can be processed concurrently.
+	 * 
+	 * @param adjacency
+	 *            adjacency of the graph
+	 * @param order
+	 *            order in which the nodes are colored (null for the order of
+	 *            their index)
+	 * @return color of every node (in [0, maxDegree])
+	 */
+	public static int[] color(Adjacency adjacency, int[] order) {
+		int n = adjacency.getNodeCount();
+		int[] color = new int[n];
+		// used[c] == v + 1 iff color c is used by a neighbor of v
+		int[] used = new int[n + 1];
+		Arrays.fill(color, -1);
+		for (int i = 0; i < n; i++) {
+			int v = order == null ? i : order[i];
+			for (int e = adjacency.getOutStart(v); e < adjacency.getOutEnd(v); e++) {
+				int w = adjacency.getOutTarget(e);
+				if (color[w] != -1) {
+					used[color[w]] = v + 1;
+				}
+			}
+			for (int e = adjacency.getInStart(v); e < adjacency.getInEnd(v); e++) {
+				int w = adjacency.getInSource(e);
+				if (color[w] != -1) {
+					used[color[w]] = v + 1;
+				}
+			}
+			int c = 0;
+			while (used[c] == v + 1) {
+				c++;
+			}
+			color[v] = c;
+		}
+		return color;
+	}
 }
@@ -0,0 +1,255 @@
+/*
+ * ===========================================================
+ * GTNA : Graph-Theoretic Network Analyzer
+ * ===========================================================
+ * 
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors
+ * 
+ * Project Info:  http://www.p2p.tu-darmstadt.de/research/gtna/
+ * 
+ * GTNA is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * GTNA is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * ---------------------------------------
+ * Parallel.java
+ * ---------------------------------------
+ * (C) Copyright 2009-2011, by Benjamin Schiller (P2P, TU Darmstadt)
+ * and Contributors 
+ * 
+ * Original Author: -;
+ * Contributors:    -;
+ * 
+ * Changes since 2011-05-17
+ * ---------------------------------------
+ */
+package gtna.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Helper for executing a fixed number of independent tasks on a fork-join
+ * pool. The number of threads is taken from the configuration (e.g.,
+ * PARALLEL_METRICS) where a value <= 0 refers to all available processors.
+ * With a single thread, all tasks are executed sequentially in the calling
+ * thread.
+ *
+ * The CPU time of the tasks is charged to the CpuTime measured by the thread
+ * that calls run (if any), so that a CpuTime includes the work done on the
+ * pool threads on its behalf.
+ */
+public class Parallel {
+	public static interface Task {
+		/**
+		 * @param task
+		 *            index of the task in [0, tasks)
+		 */
+		public void run(int task);
+	}
+
+	/**
+	 * CPU time consumed by the current thread between start and stop plus
+	 * the CPU time of all tasks executed via run in the meantime (on any
+	 * thread, also by nested calls). While a pool thread executes a task, its
+	 * time is only charged to the CpuTime of that task, so time spent on
+	 * tasks stolen while waiting for other tasks is not counted twice.
+	 */
+	public static class CpuTime {
+		private AtomicLong nanos = new AtomicLong();
+
+		private boolean enabled;
+
+		private Frame previous;
+
+		public void start() {
+			this.enabled = bean.isCurrentThreadCpuTimeSupported()
+					&& bean.isThreadCpuTimeEnabled();
+			if (this.enabled) {
+				this.previous = Parallel.enter(this);
+			}
+		}
+
+		/**
+		 * Must be called by the thread that called start.
+		 * 
+		 * @return CPU time in nanoseconds (-1 in case it is not supported)
+		 */
+		public long stop() {
+			if (!this.enabled) {
+				return -1;
+			}
+			Parallel.leave(this.previous);
+			return this.nanos.get();
+		}
+	}
+
+	// CpuTime the current thread is working for and the CPU time of the
+	// thread when it last started doing so
+	private static class Frame {
+		private CpuTime cpuTime;
+
+		private long start;
+	}
+
+	private static final ThreadMXBean bean = ManagementFactory
+			.getThreadMXBean();
+
+	private static final ThreadLocal<Frame> frames = new ThreadLocal<Frame>();
+
+	private static HashMap<Integer, ForkJoinPool> pools = new HashMap<Integer, ForkJoinPool>();
+
+	/**
+	 * @param key
+	 *            config key holding the number of threads
+	 * @return number of threads to use
+	 */
+	public static int getThreads(String key) {
+		String value = Config.get(key);
+		int threads = value == null ? 1 : Integer.parseInt(value.trim());
+		if (threads <= 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		return threads;
+	}
+
+	public static synchronized ForkJoinPool getPool(int threads) {
+		ForkJoinPool pool = pools.get(threads);
+		if (pool == null) {
+			pool = new ForkJoinPool(threads);
+			pools.put(threads, pool);
+		}
+		return pool;
+	}
+
+	/**
+	 * Executes task.run(0) ... task.run(tasks - 1) using the given number of
+	 * threads and returns once all of them are finished.
+	 *
+	 * @param tasks
+	 *            number of tasks
+	 * @param threads
+	 *            number of threads
+	 * @param task
+	 *            task to execute
+	 */
+	public static void run(int tasks, int threads, final Task task) {
+		if (threads <= 1 || tasks <= 1) {
+			for (int i = 0; i < tasks; i++) {
+				task.run(i);
+			}
+			return;
+		}
+		Frame caller = frames.get();
+		final CpuTime cpuTime = caller == null ? null : caller.cpuTime;
+		final ArrayList<RecursiveAction> actions = new ArrayList<RecursiveAction>(
+				tasks);
+		for (int i = 0; i < tasks; i++) {
+			final int index = i;
+			actions.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					if (cpuTime == null) {
+						task.run(index);
+						return;
+					}
+					Frame previous = Parallel.enter(cpuTime);
+					try {
+						task.run(index);
+					} finally {
+						Parallel.leave(previous);
+					}
+				}
+			});
+		}
+		Parallel.getPool(threads).invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(actions);
+			}
+		});
+	}
+
+	/**
+	 * Charges the CPU time of the current thread to the given CpuTime from
+	 * now on (instead of to the one it worked for before).
+	 * 
+	 * @return frame of the CpuTime the thread worked for before (or null)
+	 */
+	private static Frame enter(CpuTime cpuTime) {
+		long now = bean.getCurrentThreadCpuTime();
+		Frame previous = frames.get();
+		if (previous != null) {
+			previous.cpuTime.nanos.addAndGet(now - previous.start);
+		}
+		Frame frame = new Frame();
+		frame.cpuTime = cpuTime;
+		frame.start = now;
+		frames.set(frame);
+		return previous;
+	}
+
+	/**
+	 * Charges the CPU time of the current thread to the CpuTime it worked for
+	 * before the matching call of enter again.
+	 */
+	private static void leave(Frame previous) {
+		long now = bean.getCurrentThreadCpuTime();
+		Frame frame = frames.get();
+		frame.cpuTime.nanos.addAndGet(now - frame.start);
+		if (previous == null) {
+			frames.remove();
+		} else {
+			previous.start = now;
+			frames.set(previous);
+		}
+	}
+
+	/**
+	 * @param elements
+	 *            number of elements
+	 * @param tasks
+	 *            number of tasks
+	 * @param task
+	 *            index of the task
+	 * @return first element of the given task when splitting the elements
+	 *         into consecutive blocks
+	 */
+	public static int getStart(int elements, int tasks, int task) {
+		return (int) ((long) elements * task / tasks);
+	}
+
+	/**
+	 * @param elements
+	 *            number of elements
+	 * @param tasks
+	 *            number of tasks
+	 * @param task
+	 *            index of the task
+	 * @return element after the last one of the given task when splitting the
+	 *         elements into consecutive blocks
+	 */
+	public static int getEnd(int elements, int tasks, int task) {
+		return (int) ((long) elements * (task + 1) / tasks);
+	}
+}
@@ -142,4 +142,59 @@ public class Statistics {
 
 		return cdf;
 	}
+
+	/**
+	 * @param confidence
+	 *            confidence level in (0, 1), e.g., 0.95
+	 * @return z such that a standard normal variable lies in [-z, z] with the
+	 *         given probability
+	 * @throws IllegalArgumentException
+	 *             in case the confidence level is not in (0, 1)
+	 */
+	public static double zValue(double confidence) {
+		if (!(confidence > 0 && confidence < 1)) {
+			throw new IllegalArgumentException(
+					"confidence level must be in (0, 1) but is " + confidence);
+		}
+		return Statistics.normalQuantile(1 - (1 - confidence) / 2);
+	}
+
+	/**
+	 * Inverse of the standard normal distribution function using the rational
+	 * approximation by Peter J. Acklam (relative error below 1.2e-9).
+	 * 
+	 * @param p
+	 *            probability in (0, 1)
+	 * @return x such that P(X <= x) = p for a standard normal variable X
+	 */
+	public static double normalQuantile(double p) {
+		final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02,
+				-2.759285104469687e+02, 1.383577518672690e+02,
+				-3.066479806614716e+01, 2.506628277459239e+00 };
+		final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02,
+				-1.556989798598866e+02, 6.680131188771972e+01,
+				-1.328068155288572e+01 };
+		final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01,
+				-2.400758277161838e+00, -2.549732539343734e+00,
+				4.374664141464968e+00, 2.938163982698783e+00 };
+		final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01,
+				2.445134137142996e+00, 3.754408661907416e+00 };
+		double low = 0.02425;
+		if (p < low) {
+			double q = Math.sqrt(-2 * Math.log(p));
+			return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4])
+					* q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+		} else if (p > 1 - low) {
+			double q = Math.sqrt(-2 * Math.log(1 - p));
+			return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4])
+					* q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+		}
+		double q = p - 0.5;
+		double r = q * q;
+		return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5])
+				* q
+				/ (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+	}
 }
@@ -44,6 +44,7 @@ import gtna.routing.RoutingAlgorithm;
 import gtna.util.parameter.Parameter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -148,6 +149,68 @@ public class Util {
 		}
 	}
 
+	/**
+	 * Derives the seed of the index-th generator from a base seed using the
+	 * SplitMix64 finalizer, so that the generators of consecutive indices
+	 * are uncorrelated.
+	 *
+	 * @param seed
+	 *            base seed
+	 * @param index
+	 *            index of the generator (e.g., run, route, or node)
+	 * @return seed for the given index
+	 */
+	public static long mix(long seed, long index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns a random number generator for the current run: in case the
+	 * given config key holds a seed other than 0, the generator is seeded
+	 * with mix(seed, Series.getCurrentRun()) so that every run can be
+	 * reproduced while different runs are uncorrelated.
+	 *
+	 * @param key
+	 *            config key holding the seed (0: random)
+	 * @return random number generator for the current run
+	 */
+	public static Random getRandom(String key) {
+		String value = Config.get(key);
+		long seed = value == null ? 0 : Long.parseLong(value.trim());
+		if (seed == 0) {
+			return new Random();
+		}
+		return new Random(Util.mix(seed, Series.getCurrentRun()));
+	}
+
+	/**
+	 * Selects k distinct elements of [0, n) uniformly at random (partial
+	 * Fisher-Yates shuffle).
+	 *
+	 * @param n
+	 *            number of elements
+	 * @param k
+	 *            number of elements to select (at most n)
+	 * @param rand
+	 * @return selected elements (in random order)
+	 */
+	public static int[] sample(int n, int k, Random rand) {
+		int[] permutation = new int[n];
+		for (int i = 0; i < n; i++) {
+			permutation[i] = i;
+		}
+		for (int i = 0; i < k; i++) {
+			int j = i + rand.nextInt(n - i);
+			int temp = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = temp;
+		}
+		return Arrays.copyOf(permutation, k);
+	}
+
 	// ///////////////////////
 	// init
 	// ///////////////////////